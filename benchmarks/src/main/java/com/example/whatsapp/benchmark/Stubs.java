@@ -0,0 +1,48 @@
+package com.example.whatsapp.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repositories, so services can be benchmarked without a database.
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * A proxy of the repository interface answering the named methods; any other call fails loudly
+     * rather than letting a benchmark silently measure nothing.
+     */
+    public static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + " stub";
+                case "hashCode" -> System.identityHashCode(self);
+                case "equals" -> self == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            };
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * Set a field Spring would have injected with {@code @Value}
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + fieldName + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.whatsapp.dto;
+
+import com.example.whatsapp.service.WebhookParser;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook request binding and outbound message serialization, with the ObjectMapper settings
+ * from application.properties. The webhook is read both by full binding and by the streaming
+ * WebhookParser fast path. Each outbound message type is written both by
+ * WhatsAppOutgoingMessage's generator and by the ObjectMapper from the equivalent map tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhatsAppPayloadBenchmark {
+
+    private static final String WEBHOOK = """
+            {"object":"whatsapp_business_account","entry":[{"id":"102290129340398","changes":[{"value":{
+            "messaging_product":"whatsapp","metadata":{"display_phone_number":"15550783881",
+            "phone_number_id":"106540352242922"},"contacts":[{"profile":{"name":"Tan Ah Lian"},
+            "wa_id":"6591234567"}],"messages":[{"from":"6591234567",
+            "id":"wamid.HBgLMTY1OTEyMzQ1NjcVAgASGBQzQTdCNTg1RjM0QjI1MDFEQkU2NgA=","timestamp":"1729321200",
+            "text":{"body":"Good morning! I went to the market with my neighbour and bought some fresh fish"},
+            "type":"text"}]},"field":"messages"}]}]}
+            """;
+
+    private static final String PHONE = "+6591234567";
+    private static final String REPLY =
+            "Good morning Mdm Tan! Fresh fish from the market sounds lovely. What will you cook with it?";
+
+    private byte[] webhookBytes;
+    private ObjectReader requestReader;
+    private WebhookParser webhookParser;
+    private ObjectWriter mapWriter;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = JsonMapper.builder()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .addModule(new JavaTimeModule())
+                .build();
+        webhookBytes = WEBHOOK.getBytes(StandardCharsets.UTF_8);
+        requestReader = mapper.readerFor(WhatsAppMessageRequest.class);
+        mapWriter = mapper.writerFor(Map.class);
+        webhookParser = new WebhookParser();
+
+        // Both ways must produce the same request body, and read the same message
+        try {
+            InboundMessage bound = InboundMessage.of(deserializeWebhook().getEntry().get(0).getChanges().get(0)
+                    .getValue().getMessages().get(0));
+            InboundMessage parsed = parseWebhook();
+            if (parsed == null || !parsed.getId().equals(bound.getId()) || !parsed.getFrom().equals(bound.getFrom())
+                    || !parsed.getTextBody().equals(bound.getTextBody())
+                    || !parsed.getTimestamp().equals(bound.getTimestamp())) {
+                throw new IllegalStateException("Fast path read " + parsed + ", binding read " + bound);
+            }
+            check(mapper, textMessage(), textMessageMap());
+            check(mapper, templateMessage(), templateMessageMap());
+            check(mapper, interactiveMessage(), interactiveMessageMap());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void check(ObjectMapper mapper, byte[] generated, byte[] mapped) throws Exception {
+        if (!mapper.readTree(generated).equals(mapper.readTree(mapped))) {
+            throw new IllegalStateException("Payloads differ: " + new String(generated, StandardCharsets.UTF_8)
+                    + " vs " + new String(mapped, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public WhatsAppMessageRequest deserializeWebhook() throws Exception {
+        return requestReader.readValue(webhookBytes);
+    }
+
+    @Benchmark
+    public InboundMessage parseWebhook() {
+        return webhookParser.parseTextMessage(webhookBytes);
+    }
+
+    @Benchmark
+    public byte[] textMessage() {
+        return WhatsAppOutgoingMessage.text(PHONE, REPLY).toJsonBytes();
+    }
+
+    @Benchmark
+    public byte[] textMessageMap() throws Exception {
+        return mapWriter.writeValueAsBytes(Map.of(
+                "messaging_product", "whatsapp",
+                "recipient_type", "individual",
+                "to", PHONE.substring(1),
+                "type", "text",
+                "text", Map.of("body", REPLY, "preview_url", false)));
+    }
+
+    @Benchmark
+    public byte[] templateMessage() {
+        return WhatsAppOutgoingMessage.template(PHONE, "weekly_wellness_summary", "en",
+                List.of("Mdm Tan", "mostly positive", "the market trip on Tuesday")).toJsonBytes();
+    }
+
+    @Benchmark
+    public byte[] templateMessageMap() throws Exception {
+        return mapWriter.writeValueAsBytes(Map.of(
+                "messaging_product", "whatsapp",
+                "recipient_type", "individual",
+                "to", PHONE.substring(1),
+                "type", "template",
+                "template", Map.of(
+                        "name", "weekly_wellness_summary",
+                        "language", Map.of("code", "en"),
+                        "components", List.of(Map.of(
+                                "type", "body",
+                                "parameters", List.of(
+                                        Map.of("type", "text", "text", "Mdm Tan"),
+                                        Map.of("type", "text", "text", "mostly positive"),
+                                        Map.of("type", "text", "text", "the market trip on Tuesday")))))));
+    }
+
+    @Benchmark
+    public byte[] interactiveMessage() {
+        return WhatsAppOutgoingMessage.buttons(PHONE, "How are you feeling this afternoon?", List.of(
+                new WhatsAppOutgoingMessage.Button("mood_good", "Feeling good"),
+                new WhatsAppOutgoingMessage.Button("mood_ok", "Just okay"),
+                new WhatsAppOutgoingMessage.Button("mood_low", "Not so good"))).toJsonBytes();
+    }
+
+    @Benchmark
+    public byte[] interactiveMessageMap() throws Exception {
+        return mapWriter.writeValueAsBytes(Map.of(
+                "messaging_product", "whatsapp",
+                "recipient_type", "individual",
+                "to", PHONE.substring(1),
+                "type", "interactive",
+                "interactive", Map.of(
+                        "type", "button",
+                        "body", Map.of("text", "How are you feeling this afternoon?"),
+                        "action", Map.of("buttons", List.of(
+                                Map.of("type", "reply", "reply", Map.of("id", "mood_good", "title", "Feeling good")),
+                                Map.of("type", "reply", "reply", Map.of("id", "mood_ok", "title", "Just okay")),
+                                Map.of("type", "reply", "reply", Map.of("id", "mood_low", "title", "Not so good")))))));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.benchmark.Stubs;
+import com.example.whatsapp.dto.GroqRequest;
+import com.example.whatsapp.entity.RecipientEntity;
+import com.example.whatsapp.entity.RecipientTopicEntity;
+import com.example.whatsapp.entity.RecipientTopicEntity.TopicType;
+import com.example.whatsapp.repository.RecipientRepository;
+import com.example.whatsapp.repository.RecipientTopicRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-turn work before an AI call: the conversation window, the recipient's system prompt
+ * (cached and rebuilt) and assembling the chat completion request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversationPromptBenchmark {
+
+    private static final String PHONE_NUMBER = "+6591234567";
+
+    private ConversationHistoryService.ConversationContext fullContext;
+    private ConversationHistoryService.ChatMessage userMessage;
+    private List<ConversationHistoryService.ChatMessage> history;
+    private PromptContextService promptContextService;
+    private AIProviderService aiProviderService;
+    private String systemPrompt;
+
+    @Setup
+    public void setUp() {
+        // A context at its 20-message cap, so every add also evicts the oldest message
+        fullContext = new ConversationHistoryService.ConversationContext(PHONE_NUMBER);
+        for (int i = 0; i < 20; i++) {
+            fullContext.addMessage(new ConversationHistoryService.ChatMessage(i % 2 == 0 ? "user" : "assistant",
+                    "Message number " + i + " about the weather, lunch and the grandchildren"));
+        }
+        userMessage = new ConversationHistoryService.ChatMessage("user", "I went for a walk in the park today");
+        history = fullContext.getMessages();
+
+        RecipientEntity recipient = new RecipientEntity();
+        recipient.setPhoneNumber(PHONE_NUMBER);
+        recipient.setName("Mdm Tan");
+        recipient.setDateOfBirth(LocalDate.of(1946, 3, 14));
+        recipient.setTimezone("Asia/Singapore");
+        List<RecipientTopicEntity> topics = List.of(
+                new RecipientTopicEntity(PHONE_NUMBER, "gardening", TopicType.FAVOURITE),
+                new RecipientTopicEntity(PHONE_NUMBER, "Cantonese opera", TopicType.FAVOURITE),
+                new RecipientTopicEntity(PHONE_NUMBER, "her grandchildren", TopicType.CHEER_UP),
+                new RecipientTopicEntity(PHONE_NUMBER, "hospital visits", TopicType.AVOID));
+        RecipientRepository recipients = Stubs.repository(RecipientRepository.class, Map.of(
+                "findByPhoneNumber", args -> PHONE_NUMBER.equals(args[0]) ? Optional.of(recipient) : Optional.empty()));
+        RecipientTopicRepository topicRepository = Stubs.repository(RecipientTopicRepository.class, Map.of(
+                "findByPhoneNumberIn", args -> topics));
+
+        promptContextService = new PromptContextService(recipients, topicRepository, 10_000, 360);
+        aiProviderService = new AIProviderService(promptContextService, new SimpleMeterRegistry(),
+                ObservationRegistry.NOOP);
+        Stubs.inject(aiProviderService, "maxTokens", 500);
+        Stubs.inject(aiProviderService, "temperature", 0.8);
+        systemPrompt = promptContextService.getSystemPrompt(PHONE_NUMBER);
+    }
+
+    @Benchmark
+    public ConversationHistoryService.ConversationContext addMessage() {
+        fullContext.addMessage(userMessage);
+        return fullContext;
+    }
+
+    @Benchmark
+    public List<ConversationHistoryService.ChatMessage> getMessages() {
+        return fullContext.getMessages();
+    }
+
+    @Benchmark
+    public String systemPromptCached() {
+        return promptContextService.getSystemPrompt(PHONE_NUMBER);
+    }
+
+    @Benchmark
+    public String systemPromptRebuilt() {
+        promptContextService.invalidate(PHONE_NUMBER);
+        return promptContextService.getSystemPrompt(PHONE_NUMBER);
+    }
+
+    @Benchmark
+    public GroqRequest buildChatRequest() {
+        return aiProviderService.buildChatRequest("llama-3.3-70b-versatile", history,
+                "I went for a walk in the park today", systemPrompt);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording sentiments into the in-memory alert windows across many users. The target is
+ * 1M events a minute, roughly 16.7k ops/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SentimentAlertEngineBenchmark {
+
+    private static final int EVENTS = 1 << 16;
+    private static final SentimentAnalysis.SentimentCategory[] CATEGORIES = SentimentAnalysis.SentimentCategory.values();
+
+    /** Distinct users the events are spread over */
+    @Param({"1000", "10000"})
+    public int users;
+
+    private SentimentAlertEngine engine;
+    private String[] phoneNumbers;
+    private LocalDateTime[] timestamps;
+    private SentimentAnalysis.SentimentCategory[] categories;
+    private Double[] confidences;
+
+    @Setup
+    public void setUp() {
+        engine = new SentimentAlertEngine(null, null,
+                "red-burst:count:RED:3:6h,concerning:count:RED+AMBER:5:12h,low-score:score:30:24h:4", 256);
+        Random random = new Random(42);
+        phoneNumbers = new String[EVENTS];
+        timestamps = new LocalDateTime[EVENTS];
+        categories = new SentimentAnalysis.SentimentCategory[EVENTS];
+        confidences = new Double[EVENTS];
+        // A day of traffic; the sequence wraps around, which only delays eviction until time catches up
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < EVENTS; i++) {
+            phoneNumbers[i] = "+65" + (80000000 + random.nextInt(users));
+            timestamps[i] = start.plusSeconds((long) i * 86_400 / EVENTS);
+            categories[i] = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            confidences[i] = 0.5 + random.nextDouble() / 2;
+        }
+        // Start measuring with every window populated
+        for (int i = 0; i < EVENTS; i++) {
+            engine.record(phoneNumbers[i], timestamps[i], categories[i], confidences[i]);
+        }
+    }
+
+    /**
+     * Position in the event sequence, one per benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup
+        public void setUp() {
+            next = (int) Thread.currentThread().getId() * 7919;
+        }
+    }
+
+    @Benchmark
+    public List<SentimentAlertEngine.Match> record(Cursor cursor) {
+        int i = cursor.next++ & (EVENTS - 1);
+        return engine.record(phoneNumbers[i], timestamps[i], categories[i], confidences[i]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<SentimentAlertEngine.Match> recordConcurrent(Cursor cursor) {
+        int i = cursor.next++ & (EVENTS - 1);
+        return engine.record(phoneNumbers[i], timestamps[i], categories[i], confidences[i]);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword rules and parsing of the AI's JSON verdict, both run for every inbound text message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SentimentAnalysisBenchmark {
+
+    private static final String[] MESSAGES = {
+            // red: matches the first rule group
+            "I feel so lonely and sad today, nobody has called me all week",
+            // green: falls through the red keywords first
+            "Had a wonderful lunch with my grandson, I am so grateful",
+            // amber
+            "I'm okay, just a bit tired after the market",
+            // no keyword at all: scans every rule group
+            "Went to the temple in the morning and then watched the news on television"
+    };
+
+    private static final String AI_RESPONSE = """
+            {
+              "category": "RED",
+              "confidence": 0.86,
+              "emotional_indicators": "lonely, sad, nobody has called",
+              "concern_level": "High",
+              "reasoning": "Expresses loneliness and sadness about social isolation"
+            }
+            """;
+
+    private static final String FENCED_AI_RESPONSE = "Here is the analysis:\n```json\n" + AI_RESPONSE + "```\n";
+
+    private SentimentAnalysisService service;
+
+    @Setup
+    public void setUp() {
+        service = new SentimentAnalysisService(new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+    }
+
+    /**
+     * The message under test, so only the rules benchmark is run once per message
+     */
+    @State(Scope.Benchmark)
+    public static class Message {
+        @Param({"red", "green", "amber", "none"})
+        public String kind;
+
+        String text;
+
+        @Setup
+        public void setUp() {
+            text = switch (kind) {
+                case "red" -> MESSAGES[0];
+                case "green" -> MESSAGES[1];
+                case "amber" -> MESSAGES[2];
+                default -> MESSAGES[3];
+            };
+        }
+    }
+
+    @Benchmark
+    public SentimentAnalysis analyzeWithRules(Message message) {
+        return service.analyzeWithRules(message.text);
+    }
+
+    @Benchmark
+    public SentimentAnalysis parseSentimentResponse() {
+        return service.parseSentimentResponse(AI_RESPONSE);
+    }
+
+    @Benchmark
+    public SentimentAnalysis parseFencedSentimentResponse() {
+        return service.parseSentimentResponse(FENCED_AI_RESPONSE);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.benchmark.Stubs;
+import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.WeeklyReport;
+import com.example.whatsapp.entity.ConversationSentiment;
+import com.example.whatsapp.entity.RecipientEntity;
+import com.example.whatsapp.entity.RecipientTopicEntity;
+import com.example.whatsapp.entity.RecipientTopicEntity.TopicType;
+import com.example.whatsapp.entity.SentimentRollup;
+import com.example.whatsapp.repository.ConversationSentimentRepository;
+import com.example.whatsapp.repository.RecipientRepository;
+import com.example.whatsapp.repository.RecipientTopicRepository;
+import com.example.whatsapp.repository.SentimentArchiveRepository;
+import com.example.whatsapp.repository.SentimentRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weekly report aggregation (from raw rows and from hourly rollups), building the report model,
+ * and rendering it with the precompiled email and WhatsApp templates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeeklyReportBenchmark {
+
+    private static final String PHONE_NUMBER = "+6591234567";
+    private static final SentimentAnalysis.SentimentCategory[] CATEGORIES = SentimentAnalysis.SentimentCategory.values();
+
+    /** Messages in the week; the large sizes are for aggregateRows, the rest stay on rollups */
+    @Param({"100", "2000", "10000", "100000", "1000000"})
+    public int messages;
+
+    private List<ConversationSentiment> sentiments;
+    private WeeklyReportService reportService;
+    private WeeklyReportRenderer renderer;
+    private RecipientEntity recipient;
+    private WeeklyReport report;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        sentiments = new ArrayList<>(messages);
+        Map<LocalDateTime, SentimentRollup> rollups = new TreeMap<>(Comparator.reverseOrder());
+        for (int i = 0; i < messages; i++) {
+            // Newest first, spread over the last 7 days
+            LocalDateTime timestamp = now.minusMinutes((long) i * 7 * 24 * 60 / messages);
+            SentimentAnalysis.SentimentCategory category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            ConversationSentiment sentiment = new ConversationSentiment(PHONE_NUMBER,
+                    "Message " + i + " about the day", "Reply " + i,
+                    new SentimentAnalysis(category, 0.5 + random.nextDouble() / 2, "", "", ""));
+            sentiment.setTimestamp(timestamp);
+            sentiments.add(sentiment);
+
+            LocalDateTime hour = timestamp.truncatedTo(ChronoUnit.HOURS);
+            rollups.computeIfAbsent(hour, h -> new SentimentRollup(PHONE_NUMBER, h))
+                    .add(category, 1, sentiment.getConfidenceScore(), timestamp, timestamp);
+        }
+        List<SentimentRollup> rollupList = new ArrayList<>(rollups.values());
+        List<ConversationSentiment> greens = sentiments.stream()
+                .filter(s -> s.getSentimentCategory() == SentimentAnalysis.SentimentCategory.GREEN)
+                .limit(3)
+                .toList();
+        List<RecipientTopicEntity> favourites = List.of(
+                new RecipientTopicEntity(PHONE_NUMBER, "gardening", TopicType.FAVOURITE),
+                new RecipientTopicEntity(PHONE_NUMBER, "Cantonese opera", TopicType.FAVOURITE));
+        List<RecipientTopicEntity> cheerUps = List.of(
+                new RecipientTopicEntity(PHONE_NUMBER, "her grandchildren", TopicType.CHEER_UP));
+
+        SentimentRollupRepository rollupRepository = Stubs.repository(SentimentRollupRepository.class, Map.of(
+                "findByPhoneNumberAndBucketStartGreaterThanEqualOrderByBucketStartDesc",
+                args -> PHONE_NUMBER.equals(args[0]) ? rollupList : List.of()));
+        ConversationSentimentRepository sentimentRepository = Stubs.repository(ConversationSentimentRepository.class, Map.of(
+                "findTop3ByPhoneNumberAndSentimentCategoryAndTimestampGreaterThanEqualOrderByTimestampDesc",
+                args -> greens));
+        RecipientTopicRepository topicRepository = Stubs.repository(RecipientTopicRepository.class, Map.of(
+                "findByPhoneNumberAndTopicType", args -> args[1] == TopicType.FAVOURITE ? favourites : cheerUps));
+
+        SentimentRollupService rollupService = new SentimentRollupService(rollupRepository, sentimentRepository,
+                Stubs.repository(SentimentArchiveRepository.class, Map.of()));
+        renderer = new WeeklyReportRenderer("report-templates/weekly-report-email.html",
+                "report-templates/weekly-report-whatsapp.txt");
+        reportService = new WeeklyReportService(sentimentRepository,
+                Stubs.repository(RecipientRepository.class, Map.of()), topicRepository, null, rollupService,
+                renderer, new SimpleMeterRegistry(), 30);
+
+        recipient = new RecipientEntity();
+        recipient.setPhoneNumber(PHONE_NUMBER);
+        recipient.setName("Mdm Tan");
+        report = reportService.generateReportData(PHONE_NUMBER, recipient);
+    }
+
+    @Benchmark
+    public WeeklyReportAccumulator aggregateRows() {
+        return WeeklyReportAccumulator.of(sentiments);
+    }
+
+    @Benchmark
+    public WeeklyReport generateReportData() {
+        return reportService.generateReportData(PHONE_NUMBER, recipient);
+    }
+
+    @Benchmark
+    public WeeklyReportRenderer.RenderedReport renderEmail() {
+        return renderer.renderEmail(report);
+    }
+
+    @Benchmark
+    public WeeklyReportRenderer.RenderedReport renderWhatsApp() {
+        return renderer.renderWhatsApp(report);
+    }
+}
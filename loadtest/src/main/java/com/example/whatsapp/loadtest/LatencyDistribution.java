@@ -0,0 +1,75 @@
+package com.example.whatsapp.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Injected latency of a mock endpoint: fixed:&lt;ms&gt;, uniform:&lt;min&gt;:&lt;max&gt; or
+ * lognormal:&lt;median&gt;:&lt;p99&gt;. A bare number is read as fixed.
+ */
+public final class LatencyDistribution {
+
+    // z-score of the 99th percentile of a standard normal
+    private static final double Z_99 = 2.3263;
+
+    private final String spec;
+    private final String type;
+    private final double a;
+    private final double b;
+
+    private LatencyDistribution(String spec, String type, double a, double b) {
+        this.spec = spec;
+        this.type = type;
+        this.a = a;
+        this.b = b;
+    }
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            return switch (parts[0]) {
+                case "fixed" -> new LatencyDistribution(spec, "fixed", Double.parseDouble(parts[1]), 0);
+                case "uniform" -> new LatencyDistribution(spec, "uniform",
+                        Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                case "lognormal" -> {
+                    double median = Double.parseDouble(parts[1]);
+                    double p99 = Double.parseDouble(parts[2]);
+                    if (median <= 0 || p99 < median) {
+                        throw new IllegalArgumentException("lognormal needs 0 < median <= p99: " + spec);
+                    }
+                    yield new LatencyDistribution(spec, "lognormal", Math.log(median), Math.log(p99 / median) / Z_99);
+                }
+                default -> new LatencyDistribution(spec, "fixed", Double.parseDouble(parts[0]), 0);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Expected fixed:<ms>, uniform:<min>:<max> or lognormal:<median>:<p99> but got: " + spec);
+        }
+    }
+
+    /**
+     * One latency draw, in milliseconds
+     */
+    public long sampleMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = switch (type) {
+            case "uniform" -> a + random.nextDouble() * (b - a);
+            case "lognormal" -> Math.exp(a + b * random.nextGaussian());
+            default -> a;
+        };
+        return Math.max(0, Math.round(millis));
+    }
+
+    /**
+     * Sleep for one draw
+     */
+    public void pause() throws InterruptedException {
+        long millis = sampleMillis();
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.whatsapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Entry point of loadtest.jar. Starts the mock Graph API and chat completions servers, drives
+ * webhooks through the app under test (which must be pointed at the mocks, see
+ * scripts/run-loadtest.sh), then prints and writes a JSON report of throughput, reply latency
+ * and resource usage.
+ */
+public final class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final Map<String, Double> PERCENTILES = Map.of("p50", 50.0, "p90", 90.0, "p99", 99.0, "p999", 99.9);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && ("--help".equals(args[0]) || "-h".equals(args[0]))) {
+            System.out.print(LoadTestOptions.USAGE);
+            return;
+        }
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        ReplyTracker replyTracker = new ReplyTracker();
+        MockGraphApi graphApi = new MockGraphApi(options.getInt("graph-port"), options.getLatency("graph-latency"),
+                options.getDouble("graph-error-rate"), options.getInt("graph-max-rps"), replyTracker);
+        MockChatCompletions chatCompletions = new MockChatCompletions(options.getInt("llm-port"),
+                options.getLatency("llm-latency"), options.getDuration("llm-token-interval"),
+                options.getDouble("llm-error-rate"), options.getInt("llm-error-status"));
+        graphApi.start();
+        chatCompletions.start();
+
+        if (options.getBoolean("mocks-only")) {
+            log.info("Mocks only. Start the app with --whatsapp.api.base-url=http://localhost:{}/v18.0 "
+                            + "--groq.api.base-url=http://localhost:{}/openai/v1 --groq.api.key=loadtest; Ctrl-C to stop",
+                    options.getInt("graph-port"), options.getInt("llm-port"));
+            Thread.currentThread().join();
+            return;
+        }
+
+        String appUrl = options.get("app-url");
+        awaitApp(appUrl, Duration.ofSeconds(120));
+
+        Duration duration = options.getDuration("duration");
+        WebhookTrafficGenerator generator = new WebhookTrafficGenerator(
+                URI.create(appUrl + options.get("webhook-path")),
+                new WebhookPayloads(options.getInt("users"), options.getDouble("media-ratio")),
+                replyTracker, options.getInt("max-in-flight"));
+        ResourceSampler sampler = new ResourceSampler(appUrl);
+
+        log.info("Posting {} webhooks/s for {} warmup + {} measured", options.get("rate"),
+                options.get("warmup"), options.get("duration"));
+        Instant startedAt = Instant.now();
+        sampler.start(options.getDuration("sample-interval"));
+        generator.run(options.getDouble("rate"), options.getDuration("warmup"), duration);
+        drain(generator, replyTracker, options.getDuration("drain"));
+        sampler.stop();
+        generator.shutdown();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("started_at", startedAt.toString());
+        report.put("options", options.asMap());
+        double seconds = duration.toMillis() / 1000.0;
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("offered_per_second", options.getDouble("rate"));
+        throughput.put("webhooks_per_second", generator.getMeasuredSent() / seconds);
+        throughput.put("replies_per_second", replyTracker.getMeasuredReplies() / seconds);
+        report.put("throughput", throughput);
+        report.put("reply_latency_ms", percentiles(replyTracker.getReplyLatencyMicros()));
+        report.put("webhook_latency_ms", percentiles(generator.getWebhookLatencyMicros()));
+        Map<String, Object> replies = new LinkedHashMap<>();
+        replies.put("measured", replyTracker.getMeasuredReplies());
+        replies.put("never_arrived", replyTracker.getOutstanding());
+        replies.put("unmatched", replyTracker.getUnmatchedReplies());
+        report.put("replies", replies);
+        report.put("webhooks", generator.getStats());
+        report.put("resources", sampler.getStats());
+        report.put("mock_graph_api", graphApi.getStats());
+        report.put("mock_llm", chatCompletions.getStats());
+
+        graphApi.stop();
+        chatCompletions.stop();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File reportFile = new File(options.get("report"));
+        mapper.writeValue(reportFile, report);
+        printSummary(report);
+        System.out.println("Report written to " + reportFile.getAbsolutePath());
+    }
+
+    private static void awaitApp(String appUrl, Duration timeout) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(appUrl + "/api/whatsapp/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (Exception e) {
+                // Not up yet
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("App at " + appUrl + " did not become healthy within " + timeout);
+    }
+
+    /**
+     * Wait for webhooks still in flight and replies still due, up to the timeout
+     */
+    private static void drain(WebhookTrafficGenerator generator, ReplyTracker replyTracker, Duration timeout)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline && (generator.getInFlight() > 0 || replyTracker.getOutstanding() > 0)) {
+            Thread.sleep(100);
+        }
+        if (generator.getInFlight() > 0 || replyTracker.getOutstanding() > 0) {
+            log.warn("Stopped draining after {} with {} webhooks in flight and {} replies outstanding",
+                    timeout, generator.getInFlight(), replyTracker.getOutstanding());
+        }
+    }
+
+    private static Map<String, Object> percentiles(Histogram micros) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", micros.getTotalCount());
+        new TreeMap<>(PERCENTILES).forEach((key, percentile) ->
+                result.put(key, micros.getValueAtPercentile(percentile) / 1000.0));
+        result.put("max", micros.getMaxValue() / 1000.0);
+        result.put("mean", micros.getMean() / 1000.0);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printSummary(Map<String, Object> report) {
+        Map<String, Object> throughput = (Map<String, Object>) report.get("throughput");
+        Map<String, Object> reply = (Map<String, Object>) report.get("reply_latency_ms");
+        Map<String, Object> webhook = (Map<String, Object>) report.get("webhook_latency_ms");
+        System.out.println();
+        System.out.printf("Offered            %10.1f webhooks/s%n", (Double) throughput.get("offered_per_second"));
+        System.out.printf("Accepted           %10.1f webhooks/s%n", (Double) throughput.get("webhooks_per_second"));
+        System.out.printf("Replied            %10.1f replies/s%n", (Double) throughput.get("replies_per_second"));
+        System.out.printf("Reply latency      p50 %8.1f ms   p99 %8.1f ms   max %8.1f ms%n",
+                reply.get("p50"), reply.get("p99"), reply.get("max"));
+        System.out.printf("Webhook latency    p50 %8.1f ms   p99 %8.1f ms   max %8.1f ms%n",
+                webhook.get("p50"), webhook.get("p99"), webhook.get("max"));
+        System.out.println("Replies            " + report.get("replies"));
+        System.out.println("Webhooks           " + report.get("webhooks"));
+        ((Map<String, Object>) report.get("resources")).forEach((key, value) ->
+                System.out.printf("%-18s %s%n", key, value));
+        System.out.println("Mock Graph API     " + report.get("mock_graph_api"));
+        System.out.println("Mock LLM           " + report.get("mock_llm"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.whatsapp.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Command line options, given as --name=value. Unknown names are rejected so a typo doesn't
+ * silently run the defaults.
+ */
+public final class LoadTestOptions {
+
+    static final String USAGE = """
+            Usage: java -jar loadtest.jar [--name=value ...]
+
+            Target application
+              --app-url=http://localhost:8080        application under test
+              --webhook-path=/api/whatsapp/webhook
+              --mocks-only=false                     only start the mocks and wait (point the app at them by hand)
+
+            Traffic
+              --rate=200                             webhook messages per second (open loop)
+              --duration=60s                         measured phase
+              --warmup=10s                           unmeasured phase before it (covers each user's first-message greeting)
+              --drain=30s                            how long to wait for outstanding replies afterwards
+              --users=1000                           distinct sender phone numbers
+              --media-ratio=0.05                     share of image messages; the rest are text
+              --max-in-flight=5000                   webhooks awaiting a response before new ones are dropped
+
+            Mock WhatsApp Graph API
+              --graph-port=9081
+              --graph-latency=lognormal:80:400       fixed:<ms> | uniform:<min>:<max> | lognormal:<median>:<p99>
+              --graph-error-rate=0                   share of sends answered with a 429 (code 130429)
+              --graph-max-rps=0                      sends per second above which every send gets a 429 (0 = unlimited)
+
+            Mock OpenAI-compatible /chat/completions
+              --llm-port=9082
+              --llm-latency=lognormal:600:2500       time to the first byte, same forms as --graph-latency
+              --llm-token-interval=20ms              delay between streamed chunks when "stream": true
+              --llm-error-rate=0                     share of completions answered with an error
+              --llm-error-status=500
+
+            Output
+              --report=loadtest-report.json
+              --sample-interval=1s                   how often the app's actuator metrics are sampled
+            """;
+
+    private final Map<String, String> values = new HashMap<>(Map.ofEntries(
+            Map.entry("app-url", "http://localhost:8080"),
+            Map.entry("webhook-path", "/api/whatsapp/webhook"),
+            Map.entry("mocks-only", "false"),
+            Map.entry("rate", "200"),
+            Map.entry("duration", "60s"),
+            Map.entry("warmup", "10s"),
+            Map.entry("drain", "30s"),
+            Map.entry("users", "1000"),
+            Map.entry("media-ratio", "0.05"),
+            Map.entry("max-in-flight", "5000"),
+            Map.entry("graph-port", "9081"),
+            Map.entry("graph-latency", "lognormal:80:400"),
+            Map.entry("graph-error-rate", "0"),
+            Map.entry("graph-max-rps", "0"),
+            Map.entry("llm-port", "9082"),
+            Map.entry("llm-latency", "lognormal:600:2500"),
+            Map.entry("llm-token-interval", "20ms"),
+            Map.entry("llm-error-rate", "0"),
+            Map.entry("llm-error-status", "500"),
+            Map.entry("report", "loadtest-report.json"),
+            Map.entry("sample-interval", "1s")));
+
+    private LoadTestOptions() {
+    }
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, eq);
+            if (!options.values.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+            options.values.put(name, arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    public String get(String name) {
+        return values.get(name);
+    }
+
+    public int getInt(String name) {
+        return Integer.parseInt(get(name));
+    }
+
+    public double getDouble(String name) {
+        return Double.parseDouble(get(name));
+    }
+
+    public boolean getBoolean(String name) {
+        return Boolean.parseBoolean(get(name));
+    }
+
+    public LatencyDistribution getLatency(String name) {
+        return LatencyDistribution.parse(get(name));
+    }
+
+    /**
+     * A duration such as 500ms, 30s or 2m
+     */
+    public Duration getDuration(String name) {
+        String value = get(name).trim();
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Expected a duration like 500ms, 30s or 2m for --" + name);
+        };
+    }
+
+    /**
+     * Every option with its effective value, for the report
+     */
+    public Map<String, String> asMap() {
+        return new TreeMap<>(values);
+    }
+}
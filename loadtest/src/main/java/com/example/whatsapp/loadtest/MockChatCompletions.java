@@ -0,0 +1,174 @@
+package com.example.whatsapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for an OpenAI-compatible POST .../chat/completions (Groq, OpenRouter, Together).
+ * Answers companion turns with a canned reply and sentiment prompts with a JSON verdict, after
+ * the configured latency; "stream": true gets server-sent chunks a token interval apart.
+ */
+public class MockChatCompletions extends MockServer {
+
+    // Recognises SentimentAnalysisService's prompt
+    private static final String SENTIMENT_PROMPT_MARKER = "emotional well-being";
+
+    private static final List<String> REPLIES = List.of(
+            "That sounds lovely! What did you enjoy most about it?",
+            "Oh dear, I'm sorry to hear that. Would you like to tell me more about how you are feeling?",
+            "How wonderful! Your grandchildren must love spending time with you.",
+            "Thank you for telling me. Remember to drink some water and rest a little this afternoon.",
+            "I'm glad you went out today. Fresh air always does us good, doesn't it?");
+
+    private final LatencyDistribution latency;
+    private final Duration tokenInterval;
+    private final double errorRate;
+    private final int errorStatus;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong sentimentRequests = new AtomicLong();
+    private final AtomicLong streamed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public MockChatCompletions(int port, LatencyDistribution latency, Duration tokenInterval,
+                               double errorRate, int errorStatus) {
+        super("mock-llm", port);
+        this.latency = latency;
+        this.tokenInterval = tokenInterval;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws Exception {
+        if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+            respondText(exchange, 404, "Not found");
+            return;
+        }
+        requests.incrementAndGet();
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        String model = request.path("model").asText("mock-model");
+        boolean sentiment = isSentimentPrompt(request.path("messages"));
+        (sentiment ? sentimentRequests : chatRequests).incrementAndGet();
+
+        latency.pause();
+
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            respondJson(exchange, errorStatus, Map.of("error", Map.of(
+                    "message", errorStatus == 429 ? "Rate limit reached for model " + model : "Internal server error",
+                    "type", errorStatus == 429 ? "rate_limit_exceeded" : "server_error")));
+            return;
+        }
+
+        String content = sentiment ? sentimentVerdict() : REPLIES.get(ThreadLocalRandom.current().nextInt(REPLIES.size()));
+        if (request.path("stream").asBoolean(false)) {
+            streamed.incrementAndGet();
+            stream(exchange, model, content);
+        } else {
+            respondJson(exchange, 200, completion(model, content));
+        }
+    }
+
+    private static boolean isSentimentPrompt(JsonNode messages) {
+        for (JsonNode message : messages) {
+            if (message.path("content").asText("").contains(SENTIMENT_PROMPT_MARKER)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sentimentVerdict() {
+        // Roughly the mix seen in production: mostly fine, some flat, a few concerning
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        String category = roll < 60 ? "GREEN" : roll < 90 ? "AMBER" : "RED";
+        return """
+                {"category": "%s", "confidence": 0.82, "emotional_indicators": "mock", \
+                "concern_level": "%s", "reasoning": "Mock verdict"}""".formatted(category,
+                "RED".equals(category) ? "High" : "AMBER".equals(category) ? "Medium" : "Low");
+    }
+
+    private Map<String, Object> completion(String model, String content) {
+        Map<String, Object> completion = new LinkedHashMap<>();
+        completion.put("id", "chatcmpl-mock-" + UUID.randomUUID());
+        completion.put("object", "chat.completion");
+        completion.put("created", Instant.now().getEpochSecond());
+        completion.put("model", model);
+        completion.put("choices", List.of(Map.of(
+                "index", 0,
+                "message", Map.of("role", "assistant", "content", content),
+                "finish_reason", "stop")));
+        int completionTokens = content.split("\\s+").length;
+        completion.put("usage", Map.of("prompt_tokens", 400, "completion_tokens", completionTokens,
+                "total_tokens", 400 + completionTokens));
+        return completion;
+    }
+
+    /**
+     * Server-sent chat.completion.chunk events, one word per chunk, ending with [DONE]
+     */
+    private void stream(HttpExchange exchange, String model, String content) throws Exception {
+        String id = "chatcmpl-mock-" + UUID.randomUUID();
+        long created = Instant.now().getEpochSecond();
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            String[] words = content.split("(?<= )");
+            for (int i = 0; i < words.length; i++) {
+                if (i > 0 && !tokenInterval.isZero()) {
+                    Thread.sleep(tokenInterval.toMillis());
+                }
+                Map<String, Object> delta = i == 0
+                        ? Map.of("role", "assistant", "content", words[i])
+                        : Map.of("content", words[i]);
+                writeEvent(out, chunk(id, created, model, delta, null));
+            }
+            writeEvent(out, chunk(id, created, model, Map.of(), "stop"));
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private Map<String, Object> chunk(String id, long created, String model, Map<String, Object> delta, String finishReason) {
+        Map<String, Object> choice = new LinkedHashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        Map<String, Object> chunk = new LinkedHashMap<>();
+        chunk.put("id", id);
+        chunk.put("object", "chat.completion.chunk");
+        chunk.put("created", created);
+        chunk.put("model", model);
+        chunk.put("choices", List.of(choice));
+        return chunk;
+    }
+
+    private void writeEvent(OutputStream out, Object data) throws Exception {
+        out.write(("data: " + objectMapper.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("latency", latency.toString());
+        stats.put("requests", requests.get());
+        stats.put("chat_requests", chatRequests.get());
+        stats.put("sentiment_requests", sentimentRequests.get());
+        stats.put("streamed", streamed.get());
+        stats.put("errors", errors.get());
+        return stats;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.whatsapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the WhatsApp Cloud API's POST /{version}/{phone-number-id}/messages. Records each
+ * accepted send with the reply tracker, and answers with Graph's 429 (code 130429) at the
+ * configured error rate or above the configured sends per second.
+ */
+public class MockGraphApi extends MockServer {
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final int maxRps;
+    private final ReplyTracker replyTracker;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+
+    // Sends counted against --graph-max-rps in the current one-second window
+    private final AtomicLong windowSecond = new AtomicLong();
+    private final AtomicLong windowCount = new AtomicLong();
+
+    public MockGraphApi(int port, LatencyDistribution latency, double errorRate, int maxRps, ReplyTracker replyTracker) {
+        super("mock-graph", port);
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.maxRps = maxRps;
+        this.replyTracker = replyTracker;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws Exception {
+        if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/messages")) {
+            respondText(exchange, 404, "Not found");
+            return;
+        }
+        requests.incrementAndGet();
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        String to = body.path("to").asText(null);
+        if (to == null) {
+            malformed.incrementAndGet();
+            respondJson(exchange, 400, graphError(100, "(#100) The parameter to is required.", 0));
+            return;
+        }
+
+        latency.pause();
+
+        if (overRateLimit() || ThreadLocalRandom.current().nextDouble() < errorRate) {
+            rateLimited.incrementAndGet();
+            respondJson(exchange, 429, graphError(130429, "(#130429) Rate limit hit", 2494055));
+            return;
+        }
+
+        accepted.incrementAndGet();
+        replyTracker.replied(to, System.nanoTime());
+        respondJson(exchange, 200, Map.of(
+                "messaging_product", "whatsapp",
+                "contacts", List.of(Map.of("input", to, "wa_id", to)),
+                "messages", List.of(Map.of("id", "wamid.mock-" + UUID.randomUUID()))));
+    }
+
+    private boolean overRateLimit() {
+        if (maxRps <= 0) {
+            return false;
+        }
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = windowSecond.get();
+        if (current != second && windowSecond.compareAndSet(current, second)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() > maxRps;
+    }
+
+    private static Map<String, Object> graphError(int code, String message, int subcode) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("message", message);
+        error.put("type", "OAuthException");
+        error.put("code", code);
+        if (subcode != 0) {
+            error.put("error_subcode", subcode);
+        }
+        error.put("fbtrace_id", "mock" + Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        return Map.of("error", error);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("latency", latency.toString());
+        stats.put("requests", requests.get());
+        stats.put("accepted", accepted.get());
+        stats.put("rate_limited", rateLimited.get());
+        stats.put("malformed", malformed.get());
+        return stats;
+    }
+}
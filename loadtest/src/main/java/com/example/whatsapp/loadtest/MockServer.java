@@ -0,0 +1,83 @@
+package com.example.whatsapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base of the local stand-ins: a JDK HTTP server with one thread per in-flight request, so
+ * injected latency is a plain sleep and never queues other requests behind it.
+ */
+abstract class MockServer {
+
+    private static final Logger log = LoggerFactory.getLogger(MockServer.class);
+
+    protected final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String name;
+    private final int port;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    protected MockServer(String name, int port) {
+        this.name = name;
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("{} failed on {} {}: {}", name, exchange.getRequestMethod(), exchange.getRequestURI(), e.toString());
+            }
+        });
+        server.start();
+        log.info("{} listening on http://localhost:{}", name, port);
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    protected abstract void handle(HttpExchange exchange) throws Exception;
+
+    protected void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    protected void respondJson(HttpExchange exchange, int status, Object body) throws IOException {
+        respond(exchange, status, "application/json", objectMapper.writeValueAsBytes(body));
+    }
+
+    protected void respondText(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, "text/plain", body.getBytes(StandardCharsets.UTF_8));
+    }
+}
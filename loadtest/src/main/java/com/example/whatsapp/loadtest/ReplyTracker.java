@@ -0,0 +1,79 @@
+package com.example.whatsapp.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pairs each webhook the generator posts with the reply the app sends back to the same number,
+ * first in first out per sender. Reply latency runs from posting the webhook to the mock Graph
+ * API accepting the reply.
+ */
+public class ReplyTracker {
+
+    private record Pending(long sentNanos, boolean measured) {
+    }
+
+    private final Map<String, Queue<Pending>> pending = new ConcurrentHashMap<>();
+    private final Histogram replyLatencyMicros = new ConcurrentHistogram(3);
+    private final AtomicLong outstanding = new AtomicLong();
+    private final AtomicLong measuredReplies = new AtomicLong();
+    private final AtomicLong unmatchedReplies = new AtomicLong();
+
+    /**
+     * A webhook from this number was posted
+     */
+    public void sent(String phoneNumber, long sentNanos, boolean measured) {
+        pending.computeIfAbsent(phoneNumber, k -> new ConcurrentLinkedQueue<>()).add(new Pending(sentNanos, measured));
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * The webhook for this number failed outright, so no reply will come
+     */
+    public void abandoned(String phoneNumber) {
+        Queue<Pending> queue = pending.get(phoneNumber);
+        if (queue != null && queue.poll() != null) {
+            outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * The app sent a message to this number
+     */
+    public void replied(String phoneNumber, long receivedNanos) {
+        Queue<Pending> queue = pending.get(phoneNumber);
+        Pending sent = queue != null ? queue.poll() : null;
+        if (sent == null) {
+            // Not a reply to the generator, e.g. a wellness check or caretaker alert
+            unmatchedReplies.incrementAndGet();
+            return;
+        }
+        outstanding.decrementAndGet();
+        if (sent.measured()) {
+            replyLatencyMicros.recordValue(Math.max(0, (receivedNanos - sent.sentNanos()) / 1000));
+            measuredReplies.incrementAndGet();
+        }
+    }
+
+    public long getOutstanding() {
+        return outstanding.get();
+    }
+
+    public long getMeasuredReplies() {
+        return measuredReplies.get();
+    }
+
+    public long getUnmatchedReplies() {
+        return unmatchedReplies.get();
+    }
+
+    public Histogram getReplyLatencyMicros() {
+        return replyLatencyMicros;
+    }
+}
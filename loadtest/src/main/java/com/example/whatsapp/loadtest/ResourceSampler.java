@@ -0,0 +1,127 @@
+package com.example.whatsapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the app's resource use from its actuator metrics endpoint while the test runs, plus
+ * this process's own CPU so a saturated generator can be told apart from a saturated app.
+ */
+public class ResourceSampler {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceSampler.class);
+
+    // Report key -> actuator metric (with tag filter)
+    private static final Map<String, String> APP_METRICS = Map.of(
+            "app_process_cpu", "process.cpu.usage",
+            "app_system_cpu", "system.cpu.usage",
+            "app_heap_used_bytes", "jvm.memory.used?tag=area:heap",
+            "app_live_threads", "jvm.threads.live",
+            "app_db_connections_active", "hikaricp.connections.active",
+            "app_db_connections_pending", "hikaricp.connections.pending");
+
+    private final String appUrl;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Summary> summaries = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "resource-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean warned;
+
+    public ResourceSampler(String appUrl) {
+        this.appUrl = appUrl;
+    }
+
+    public void start(Duration interval) {
+        scheduler.scheduleAtFixedRate(this::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void sample() {
+        APP_METRICS.forEach((key, metric) -> {
+            Double value = fetch(metric);
+            if (value != null) {
+                record(key, value);
+            }
+        });
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            record("loadtest_process_cpu", os.getProcessCpuLoad());
+        }
+    }
+
+    private Double fetch(String metric) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(appUrl + "/actuator/metrics/" + metric))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+                if ("VALUE".equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (!warned) {
+                warned = true;
+                log.warn("Cannot read {}/actuator/metrics ({}); resource usage will be incomplete", appUrl, e.toString());
+            }
+        }
+        return null;
+    }
+
+    private synchronized void record(String key, double value) {
+        if (value >= 0) {
+            summaries.computeIfAbsent(key, k -> new Summary()).add(value);
+        }
+    }
+
+    /**
+     * Mean and max of every sampled value
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        summaries.forEach((key, summary) -> stats.put(key, Map.of(
+                "mean", summary.sum / summary.count,
+                "max", summary.max,
+                "samples", summary.count)));
+        return stats;
+    }
+
+    private static final class Summary {
+        long count;
+        double sum;
+        double max;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.whatsapp.loadtest;
+
+import com.example.whatsapp.dto.WhatsAppMessageRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds Cloud API "messages" webhooks as Meta sends them, bound from the app's own
+ * {@link WhatsAppMessageRequest} so the payloads can't drift from what the app accepts.
+ */
+public class WebhookPayloads {
+
+    private static final String BUSINESS_ACCOUNT_ID = "102290129340398";
+    private static final String DISPLAY_PHONE_NUMBER = "15550783881";
+    private static final String PHONE_NUMBER_ID = "106540352242922";
+
+    private static final List<String> TEXTS = List.of(
+            "Good morning! I went to the market with my neighbour and bought some fresh fish",
+            "Had a wonderful lunch with my grandson today, I am so grateful",
+            "I'm okay, just a bit tired after the walk",
+            "My knee is hurting again and I could not sleep last night",
+            "I feel so lonely, nobody has called me all week",
+            "Watched my favourite Cantonese opera on TV this afternoon",
+            "The weather is very hot today, I stayed at home",
+            "My daughter is coming to visit on Sunday, I will cook her favourite soup",
+            "Forgot to take my medicine this morning, took it after lunch",
+            "Thank you for checking on me, you are very kind");
+
+    private static final List<String> NAMES = List.of(
+            "Tan Ah Lian", "Lim Bee Hoon", "Wong Siew Mei", "Goh Kim Seng", "Lee Ah Kow", "Siti Aminah");
+
+    private final ObjectWriter writer;
+    private final int users;
+    private final double mediaRatio;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public WebhookPayloads(int users, double mediaRatio) {
+        ObjectMapper mapper = JsonMapper.builder()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        this.writer = mapper.writerFor(WhatsAppMessageRequest.class);
+        this.users = users;
+        this.mediaRatio = mediaRatio;
+    }
+
+    /**
+     * Sender number of the given user, without the leading + as Meta sends it
+     */
+    public String phoneNumber(int user) {
+        return "65" + (80000000 + user);
+    }
+
+    public String randomPhoneNumber() {
+        return phoneNumber(ThreadLocalRandom.current().nextInt(users));
+    }
+
+    /**
+     * One inbound message from the given sender, serialized
+     */
+    public byte[] message(String from) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        WhatsAppMessageRequest.Message message = new WhatsAppMessageRequest.Message();
+        message.setFrom(from);
+        message.setId("wamid.loadtest." + sequence.incrementAndGet() + "." + Long.toHexString(random.nextLong()));
+        message.setTimestamp(String.valueOf(Instant.now().getEpochSecond()));
+        if (random.nextDouble() < mediaRatio) {
+            message.setType("image");
+            message.setImage(new WhatsAppMessageRequest.Image(
+                    String.valueOf(1_000_000_000_000L + random.nextLong(1_000_000_000L)), "My garden", "image/jpeg"));
+        } else {
+            message.setType("text");
+            message.setText(new WhatsAppMessageRequest.Text(TEXTS.get(random.nextInt(TEXTS.size()))));
+        }
+
+        WhatsAppMessageRequest.Contact contact = new WhatsAppMessageRequest.Contact(
+                new WhatsAppMessageRequest.Profile(NAMES.get(Math.floorMod(from.hashCode(), NAMES.size()))), from);
+        WhatsAppMessageRequest.Value value = new WhatsAppMessageRequest.Value("whatsapp",
+                new WhatsAppMessageRequest.Metadata(DISPLAY_PHONE_NUMBER, PHONE_NUMBER_ID),
+                List.of(contact), List.of(message));
+        WhatsAppMessageRequest request = new WhatsAppMessageRequest("whatsapp_business_account", List.of(
+                new WhatsAppMessageRequest.Entry(BUSINESS_ACCOUNT_ID, List.of(
+                        new WhatsAppMessageRequest.Change("messages", value)))));
+        try {
+            return writer.writeValueAsBytes(request);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.whatsapp.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Posts webhooks to the app at a fixed rate (open loop: the schedule does not wait for
+ * responses, so a slow app shows up as latency rather than as a lower offered rate).
+ */
+public class WebhookTrafficGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookTrafficGenerator.class);
+
+    private final URI webhookUri;
+    private final WebhookPayloads payloads;
+    private final ReplyTracker replyTracker;
+    private final int maxInFlight;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+
+    private final Histogram webhookLatencyMicros = new ConcurrentHistogram(3);
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong measuredSent = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+    public WebhookTrafficGenerator(URI webhookUri, WebhookPayloads payloads, ReplyTracker replyTracker, int maxInFlight) {
+        this.webhookUri = webhookUri;
+        this.payloads = payloads;
+        this.replyTracker = replyTracker;
+        this.maxInFlight = maxInFlight;
+        this.executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()), task -> {
+            Thread thread = new Thread(task, "webhook-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Post at the given rate for warmup + duration; only messages posted after the warmup are
+     * measured. Returns once the last message has been posted, not answered.
+     */
+    public void run(double ratePerSecond, Duration warmup, Duration duration) {
+        long intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long lastProgress = start;
+
+        for (long next = start; next < end; next += intervalNanos) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // Scheduled send time, so a stall in this loop is charged to latency (no coordinated omission)
+            post(next, next >= measureFrom);
+
+            if (next - lastProgress >= 10_000_000_000L) {
+                lastProgress = next;
+                log.info("{}s: {} posted, {} in flight, {} replies outstanding", (next - start) / 1_000_000_000L,
+                        sent.get(), inFlight.get(), replyTracker.getOutstanding());
+            }
+        }
+    }
+
+    private void post(long scheduledNanos, boolean measured) {
+        if (inFlight.get() >= maxInFlight) {
+            dropped.incrementAndGet();
+            return;
+        }
+        String from = payloads.randomPhoneNumber();
+        HttpRequest request = HttpRequest.newBuilder(webhookUri)
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payloads.message(from)))
+                .build();
+
+        inFlight.incrementAndGet();
+        sent.incrementAndGet();
+        if (measured) {
+            measuredSent.incrementAndGet();
+        }
+        replyTracker.sent(from, scheduledNanos, measured);
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        webhookLatencyMicros.recordValue(Math.max(0, (System.nanoTime() - scheduledNanos) / 1000));
+                    }
+                    if (error != null) {
+                        failed.incrementAndGet();
+                        statuses.computeIfAbsent(0, k -> new AtomicLong()).incrementAndGet();
+                        replyTracker.abandoned(from);
+                        return;
+                    }
+                    statuses.computeIfAbsent(response.statusCode(), k -> new AtomicLong()).incrementAndGet();
+                    if (response.statusCode() / 100 == 2) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                });
+    }
+
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getMeasuredSent() {
+        return measuredSent.get();
+    }
+
+    public Histogram getWebhookLatencyMicros() {
+        return webhookLatencyMicros;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("posted", sent.get());
+        stats.put("measured", measuredSent.get());
+        stats.put("succeeded", succeeded.get());
+        stats.put("failed", failed.get());
+        stats.put("dropped", dropped.get());
+        Map<String, Long> byStatus = new TreeMap<>();
+        statuses.forEach((status, count) -> byStatus.put(status == 0 ? "no_response" : String.valueOf(status), count.get()));
+        stats.put("statuses", byStatus);
+        return stats;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
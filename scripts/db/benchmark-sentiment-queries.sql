@@ -0,0 +1,74 @@
+-- Plans and timings for the application's conversation_sentiments queries.
+--
+-- Usage: psql -v phone="+6580000042" -f scripts/db/benchmark-sentiment-queries.sql
+-- (phone defaults to one of the generated benchmark users)
+--
+-- Each query is the SQL the repositories issue. Compare "Execution Time" and "Buffers"
+-- as the dataset grows: with monthly partitions, pages and recent-window scans touch only
+-- the newest partitions, so they should stay flat.
+
+\if :{?phone}
+\else
+\set phone '+6580000042'
+\endif
+
+\timing on
+\pset pager off
+
+\echo '== User history, first page (SentimentSummary projection, limit 51)'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, phone_number, timestamp, sentiment_category, confidence_score, concern_level, requires_attention
+FROM conversation_sentiments
+WHERE phone_number = :'phone'
+  AND timestamp <= '9999-12-31 23:59:59' AND (timestamp < '9999-12-31 23:59:59' OR id < 9223372036854775807)
+ORDER BY timestamp DESC, id DESC
+LIMIT 51;
+
+\echo '== User history, page starting six months back'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, phone_number, timestamp, sentiment_category, confidence_score, concern_level, requires_attention
+FROM conversation_sentiments
+WHERE phone_number = :'phone'
+  AND timestamp <= localtimestamp - interval '6 months'
+  AND (timestamp < localtimestamp - interval '6 months' OR id < 9223372036854775807)
+ORDER BY timestamp DESC, id DESC
+LIMIT 51;
+
+\echo '== Conversations requiring attention, first page'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, phone_number, timestamp, sentiment_category, confidence_score, concern_level, requires_attention
+FROM conversation_sentiments
+WHERE requires_attention = true
+  AND timestamp <= '9999-12-31 23:59:59' AND (timestamp < '9999-12-31 23:59:59' OR id < 9223372036854775807)
+ORDER BY timestamp DESC, id DESC
+LIMIT 51;
+
+\echo '== RED category, first page'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, phone_number, timestamp, sentiment_category, confidence_score, concern_level, requires_attention
+FROM conversation_sentiments
+WHERE sentiment_category = 'RED'
+  AND timestamp <= '9999-12-31 23:59:59' AND (timestamp < '9999-12-31 23:59:59' OR id < 9223372036854775807)
+ORDER BY timestamp DESC, id DESC
+LIMIT 51;
+
+\echo '== Latest sentiment in the last week (trend analysis)'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM conversation_sentiments
+WHERE phone_number = :'phone' AND timestamp >= localtimestamp - interval '7 days'
+ORDER BY timestamp DESC
+LIMIT 1;
+
+\echo '== Alert window replay after restart (last 10 minutes)'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT phone_number, timestamp, sentiment_category, confidence_score
+FROM conversation_sentiments
+WHERE timestamp > localtimestamp - interval '10 minutes'
+ORDER BY timestamp, id;
+
+\echo '== Rollup reconciliation, last two days'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT phone_number, date_trunc('hour', timestamp), sentiment_category, count(*), sum(confidence_score)
+FROM conversation_sentiments
+WHERE timestamp >= date_trunc('day', localtimestamp) - interval '2 days' AND timestamp < date_trunc('day', localtimestamp)
+GROUP BY 1, 2, 3;
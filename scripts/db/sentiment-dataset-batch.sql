@@ -0,0 +1,27 @@
+-- Insert one batch of synthetic conversation_sentiments rows.
+-- psql variables: start (first row number - 1), rows, users, months
+--
+-- Categories are roughly 70% GREEN / 20% AMBER / 10% RED, timestamps are spread uniformly
+-- over the last :months months and messages have realistic TEXT sizes.
+
+INSERT INTO conversation_sentiments (phone_number, user_message, ai_response, sentiment_category,
+                                     confidence_score, emotional_indicators, concern_level, reasoning,
+                                     timestamp, requires_attention)
+SELECT '+65' || (80000000 + (g % :users)),
+       'Benchmark message ' || g || ' ' || repeat('x', 60 + (g % 140)),
+       'Benchmark reply ' || g || ' ' || repeat('y', 120 + (g % 200)),
+       s.category,
+       s.confidence,
+       CASE s.category WHEN 'RED' THEN 'sad, lonely' WHEN 'AMBER' THEN 'tired' ELSE 'happy, grateful' END,
+       CASE s.category WHEN 'RED' THEN 'High' WHEN 'AMBER' THEN 'Medium' ELSE 'Low' END,
+       'Generated benchmark row',
+       localtimestamp - s.age,
+       s.category = 'RED'
+FROM generate_series(:start + 1, :start + :rows) AS g
+CROSS JOIN LATERAL (
+    SELECT CASE WHEN r.roll < 0.70 THEN 'GREEN' WHEN r.roll < 0.90 THEN 'AMBER' ELSE 'RED' END AS category,
+           round((0.5 + random() * 0.5)::numeric, 2)::float8 AS confidence,
+           random() * (:months * interval '30 days') AS age
+    -- Referencing g keeps random() from being evaluated only once
+    FROM (SELECT random() + g * 0 AS roll) r
+) s;
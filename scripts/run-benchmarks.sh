@@ -0,0 +1,18 @@
+#!/bin/bash
+
+# Builds and runs the JMH benchmarks module
+#
+# Installs the application's plain classes jar (the "benchmarks" profile), packages
+# benchmarks/target/benchmarks.jar and runs it. Arguments go straight to JMH, e.g.
+#   ./scripts/run-benchmarks.sh SentimentAnalysis -f 1 -wi 2 -i 3
+#   ./scripts/run-benchmarks.sh -l
+# Results are written to jmh-result.json (JSON, with the GC profiler's allocation rates)
+# unless -rf/-rff/-prof are given.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+mvn -B -q -Pbenchmarks install -DskipTests
+mvn -B -q -f benchmarks/pom.xml package
+java -jar benchmarks/target/benchmarks.jar "$@"
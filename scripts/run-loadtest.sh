@@ -0,0 +1,43 @@
+#!/bin/bash
+
+# End-to-end load test against a locally started app
+#
+# Builds the app and loadtest/target/loadtest.jar, starts the app with its Graph API and Groq
+# base URLs pointed at the load test's mocks, runs the load test and stops the app again.
+# Arguments go to the load test (see --help), e.g.
+#   ./scripts/run-loadtest.sh --rate=500 --duration=120s --llm-latency=lognormal:400:1500
+#
+# APP_URL: test an app that is already running (pointed at the mocks by hand) instead
+# APP_ARGS: extra arguments for the started app, e.g. a PostgreSQL datasource
+# The report is written to loadtest-report.json and the app's log to target/loadtest-app.log.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+GRAPH_PORT=9081
+LLM_PORT=9082
+APP_PORT=${APP_PORT:-8080}
+
+mvn -B -q -Pbenchmarks install -DskipTests
+mvn -B -q -f loadtest/pom.xml package
+
+APP_PID=""
+if [ -z "${APP_URL:-}" ]; then
+    APP_URL="http://localhost:${APP_PORT}"
+    # Per-message INFO logging would be what gets measured; schedulers would add unmatched sends
+    java -jar target/whatsapp-integration-0.0.1-SNAPSHOT.jar \
+        --server.port="${APP_PORT}" \
+        --whatsapp.api.base-url="http://localhost:${GRAPH_PORT}/v18.0" \
+        --groq.api.base-url="http://localhost:${LLM_PORT}/openai/v1" \
+        --groq.api.key=loadtest \
+        --ai.primary.provider=groq \
+        --wellness.scheduler.enabled=false \
+        --logging.level.com.example.whatsapp=WARN \
+        ${APP_ARGS:-} > target/loadtest-app.log 2>&1 &
+    APP_PID=$!
+    trap 'kill "$APP_PID" 2>/dev/null || true' EXIT
+fi
+
+java -jar loadtest/target/loadtest.jar --app-url="${APP_URL}" \
+    --graph-port="${GRAPH_PORT}" --llm-port="${LLM_PORT}" "$@"
@@ -0,0 +1,107 @@
+package com.example.whatsapp.config;
+
+import com.example.whatsapp.dto.TraceSpan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.tracing.exporter.SpanExportingPredicate;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Span exporters beyond the in-memory store, and which spans get exported. Spring Boot hands
+ * every SpanExporter and SpanExportingPredicate bean to its batch span processor.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public SpanExportingPredicate detachedQueryFilter() {
+        // Startup and housekeeping queries outside any request would otherwise each be a one-span trace
+        return span -> !("query".equals(span.getName())
+                && (span.getParentId() == null || !SpanId.isValid(span.getParentId())));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.export.file")
+    public SpanExporter fileSpanExporter(@Value("${tracing.export.file}") String file) {
+        return new FileSpanExporter(Path.of(file));
+    }
+
+    /**
+     * Appends finished spans to a file, one JSON object per line.
+     */
+    static class FileSpanExporter implements SpanExporter {
+
+        private static final Logger log = LoggerFactory.getLogger(FileSpanExporter.class);
+
+        private final Path file;
+        private final ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        private BufferedWriter writer;
+
+        FileSpanExporter(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+            try {
+                if (writer == null) {
+                    if (file.getParent() != null) {
+                        Files.createDirectories(file.getParent());
+                    }
+                    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    log.info("Writing trace spans to {}", file.toAbsolutePath());
+                }
+                for (SpanData span : spans) {
+                    writer.write(objectMapper.writeValueAsString(TraceSpan.from(span)));
+                    writer.newLine();
+                }
+                writer.flush();
+                return CompletableResultCode.ofSuccess();
+            } catch (IOException e) {
+                log.warn("Failed to write {} spans to {}: {}", spans.size(), file, e.getMessage());
+                return CompletableResultCode.ofFailure();
+            }
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public synchronized CompletableResultCode shutdown() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close trace file {}: {}", file, e.getMessage());
+                }
+                writer = null;
+            }
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.whatsapp.config;
 
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -8,7 +9,8 @@ import org.springframework.web.reactive.function.client.WebClient;
 public class WebClientConfig {
     
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry) {
+        // Observed, so Graph API calls show up as client spans in the webhook's trace
+        return WebClient.builder().observationRegistry(observationRegistry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.example.whatsapp.controller;
+
+import com.example.whatsapp.service.MessageStatusService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/message-status")
+public class MessageStatusController {
+
+    private final MessageStatusService messageStatusService;
+
+    public MessageStatusController(MessageStatusService messageStatusService) {
+        this.messageStatusService = messageStatusService;
+    }
+
+    /**
+     * Delivery and read rates and latencies for messages sent to a recipient
+     */
+    @GetMapping("/recipients/{phoneNumber}")
+    public ResponseEntity<Map<String, Object>> getRecipientStats(@PathVariable String phoneNumber,
+                                                                 @RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(messageStatusService.getRecipientStats(phoneNumber, days));
+    }
+
+    /**
+     * Receipts recorded for one message, by the WhatsApp message ID (wamid) it was sent as
+     */
+    @GetMapping("/messages/{messageId}")
+    public ResponseEntity<Map<String, Object>> getMessageEvents(@PathVariable String messageId) {
+        List<Map<String, Object>> events = messageStatusService.getMessageEvents(messageId);
+        Map<String, Object> response = new HashMap<>();
+        response.put("message_id", messageId);
+        response.put("events", events);
+        return ResponseEntity.ok(response);
+    }
+}
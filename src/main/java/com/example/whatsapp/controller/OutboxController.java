@@ -0,0 +1,49 @@
+package com.example.whatsapp.controller;
+
+import com.example.whatsapp.service.GraphRateLimiter;
+import com.example.whatsapp.service.OutboxService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/outbox")
+public class OutboxController {
+
+    private final OutboxService outboxService;
+    private final GraphRateLimiter rateLimiter;
+
+    public OutboxController(OutboxService outboxService, GraphRateLimiter rateLimiter) {
+        this.outboxService = outboxService;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Outbound messages by status, the most recent dead letters and the current send rate
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus(@RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> status = outboxService.getStatus(limit);
+        status.put("rate_limit", rateLimiter.getStatus());
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * Retry a dead-lettered message from scratch
+     */
+    @PostMapping("/{id}/redrive")
+    public ResponseEntity<Map<String, Object>> redrive(@PathVariable Long id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", id);
+        if (!outboxService.redrive(id)) {
+            response.put("success", false);
+            response.put("error", "No dead-lettered message with id " + id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+}
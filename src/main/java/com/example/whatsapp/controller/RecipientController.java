@@ -1,11 +1,17 @@
 package com.example.whatsapp.controller;
 
+import com.example.whatsapp.dto.RecipientTopicUpdate;
 import com.example.whatsapp.entity.RecipientEntity;
+import com.example.whatsapp.service.RecipientImportService;
 import com.example.whatsapp.service.RecipientService;
+import com.example.whatsapp.service.RecipientTopicService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,9 +21,15 @@ import java.util.Map;
 public class RecipientController {
 
     private final RecipientService recipientService;
+    private final RecipientImportService recipientImportService;
+    private final RecipientTopicService recipientTopicService;
 
-    public RecipientController(RecipientService recipientService) {
+    public RecipientController(RecipientService recipientService,
+                               RecipientImportService recipientImportService,
+                               RecipientTopicService recipientTopicService) {
         this.recipientService = recipientService;
+        this.recipientImportService = recipientImportService;
+        this.recipientTopicService = recipientTopicService;
     }
 
     /**
@@ -68,6 +80,83 @@ public class RecipientController {
         }
     }
 
+    /**
+     * Bulk create or update recipients from a JSON array or a CSV file with a header row.
+     * The format follows the format parameter, else the Content-Type. report=errors limits
+     * the per-row report to failed rows.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importRecipients(
+            HttpServletRequest request,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "all") String report) throws IOException {
+        String contentType = request.getContentType();
+        boolean csv = format != null
+                ? "csv".equalsIgnoreCase(format)
+                : contentType != null && contentType.toLowerCase().startsWith("text/csv");
+        if (format != null && !csv && !"json".equalsIgnoreCase(format)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "format must be json or csv");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        Map<String, Object> result = recipientImportService.importRecipients(request.getInputStream(),
+                csv ? RecipientImportService.Format.CSV : RecipientImportService.Format.JSON,
+                "errors".equalsIgnoreCase(report));
+        return Boolean.TRUE.equals(result.get("success"))
+                ? ResponseEntity.ok(result)
+                : ResponseEntity.badRequest().body(result);
+    }
+
+    /**
+     * Add topics for many recipients in one transaction, or set them with mode=replace.
+     * Each entry has a phone_number and any of favourite, cheer_up and avoid; types left
+     * out are not touched.
+     */
+    @PostMapping("/topics/bulk")
+    public ResponseEntity<Map<String, Object>> bulkUpdateTopics(
+            @RequestBody List<RecipientTopicUpdate> updates,
+            @RequestParam(defaultValue = "add") String mode) {
+        if (!"add".equalsIgnoreCase(mode) && !"replace".equalsIgnoreCase(mode)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "mode must be add or replace");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        Map<String, RecipientTopicService.TopicChanges> changes;
+        try {
+            changes = recipientTopicService.bulkUpdate(updates, "replace".equalsIgnoreCase(mode));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        int added = 0;
+        int removed = 0;
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map.Entry<String, RecipientTopicService.TopicChanges> entry : changes.entrySet()) {
+            RecipientTopicService.TopicChanges change = entry.getValue();
+            Map<String, Object> result = new HashMap<>();
+            result.put("phone_number", entry.getKey());
+            result.put("added", change.getAdded());
+            result.put("removed", change.getRemoved());
+            result.put("skipped", change.getSkipped());
+            results.add(result);
+            added += change.getAdded();
+            removed += change.getRemoved();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("mode", mode.toLowerCase());
+        response.put("recipients", results.size());
+        response.put("added", added);
+        response.put("removed", removed);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Update a recipient
      */
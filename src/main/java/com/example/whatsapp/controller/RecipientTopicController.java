@@ -3,9 +3,10 @@ package com.example.whatsapp.controller;
 import com.example.whatsapp.entity.RecipientTopicEntity;
 import com.example.whatsapp.entity.RecipientTopicEntity.TopicType;
 import com.example.whatsapp.repository.RecipientTopicRepository;
+import com.example.whatsapp.service.RecipientTopicService;
+import com.example.whatsapp.service.RecipientTopicService.TopicChanges;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -18,9 +19,12 @@ import java.util.stream.Collectors;
 public class RecipientTopicController {
 
     private final RecipientTopicRepository topicRepository;
+    private final RecipientTopicService topicService;
 
-    public RecipientTopicController(RecipientTopicRepository topicRepository) {
+    public RecipientTopicController(RecipientTopicRepository topicRepository,
+                                    RecipientTopicService topicService) {
         this.topicRepository = topicRepository;
+        this.topicService = topicService;
     }
 
     /**
@@ -107,7 +111,6 @@ public class RecipientTopicController {
      * Replace all favourite topics
      */
     @PutMapping("/favourite")
-    @Transactional
     public ResponseEntity<Map<String, Object>> replaceFavouriteTopics(
             @PathVariable String phoneNumber,
             @RequestBody List<String> topics) {
@@ -118,7 +121,6 @@ public class RecipientTopicController {
      * Replace all cheer-up topics
      */
     @PutMapping("/cheer-up")
-    @Transactional
     public ResponseEntity<Map<String, Object>> replaceCheerUpTopics(
             @PathVariable String phoneNumber,
             @RequestBody List<String> topics) {
@@ -129,7 +131,6 @@ public class RecipientTopicController {
      * Replace all avoid topics
      */
     @PutMapping("/avoid")
-    @Transactional
     public ResponseEntity<Map<String, Object>> replaceAvoidTopics(
             @PathVariable String phoneNumber,
             @RequestBody List<String> topics) {
@@ -140,7 +141,6 @@ public class RecipientTopicController {
      * Delete a specific topic
      */
     @DeleteMapping("/{topicType}/{topic}")
-    @Transactional
     public ResponseEntity<Map<String, Object>> deleteTopic(
             @PathVariable String phoneNumber,
             @PathVariable String topicType,
@@ -153,7 +153,7 @@ public class RecipientTopicController {
             ));
         }
 
-        topicRepository.deleteByPhoneNumberAndTopicAndTopicType(phoneNumber, topic, type);
+        topicService.deleteTopic(phoneNumber, topic, type);
 
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -168,7 +168,6 @@ public class RecipientTopicController {
      * Delete all topics of a specific type
      */
     @DeleteMapping("/{topicType}")
-    @Transactional
     public ResponseEntity<Map<String, Object>> deleteAllTopicsOfType(
             @PathVariable String phoneNumber,
             @PathVariable String topicType) {
@@ -180,7 +179,7 @@ public class RecipientTopicController {
             ));
         }
 
-        topicRepository.deleteByPhoneNumberAndTopicType(phoneNumber, type);
+        topicService.deleteTopics(phoneNumber, type);
 
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -194,23 +193,9 @@ public class RecipientTopicController {
     private ResponseEntity<Map<String, Object>> addTopics(
             String phoneNumber, List<String> topics, TopicType type, String typeName) {
 
-        int added = 0;
-        int skipped = 0;
-
-        for (String topic : topics) {
-            if (topic == null || topic.trim().isEmpty()) {
-                skipped++;
-                continue;
-            }
-
-            String trimmedTopic = topic.trim();
-            if (!topicRepository.existsByPhoneNumberAndTopicAndTopicType(phoneNumber, trimmedTopic, type)) {
-                topicRepository.save(new RecipientTopicEntity(phoneNumber, trimmedTopic, type));
-                added++;
-            } else {
-                skipped++;
-            }
-        }
+        TopicChanges changes = topicService.addTopics(phoneNumber, topics, type);
+        int added = changes.getAdded();
+        int skipped = changes.getSkipped();
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -226,24 +211,17 @@ public class RecipientTopicController {
     private ResponseEntity<Map<String, Object>> replaceTopics(
             String phoneNumber, List<String> topics, TopicType type, String typeName) {
 
-        // Delete existing topics of this type
-        topicRepository.deleteByPhoneNumberAndTopicType(phoneNumber, type);
-
-        // Add new topics
-        int added = 0;
-        for (String topic : topics) {
-            if (topic != null && !topic.trim().isEmpty()) {
-                topicRepository.save(new RecipientTopicEntity(phoneNumber, topic.trim(), type));
-                added++;
-            }
-        }
+        TopicChanges changes = topicService.replaceTopics(phoneNumber, topics, type);
+        int total = changes.getTotal();
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("phone_number", phoneNumber);
         response.put("topic_type", typeName);
-        response.put("total_topics", added);
-        response.put("message", String.format("Replaced with %d topics", added));
+        response.put("total_topics", total);
+        response.put("added", changes.getAdded());
+        response.put("removed", changes.getRemoved());
+        response.put("message", String.format("Replaced with %d topics", total));
 
         return ResponseEntity.ok(response);
     }
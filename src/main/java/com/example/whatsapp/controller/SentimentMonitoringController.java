@@ -1,12 +1,25 @@
 package com.example.whatsapp.controller;
 
 import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.SentimentPage;
 import com.example.whatsapp.entity.ConversationSentiment;
 import com.example.whatsapp.service.ConversationSentimentService;
 import com.example.whatsapp.service.SentimentAnalysisService;
+import com.example.whatsapp.service.SentimentExportService;
+import com.example.whatsapp.service.SentimentFeedService;
+import com.example.whatsapp.service.SentimentRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,11 +30,20 @@ public class SentimentMonitoringController {
     
     private final ConversationSentimentService conversationSentimentService;
     private final SentimentAnalysisService sentimentAnalysisService;
+    private final SentimentRollupService sentimentRollupService;
+    private final SentimentFeedService sentimentFeedService;
+    private final SentimentExportService sentimentExportService;
     
     public SentimentMonitoringController(ConversationSentimentService conversationSentimentService,
-                                       SentimentAnalysisService sentimentAnalysisService) {
+                                       SentimentAnalysisService sentimentAnalysisService,
+                                       SentimentRollupService sentimentRollupService,
+                                       SentimentFeedService sentimentFeedService,
+                                       SentimentExportService sentimentExportService) {
         this.conversationSentimentService = conversationSentimentService;
         this.sentimentAnalysisService = sentimentAnalysisService;
+        this.sentimentRollupService = sentimentRollupService;
+        this.sentimentFeedService = sentimentFeedService;
+        this.sentimentExportService = sentimentExportService;
     }
     
     /**
@@ -34,49 +56,172 @@ public class SentimentMonitoringController {
     }
     
     /**
-     * Get conversations requiring immediate attention (RED category)
+     * Get conversations requiring immediate attention (RED category), one page at a time
      */
     @GetMapping("/alerts")
-    public ResponseEntity<Map<String, Object>> getAlerts() {
-        List<ConversationSentiment> alerts = conversationSentimentService.getConversationsRequiringAttention();
+    public ResponseEntity<Map<String, Object>> getAlerts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(name = "include_text", defaultValue = "false") boolean includeText) {
+        SentimentPage<?> page;
+        try {
+            page = conversationSentimentService.getConversationsRequiringAttention(cursor, limit, includeText);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        long alertCount = conversationSentimentService.countConversationsRequiringAttention();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("alert_count", alertCount);
+        response.put("conversations", page.getItems());
+        response.put("next_cursor", page.getNextCursor());
+        response.put("has_more", page.hasMore());
+        response.put("status", alertCount == 0 ? "all_clear" : "attention_required");
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Get conversations in one sentiment category (GREEN, AMBER or RED), one page at a time
+     */
+    @GetMapping("/category/{category}")
+    public ResponseEntity<Map<String, Object>> getSentimentsByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(name = "include_text", defaultValue = "false") boolean includeText) {
+        SentimentAnalysis.SentimentCategory sentimentCategory;
+        SentimentPage<?> page;
+        try {
+            sentimentCategory = SentimentAnalysis.SentimentCategory.valueOf(category.toUpperCase());
+            page = conversationSentimentService.getSentimentsByCategory(sentimentCategory, cursor, limit, includeText);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
         
         Map<String, Object> response = new HashMap<>();
-        response.put("alert_count", alerts.size());
-        response.put("conversations", alerts);
-        response.put("status", alerts.isEmpty() ? "all_clear" : "attention_required");
+        response.put("category", sentimentCategory);
+        response.put("conversations", page.getItems());
+        response.put("next_cursor", page.getNextCursor());
+        response.put("has_more", page.hasMore());
         
         return ResponseEntity.ok(response);
     }
     
     /**
-     * Get sentiment history for a specific user
+     * Live feed of new sentiments and caretaker alerts as server-sent events
+     * (event types: sentiment, alert, heartbeat), optionally for one user or one caretaker's users
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> getSentimentFeed(
+            @RequestParam(name = "phone", required = false) String phoneNumber,
+            @RequestParam(name = "caretaker", required = false) String caretakerPhoneNumber) {
+        if (!sentimentFeedService.hasCapacity()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(sentimentFeedService.subscribe(phoneNumber, caretakerPhoneNumber));
+    }
+    
+    /**
+     * Get live feed subscriber and event counters
+     */
+    @GetMapping("/feed/stats")
+    public ResponseEntity<Map<String, Object>> getSentimentFeedStats() {
+        return ResponseEntity.ok(sentimentFeedService.getStats());
+    }
+    
+    /**
+     * Stream sentiment rows for offline analysis as NDJSON or CSV, oldest first, optionally gzipped.
+     * Days from and to (yyyy-MM-dd) are inclusive; omitting them exports everything.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSentiments(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "phone", required = false) String phoneNumber,
+            @RequestParam(required = false) String category,
+            @RequestParam(name = "include_text", defaultValue = "true") boolean includeText,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        // Invalid values throw IllegalArgumentException, answered by handleInvalidArgument
+        SentimentExportService.Format exportFormat = SentimentExportService.Format.valueOf(format.toUpperCase());
+        SentimentAnalysis.SentimentCategory exportCategory = category != null && !category.isBlank()
+                ? SentimentAnalysis.SentimentCategory.valueOf(category.toUpperCase()) : null;
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        
+        LocalDateTime start = from != null ? from.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = (to != null ? to : LocalDate.now()).plusDays(1).atStartOfDay();
+        String user = phoneNumber != null && !phoneNumber.isBlank() ? phoneNumber : null;
+        
+        String fileName = "sentiments-" + start.toLocalDate() + "-" + end.toLocalDate().minusDays(1)
+                + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> sentimentExportService.export(
+                exportFormat, start, end, user, exportCategory, includeText, gzip, out);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+    
+    /**
+     * Get sentiment history for a specific user, one page at a time (trend analysis on the first page)
      */
     @GetMapping("/user/{phoneNumber}")
-    public ResponseEntity<Map<String, Object>> getUserSentiment(@PathVariable String phoneNumber) {
-        List<ConversationSentiment> history = conversationSentimentService.getUserSentimentHistory(phoneNumber);
-        Map<String, Object> trend = conversationSentimentService.getUserSentimentTrend(phoneNumber);
+    public ResponseEntity<Map<String, Object>> getUserSentiment(
+            @PathVariable String phoneNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(name = "include_text", defaultValue = "false") boolean includeText) {
+        SentimentPage<?> history;
+        try {
+            history = conversationSentimentService.getUserSentimentHistory(phoneNumber, cursor, limit, includeText);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
         
         Map<String, Object> response = new HashMap<>();
         response.put("phone_number", phoneNumber);
-        response.put("sentiment_history", history);
-        response.put("trend_analysis", trend);
+        response.put("sentiment_history", history.getItems());
+        response.put("next_cursor", history.getNextCursor());
+        response.put("has_more", history.hasMore());
+        if (cursor == null || cursor.isBlank()) {
+            response.put("trend_analysis", conversationSentimentService.getUserSentimentTrend(phoneNumber));
+        }
         
         return ResponseEntity.ok(response);
     }
     
     /**
-     * Get recent sentiment for a specific user (last 24 hours)
+     * Get recent sentiment for a specific user (last 24 hours), one page at a time
      */
     @GetMapping("/user/{phoneNumber}/recent")
-    public ResponseEntity<Map<String, Object>> getRecentUserSentiment(@PathVariable String phoneNumber) {
-        List<ConversationSentiment> recent = conversationSentimentService.getRecentUserSentiments(phoneNumber);
+    public ResponseEntity<Map<String, Object>> getRecentUserSentiment(
+            @PathVariable String phoneNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        SentimentPage<ConversationSentiment> page;
+        try {
+            page = conversationSentimentService.getRecentUserSentiments(phoneNumber, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        List<ConversationSentiment> recent = page.getItems();
         
         Map<String, Object> response = new HashMap<>();
         response.put("phone_number", phoneNumber);
         response.put("recent_conversations", recent);
         response.put("conversation_count", recent.size());
+        response.put("next_cursor", page.getNextCursor());
+        response.put("has_more", page.hasMore());
         
-        if (!recent.isEmpty()) {
+        // The current values only mean something on the first page
+        if (!recent.isEmpty() && (cursor == null || cursor.isBlank())) {
             ConversationSentiment latest = recent.get(0);
             response.put("current_sentiment", latest.getSentimentCategory());
             response.put("current_confidence", latest.getConfidenceScore());
@@ -86,6 +231,54 @@ public class SentimentMonitoringController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Get per-day sentiment summaries for a user from the rollups
+     */
+    @GetMapping("/user/{phoneNumber}/daily")
+    public ResponseEntity<Map<String, Object>> getUserDailySentiment(
+            @PathVariable String phoneNumber,
+            @RequestParam(defaultValue = "7") int days) {
+        List<Map<String, Object>> summaries = sentimentRollupService.getUserDailySummaries(phoneNumber, days);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("phone_number", phoneNumber);
+        response.put("days", days);
+        response.put("daily_summaries", summaries);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Get the current values of the sliding-window alert rules for a user
+     */
+    @GetMapping("/user/{phoneNumber}/alert-window")
+    public ResponseEntity<Map<String, Object>> getUserAlertWindow(@PathVariable String phoneNumber) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("phone_number", phoneNumber);
+        response.put("rules", conversationSentimentService.getAlertWindow(phoneNumber));
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Rebuild the sentiment rollups for the last N days from the raw conversation rows. Hours
+     * that can still receive messages are left as they are.
+     */
+    @PostMapping("/rollups/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileRollups(@RequestParam(defaultValue = "2") int days) {
+        LocalDate today = LocalDate.now();
+        int buckets = sentimentRollupService.reconcile(
+                today.minusDays(Math.max(1, days)).atStartOfDay(), today.plusDays(1).atStartOfDay());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("days", days);
+        response.put("buckets_rebuilt", buckets);
+        response.put("rebuilt_until", SentimentRollupService.openBucketsStart());
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Test sentiment analysis with a message
      */
@@ -155,6 +348,18 @@ public class SentimentMonitoringController {
         return ResponseEntity.ok(health);
     }
     
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidArgument(IllegalArgumentException e) {
+        return badRequest(e.getMessage());
+    }
+    
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("success", false);
+        error.put("error", message);
+        return ResponseEntity.badRequest().body(error);
+    }
+    
     /**
      * Get sentiment color coding guide
      */
@@ -0,0 +1,84 @@
+package com.example.whatsapp.controller;
+
+import com.example.whatsapp.service.SentimentRetentionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sentiment/retention")
+public class SentimentRetentionController {
+
+    private final SentimentRetentionService retentionService;
+
+    public SentimentRetentionController(SentimentRetentionService retentionService) {
+        this.retentionService = retentionService;
+    }
+
+    /**
+     * Retention settings and the outcome of the last run
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(retentionService.getStatus());
+    }
+
+    /**
+     * Archive and delete rows past the retention age now
+     * Runs in the background; poll the status for the outcome
+     */
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> run() {
+        return ResponseEntity.ok(retentionService.startRun());
+    }
+
+    /**
+     * Recent archives, or every archive holding rows of one user
+     */
+    @GetMapping("/archives")
+    public ResponseEntity<Map<String, Object>> getArchives(
+            @RequestParam(required = false) String phone,
+            @RequestParam(defaultValue = "30") int limit) {
+        List<Map<String, Object>> archives = phone != null && !phone.isBlank()
+                ? retentionService.getUserArchives(phone)
+                : retentionService.getRecentArchives(limit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("archives", archives);
+        response.put("count", archives.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Put a user's archived history back, optionally limited to days between from and to (yyyy-MM-dd)
+     */
+    @PostMapping("/restore/{phoneNumber}")
+    public ResponseEntity<Map<String, Object>> restoreUser(
+            @PathVariable String phoneNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "from must not be after to");
+            return ResponseEntity.badRequest().body(error);
+        }
+        try {
+            Map<String, Object> result = retentionService.restoreUser(phoneNumber, from, to);
+            result.put("success", true);
+            return ResponseEntity.ok(result);
+        } catch (UncheckedIOException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+}
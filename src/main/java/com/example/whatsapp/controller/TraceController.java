@@ -0,0 +1,75 @@
+package com.example.whatsapp.controller;
+
+import com.example.whatsapp.dto.TraceSpan;
+import com.example.whatsapp.service.TraceStoreService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recent request traces from the in-memory span store
+ */
+@RestController
+@RequestMapping("/api/traces")
+public class TraceController {
+
+    private final TraceStoreService traceStoreService;
+
+    public TraceController(TraceStoreService traceStoreService) {
+        this.traceStoreService = traceStoreService;
+    }
+
+    /**
+     * Most recent traces, newest first
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getRecentTraces(@RequestParam(defaultValue = "20") int limit) {
+        List<Map<String, Object>> traces = traceStoreService.getRecentTraces(Math.max(1, limit));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("traces", traces);
+        response.put("count", traces.size());
+        response.put("stored_spans", traceStoreService.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * All spans of one trace
+     */
+    @GetMapping("/{traceId}")
+    public ResponseEntity<Map<String, Object>> getTrace(@PathVariable String traceId) {
+        List<TraceSpan> spans = traceStoreService.getTrace(traceId);
+        if (spans.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(traceResponse(traceId, spans));
+    }
+
+    /**
+     * The trace that handled an inbound WhatsApp message
+     */
+    @GetMapping("/message/{messageId}")
+    public ResponseEntity<Map<String, Object>> getTraceForMessage(@PathVariable String messageId) {
+        List<String> traceIds = traceStoreService.findTraceIds(messageId);
+        if (traceIds.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // A redelivered message gets a trace per delivery; show the latest
+        String traceId = traceIds.get(0);
+        Map<String, Object> response = traceResponse(traceId, traceStoreService.getTrace(traceId));
+        response.put("message_id", messageId);
+        response.put("trace_ids", traceIds);
+        return ResponseEntity.ok(response);
+    }
+
+    private static Map<String, Object> traceResponse(String traceId, List<TraceSpan> spans) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("trace_id", traceId);
+        response.put("span_count", spans.size());
+        response.put("spans", spans);
+        return response;
+    }
+}
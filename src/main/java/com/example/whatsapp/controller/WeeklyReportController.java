@@ -1,11 +1,15 @@
 package com.example.whatsapp.controller;
 
+import com.example.whatsapp.dto.WeeklyReport;
 import com.example.whatsapp.entity.RecipientEntity;
 import com.example.whatsapp.repository.RecipientRepository;
+import com.example.whatsapp.service.WeeklyReportJobService;
+import com.example.whatsapp.service.WeeklyReportRenderer;
 import com.example.whatsapp.service.WeeklyReportService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -15,11 +19,60 @@ public class WeeklyReportController {
 
     private final WeeklyReportService reportService;
     private final RecipientRepository recipientRepository;
+    private final WeeklyReportJobService reportJobService;
+    private final WeeklyReportRenderer reportRenderer;
 
     public WeeklyReportController(WeeklyReportService reportService,
-                                  RecipientRepository recipientRepository) {
+                                  RecipientRepository recipientRepository,
+                                  WeeklyReportJobService reportJobService,
+                                  WeeklyReportRenderer reportRenderer) {
         this.reportService = reportService;
         this.recipientRepository = recipientRepository;
+        this.reportJobService = reportJobService;
+        this.reportRenderer = reportRenderer;
+    }
+
+    /**
+     * Template render timings/allocations and preview cache statistics
+     */
+    @GetMapping("/render-stats")
+    public ResponseEntity<Map<String, Object>> getRenderStats() {
+        Map<String, Object> stats = new HashMap<>(reportRenderer.getRenderStats());
+        stats.put("preview_cache", reportService.getReportCacheStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Start the bulk weekly report job for all enabled recipients
+     * Runs in the background; poll the job summary for progress
+     */
+    @PostMapping("/weekly/bulk")
+    public ResponseEntity<Map<String, Object>> startBulkReports(@RequestParam(defaultValue = "false") boolean force) {
+        return ResponseEntity.ok(reportJobService.startJob("MANUAL", force));
+    }
+
+    /**
+     * Summary of the most recent bulk report job
+     */
+    @GetMapping("/weekly/bulk/latest")
+    public ResponseEntity<Map<String, Object>> getLatestBulkReportJob() {
+        Optional<Long> jobId = reportJobService.getLatestJobId();
+        if (jobId.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(reportJobService.getJobSummary(jobId.get()));
+    }
+
+    /**
+     * Summary of a bulk report job: progress, throughput and failures
+     */
+    @GetMapping("/weekly/bulk/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBulkReportJob(@PathVariable Long jobId) {
+        Map<String, Object> summary = reportJobService.getJobSummary(jobId);
+        if (!(boolean) summary.get("success")) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(summary);
     }
 
     /**
@@ -52,7 +105,8 @@ public class WeeklyReportController {
         }
 
         try {
-            Map<String, Object> reportData = reportService.generateReportData(phoneNumber, recipientOpt.get());
+            // Cached for the week so a following send reuses it
+            WeeklyReport reportData = reportService.getReport(phoneNumber, recipientOpt.get());
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "report_data", reportData
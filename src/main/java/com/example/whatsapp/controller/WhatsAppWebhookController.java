@@ -1,14 +1,24 @@
 package com.example.whatsapp.controller;
 
+import com.example.whatsapp.dto.InboundMessage;
 import com.example.whatsapp.dto.WhatsAppMessageRequest;
 import com.example.whatsapp.dto.WhatsAppMessageResponse;
+import com.example.whatsapp.service.WebhookParser;
 import com.example.whatsapp.service.WhatsAppService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 @RestController
 @RequestMapping("/api/whatsapp")
 public class WhatsAppWebhookController {
@@ -16,10 +26,17 @@ public class WhatsAppWebhookController {
     private static final Logger log = LoggerFactory.getLogger(WhatsAppWebhookController.class);
     
     private final WhatsAppService whatsAppService;
+    private final WebhookParser webhookParser;
+    private final ObjectReader requestReader;
+    private final MeterRegistry meterRegistry;
     
     // Constructor
-    public WhatsAppWebhookController(WhatsAppService whatsAppService) {
+    public WhatsAppWebhookController(WhatsAppService whatsAppService, WebhookParser webhookParser,
+                                     ObjectMapper objectMapper, MeterRegistry meterRegistry) {
         this.whatsAppService = whatsAppService;
+        this.webhookParser = webhookParser;
+        this.requestReader = objectMapper.readerFor(WhatsAppMessageRequest.class);
+        this.meterRegistry = meterRegistry;
     }
     
     /**
@@ -45,20 +62,43 @@ public class WhatsAppWebhookController {
     
     /**
      * Webhook endpoint to receive messages from WhatsApp
-     * WhatsApp will send a POST request with message data
+     * WhatsApp will send a POST request with message data. A single text message is read
+     * straight off the payload; anything else is bound to a full WhatsAppMessageRequest.
      */
     @PostMapping("/webhook")
-    public ResponseEntity<WhatsAppMessageResponse> receiveMessage(@RequestBody WhatsAppMessageRequest request) {
-        log.info("Received WhatsApp message: {}", request);
-        
+    public ResponseEntity<WhatsAppMessageResponse> receiveMessage(@RequestBody byte[] body) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        InboundMessage message = webhookParser.parseTextMessage(body);
+        WhatsAppMessageRequest request = null;
+        if (message == null) {
+            try {
+                request = requestReader.readValue(body);
+            } catch (JsonProcessingException e) {
+                log.warn("Rejected malformed webhook payload ({} bytes): {}", body.length, e.getOriginalMessage());
+                sample.stop(meterRegistry.timer("whatsapp.webhook.requests", "outcome", "malformed"));
+                return ResponseEntity.badRequest().body(WhatsAppMessageResponse.error("Malformed webhook payload"));
+            } catch (IOException e) {
+                // Reading from a byte array; only malformed JSON is expected
+                throw new UncheckedIOException(e);
+            }
+        }
+        meterRegistry.counter("whatsapp.webhook.parse", "path", message != null ? "fast" : "bound").increment();
+        log.debug("Received WhatsApp webhook ({} bytes, {})", body.length, message != null ? message : "bound");
+
         try {
             // Process the incoming message and send response
-            WhatsAppMessageResponse response = whatsAppService.processMessage(request);
+            WhatsAppMessageResponse response = message != null
+                    ? whatsAppService.processMessage(message)
+                    : whatsAppService.processMessage(request);
             
             log.info("Message processed successfully");
+            sample.stop(meterRegistry.timer("whatsapp.webhook.requests",
+                    "outcome", response.getData() != null ? "processed" : "ignored"));
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("Error processing WhatsApp message", e);
+            sample.stop(meterRegistry.timer("whatsapp.webhook.requests", "outcome", "error"));
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(WhatsAppMessageResponse.error("Failed to process message"));
         }
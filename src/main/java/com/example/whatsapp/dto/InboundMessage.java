@@ -0,0 +1,49 @@
+package com.example.whatsapp.dto;
+
+/**
+ * The fields of one inbound WhatsApp message that processing needs, whether they came from
+ * the streaming fast path or from a fully bound {@link WhatsAppMessageRequest}.
+ */
+public final class InboundMessage {
+
+    private final String from;
+    private final String id;
+    private final String type;
+    private final String textBody;
+    private final String timestamp;
+
+    public InboundMessage(String from, String id, String type, String textBody, String timestamp) {
+        this.from = from;
+        this.id = id;
+        this.type = type;
+        this.textBody = textBody;
+        this.timestamp = timestamp;
+    }
+
+    public static InboundMessage of(WhatsAppMessageRequest.Message message) {
+        String textBody = message.getText() != null ? message.getText().getBody() : null;
+        return new InboundMessage(message.getFrom(), message.getId(), message.getType(), textBody,
+                message.getTimestamp());
+    }
+
+    public String getFrom() { return from; }
+
+    public String getId() { return id; }
+
+    public String getType() { return type; }
+
+    /**
+     * The text of a text message; null for every other type
+     */
+    public String getTextBody() { return textBody; }
+
+    /**
+     * Unix seconds, as Graph sends it
+     */
+    public String getTimestamp() { return timestamp; }
+
+    @Override
+    public String toString() {
+        return "InboundMessage{from=" + from + ", id=" + id + ", type=" + type + "}";
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.whatsapp.dto;
+
+/**
+ * The fields of a user's newest sentiment the trend shows, without the message, reply and
+ * reasoning text
+ */
+public class LatestSentiment {
+    
+    private final SentimentAnalysis.SentimentCategory category;
+    private final Double confidence;
+    private final String emotionalIndicators;
+    
+    public LatestSentiment(SentimentAnalysis.SentimentCategory category, Double confidence,
+                           String emotionalIndicators) {
+        this.category = category;
+        this.confidence = confidence;
+        this.emotionalIndicators = emotionalIndicators;
+    }
+    
+    public SentimentAnalysis.SentimentCategory getCategory() { return category; }
+    
+    public Double getConfidence() { return confidence; }
+    
+    public String getEmotionalIndicators() { return emotionalIndicators; }
+}
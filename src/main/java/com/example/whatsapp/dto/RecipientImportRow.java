@@ -0,0 +1,151 @@
+package com.example.whatsapp.dto;
+
+import com.example.whatsapp.entity.RecipientEntity;
+
+import java.time.LocalDate;
+
+/**
+ * One recipient read from a bulk import file. A null field was absent from the row,
+ * so an upsert leaves the stored value as it is.
+ */
+public class RecipientImportRow {
+
+    private final int rowNumber;
+    private String phoneNumber;
+    private String name;
+    private String preferredTimeOfDay;
+    private String customMessage;
+    private Boolean enabled;
+    private String timezone;
+    private String relationship;
+    private LocalDate dateOfBirth;
+    private String notes;
+    private String caretakerPhoneNumber;
+    private String caretakerName;
+    private RecipientEntity.ReportPreference reportPreference;
+    private String email;
+    // First problem found while reading the row; such rows are reported, not stored
+    private String error;
+
+    public RecipientImportRow(int rowNumber) {
+        this.rowNumber = rowNumber;
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPreferredTimeOfDay() {
+        return preferredTimeOfDay;
+    }
+
+    public void setPreferredTimeOfDay(String preferredTimeOfDay) {
+        this.preferredTimeOfDay = preferredTimeOfDay;
+    }
+
+    public String getCustomMessage() {
+        return customMessage;
+    }
+
+    public void setCustomMessage(String customMessage) {
+        this.customMessage = customMessage;
+    }
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getTimezone() {
+        return timezone;
+    }
+
+    public void setTimezone(String timezone) {
+        this.timezone = timezone;
+    }
+
+    public String getRelationship() {
+        return relationship;
+    }
+
+    public void setRelationship(String relationship) {
+        this.relationship = relationship;
+    }
+
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(LocalDate dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+
+    public String getCaretakerPhoneNumber() {
+        return caretakerPhoneNumber;
+    }
+
+    public void setCaretakerPhoneNumber(String caretakerPhoneNumber) {
+        this.caretakerPhoneNumber = caretakerPhoneNumber;
+    }
+
+    public String getCaretakerName() {
+        return caretakerName;
+    }
+
+    public void setCaretakerName(String caretakerName) {
+        this.caretakerName = caretakerName;
+    }
+
+    public RecipientEntity.ReportPreference getReportPreference() {
+        return reportPreference;
+    }
+
+    public void setReportPreference(RecipientEntity.ReportPreference reportPreference) {
+        this.reportPreference = reportPreference;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        if (this.error == null) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.whatsapp.dto;
+
+import java.util.List;
+
+/**
+ * Topics for one recipient in a bulk topic update. A null list leaves that topic type as
+ * it is; an empty list clears it when replacing.
+ */
+public class RecipientTopicUpdate {
+
+    private String phoneNumber;
+    private List<String> favourite;
+    private List<String> cheerUp;
+    private List<String> avoid;
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public List<String> getFavourite() {
+        return favourite;
+    }
+
+    public void setFavourite(List<String> favourite) {
+        this.favourite = favourite;
+    }
+
+    public List<String> getCheerUp() {
+        return cheerUp;
+    }
+
+    public void setCheerUp(List<String> cheerUp) {
+        this.cheerUp = cheerUp;
+    }
+
+    public List<String> getAvoid() {
+        return avoid;
+    }
+
+    public void setAvoid(List<String> avoid) {
+        this.avoid = avoid;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.whatsapp.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Aggregated sentiment count for one (day, hour, category) bucket, built by repository
+ * GROUP BY queries so reports don't have to load full sentiment rows.
+ */
+public class SentimentBucket {
+    
+    private final LocalDate date;
+    private final Integer hour;
+    private final SentimentAnalysis.SentimentCategory category;
+    private final Long count;
+    
+    public SentimentBucket(LocalDate date, Integer hour, SentimentAnalysis.SentimentCategory category, Long count) {
+        this.date = date;
+        this.hour = hour;
+        this.category = category;
+        this.count = count;
+    }
+    
+    public LocalDate getDate() { return date; }
+    
+    public Integer getHour() { return hour; }
+    
+    public SentimentAnalysis.SentimentCategory getCategory() { return category; }
+    
+    public Long getCount() { return count; }
+}
@@ -0,0 +1,19 @@
+package com.example.whatsapp.dto;
+
+/**
+ * Number of sentiment rows in one category, as returned by GROUP BY queries
+ */
+public class SentimentCategoryCount {
+    
+    private final SentimentAnalysis.SentimentCategory category;
+    private final Long count;
+    
+    public SentimentCategoryCount(SentimentAnalysis.SentimentCategory category, Long count) {
+        this.category = category;
+        this.count = count;
+    }
+    
+    public SentimentAnalysis.SentimentCategory getCategory() { return category; }
+    
+    public Long getCount() { return count; }
+}
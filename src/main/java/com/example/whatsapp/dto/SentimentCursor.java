@@ -0,0 +1,51 @@
+package com.example.whatsapp.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a newest-first sentiment list: the (timestamp, id) of the last row
+ * returned. Sent to clients as an opaque URL-safe string.
+ */
+public class SentimentCursor {
+    
+    // Sorts after every stored row and is still a valid timestamp on H2 and PostgreSQL
+    public static final SentimentCursor START =
+            new SentimentCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    
+    private final LocalDateTime timestamp;
+    private final long id;
+    
+    public SentimentCursor(LocalDateTime timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    
+    public long getId() { return id; }
+    
+    public String encode() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a cursor from a previous page, or START when none was given
+     */
+    public static SentimentCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new SentimentCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.whatsapp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a stored sentiment the alert windows need, without the message text
+ */
+public class SentimentEvent {
+    
+    private final String phoneNumber;
+    private final LocalDateTime timestamp;
+    private final SentimentAnalysis.SentimentCategory category;
+    private final Double confidence;
+    
+    public SentimentEvent(String phoneNumber, LocalDateTime timestamp,
+                          SentimentAnalysis.SentimentCategory category, Double confidence) {
+        this.phoneNumber = phoneNumber;
+        this.timestamp = timestamp;
+        this.category = category;
+        this.confidence = confidence;
+    }
+    
+    public String getPhoneNumber() { return phoneNumber; }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    
+    public SentimentAnalysis.SentimentCategory getCategory() { return category; }
+    
+    public Double getConfidence() { return confidence; }
+}
@@ -0,0 +1,82 @@
+package com.example.whatsapp.dto;
+
+import com.example.whatsapp.entity.ConversationSentiment;
+
+import java.time.LocalDateTime;
+
+/**
+ * A live-feed entry pushed to dashboards: a newly stored sentiment or a caretaker alert.
+ * Message text is left out so every subscriber gets the same small payload.
+ */
+public class SentimentFeedEvent {
+
+    public enum Type {
+        SENTIMENT,
+        ALERT
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final Long sentimentId;
+    private final String phoneNumber;
+    private final LocalDateTime timestamp;
+    private final SentimentAnalysis.SentimentCategory category;
+    private final Double confidence;
+    private final Boolean requiresAttention;
+    private final String emotionalIndicators;
+    // ALERT only
+    private final String caretakerPhoneNumber;
+    private final String pattern;
+
+    private SentimentFeedEvent(long sequence, Type type, Long sentimentId, String phoneNumber,
+                               LocalDateTime timestamp, SentimentAnalysis.SentimentCategory category,
+                               Double confidence, Boolean requiresAttention, String emotionalIndicators,
+                               String caretakerPhoneNumber, String pattern) {
+        this.sequence = sequence;
+        this.type = type;
+        this.sentimentId = sentimentId;
+        this.phoneNumber = phoneNumber;
+        this.timestamp = timestamp;
+        this.category = category;
+        this.confidence = confidence;
+        this.requiresAttention = requiresAttention;
+        this.emotionalIndicators = emotionalIndicators;
+        this.caretakerPhoneNumber = caretakerPhoneNumber;
+        this.pattern = pattern;
+    }
+
+    public static SentimentFeedEvent sentiment(long sequence, ConversationSentiment sentiment) {
+        return new SentimentFeedEvent(sequence, Type.SENTIMENT, sentiment.getId(), sentiment.getPhoneNumber(),
+                sentiment.getTimestamp(), sentiment.getSentimentCategory(), sentiment.getConfidenceScore(),
+                sentiment.getRequiresAttention(), sentiment.getEmotionalIndicators(), null, null);
+    }
+
+    public static SentimentFeedEvent alert(long sequence, String phoneNumber, SentimentAnalysis analysis,
+                                           String caretakerPhoneNumber, String pattern) {
+        return new SentimentFeedEvent(sequence, Type.ALERT, null, phoneNumber, LocalDateTime.now(),
+                analysis.getCategory(), analysis.getConfidence(), true, analysis.getEmotionalIndicators(),
+                caretakerPhoneNumber, pattern);
+    }
+
+    public long getSequence() { return sequence; }
+
+    public Type getType() { return type; }
+
+    public Long getSentimentId() { return sentimentId; }
+
+    public String getPhoneNumber() { return phoneNumber; }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+
+    public SentimentAnalysis.SentimentCategory getCategory() { return category; }
+
+    public Double getConfidence() { return confidence; }
+
+    public Boolean getRequiresAttention() { return requiresAttention; }
+
+    public String getEmotionalIndicators() { return emotionalIndicators; }
+
+    public String getCaretakerPhoneNumber() { return caretakerPhoneNumber; }
+
+    public String getPattern() { return pattern; }
+}
@@ -0,0 +1,48 @@
+package com.example.whatsapp.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Raw sentiment rows aggregated per (user, day, hour, category), used to rebuild rollups
+ */
+public class SentimentHourAggregate {
+    
+    private final String phoneNumber;
+    private final LocalDate date;
+    private final Integer hour;
+    private final SentimentAnalysis.SentimentCategory category;
+    private final Long count;
+    private final Double confidenceSum;
+    private final LocalDateTime firstTimestamp;
+    private final LocalDateTime lastTimestamp;
+    
+    public SentimentHourAggregate(String phoneNumber, LocalDate date, Integer hour,
+                                  SentimentAnalysis.SentimentCategory category, Long count, Double confidenceSum,
+                                  LocalDateTime firstTimestamp, LocalDateTime lastTimestamp) {
+        this.phoneNumber = phoneNumber;
+        this.date = date;
+        this.hour = hour;
+        this.category = category;
+        this.count = count;
+        this.confidenceSum = confidenceSum;
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+    }
+    
+    public String getPhoneNumber() { return phoneNumber; }
+    
+    public LocalDate getDate() { return date; }
+    
+    public Integer getHour() { return hour; }
+    
+    public SentimentAnalysis.SentimentCategory getCategory() { return category; }
+    
+    public Long getCount() { return count; }
+    
+    public Double getConfidenceSum() { return confidenceSum; }
+    
+    public LocalDateTime getFirstTimestamp() { return firstTimestamp; }
+    
+    public LocalDateTime getLastTimestamp() { return lastTimestamp; }
+}
@@ -0,0 +1,24 @@
+package com.example.whatsapp.dto;
+
+import java.util.List;
+
+/**
+ * One page of a newest-first sentiment list, with the cursor for the next page
+ * (null when this is the last page)
+ */
+public class SentimentPage<T> {
+    
+    private final List<T> items;
+    private final String nextCursor;
+    
+    public SentimentPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<T> getItems() { return items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    
+    public boolean hasMore() { return nextCursor != null; }
+}
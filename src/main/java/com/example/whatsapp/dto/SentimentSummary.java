@@ -0,0 +1,44 @@
+package com.example.whatsapp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored sentiment without its TEXT columns (message, reply, indicators, reasoning),
+ * used for paged history and attention lists
+ */
+public class SentimentSummary {
+    
+    private final Long id;
+    private final String phoneNumber;
+    private final LocalDateTime timestamp;
+    private final SentimentAnalysis.SentimentCategory sentimentCategory;
+    private final Double confidenceScore;
+    private final String concernLevel;
+    private final Boolean requiresAttention;
+    
+    public SentimentSummary(Long id, String phoneNumber, LocalDateTime timestamp,
+                            SentimentAnalysis.SentimentCategory sentimentCategory, Double confidenceScore,
+                            String concernLevel, Boolean requiresAttention) {
+        this.id = id;
+        this.phoneNumber = phoneNumber;
+        this.timestamp = timestamp;
+        this.sentimentCategory = sentimentCategory;
+        this.confidenceScore = confidenceScore;
+        this.concernLevel = concernLevel;
+        this.requiresAttention = requiresAttention;
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getPhoneNumber() { return phoneNumber; }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    
+    public SentimentAnalysis.SentimentCategory getSentimentCategory() { return sentimentCategory; }
+    
+    public Double getConfidenceScore() { return confidenceScore; }
+    
+    public String getConcernLevel() { return concernLevel; }
+    
+    public Boolean getRequiresAttention() { return requiresAttention; }
+}
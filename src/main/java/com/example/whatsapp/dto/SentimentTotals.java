@@ -0,0 +1,31 @@
+package com.example.whatsapp.dto;
+
+/**
+ * Summed sentiment counts over a set of rollup buckets
+ */
+public class SentimentTotals {
+    
+    private final long greenCount;
+    private final long amberCount;
+    private final long redCount;
+    private final long messageCount;
+    private final double confidenceSum;
+    
+    public SentimentTotals(Long greenCount, Long amberCount, Long redCount, Long messageCount, Double confidenceSum) {
+        this.greenCount = greenCount != null ? greenCount : 0;
+        this.amberCount = amberCount != null ? amberCount : 0;
+        this.redCount = redCount != null ? redCount : 0;
+        this.messageCount = messageCount != null ? messageCount : 0;
+        this.confidenceSum = confidenceSum != null ? confidenceSum : 0.0;
+    }
+    
+    public long getGreenCount() { return greenCount; }
+    
+    public long getAmberCount() { return amberCount; }
+    
+    public long getRedCount() { return redCount; }
+    
+    public long getMessageCount() { return messageCount; }
+    
+    public double getConfidenceSum() { return confidenceSum; }
+}
@@ -0,0 +1,57 @@
+package com.example.whatsapp.dto;
+
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A finished span as kept by the in-memory trace store and written by the file exporter.
+ */
+public class TraceSpan {
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final String kind;
+    private final String status;
+    private final Instant startTime;
+    private final double durationMs;
+    private final Map<String, String> attributes;
+
+    private TraceSpan(String traceId, String spanId, String parentSpanId, String name, String kind,
+                      String status, Instant startTime, double durationMs, Map<String, String> attributes) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.status = status;
+        this.startTime = startTime;
+        this.durationMs = durationMs;
+        this.attributes = attributes;
+    }
+
+    public static TraceSpan from(SpanData span) {
+        Map<String, String> attributes = new TreeMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        String parentSpanId = SpanId.isValid(span.getParentSpanId()) ? span.getParentSpanId() : null;
+        return new TraceSpan(span.getTraceId(), span.getSpanId(), parentSpanId, span.getName(),
+                span.getKind().name(), span.getStatus().getStatusCode().name(),
+                Instant.ofEpochSecond(0, span.getStartEpochNanos()),
+                (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0, attributes);
+    }
+
+    public String getTraceId() { return traceId; }
+    public String getSpanId() { return spanId; }
+    public String getParentSpanId() { return parentSpanId; }
+    public String getName() { return name; }
+    public String getKind() { return kind; }
+    public String getStatus() { return status; }
+    public Instant getStartTime() { return startTime; }
+    public double getDurationMs() { return durationMs; }
+    public Map<String, String> getAttributes() { return attributes; }
+}
@@ -0,0 +1,270 @@
+package com.example.whatsapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Weekly wellness report for one recipient, as shown in the preview and rendered
+ * into the email and WhatsApp templates.
+ */
+public class WeeklyReport {
+
+    @JsonProperty("recipient_name")
+    private String recipientName;
+
+    @JsonProperty("phone_number")
+    private String phoneNumber;
+
+    @JsonProperty("report_period")
+    private String reportPeriod;
+
+    @JsonProperty("generated_at")
+    private String generatedAt;
+
+    @JsonProperty("sentiment_analysis")
+    private Sentiment sentimentAnalysis;
+
+    private Engagement engagement;
+
+    @JsonProperty("notable_moments")
+    private List<String> notableMoments;
+
+    @JsonProperty("favourite_topics")
+    private List<String> favouriteTopics;
+
+    @JsonProperty("cheer_up_topics")
+    private List<String> cheerUpTopics;
+
+    @JsonProperty("action_items")
+    private List<String> actionItems;
+
+    @JsonProperty("alert_status")
+    private String alertStatus;
+
+    @JsonProperty("alert_message")
+    private String alertMessage;
+
+    public WeeklyReport() {}
+
+    public String getRecipientName() { return recipientName; }
+    public void setRecipientName(String recipientName) { this.recipientName = recipientName; }
+
+    public String getPhoneNumber() { return phoneNumber; }
+    public void setPhoneNumber(String phoneNumber) { this.phoneNumber = phoneNumber; }
+
+    public String getReportPeriod() { return reportPeriod; }
+    public void setReportPeriod(String reportPeriod) { this.reportPeriod = reportPeriod; }
+
+    public String getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(String generatedAt) { this.generatedAt = generatedAt; }
+
+    public Sentiment getSentimentAnalysis() { return sentimentAnalysis; }
+    public void setSentimentAnalysis(Sentiment sentimentAnalysis) { this.sentimentAnalysis = sentimentAnalysis; }
+
+    public Engagement getEngagement() { return engagement; }
+    public void setEngagement(Engagement engagement) { this.engagement = engagement; }
+
+    public List<String> getNotableMoments() { return notableMoments; }
+    public void setNotableMoments(List<String> notableMoments) { this.notableMoments = notableMoments; }
+
+    public List<String> getFavouriteTopics() { return favouriteTopics; }
+    public void setFavouriteTopics(List<String> favouriteTopics) { this.favouriteTopics = favouriteTopics; }
+
+    public List<String> getCheerUpTopics() { return cheerUpTopics; }
+    public void setCheerUpTopics(List<String> cheerUpTopics) { this.cheerUpTopics = cheerUpTopics; }
+
+    public List<String> getActionItems() { return actionItems; }
+    public void setActionItems(List<String> actionItems) { this.actionItems = actionItems; }
+
+    public String getAlertStatus() { return alertStatus; }
+    public void setAlertStatus(String alertStatus) { this.alertStatus = alertStatus; }
+
+    public String getAlertMessage() { return alertMessage; }
+    public void setAlertMessage(String alertMessage) { this.alertMessage = alertMessage; }
+
+    /**
+     * Sentiment breakdown. Charts, scores and the distribution are left out when there is no data.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Sentiment {
+
+        @JsonProperty("total_conversations")
+        private int totalConversations;
+
+        @JsonProperty("green_count")
+        private long greenCount;
+
+        @JsonProperty("amber_count")
+        private long amberCount;
+
+        @JsonProperty("red_count")
+        private long redCount;
+
+        @JsonProperty("green_percentage")
+        private long greenPercentage;
+
+        @JsonProperty("amber_percentage")
+        private long amberPercentage;
+
+        @JsonProperty("red_percentage")
+        private long redPercentage;
+
+        private String trend;
+
+        @JsonProperty("daily_breakdown")
+        private List<DailyScore> dailyBreakdown;
+
+        @JsonProperty("hourly_pattern")
+        private HourlyPattern hourlyPattern;
+
+        @JsonProperty("sentiment_distribution")
+        private List<DistributionSlice> sentimentDistribution;
+
+        @JsonProperty("average_score")
+        private Long averageScore;
+
+        @JsonProperty("score_change")
+        private Long scoreChange;
+
+        public int getTotalConversations() { return totalConversations; }
+        public void setTotalConversations(int totalConversations) { this.totalConversations = totalConversations; }
+
+        public long getGreenCount() { return greenCount; }
+        public void setGreenCount(long greenCount) { this.greenCount = greenCount; }
+
+        public long getAmberCount() { return amberCount; }
+        public void setAmberCount(long amberCount) { this.amberCount = amberCount; }
+
+        public long getRedCount() { return redCount; }
+        public void setRedCount(long redCount) { this.redCount = redCount; }
+
+        public long getGreenPercentage() { return greenPercentage; }
+        public void setGreenPercentage(long greenPercentage) { this.greenPercentage = greenPercentage; }
+
+        public long getAmberPercentage() { return amberPercentage; }
+        public void setAmberPercentage(long amberPercentage) { this.amberPercentage = amberPercentage; }
+
+        public long getRedPercentage() { return redPercentage; }
+        public void setRedPercentage(long redPercentage) { this.redPercentage = redPercentage; }
+
+        public String getTrend() { return trend; }
+        public void setTrend(String trend) { this.trend = trend; }
+
+        public List<DailyScore> getDailyBreakdown() { return dailyBreakdown; }
+        public void setDailyBreakdown(List<DailyScore> dailyBreakdown) { this.dailyBreakdown = dailyBreakdown; }
+
+        public HourlyPattern getHourlyPattern() { return hourlyPattern; }
+        public void setHourlyPattern(HourlyPattern hourlyPattern) { this.hourlyPattern = hourlyPattern; }
+
+        public List<DistributionSlice> getSentimentDistribution() { return sentimentDistribution; }
+        public void setSentimentDistribution(List<DistributionSlice> sentimentDistribution) { this.sentimentDistribution = sentimentDistribution; }
+
+        public Long getAverageScore() { return averageScore; }
+        public void setAverageScore(Long averageScore) { this.averageScore = averageScore; }
+
+        public Long getScoreChange() { return scoreChange; }
+        public void setScoreChange(Long scoreChange) { this.scoreChange = scoreChange; }
+    }
+
+    public static class DailyScore {
+        private final String date;
+        private final long score;
+
+        public DailyScore(String date, long score) {
+            this.date = date;
+            this.score = score;
+        }
+
+        public String getDate() { return date; }
+        public long getScore() { return score; }
+    }
+
+    public static class HourlyPattern {
+        private long morning;
+        private long afternoon;
+        private long evening;
+        private long night;
+
+        @JsonProperty("most_active_time")
+        private String mostActiveTime;
+
+        @JsonProperty("time_of_day_chart")
+        private List<TimeOfDay> timeOfDayChart;
+
+        public long getMorning() { return morning; }
+        public void setMorning(long morning) { this.morning = morning; }
+
+        public long getAfternoon() { return afternoon; }
+        public void setAfternoon(long afternoon) { this.afternoon = afternoon; }
+
+        public long getEvening() { return evening; }
+        public void setEvening(long evening) { this.evening = evening; }
+
+        public long getNight() { return night; }
+        public void setNight(long night) { this.night = night; }
+
+        public String getMostActiveTime() { return mostActiveTime; }
+        public void setMostActiveTime(String mostActiveTime) { this.mostActiveTime = mostActiveTime; }
+
+        public List<TimeOfDay> getTimeOfDayChart() { return timeOfDayChart; }
+        public void setTimeOfDayChart(List<TimeOfDay> timeOfDayChart) { this.timeOfDayChart = timeOfDayChart; }
+    }
+
+    public static class TimeOfDay {
+        private final String time;
+        private final long count;
+        private final int score;
+
+        public TimeOfDay(String time, long count, int score) {
+            this.time = time;
+            this.count = count;
+            this.score = score;
+        }
+
+        public String getTime() { return time; }
+        public long getCount() { return count; }
+        public int getScore() { return score; }
+    }
+
+    public static class DistributionSlice {
+        private final String category;
+        private final long count;
+        private final long percentage;
+        private final String color;
+
+        public DistributionSlice(String category, long count, long percentage, String color) {
+            this.category = category;
+            this.count = count;
+            this.percentage = percentage;
+            this.color = color;
+        }
+
+        public String getCategory() { return category; }
+        public long getCount() { return count; }
+        public long getPercentage() { return percentage; }
+        public String getColor() { return color; }
+    }
+
+    public static class Engagement {
+        @JsonProperty("active_days")
+        private final int activeDays;
+
+        @JsonProperty("total_messages")
+        private final int totalMessages;
+
+        @JsonProperty("engagement_level")
+        private final String engagementLevel;
+
+        public Engagement(int activeDays, int totalMessages, String engagementLevel) {
+            this.activeDays = activeDays;
+            this.totalMessages = totalMessages;
+            this.engagementLevel = engagementLevel;
+        }
+
+        public int getActiveDays() { return activeDays; }
+        public int getTotalMessages() { return totalMessages; }
+        public String getEngagementLevel() { return engagementLevel; }
+    }
+}
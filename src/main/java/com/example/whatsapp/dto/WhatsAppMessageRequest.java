@@ -112,6 +112,8 @@ public class WhatsAppMessageRequest {
         private Metadata metadata;
         private List<Contact> contacts;
         private List<Message> messages;
+        // Sent, delivered, read and failed receipts for messages we sent
+        private List<Status> statuses;
         
         // Constructors
         public Value() {
@@ -141,6 +143,10 @@ public class WhatsAppMessageRequest {
             return messages;
         }
         
+        public List<Status> getStatuses() {
+            return statuses;
+        }
+        
         // Setters
         public void setMessagingProduct(String messagingProduct) {
             this.messagingProduct = messagingProduct;
@@ -157,6 +163,112 @@ public class WhatsAppMessageRequest {
         public void setMessages(List<Message> messages) {
             this.messages = messages;
         }
+        
+        public void setStatuses(List<Status> statuses) {
+            this.statuses = statuses;
+        }
+    }
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Status {
+        // The wamid Graph returned when the message was sent
+        private String id;
+        // sent, delivered, read or failed
+        private String status;
+        // Unix epoch seconds
+        private String timestamp;
+        
+        @JsonProperty("recipient_id")
+        private String recipientId;
+        
+        private List<Error> errors;
+        
+        // Constructors
+        public Status() {
+        }
+        
+        public Status(String id, String status, String timestamp, String recipientId, List<Error> errors) {
+            this.id = id;
+            this.status = status;
+            this.timestamp = timestamp;
+            this.recipientId = recipientId;
+            this.errors = errors;
+        }
+        
+        // Getters
+        public String getId() {
+            return id;
+        }
+        
+        public String getStatus() {
+            return status;
+        }
+        
+        public String getTimestamp() {
+            return timestamp;
+        }
+        
+        public String getRecipientId() {
+            return recipientId;
+        }
+        
+        public List<Error> getErrors() {
+            return errors;
+        }
+        
+        // Setters
+        public void setId(String id) {
+            this.id = id;
+        }
+        
+        public void setStatus(String status) {
+            this.status = status;
+        }
+        
+        public void setTimestamp(String timestamp) {
+            this.timestamp = timestamp;
+        }
+        
+        public void setRecipientId(String recipientId) {
+            this.recipientId = recipientId;
+        }
+        
+        public void setErrors(List<Error> errors) {
+            this.errors = errors;
+        }
+    }
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Error {
+        private Integer code;
+        private String title;
+        
+        // Constructors
+        public Error() {
+        }
+        
+        public Error(Integer code, String title) {
+            this.code = code;
+            this.title = title;
+        }
+        
+        // Getters
+        public Integer getCode() {
+            return code;
+        }
+        
+        public String getTitle() {
+            return title;
+        }
+        
+        // Setters
+        public void setCode(Integer code) {
+            this.code = code;
+        }
+        
+        public void setTitle(String title) {
+            this.title = title;
+        }
     }
     
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -1,140 +1,219 @@
 package com.example.whatsapp.dto;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-
-public class WhatsAppOutgoingMessage {
-    
-    @JsonProperty("messaging_product")
-    private String messagingProduct = "whatsapp";
-    
-    @JsonProperty("recipient_type")
-    private String recipientType = "individual";
-    
-    private String to;
-    
-    private String type = "text";
-    
-    private TextMessage text;
-    
-    public WhatsAppOutgoingMessage() {}
-    
-    public WhatsAppOutgoingMessage(String messagingProduct, String recipientType, String to, String type, TextMessage text) {
-        this.messagingProduct = messagingProduct;
-        this.recipientType = recipientType;
-        this.to = to;
-        this.type = type;
-        this.text = text;
-    }
-    
-    public String getMessagingProduct() { return messagingProduct; }
-    public void setMessagingProduct(String messagingProduct) { this.messagingProduct = messagingProduct; }
-    
-    public String getRecipientType() { return recipientType; }
-    public void setRecipientType(String recipientType) { this.recipientType = recipientType; }
-    
-    public String getTo() { return to; }
-    public void setTo(String to) { this.to = to; }
-    
-    public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
-    
-    public TextMessage getText() { return text; }
-    public void setText(TextMessage text) { this.text = text; }
-    
-    public static WhatsAppOutgoingMessageBuilder builder() {
-        return new WhatsAppOutgoingMessageBuilder();
-    }
-    
-    public static class WhatsAppOutgoingMessageBuilder {
-        private String messagingProduct = "whatsapp";
-        private String recipientType = "individual";
-        private String to;
-        private String type = "text";
-        private TextMessage text;
-        
-        public WhatsAppOutgoingMessageBuilder messagingProduct(String messagingProduct) {
-            this.messagingProduct = messagingProduct;
-            return this;
-        }
-        
-        public WhatsAppOutgoingMessageBuilder recipientType(String recipientType) {
-            this.recipientType = recipientType;
-            return this;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * A message for the Graph API's messages endpoint: text, template or interactive reply
+ * buttons. Written field by field with a JsonGenerator rather than bound by the ObjectMapper,
+ * so a send costs a buffer sized from its content and no reflection.
+ */
+public final class WhatsAppOutgoingMessage {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Graph accepts at most three reply buttons per message
+    private static final int MAX_BUTTONS = 3;
+
+    public enum Type {
+        TEXT("text"),
+        TEMPLATE("template"),
+        INTERACTIVE("interactive");
+
+        private final String value;
+
+        Type(String value) {
+            this.value = value;
         }
-        
-        public WhatsAppOutgoingMessageBuilder to(String to) {
-            this.to = to;
-            return this;
+
+        public String getValue() {
+            return value;
         }
-        
-        public WhatsAppOutgoingMessageBuilder type(String type) {
-            this.type = type;
-            return this;
+    }
+
+    private final Type type;
+    private final String to;
+    private final String body;
+    private final boolean previewUrl;
+    private final String templateName;
+    private final String languageCode;
+    private final List<String> parameters;
+    private final List<Button> buttons;
+
+    private WhatsAppOutgoingMessage(Type type, String to, String body, boolean previewUrl, String templateName,
+                                    String languageCode, List<String> parameters, List<Button> buttons) {
+        if (to == null || to.isEmpty()) {
+            throw new IllegalArgumentException("Recipient phone number is required");
         }
-        
-        public WhatsAppOutgoingMessageBuilder text(TextMessage text) {
-            this.text = text;
-            return this;
+        this.type = type;
+        // Graph wants the number without the leading +
+        this.to = to.charAt(0) == '+' ? to.substring(1) : to;
+        this.body = body;
+        this.previewUrl = previewUrl;
+        this.templateName = templateName;
+        this.languageCode = languageCode;
+        this.parameters = parameters;
+        this.buttons = buttons;
+    }
+
+    public static WhatsAppOutgoingMessage text(String to, String body) {
+        return new WhatsAppOutgoingMessage(Type.TEXT, to, body, false, null, null, List.of(), List.of());
+    }
+
+    /**
+     * A pre-approved template, with its body placeholders {{1}}, {{2}}, ... filled in order
+     */
+    public static WhatsAppOutgoingMessage template(String to, String templateName, String languageCode,
+                                                   List<String> bodyParameters) {
+        return new WhatsAppOutgoingMessage(Type.TEMPLATE, to, null, false, templateName, languageCode,
+                List.copyOf(bodyParameters), List.of());
+    }
+
+    /**
+     * Body text with up to three reply buttons; a tap comes back as an interactive button_reply
+     */
+    public static WhatsAppOutgoingMessage buttons(String to, String body, List<Button> buttons) {
+        if (buttons.isEmpty() || buttons.size() > MAX_BUTTONS) {
+            throw new IllegalArgumentException("An interactive message needs 1 to " + MAX_BUTTONS + " buttons");
         }
-        
-        public WhatsAppOutgoingMessage build() {
-            return new WhatsAppOutgoingMessage(messagingProduct, recipientType, to, type, text);
+        return new WhatsAppOutgoingMessage(Type.INTERACTIVE, to, body, false, null, null, List.of(),
+                List.copyOf(buttons));
+    }
+
+    public static WhatsAppOutgoingMessage createTextMessage(String to, String message) {
+        return text(to, message);
+    }
+
+    public Type getType() { return type; }
+
+    public String getTo() { return to; }
+
+    public String getBody() { return body; }
+
+    public boolean isPreviewUrl() { return previewUrl; }
+
+    public String getTemplateName() { return templateName; }
+
+    public String getLanguageCode() { return languageCode; }
+
+    public List<String> getParameters() { return parameters; }
+
+    public List<Button> getButtons() { return buttons; }
+
+    /**
+     * The request body as UTF-8 JSON
+     */
+    public byte[] toJsonBytes() {
+        try (ByteArrayBuilder out = new ByteArrayBuilder(estimatedSize())) {
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+                writeTo(generator);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            // Only the in-memory builder is written to
+            throw new UncheckedIOException(e);
         }
     }
-    
-    public static class TextMessage {
-        private String body;
-        
-        @JsonProperty("preview_url")
-        private boolean previewUrl;
-        
-        public TextMessage() {}
-        
-        public TextMessage(String body, boolean previewUrl) {
-            this.body = body;
-            this.previewUrl = previewUrl;
+
+    /**
+     * Enough for the envelope plus the (mostly ASCII) content, so one block usually holds it all
+     */
+    private int estimatedSize() {
+        int size = 128 + to.length() + length(body) + length(templateName);
+        for (String parameter : parameters) {
+            size += 32 + length(parameter);
         }
-        
-        public String getBody() { return body; }
-        public void setBody(String body) { this.body = body; }
-        
-        public boolean isPreviewUrl() { return previewUrl; }
-        public void setPreviewUrl(boolean previewUrl) { this.previewUrl = previewUrl; }
-        
-        public static TextMessageBuilder builder() {
-            return new TextMessageBuilder();
+        for (Button button : buttons) {
+            size += 48 + length(button.getId()) + length(button.getTitle());
         }
-        
-        public static class TextMessageBuilder {
-            private String body;
-            private boolean previewUrl;
-            
-            public TextMessageBuilder body(String body) {
-                this.body = body;
-                return this;
+        return size;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("messaging_product", "whatsapp");
+        generator.writeStringField("recipient_type", "individual");
+        generator.writeStringField("to", to);
+        generator.writeStringField("type", type.getValue());
+        switch (type) {
+            case TEXT -> {
+                generator.writeObjectFieldStart("text");
+                generator.writeStringField("body", body);
+                generator.writeBooleanField("preview_url", previewUrl);
+                generator.writeEndObject();
             }
-            
-            public TextMessageBuilder previewUrl(boolean previewUrl) {
-                this.previewUrl = previewUrl;
-                return this;
+            case TEMPLATE -> {
+                generator.writeObjectFieldStart("template");
+                generator.writeStringField("name", templateName);
+                generator.writeObjectFieldStart("language");
+                generator.writeStringField("code", languageCode);
+                generator.writeEndObject();
+                if (!parameters.isEmpty()) {
+                    generator.writeArrayFieldStart("components");
+                    generator.writeStartObject();
+                    generator.writeStringField("type", "body");
+                    generator.writeArrayFieldStart("parameters");
+                    for (String parameter : parameters) {
+                        generator.writeStartObject();
+                        generator.writeStringField("type", "text");
+                        generator.writeStringField("text", parameter);
+                        generator.writeEndObject();
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
             }
-            
-            public TextMessage build() {
-                return new TextMessage(body, previewUrl);
+            case INTERACTIVE -> {
+                generator.writeObjectFieldStart("interactive");
+                generator.writeStringField("type", "button");
+                generator.writeObjectFieldStart("body");
+                generator.writeStringField("text", body);
+                generator.writeEndObject();
+                generator.writeObjectFieldStart("action");
+                generator.writeArrayFieldStart("buttons");
+                for (Button button : buttons) {
+                    generator.writeStartObject();
+                    generator.writeStringField("type", "reply");
+                    generator.writeObjectFieldStart("reply");
+                    generator.writeStringField("id", button.getId());
+                    generator.writeStringField("title", button.getTitle());
+                    generator.writeEndObject();
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeEndObject();
             }
         }
+        generator.writeEndObject();
     }
-    
-    public static WhatsAppOutgoingMessage createTextMessage(String to, String message) {
-        return WhatsAppOutgoingMessage.builder()
-                .messagingProduct("whatsapp")
-                .recipientType("individual")
-                .to(to)
-                .type("text")
-                .text(TextMessage.builder()
-                        .body(message)
-                        .previewUrl(false)
-                        .build())
-                .build();
+
+    /**
+     * A reply button: the ID comes back in the webhook when tapped, the title (max 20
+     * characters) is what the user sees
+     */
+    public static final class Button {
+        private final String id;
+        private final String title;
+
+        public Button(String id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+
+        public String getId() { return id; }
+
+        public String getTitle() { return title; }
     }
-}
\ No newline at end of file
+}
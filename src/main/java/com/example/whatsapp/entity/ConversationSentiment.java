@@ -4,6 +4,7 @@ import com.example.whatsapp.dto.SentimentAnalysis;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+// Indexes and (on PostgreSQL) monthly partitioning are defined in db/migration
 @Entity
 @Table(name = "conversation_sentiments")
 public class ConversationSentiment {
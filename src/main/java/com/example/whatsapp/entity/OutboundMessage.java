@@ -0,0 +1,232 @@
+package com.example.whatsapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A WhatsApp message waiting in (or delivered from) the outbox. PENDING rows are due at
+ * nextAttemptAt; a SENDING row is leased to one dispatcher until lockedUntil, after which
+ * another may pick it up again. DEAD rows ran out of attempts or were rejected outright.
+ */
+@Entity
+@Table(name = "outbound_messages",
+       uniqueConstraints = @UniqueConstraint(name = "uk_outbound_message_key", columnNames = "idempotency_key"),
+       indexes = @Index(name = "idx_outbound_message_due", columnList = "status, priority, next_attempt_at"))
+public class OutboundMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // reply, caretaker_alert, wellness, report
+    @Column(name = "kind", nullable = false, length = 50)
+    private String kind;
+
+    // Priority ordinal; lower is claimed first
+    @Column(name = "priority", nullable = false)
+    private int priority;
+
+    @Column(name = "recipient_phone", nullable = false)
+    private String recipientPhone;
+
+    @Column(name = "body", nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "whatsapp_message_id")
+    private String whatsAppMessageId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        DEAD
+    }
+
+    /**
+     * Delivery order when senders or Graph API throughput are scarce, most urgent first
+     */
+    public enum Priority {
+        REPLY,
+        ALERT,
+        WELLNESS,
+        REPORT;
+
+        public static Priority forKind(String kind) {
+            if (kind == null) return REPORT;
+            switch (kind) {
+                case "reply": return REPLY;
+                case "caretaker_alert": return ALERT;
+                case "wellness": return WELLNESS;
+                default: return REPORT;
+            }
+        }
+
+        public static Priority of(int ordinal) {
+            Priority[] values = values();
+            return values[Math.max(0, Math.min(values.length - 1, ordinal))];
+        }
+    }
+
+    public OutboundMessage() {
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+        this.updatedAt = this.createdAt;
+    }
+
+    public OutboundMessage(String idempotencyKey, String kind, String recipientPhone, String body) {
+        this();
+        this.idempotencyKey = idempotencyKey;
+        this.kind = kind;
+        this.priority = Priority.forKind(kind).ordinal();
+        this.recipientPhone = recipientPhone;
+        this.body = body;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public String getRecipientPhone() {
+        return recipientPhone;
+    }
+
+    public void setRecipientPhone(String recipientPhone) {
+        this.recipientPhone = recipientPhone;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getWhatsAppMessageId() {
+        return whatsAppMessageId;
+    }
+
+    public void setWhatsAppMessageId(String whatsAppMessageId) {
+        this.whatsAppMessageId = whatsAppMessageId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "recipient_topics")
+@Table(name = "recipient_topics",
+       uniqueConstraints = @UniqueConstraint(name = "uk_recipient_topic",
+               columnNames = {"phone_number", "topic", "topic_type"}))
 public class RecipientTopicEntity {
 
     @Id
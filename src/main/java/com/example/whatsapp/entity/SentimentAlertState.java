@@ -0,0 +1,89 @@
+package com.example.whatsapp.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Concerning-sentiment counter and last caretaker alert time for one user, shared by
+ * every application instance. Only changed through conditional UPDATE statements.
+ */
+@Entity
+@Table(name = "sentiment_alert_state")
+public class SentimentAlertState implements Persistable<String> {
+
+    @Id
+    @Column(name = "phone_number", nullable = false)
+    private String phoneNumber;
+
+    @Column(name = "concerning_count", nullable = false)
+    private long concerningCount;
+
+    @Column(name = "last_alert_at")
+    private LocalDateTime lastAlertAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Always INSERT new rows (never merge over a row created concurrently)
+    @Transient
+    private boolean isNew = true;
+
+    public SentimentAlertState() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public SentimentAlertState(String phoneNumber) {
+        this();
+        this.phoneNumber = phoneNumber;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return phoneNumber;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public long getConcerningCount() {
+        return concerningCount;
+    }
+
+    public void setConcerningCount(long concerningCount) {
+        this.concerningCount = concerningCount;
+    }
+
+    public LocalDateTime getLastAlertAt() {
+        return lastAlertAt;
+    }
+
+    public void setLastAlertAt(LocalDateTime lastAlertAt) {
+        this.lastAlertAt = lastAlertAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
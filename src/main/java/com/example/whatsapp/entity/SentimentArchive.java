@@ -0,0 +1,135 @@
+package com.example.whatsapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One archive file of raw sentiment rows for a single day. An archive left ARCHIVED
+ * (e.g. after a crash) still has rows in the database and is purged on the next run.
+ */
+@Entity
+@Table(name = "sentiment_archives")
+public class SentimentArchive {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "archive_day", nullable = false)
+    private LocalDate archiveDay;
+
+    // Relative to sentiment.retention.archive-dir
+    @Column(name = "file_name", nullable = false, length = 500)
+    private String fileName;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "byte_size", nullable = false)
+    private long byteSize;
+
+    // Only rows up to this id were written to the file, so only they may be deleted
+    @Column(name = "max_sentiment_id", nullable = false)
+    private long maxSentimentId;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.ARCHIVED;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "purged_at")
+    private LocalDateTime purgedAt;
+
+    public enum Status {
+        ARCHIVED,
+        PURGED
+    }
+
+    public SentimentArchive() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public SentimentArchive(LocalDate archiveDay, String fileName, long rowCount, long byteSize, long maxSentimentId) {
+        this();
+        this.archiveDay = archiveDay;
+        this.fileName = fileName;
+        this.rowCount = rowCount;
+        this.byteSize = byteSize;
+        this.maxSentimentId = maxSentimentId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getArchiveDay() {
+        return archiveDay;
+    }
+
+    public void setArchiveDay(LocalDate archiveDay) {
+        this.archiveDay = archiveDay;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public long getByteSize() {
+        return byteSize;
+    }
+
+    public void setByteSize(long byteSize) {
+        this.byteSize = byteSize;
+    }
+
+    public long getMaxSentimentId() {
+        return maxSentimentId;
+    }
+
+    public void setMaxSentimentId(long maxSentimentId) {
+        this.maxSentimentId = maxSentimentId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getPurgedAt() {
+        return purgedAt;
+    }
+
+    public void setPurgedAt(LocalDateTime purgedAt) {
+        this.purgedAt = purgedAt;
+    }
+}
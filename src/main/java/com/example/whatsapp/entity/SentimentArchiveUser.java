@@ -0,0 +1,66 @@
+package com.example.whatsapp.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * How many rows of one user an archive file holds
+ */
+@Entity
+@Table(name = "sentiment_archive_users",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sentiment_archive_user", columnNames = {"archive_id", "phone_number"}))
+public class SentimentArchiveUser {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "archive_id", nullable = false)
+    private Long archiveId;
+
+    @Column(name = "phone_number", nullable = false)
+    private String phoneNumber;
+
+    @Column(name = "row_count", nullable = false)
+    private int rowCount;
+
+    public SentimentArchiveUser() {
+    }
+
+    public SentimentArchiveUser(Long archiveId, String phoneNumber, int rowCount) {
+        this.archiveId = archiveId;
+        this.phoneNumber = phoneNumber;
+        this.rowCount = rowCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getArchiveId() {
+        return archiveId;
+    }
+
+    public void setArchiveId(Long archiveId) {
+        this.archiveId = archiveId;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.whatsapp.entity;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user, per-hour summary of conversation sentiments. Maintained incrementally as
+ * sentiments are stored and rebuilt nightly from the raw rows. Day totals are the sum
+ * of the hour buckets for that date.
+ */
+@Entity
+@Table(name = "sentiment_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sentiment_rollup_bucket",
+                                             columnNames = {"phone_number", "bucket_start"}))
+public class SentimentRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "phone_number", nullable = false)
+    private String phoneNumber;
+
+    // Start of the hour this bucket covers
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "green_count", nullable = false)
+    private long greenCount;
+
+    @Column(name = "amber_count", nullable = false)
+    private long amberCount;
+
+    @Column(name = "red_count", nullable = false)
+    private long redCount;
+
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+
+    @Column(name = "confidence_sum", nullable = false)
+    private double confidenceSum;
+
+    @Column(name = "first_timestamp")
+    private LocalDateTime firstTimestamp;
+
+    @Column(name = "last_timestamp")
+    private LocalDateTime lastTimestamp;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public SentimentRollup() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public SentimentRollup(String phoneNumber, LocalDateTime bucketStart) {
+        this();
+        this.phoneNumber = phoneNumber;
+        this.bucketStart = bucketStart;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Add a number of sentiments of one category to this bucket
+     */
+    public void add(SentimentAnalysis.SentimentCategory category, long count, double confidence,
+                    LocalDateTime first, LocalDateTime last) {
+        switch (category) {
+            case GREEN -> greenCount += count;
+            case AMBER -> amberCount += count;
+            case RED -> redCount += count;
+        }
+        messageCount += count;
+        confidenceSum += confidence;
+        if (first != null && (firstTimestamp == null || first.isBefore(firstTimestamp))) {
+            firstTimestamp = first;
+        }
+        if (last != null && (lastTimestamp == null || last.isAfter(lastTimestamp))) {
+            lastTimestamp = last;
+        }
+    }
+
+    public long getCount(SentimentAnalysis.SentimentCategory category) {
+        return switch (category) {
+            case GREEN -> greenCount;
+            case AMBER -> amberCount;
+            case RED -> redCount;
+        };
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getGreenCount() {
+        return greenCount;
+    }
+
+    public void setGreenCount(long greenCount) {
+        this.greenCount = greenCount;
+    }
+
+    public long getAmberCount() {
+        return amberCount;
+    }
+
+    public void setAmberCount(long amberCount) {
+        this.amberCount = amberCount;
+    }
+
+    public long getRedCount() {
+        return redCount;
+    }
+
+    public void setRedCount(long redCount) {
+        this.redCount = redCount;
+    }
+
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(long messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public double getConfidenceSum() {
+        return confidenceSum;
+    }
+
+    public void setConfidenceSum(double confidenceSum) {
+        this.confidenceSum = confidenceSum;
+    }
+
+    public LocalDateTime getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public void setFirstTimestamp(LocalDateTime firstTimestamp) {
+        this.firstTimestamp = firstTimestamp;
+    }
+
+    public LocalDateTime getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(LocalDateTime lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.whatsapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Periodic snapshot of one user's alert window (recent sentiment events, encoded compactly)
+ * so the sliding-window rules keep their history across restarts.
+ */
+@Entity
+@Table(name = "sentiment_window_snapshots")
+public class SentimentWindowSnapshot {
+
+    @Id
+    @Column(name = "phone_number", nullable = false)
+    private String phoneNumber;
+
+    // Base64 of the packed (timestamp, category, confidence) events, oldest first
+    @Column(name = "events", columnDefinition = "TEXT")
+    private String events;
+
+    @Column(name = "event_count", nullable = false)
+    private int eventCount;
+
+    // Timestamp of the newest event in the snapshot
+    @Column(name = "last_event_at")
+    private LocalDateTime lastEventAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public SentimentWindowSnapshot() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public SentimentWindowSnapshot(String phoneNumber, String events, int eventCount, LocalDateTime lastEventAt) {
+        this();
+        this.phoneNumber = phoneNumber;
+        this.events = events;
+        this.eventCount = eventCount;
+        this.lastEventAt = lastEventAt;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public String getEvents() {
+        return events;
+    }
+
+    public void setEvents(String events) {
+        this.events = events;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(int eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public LocalDateTime getLastEventAt() {
+        return lastEventAt;
+    }
+
+    public void setLastEventAt(LocalDateTime lastEventAt) {
+        this.lastEventAt = lastEventAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.whatsapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One bulk weekly-report run. A job left RUNNING (e.g. after a crash) is resumed on
+ * startup from its unfinished items.
+ */
+@Entity
+@Table(name = "weekly_report_jobs")
+public class WeeklyReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Monday of the week the reports cover
+    @Column(name = "report_week", nullable = false)
+    private LocalDate reportWeek;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.RUNNING;
+
+    @Column(name = "trigger_type")
+    private String triggerType;
+
+    @Column(name = "total_recipients", nullable = false)
+    private int totalRecipients;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED
+    }
+
+    public WeeklyReportJob() {
+        this.startedAt = LocalDateTime.now();
+    }
+
+    public WeeklyReportJob(LocalDate reportWeek, String triggerType) {
+        this();
+        this.reportWeek = reportWeek;
+        this.triggerType = triggerType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getReportWeek() {
+        return reportWeek;
+    }
+
+    public void setReportWeek(LocalDate reportWeek) {
+        this.reportWeek = reportWeek;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getTriggerType() {
+        return triggerType;
+    }
+
+    public void setTriggerType(String triggerType) {
+        this.triggerType = triggerType;
+    }
+
+    public int getTotalRecipients() {
+        return totalRecipients;
+    }
+
+    public void setTotalRecipients(int totalRecipients) {
+        this.totalRecipients = totalRecipients;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.whatsapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint for one recipient within a bulk report job. Each delivery channel is
+ * flagged as soon as it succeeds so a resumed job never sends the same report twice.
+ */
+@Entity
+@Table(name = "weekly_report_job_items",
+       uniqueConstraints = @UniqueConstraint(name = "uk_report_job_item",
+                                             columnNames = {"job_id", "phone_number"}),
+       indexes = @Index(name = "idx_report_job_item_status", columnList = "job_id, status"))
+public class WeeklyReportJobItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "phone_number", nullable = false)
+    private String phoneNumber;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    @Column(name = "email_sent", nullable = false)
+    private boolean emailSent;
+
+    @Column(name = "whatsapp_sent", nullable = false)
+    private boolean whatsAppSent;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Status {
+        PENDING,
+        SENT,
+        PARTIAL,   // At least one channel delivered, another failed
+        FAILED
+    }
+
+    public WeeklyReportJobItem() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public WeeklyReportJobItem(Long jobId, String phoneNumber) {
+        this();
+        this.jobId = jobId;
+        this.phoneNumber = phoneNumber;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public boolean isEmailSent() {
+        return emailSent;
+    }
+
+    public void setEmailSent(boolean emailSent) {
+        this.emailSent = emailSent;
+    }
+
+    public boolean isWhatsAppSent() {
+        return whatsAppSent;
+    }
+
+    public void setWhatsAppSent(boolean whatsAppSent) {
+        this.whatsAppSent = whatsAppSent;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,42 +1,183 @@
 package com.example.whatsapp.repository;
 
 import com.example.whatsapp.entity.ConversationSentiment;
+import com.example.whatsapp.dto.LatestSentiment;
 import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.SentimentEvent;
+import com.example.whatsapp.dto.SentimentHourAggregate;
+import com.example.whatsapp.dto.SentimentSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ConversationSentimentRepository extends JpaRepository<ConversationSentiment, Long> {
     
-    List<ConversationSentiment> findByPhoneNumberOrderByTimestampDesc(String phoneNumber);
+    // Keyset pages, newest first: rows strictly after the cursor (timestamp, id) in
+    // (timestamp DESC, id DESC) order. The plain "timestamp <=" bound gives the index range
+    // and PostgreSQL partition pruning something to work with. Summary variants skip the TEXT columns.
     
-    List<ConversationSentiment> findByPhoneNumberAndTimestampAfterOrderByTimestampDesc(
-            String phoneNumber, LocalDateTime after);
+    @Query("SELECT new com.example.whatsapp.dto.SentimentSummary(cs.id, cs.phoneNumber, cs.timestamp, " +
+           "cs.sentimentCategory, cs.confidenceScore, cs.concernLevel, cs.requiresAttention) " +
+           "FROM ConversationSentiment cs WHERE cs.phoneNumber = :phoneNumber " +
+           "AND cs.timestamp <= :timestamp AND (cs.timestamp < :timestamp OR cs.id < :id) " +
+           "ORDER BY cs.timestamp DESC, cs.id DESC")
+    List<SentimentSummary> findUserSummariesBefore(
+            @Param("phoneNumber") String phoneNumber,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") long id,
+            Limit limit);
     
-    List<ConversationSentiment> findBySentimentCategoryOrderByTimestampDesc(
-            SentimentAnalysis.SentimentCategory category);
+    @Query("SELECT cs FROM ConversationSentiment cs WHERE cs.phoneNumber = :phoneNumber " +
+           "AND cs.timestamp <= :timestamp AND (cs.timestamp < :timestamp OR cs.id < :id) " +
+           "ORDER BY cs.timestamp DESC, cs.id DESC")
+    List<ConversationSentiment> findUserSentimentsBefore(
+            @Param("phoneNumber") String phoneNumber,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") long id,
+            Limit limit);
     
-    List<ConversationSentiment> findByRequiresAttentionTrueOrderByTimestampDesc();
+    @Query("SELECT new com.example.whatsapp.dto.SentimentSummary(cs.id, cs.phoneNumber, cs.timestamp, " +
+           "cs.sentimentCategory, cs.confidenceScore, cs.concernLevel, cs.requiresAttention) " +
+           "FROM ConversationSentiment cs WHERE cs.sentimentCategory = :category " +
+           "AND cs.timestamp <= :timestamp AND (cs.timestamp < :timestamp OR cs.id < :id) " +
+           "ORDER BY cs.timestamp DESC, cs.id DESC")
+    List<SentimentSummary> findCategorySummariesBefore(
+            @Param("category") SentimentAnalysis.SentimentCategory category,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") long id,
+            Limit limit);
     
-    @Query("SELECT cs FROM ConversationSentiment cs WHERE cs.timestamp >= :startDate ORDER BY cs.timestamp DESC")
-    List<ConversationSentiment> findRecentSentiments(@Param("startDate") LocalDateTime startDate);
+    @Query("SELECT cs FROM ConversationSentiment cs WHERE cs.sentimentCategory = :category " +
+           "AND cs.timestamp <= :timestamp AND (cs.timestamp < :timestamp OR cs.id < :id) " +
+           "ORDER BY cs.timestamp DESC, cs.id DESC")
+    List<ConversationSentiment> findCategorySentimentsBefore(
+            @Param("category") SentimentAnalysis.SentimentCategory category,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") long id,
+            Limit limit);
     
-    @Query("SELECT cs.sentimentCategory, COUNT(cs) FROM ConversationSentiment cs " +
-           "WHERE cs.timestamp >= :startDate GROUP BY cs.sentimentCategory")
-    List<Object[]> getSentimentCounts(@Param("startDate") LocalDateTime startDate);
+    @Query("SELECT new com.example.whatsapp.dto.SentimentSummary(cs.id, cs.phoneNumber, cs.timestamp, " +
+           "cs.sentimentCategory, cs.confidenceScore, cs.concernLevel, cs.requiresAttention) " +
+           "FROM ConversationSentiment cs WHERE cs.requiresAttention = true " +
+           "AND cs.timestamp <= :timestamp AND (cs.timestamp < :timestamp OR cs.id < :id) " +
+           "ORDER BY cs.timestamp DESC, cs.id DESC")
+    List<SentimentSummary> findAttentionSummariesBefore(
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") long id,
+            Limit limit);
     
-    @Query("SELECT cs FROM ConversationSentiment cs WHERE cs.phoneNumber = :phoneNumber " +
-           "AND cs.timestamp >= :startDate ORDER BY cs.timestamp DESC")
-    List<ConversationSentiment> findUserSentimentsAfter(
-            @Param("phoneNumber") String phoneNumber, 
-            @Param("startDate") LocalDateTime startDate);
-    
-    @Query("SELECT DISTINCT cs.phoneNumber FROM ConversationSentiment cs " +
-           "WHERE cs.sentimentCategory = 'RED' AND cs.timestamp >= :startDate")
-    List<String> findUsersWithRecentRedSentiments(@Param("startDate") LocalDateTime startDate);
-}
\ No newline at end of file
+    @Query("SELECT cs FROM ConversationSentiment cs WHERE cs.requiresAttention = true " +
+           "AND cs.timestamp <= :timestamp AND (cs.timestamp < :timestamp OR cs.id < :id) " +
+           "ORDER BY cs.timestamp DESC, cs.id DESC")
+    List<ConversationSentiment> findAttentionSentimentsBefore(
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") long id,
+            Limit limit);
+    
+    long countByRequiresAttentionTrue();
+    
+    // PostgreSQL only: creates the monthly partitions up to monthsAhead months from now
+    @Query(value = "SELECT ensure_conversation_sentiment_partitions(:monthsAhead)", nativeQuery = true)
+    int ensureMonthlyPartitions(@Param("monthsAhead") int monthsAhead);
+    
+    // Retention: archive a day in (timestamp, id) order, then delete it in id chunks
+    
+    @Query("SELECT MIN(cs.timestamp) FROM ConversationSentiment cs WHERE cs.timestamp < :cutoff")
+    LocalDateTime findOldestTimestampBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    @Query("SELECT cs FROM ConversationSentiment cs WHERE cs.timestamp >= :afterTimestamp AND cs.timestamp < :to " +
+           "AND (cs.timestamp > :afterTimestamp OR cs.id > :afterId) ORDER BY cs.timestamp, cs.id")
+    List<ConversationSentiment> findArchiveBatch(
+            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+            @Param("afterId") long afterId,
+            @Param("to") LocalDateTime to,
+            Limit limit);
+    
+    @Query("SELECT cs.id FROM ConversationSentiment cs WHERE cs.timestamp >= :from AND cs.timestamp < :to " +
+           "AND cs.id <= :maxId ORDER BY cs.timestamp, cs.id")
+    List<Long> findIdsToPurge(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("maxId") long maxId,
+            Limit limit);
+    
+    // The timestamp range lets PostgreSQL prune to the day's partition
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ConversationSentiment cs WHERE cs.timestamp >= :from AND cs.timestamp < :to AND cs.id IN :ids")
+    int deleteArchived(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT cs.id FROM ConversationSentiment cs WHERE cs.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    String EXPORT_FETCH_SIZE = "1000";
+    
+    // Export: rows come off a server-side cursor EXPORT_FETCH_SIZE at a time (on PostgreSQL only inside
+    // a transaction), so the caller must run in one, close the stream and detach each row it has written
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT cs FROM ConversationSentiment cs WHERE cs.timestamp >= :from AND cs.timestamp < :to " +
+           "AND (:phoneNumber IS NULL OR cs.phoneNumber = :phoneNumber) " +
+           "AND (:category IS NULL OR cs.sentimentCategory = :category) ORDER BY cs.timestamp, cs.id")
+    Stream<ConversationSentiment> streamForExport(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("phoneNumber") String phoneNumber,
+            @Param("category") SentimentAnalysis.SentimentCategory category);
+    
+    // Aggregate projection for rebuilding rollups - never loads the TEXT columns
+    @Query("SELECT new com.example.whatsapp.dto.SentimentHourAggregate(cs.phoneNumber, " +
+           "extract(date from cs.timestamp), extract(hour from cs.timestamp), cs.sentimentCategory, " +
+           "COUNT(cs), SUM(cs.confidenceScore), MIN(cs.timestamp), MAX(cs.timestamp)) " +
+           "FROM ConversationSentiment cs WHERE cs.timestamp >= :from AND cs.timestamp < :to " +
+           "GROUP BY cs.phoneNumber, extract(date from cs.timestamp), extract(hour from cs.timestamp), cs.sentimentCategory")
+    List<SentimentHourAggregate> aggregateByUserHour(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+    
+    // Events for replaying the alert windows, oldest first, without the TEXT columns
+    @Query("SELECT new com.example.whatsapp.dto.SentimentEvent(cs.phoneNumber, cs.timestamp, " +
+           "cs.sentimentCategory, cs.confidenceScore) " +
+           "FROM ConversationSentiment cs WHERE cs.timestamp > :since ORDER BY cs.timestamp ASC, cs.id ASC")
+    List<SentimentEvent> findEventsAfter(@Param("since") LocalDateTime since);
+    
+    // Categories of one user's rows in [from, to), newest first; splits an hourly rollup bucket
+    @Query("SELECT cs.sentimentCategory FROM ConversationSentiment cs WHERE cs.phoneNumber = :phoneNumber " +
+           "AND cs.timestamp >= :from AND cs.timestamp < :to ORDER BY cs.timestamp DESC, cs.id DESC")
+    List<SentimentAnalysis.SentimentCategory> findCategoriesBetween(
+            @Param("phoneNumber") String phoneNumber,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Limit limit);
+    
+    List<ConversationSentiment> findTop3ByPhoneNumberAndSentimentCategoryAndTimestampGreaterThanEqualOrderByTimestampDesc(
+            String phoneNumber, SentimentAnalysis.SentimentCategory category, LocalDateTime startDate);
+    
+    // The newest of one user's rows since startDate, for the trend; call with Limit.of(1)
+    @Query("SELECT new com.example.whatsapp.dto.LatestSentiment(cs.sentimentCategory, cs.confidenceScore, " +
+           "cs.emotionalIndicators) FROM ConversationSentiment cs WHERE cs.phoneNumber = :phoneNumber " +
+           "AND cs.timestamp >= :startDate ORDER BY cs.timestamp DESC, cs.id DESC")
+    List<LatestSentiment> findLatestSince(
+            @Param("phoneNumber") String phoneNumber,
+            @Param("startDate") LocalDateTime startDate,
+            Limit limit);
+}
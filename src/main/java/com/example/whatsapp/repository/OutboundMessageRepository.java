@@ -0,0 +1,88 @@
+package com.example.whatsapp.repository;
+
+import com.example.whatsapp.entity.OutboundMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboundMessageRepository extends JpaRepository<OutboundMessage, Long> {
+
+    Optional<OutboundMessage> findByIdempotencyKey(String idempotencyKey);
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    long countByStatus(OutboundMessage.Status status);
+
+    List<OutboundMessage> findByStatusOrderByUpdatedAtDesc(OutboundMessage.Status status, Limit limit);
+
+    /**
+     * Messages of one priority a dispatcher may claim: due PENDING rows and SENDING rows whose
+     * lease expired
+     */
+    @Query("SELECT m.id FROM OutboundMessage m WHERE m.priority = :priority AND (" +
+           "(m.status = com.example.whatsapp.entity.OutboundMessage$Status.PENDING AND m.nextAttemptAt <= :now) OR " +
+           "(m.status = com.example.whatsapp.entity.OutboundMessage$Status.SENDING AND m.lockedUntil < :now)) " +
+           "ORDER BY m.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, @Param("priority") int priority, Limit limit);
+
+    /**
+     * Lease a due message for one send attempt; succeeds (returns 1) for exactly one dispatcher
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboundMessage m SET m.status = com.example.whatsapp.entity.OutboundMessage$Status.SENDING, " +
+           "m.lockedUntil = :lockedUntil, m.attempts = m.attempts + 1, m.updatedAt = :now WHERE m.id = :id AND (" +
+           "(m.status = com.example.whatsapp.entity.OutboundMessage$Status.PENDING AND m.nextAttemptAt <= :now) OR " +
+           "(m.status = com.example.whatsapp.entity.OutboundMessage$Status.SENDING AND m.lockedUntil < :now))")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboundMessage m SET m.status = com.example.whatsapp.entity.OutboundMessage$Status.SENT, " +
+           "m.whatsAppMessageId = :whatsAppMessageId, m.sentAt = :now, m.lockedUntil = NULL, m.lastError = NULL, " +
+           "m.updatedAt = :now WHERE m.id = :id")
+    int markSent(@Param("id") Long id, @Param("whatsAppMessageId") String whatsAppMessageId,
+                 @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboundMessage m SET m.status = com.example.whatsapp.entity.OutboundMessage$Status.PENDING, " +
+           "m.nextAttemptAt = :nextAttemptAt, m.lockedUntil = NULL, m.lastError = :error, m.updatedAt = :now " +
+           "WHERE m.id = :id")
+    int markRetry(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                  @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboundMessage m SET m.status = com.example.whatsapp.entity.OutboundMessage$Status.DEAD, " +
+           "m.lockedUntil = NULL, m.lastError = :error, m.updatedAt = :now WHERE m.id = :id")
+    int markDead(@Param("id") Long id, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    /**
+     * Put a dead-lettered message back in the queue with a fresh set of attempts
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboundMessage m SET m.status = com.example.whatsapp.entity.OutboundMessage$Status.PENDING, " +
+           "m.attempts = 0, m.nextAttemptAt = :now, m.updatedAt = :now " +
+           "WHERE m.id = :id AND m.status = com.example.whatsapp.entity.OutboundMessage$Status.DEAD")
+    int redrive(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Drop delivered messages once their idempotency keys no longer need guarding
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboundMessage m WHERE m.status = com.example.whatsapp.entity.OutboundMessage$Status.SENT " +
+           "AND m.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
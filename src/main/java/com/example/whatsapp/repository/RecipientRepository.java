@@ -2,9 +2,13 @@ package com.example.whatsapp.repository;
 
 import com.example.whatsapp.entity.RecipientEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +24,19 @@ public interface RecipientRepository extends JpaRepository<RecipientEntity, Long
            nativeQuery = true)
     List<RecipientEntity> findRecipientsDueForCheck();
 
+    @Modifying
+    @Query("UPDATE RecipientEntity r SET r.lastCheckSent = :sentAt, r.updatedAt = :sentAt " +
+           "WHERE r.phoneNumber IN :phoneNumbers")
+    int updateLastCheckSent(@Param("phoneNumbers") Collection<String> phoneNumbers,
+                            @Param("sentAt") LocalDateTime sentAt);
+
+    @Query("SELECT r.phoneNumber FROM RecipientEntity r WHERE r.caretakerPhoneNumber IN :caretakerPhoneNumbers")
+    List<String> findPhoneNumbersByCaretakerPhoneNumber(
+            @Param("caretakerPhoneNumbers") Collection<String> caretakerPhoneNumbers);
+
+    @Query("SELECT r.phoneNumber FROM RecipientEntity r WHERE r.phoneNumber IN :phoneNumbers")
+    List<String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
     boolean existsByPhoneNumber(String phoneNumber);
 
     void deleteByPhoneNumber(String phoneNumber);
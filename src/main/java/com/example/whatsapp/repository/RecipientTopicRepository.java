@@ -3,8 +3,12 @@ package com.example.whatsapp.repository;
 import com.example.whatsapp.entity.RecipientTopicEntity;
 import com.example.whatsapp.entity.RecipientTopicEntity.TopicType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,11 +18,27 @@ public interface RecipientTopicRepository extends JpaRepository<RecipientTopicEn
 
     List<RecipientTopicEntity> findByPhoneNumberAndTopicType(String phoneNumber, TopicType topicType);
 
-    void deleteByPhoneNumberAndTopicAndTopicType(String phoneNumber, String topic, TopicType topicType);
+    List<RecipientTopicEntity> findByPhoneNumberIn(Collection<String> phoneNumbers);
 
-    void deleteByPhoneNumberAndTopicType(String phoneNumber, TopicType topicType);
+    @Modifying
+    @Query("DELETE FROM RecipientTopicEntity t WHERE t.phoneNumber = :phoneNumber " +
+           "AND t.topic = :topic AND t.topicType = :topicType")
+    int deleteByPhoneNumberAndTopicAndTopicType(@Param("phoneNumber") String phoneNumber,
+                                                @Param("topic") String topic,
+                                                @Param("topicType") TopicType topicType);
 
-    void deleteByPhoneNumber(String phoneNumber);
+    @Modifying
+    @Query("DELETE FROM RecipientTopicEntity t WHERE t.phoneNumber = :phoneNumber AND t.topicType = :topicType")
+    int deleteByPhoneNumberAndTopicType(@Param("phoneNumber") String phoneNumber,
+                                        @Param("topicType") TopicType topicType);
+
+    @Modifying
+    @Query("DELETE FROM RecipientTopicEntity t WHERE t.phoneNumber = :phoneNumber")
+    int deleteByPhoneNumber(@Param("phoneNumber") String phoneNumber);
+
+    @Modifying
+    @Query("DELETE FROM RecipientTopicEntity t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 
     boolean existsByPhoneNumberAndTopicAndTopicType(String phoneNumber, String topic, TopicType topicType);
 }
@@ -0,0 +1,42 @@
+package com.example.whatsapp.repository;
+
+import com.example.whatsapp.entity.SentimentAlertState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SentimentAlertStateRepository extends JpaRepository<SentimentAlertState, String> {
+
+    // Takes the row lock; callers read the new value in the same transaction
+    @Modifying
+    @Query("UPDATE SentimentAlertState s SET s.concerningCount = s.concerningCount + 1, " +
+           "s.updatedAt = :now WHERE s.phoneNumber = :phoneNumber")
+    int incrementConcerningCount(@Param("phoneNumber") String phoneNumber, @Param("now") LocalDateTime now);
+
+    @Query("SELECT s.concerningCount FROM SentimentAlertState s WHERE s.phoneNumber = :phoneNumber")
+    Optional<Long> findConcerningCount(@Param("phoneNumber") String phoneNumber);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SentimentAlertState s SET s.concerningCount = 0, s.updatedAt = :now " +
+           "WHERE s.phoneNumber = :phoneNumber")
+    int resetConcerningCount(@Param("phoneNumber") String phoneNumber, @Param("now") LocalDateTime now);
+
+    /**
+     * Claim the alert slot: succeeds (returns 1) for exactly one caller per cooldown window
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE SentimentAlertState s SET s.lastAlertAt = :now, s.updatedAt = :now " +
+           "WHERE s.phoneNumber = :phoneNumber AND (s.lastAlertAt IS NULL OR s.lastAlertAt <= :cutoff)")
+    int claimAlert(@Param("phoneNumber") String phoneNumber,
+                   @Param("now") LocalDateTime now,
+                   @Param("cutoff") LocalDateTime cutoff);
+}
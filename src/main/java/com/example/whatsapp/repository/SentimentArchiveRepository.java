@@ -0,0 +1,39 @@
+package com.example.whatsapp.repository;
+
+import com.example.whatsapp.entity.SentimentArchive;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SentimentArchiveRepository extends JpaRepository<SentimentArchive, Long> {
+
+    List<SentimentArchive> findByStatusOrderByArchiveDayAsc(SentimentArchive.Status status);
+
+    // Last day whose raw rows have been archived; rollups up to and including it can no longer be rebuilt
+    @Query("SELECT MAX(a.archiveDay) FROM SentimentArchive a")
+    LocalDate findLastArchivedDay();
+
+    @Query("SELECT a FROM SentimentArchive a ORDER BY a.archiveDay DESC, a.id DESC")
+    List<SentimentArchive> findRecent(Limit limit);
+
+    @Query("SELECT a FROM SentimentArchive a WHERE a.id IN " +
+           "(SELECT u.archiveId FROM SentimentArchiveUser u WHERE u.phoneNumber = :phoneNumber) " +
+           "AND a.archiveDay >= :from AND a.archiveDay <= :to ORDER BY a.archiveDay, a.id")
+    List<SentimentArchive> findForUser(@Param("phoneNumber") String phoneNumber,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SentimentArchive a SET a.status = 'PURGED', a.purgedAt = :purgedAt WHERE a.id = :id")
+    int markPurged(@Param("id") Long id, @Param("purgedAt") LocalDateTime purgedAt);
+}
@@ -0,0 +1,59 @@
+package com.example.whatsapp.repository;
+
+import com.example.whatsapp.dto.SentimentTotals;
+import com.example.whatsapp.entity.SentimentRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SentimentRollupRepository extends JpaRepository<SentimentRollup, Long> {
+
+    @Transactional
+    @Modifying
+    // Native so Hibernate doesn't wrap :confidence in a cast that H2 rejects
+    @Query(value = "UPDATE sentiment_rollups SET " +
+           "green_count = green_count + :green, " +
+           "amber_count = amber_count + :amber, " +
+           "red_count = red_count + :red, " +
+           "message_count = message_count + 1, " +
+           "confidence_sum = confidence_sum + :confidence, " +
+           "first_timestamp = CASE WHEN first_timestamp IS NULL OR first_timestamp > :ts THEN :ts ELSE first_timestamp END, " +
+           "last_timestamp = CASE WHEN last_timestamp IS NULL OR last_timestamp < :ts THEN :ts ELSE last_timestamp END, " +
+           "updated_at = CURRENT_TIMESTAMP " +
+           "WHERE phone_number = :phoneNumber AND bucket_start = :bucketStart",
+           nativeQuery = true)
+    int increment(@Param("phoneNumber") String phoneNumber,
+                  @Param("bucketStart") LocalDateTime bucketStart,
+                  @Param("green") long green,
+                  @Param("amber") long amber,
+                  @Param("red") long red,
+                  @Param("confidence") double confidence,
+                  @Param("ts") LocalDateTime timestamp);
+
+    List<SentimentRollup> findByPhoneNumberAndBucketStartGreaterThanEqualOrderByBucketStartDesc(
+            String phoneNumber, LocalDateTime since);
+
+    @Query("SELECT new com.example.whatsapp.dto.SentimentTotals(" +
+           "SUM(r.greenCount), SUM(r.amberCount), SUM(r.redCount), SUM(r.messageCount), SUM(r.confidenceSum)) " +
+           "FROM SentimentRollup r WHERE r.bucketStart >= :since")
+    SentimentTotals sumSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT new com.example.whatsapp.dto.SentimentTotals(" +
+           "SUM(r.greenCount), SUM(r.amberCount), SUM(r.redCount), SUM(r.messageCount), SUM(r.confidenceSum)) " +
+           "FROM SentimentRollup r WHERE r.phoneNumber = :phoneNumber AND r.bucketStart >= :since")
+    SentimentTotals sumUserSince(@Param("phoneNumber") String phoneNumber, @Param("since") LocalDateTime since);
+
+    @Query("SELECT DISTINCT r.phoneNumber FROM SentimentRollup r WHERE r.redCount > 0 AND r.bucketStart >= :since")
+    List<String> findUsersWithRedSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM SentimentRollup r WHERE r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteBucketsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,9 @@
+package com.example.whatsapp.repository;
+
+import com.example.whatsapp.entity.SentimentWindowSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SentimentWindowSnapshotRepository extends JpaRepository<SentimentWindowSnapshot, String> {
+}
@@ -0,0 +1,39 @@
+package com.example.whatsapp.repository;
+
+import com.example.whatsapp.entity.WeeklyReportJobItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface WeeklyReportJobItemRepository extends JpaRepository<WeeklyReportJobItem, Long> {
+
+    List<WeeklyReportJobItem> findByJobIdAndStatus(Long jobId, WeeklyReportJobItem.Status status);
+
+    long countByJobIdAndStatus(Long jobId, WeeklyReportJobItem.Status status);
+
+    List<WeeklyReportJobItem> findByJobIdAndStatusIn(Long jobId, List<WeeklyReportJobItem.Status> statuses);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WeeklyReportJobItem i SET i.emailSent = true, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int markEmailSent(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WeeklyReportJobItem i SET i.whatsAppSent = true, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int markWhatsAppSent(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WeeklyReportJobItem i SET i.status = :status, i.error = :error, " +
+           "i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int markFinished(@Param("id") Long id,
+                     @Param("status") WeeklyReportJobItem.Status status,
+                     @Param("error") String error);
+}
@@ -0,0 +1,19 @@
+package com.example.whatsapp.repository;
+
+import com.example.whatsapp.entity.WeeklyReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WeeklyReportJobRepository extends JpaRepository<WeeklyReportJob, Long> {
+
+    List<WeeklyReportJob> findByStatusOrderByStartedAtAsc(WeeklyReportJob.Status status);
+
+    Optional<WeeklyReportJob> findFirstByReportWeekOrderByStartedAtDesc(LocalDate reportWeek);
+
+    Optional<WeeklyReportJob> findFirstByOrderByStartedAtDesc();
+}
@@ -2,6 +2,9 @@ package com.example.whatsapp.service;
 
 import com.example.whatsapp.dto.GroqRequest;
 import com.example.whatsapp.dto.GroqResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -78,6 +81,17 @@ public class AIProviderService {
     
     private final Map<String, ProviderConfig> providers = new HashMap<>();
     private final List<String> providerOrder = Arrays.asList("groq", "openrouter", "together", "huggingface");
+
+    private final PromptContextService promptContextService;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    public AIProviderService(PromptContextService promptContextService, MeterRegistry meterRegistry,
+                             ObservationRegistry observationRegistry) {
+        this.promptContextService = promptContextService;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
     
     @PostConstruct
     public void init() {
@@ -139,11 +153,16 @@ public class AIProviderService {
         return generateResponse(conversationHistory, userMessage, null);
     }
 
-    public String generateResponse(List<ConversationHistoryService.ChatMessage> conversationHistory, String userMessage, String userName) {
+    /**
+     * Generate a response with the recipient's cached prompt context (profile, topics, language hint)
+     */
+    public String generateResponse(List<ConversationHistoryService.ChatMessage> conversationHistory, String userMessage, String phoneNumber) {
+        String systemPrompt = promptContextService.getSystemPrompt(phoneNumber);
+
         // Try primary provider first
         if (providers.containsKey(primaryProvider)) {
             try {
-                String response = callProvider(primaryProvider, conversationHistory, userMessage, userName);
+                String response = callProvider(primaryProvider, conversationHistory, userMessage, systemPrompt);
                 if (response != null) {
                     log.debug("Response generated using primary provider: {}", primaryProvider);
                     return response;
@@ -158,7 +177,7 @@ public class AIProviderService {
             for (String providerName : providerOrder) {
                 if (!providerName.equals(primaryProvider) && providers.containsKey(providerName)) {
                     try {
-                        String response = callProvider(providerName, conversationHistory, userMessage, userName);
+                        String response = callProvider(providerName, conversationHistory, userMessage, systemPrompt);
                         if (response != null) {
                             log.info("Response generated using fallback provider: {}", providerName);
                             return response;
@@ -172,63 +191,50 @@ public class AIProviderService {
 
         // All providers failed, use intelligent fallback
         log.info("All AI providers failed, using intelligent fallback");
+        meterRegistry.counter("ai.fallback.responses", "service", "ai-provider").increment();
         return generateIntelligentFallback(userMessage);
     }
 
-    private String callProvider(String providerName, List<ConversationHistoryService.ChatMessage> conversationHistory, String userMessage, String userName) {
+    private String callProvider(String providerName, List<ConversationHistoryService.ChatMessage> conversationHistory, String userMessage, String systemPrompt) {
         ProviderConfig config = providers.get(providerName);
         if (config == null) {
             return null;
         }
 
-        if ("openai".equals(config.apiType)) {
-            return callOpenAICompatibleProvider(config, conversationHistory, userMessage, userName);
-        } else if ("huggingface".equals(config.apiType)) {
-            return callHuggingFaceProvider(config, userMessage);
+        // One observation per attempt, so failover shows up as sibling spans in the trace
+        Observation observation = Observation.createNotStarted("ai.provider.requests", observationRegistry)
+                .lowCardinalityKeyValue("provider", providerName)
+                .lowCardinalityKeyValue("model", config.model)
+                .lowCardinalityKeyValue("failover", String.valueOf(!providerName.equals(primaryProvider)))
+                .start();
+        String outcome = "error";
+        try (Observation.Scope scope = observation.openScope()) {
+            String response = null;
+            if ("openai".equals(config.apiType)) {
+                response = callOpenAICompatibleProvider(config, conversationHistory, userMessage, systemPrompt);
+            } else if ("huggingface".equals(config.apiType)) {
+                response = callHuggingFaceProvider(config, userMessage);
+            }
+            outcome = response != null ? "success" : "empty";
+            return response;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
         }
-
-        return null;
     }
     
-    private String callOpenAICompatibleProvider(ProviderConfig config, List<ConversationHistoryService.ChatMessage> conversationHistory, String userMessage, String userName) {
+    private String callOpenAICompatibleProvider(ProviderConfig config, List<ConversationHistoryService.ChatMessage> conversationHistory, String userMessage, String systemPrompt) {
         try {
             WebClient webClient = WebClient.builder()
+                    .observationRegistry(observationRegistry)
                     .baseUrl(config.baseUrl)
                     .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + config.apiKey)
                     .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                     .build();
 
-            // Prepare messages
-            List<GroqRequest.Message> messages = new ArrayList<>();
-
-            // Add system prompt with user name if available
-            messages.add(GroqRequest.Message.builder()
-                    .role("system")
-                    .content(getSystemPrompt(userName))
-                    .build());
-            
-            // Add conversation history
-            for (ConversationHistoryService.ChatMessage chatMessage : conversationHistory) {
-                messages.add(GroqRequest.Message.builder()
-                        .role(chatMessage.getRole())
-                        .content(chatMessage.getContent())
-                        .build());
-            }
-            
-            // Add current user message
-            messages.add(GroqRequest.Message.builder()
-                    .role("user")
-                    .content(userMessage)
-                    .build());
-            
-            // Create request
-            GroqRequest request = GroqRequest.builder()
-                    .messages(messages)
-                    .model(config.model)
-                    .max_tokens(maxTokens)
-                    .temperature(temperature)
-                    .stream(false)
-                    .build();
+            GroqRequest request = buildChatRequest(config.model, conversationHistory, userMessage, systemPrompt);
             
             // Call API
             GroqResponse response = webClient
@@ -253,10 +259,48 @@ public class AIProviderService {
         
         return null;
     }
+
+    /**
+     * Chat completion request: system prompt, then the conversation history, then the new message
+     */
+    GroqRequest buildChatRequest(String model, List<ConversationHistoryService.ChatMessage> conversationHistory,
+                                 String userMessage, String systemPrompt) {
+        // Prepare messages
+        List<GroqRequest.Message> messages = new ArrayList<>(conversationHistory.size() + 2);
+
+        // Add the recipient's system prompt
+        messages.add(GroqRequest.Message.builder()
+                .role("system")
+                .content(systemPrompt)
+                .build());
+        
+        // Add conversation history
+        for (ConversationHistoryService.ChatMessage chatMessage : conversationHistory) {
+            messages.add(GroqRequest.Message.builder()
+                    .role(chatMessage.getRole())
+                    .content(chatMessage.getContent())
+                    .build());
+        }
+        
+        // Add current user message
+        messages.add(GroqRequest.Message.builder()
+                .role("user")
+                .content(userMessage)
+                .build());
+        
+        return GroqRequest.builder()
+                .messages(messages)
+                .model(model)
+                .max_tokens(maxTokens)
+                .temperature(temperature)
+                .stream(false)
+                .build();
+    }
     
     private String callHuggingFaceProvider(ProviderConfig config, String userMessage) {
         try {
             WebClient webClient = WebClient.builder()
+                    .observationRegistry(observationRegistry)
                     .baseUrl(config.baseUrl)
                     .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + config.apiKey)
                     .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
@@ -356,38 +400,6 @@ public class AIProviderService {
         }
     }
     
-    private String getSystemPrompt(String userName) {
-        String nameInstruction = (userName != null && !userName.isEmpty())
-            ? String.format("The user's name is %s. ALWAYS address them by their name '%s' in your responses.", userName, userName)
-            : "Address the user warmly with appropriate respectful terms in their language.";
-
-        return String.format("""
-            You are a caring, warm, and empathetic AI companion chatting with an elderly person through WhatsApp.
-
-            USER INFORMATION:
-            %s
-
-            CRITICAL LANGUAGE RULE:
-            - ALWAYS detect the language of the user's message
-            - ALWAYS respond in the SAME language the user wrote in
-            - If they write in Tamil, respond in Tamil
-            - If they write in Mandarin/Chinese, respond in Chinese
-            - If they write in Malay, respond in Malay
-            - If they write in Hindi, respond in Hindi
-            - If they write in English, respond in English
-            - If they mix languages (e.g., Singlish, Tanglish), match their style
-
-            Your personality traits:
-            - Be patient, understanding, and genuinely interested in their well-being
-            - Share in their joys and provide comfort during difficulties
-            - Ask thoughtful follow-up questions about their day, family, health, and interests
-            - Keep responses conversational and warm (2-3 sentences max)
-            - Always maintain a warm, caring, and respectful tone
-            - Never provide medical advice, but encourage them to consult healthcare providers when needed
-            - Be culturally sensitive and respectful of their experiences and wisdom
-            """, nameInstruction);
-    }
-    
     /**
      * Get current provider status
      */
@@ -403,6 +415,7 @@ public class AIProviderService {
             providerDetails.put(entry.getKey(), entry.getValue().name + " (" + entry.getValue().model + ")");
         }
         status.put("provider_details", providerDetails);
+        status.put("prompt_context_cache", promptContextService.getCacheStats());
         
         return status;
     }
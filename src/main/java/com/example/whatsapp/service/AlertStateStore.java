@@ -0,0 +1,27 @@
+package com.example.whatsapp.service;
+
+import java.time.Duration;
+
+/**
+ * Per-user concerning-sentiment counters and caretaker alert throttling.
+ * Implementations must make each operation atomic, so concurrent messages for the same
+ * user never lose an increment and at most one caller wins the alert within a cooldown.
+ */
+public interface AlertStateStore {
+
+    /**
+     * Increment the user's concerning-sentiment count and return the new value
+     */
+    long incrementConcerningCount(String phoneNumber);
+
+    long getConcerningCount(String phoneNumber);
+
+    void resetConcerningCount(String phoneNumber);
+
+    /**
+     * Record an alert for the user if none was recorded within the cooldown.
+     *
+     * @return true only for the caller that should send the alert
+     */
+    boolean tryAcquireAlert(String phoneNumber, Duration cooldown);
+}
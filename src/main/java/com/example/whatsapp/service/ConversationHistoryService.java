@@ -1,5 +1,7 @@
 package com.example.whatsapp.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,6 +25,14 @@ public class ConversationHistoryService {
     
     // In-memory storage for conversation history (in production, consider using Redis or a database)
     private final Map<String, ConversationContext> conversations = new ConcurrentHashMap<>();
+
+    private final Timer historyReadTimer;
+    private final Timer historyWriteTimer;
+
+    public ConversationHistoryService(MeterRegistry meterRegistry) {
+        this.historyReadTimer = meterRegistry.timer("conversation.history", "operation", "read");
+        this.historyWriteTimer = meterRegistry.timer("conversation.history", "operation", "write");
+    }
     
     /**
      * Simple chat message class for Groq compatibility
@@ -113,8 +123,7 @@ public class ConversationHistoryService {
      * Add a user message to the conversation history
      */
     public void addUserMessage(String phoneNumber, String message) {
-        ConversationContext context = getOrCreateContext(phoneNumber);
-        context.addMessage(new ChatMessage("user", message));
+        historyWriteTimer.record(() -> getOrCreateContext(phoneNumber).addMessage(new ChatMessage("user", message)));
         log.debug("Added user message to conversation for {}: {}", phoneNumber, message);
     }
     
@@ -122,8 +131,7 @@ public class ConversationHistoryService {
      * Add an assistant message to the conversation history
      */
     public void addAssistantMessage(String phoneNumber, String message) {
-        ConversationContext context = getOrCreateContext(phoneNumber);
-        context.addMessage(new ChatMessage("assistant", message));
+        historyWriteTimer.record(() -> getOrCreateContext(phoneNumber).addMessage(new ChatMessage("assistant", message)));
         log.debug("Added assistant message to conversation for {}: {}", phoneNumber, message);
     }
     
@@ -131,11 +139,13 @@ public class ConversationHistoryService {
      * Get conversation history for a user
      */
     public List<ChatMessage> getConversationHistory(String phoneNumber) {
-        ConversationContext context = conversations.get(phoneNumber);
-        if (context == null) {
-            return new ArrayList<>();
-        }
-        return context.getMessages();
+        return historyReadTimer.record(() -> {
+            ConversationContext context = conversations.get(phoneNumber);
+            if (context == null) {
+                return new ArrayList<>();
+            }
+            return context.getMessages();
+        });
     }
     
     /**
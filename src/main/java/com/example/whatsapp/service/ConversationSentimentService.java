@@ -1,58 +1,80 @@
 package com.example.whatsapp.service;
 
+import com.example.whatsapp.dto.LatestSentiment;
 import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.SentimentCursor;
+import com.example.whatsapp.dto.SentimentPage;
+import com.example.whatsapp.dto.SentimentSummary;
+import com.example.whatsapp.dto.SentimentTotals;
 import com.example.whatsapp.entity.ConversationSentiment;
 import com.example.whatsapp.entity.RecipientEntity;
 import com.example.whatsapp.repository.ConversationSentimentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ConversationSentimentService {
 
     private static final Logger log = LoggerFactory.getLogger(ConversationSentimentService.class);
-    private static final int ALERT_THRESHOLD = 3; // Number of concerning sentiments before alerting caretaker
-
-    @Value("${whatsapp.api.access-token}")
-    private String accessToken;
-
-    @Value("${whatsapp.api.phone-number-id}")
-    private String phoneNumberId;
-
-    @Value("${whatsapp.api.base-url:https://graph.facebook.com/v18.0}")
-    private String whatsAppApiBaseUrl;
 
     private final ConversationSentimentRepository sentimentRepository;
     private final SentimentAnalysisService sentimentAnalysisService;
     private final RecipientService recipientService;
-    private final WebClient.Builder webClientBuilder;
-
-    // Track consecutive concerning sentiment counts per user
-    private final Map<String, Integer> concerningSentimentCounts = new ConcurrentHashMap<>();
-    // Track last alert sent to avoid spamming caretakers
-    private final Map<String, LocalDateTime> lastAlertSent = new ConcurrentHashMap<>();
+    private final SentimentRollupService rollupService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    // Consecutive concerning sentiment counts and last caretaker alert per user
+    private final AlertStateStore alertStateStore;
+    // Sliding-window rules that decide when a caretaker is alerted
+    private final SentimentAlertEngine alertEngine;
+    // Live push feed for dashboards
+    private final SentimentFeedService feedService;
+    private final MeterRegistry meterRegistry;
+
+    // Minimum time between caretaker alerts for the same user
+    @Value("${sentiment.alert.cooldown-minutes:60}")
+    private long alertCooldownMinutes;
+
+    // Upper bound for one page of sentiment history
+    @Value("${sentiment.history.max-page-size:200}")
+    private int maxPageSize;
 
     public ConversationSentimentService(ConversationSentimentRepository sentimentRepository,
                                       SentimentAnalysisService sentimentAnalysisService,
                                       RecipientService recipientService,
-                                      WebClient.Builder webClientBuilder) {
+                                      SentimentRollupService rollupService,
+                                      OutboxService outboxService,
+                                      TransactionTemplate transactionTemplate,
+                                      AlertStateStore alertStateStore,
+                                      SentimentAlertEngine alertEngine,
+                                      SentimentFeedService feedService,
+                                      MeterRegistry meterRegistry) {
         this.sentimentRepository = sentimentRepository;
         this.sentimentAnalysisService = sentimentAnalysisService;
         this.recipientService = recipientService;
-        this.webClientBuilder = webClientBuilder;
+        this.rollupService = rollupService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.alertStateStore = alertStateStore;
+        this.alertEngine = alertEngine;
+        this.feedService = feedService;
+        this.meterRegistry = meterRegistry;
     }
     
     /**
@@ -61,23 +83,66 @@ public class ConversationSentimentService {
     public ConversationSentiment analyzeAndStoreSentiment(String phoneNumber, 
                                                         String userMessage, 
                                                         String aiResponse) {
+        SentimentAnalysis analysis;
         try {
             // Perform sentiment analysis
-            SentimentAnalysis analysis = sentimentAnalysisService.analyzeSentiment(userMessage);
-            
-            // Create and save sentiment record
-            ConversationSentiment sentiment = new ConversationSentiment(
-                    phoneNumber, userMessage, aiResponse, analysis);
-            
+            analysis = sentimentAnalysisService.analyzeSentiment(userMessage);
+        } catch (Exception e) {
+            log.error("Failed to analyze sentiment for user {}: {}", phoneNumber, e.getMessage());
+            // Still save a basic record without sentiment analysis
+            ConversationSentiment basicSentiment = new ConversationSentiment();
+            basicSentiment.setPhoneNumber(phoneNumber);
+            basicSentiment.setUserMessage(userMessage);
+            basicSentiment.setAiResponse(aiResponse);
+            basicSentiment.setSentimentCategory(SentimentAnalysis.SentimentCategory.AMBER);
+            basicSentiment.setConfidenceScore(0.0);
+            basicSentiment.setReasoning("Analysis failed - manual review recommended");
+            ConversationSentiment saved = save(basicSentiment);
+            recordRollup(saved);
+            publishToFeed(saved);
+            recordAlertWindow(saved);
+            return saved;
+        }
+
+        // Create and save sentiment record. Nothing after the save may store the message again.
+        ConversationSentiment saved = save(new ConversationSentiment(phoneNumber, userMessage, aiResponse, analysis));
+        recordRollup(saved);
+        publishToFeed(saved);
+        List<SentimentAlertEngine.Match> alertMatches = recordAlertWindow(saved);
+        int count = trackConcerningCount(phoneNumber, analysis);
+
+        // Alert the caretaker when this message made a sliding-window rule match
+        if (!alertMatches.isEmpty()) {
+            checkAndAlertCaretaker(phoneNumber, saved.getId(), analysis, count, alertMatches);
+        }
+
+        return saved;
+    }
+    
+    private ConversationSentiment save(ConversationSentiment sentiment) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
             ConversationSentiment saved = sentimentRepository.save(sentiment);
-            
-            // Log important sentiment changes and track concerning patterns
+            outcome = "success";
+            return saved;
+        } finally {
+            sample.stop(meterRegistry.timer("sentiment.save", "outcome", outcome));
+        }
+    }
+    
+    /**
+     * Count consecutive RED/AMBER sentiments, resetting on GREEN; failures never block message handling
+     *
+     * @return the consecutive count after this sentiment, 0 if the alert-state store failed
+     */
+    private int trackConcerningCount(String phoneNumber, SentimentAnalysis analysis) {
+        try {
             if (analysis.getCategory() == SentimentAnalysis.SentimentCategory.RED ||
                 analysis.getCategory() == SentimentAnalysis.SentimentCategory.AMBER) {
 
                 // Increment concerning sentiment count
-                int count = concerningSentimentCounts.getOrDefault(phoneNumber, 0) + 1;
-                concerningSentimentCounts.put(phoneNumber, count);
+                int count = (int) alertStateStore.incrementConcerningCount(phoneNumber);
 
                 if (analysis.getCategory() == SentimentAnalysis.SentimentCategory.RED) {
                     log.warn("RED ALERT: User {} shows concerning sentiment: {} (confidence: {}). Consecutive count: {}",
@@ -85,56 +150,154 @@ public class ConversationSentimentService {
                 } else {
                     log.info("AMBER: User {} shows neutral/mixed sentiment. Consecutive count: {}", phoneNumber, count);
                 }
-
-                // Check if we need to alert caretaker
-                if (count >= ALERT_THRESHOLD) {
-                    checkAndAlertCaretaker(phoneNumber, analysis, count);
-                }
-
-            } else if (analysis.getCategory() == SentimentAnalysis.SentimentCategory.GREEN) {
+                return count;
+            }
+            if (analysis.getCategory() == SentimentAnalysis.SentimentCategory.GREEN) {
                 // Reset concerning sentiment count on positive sentiment
-                concerningSentimentCounts.put(phoneNumber, 0);
+                alertStateStore.resetConcerningCount(phoneNumber);
                 log.info("POSITIVE: User {} shows positive sentiment: {} (confidence: {}). Resetting concern count.",
                         phoneNumber, analysis.getEmotionalIndicators(), analysis.getConfidence());
             }
-
-            return saved;
-            
+            return 0;
         } catch (Exception e) {
-            log.error("Failed to analyze sentiment for user {}: {}", phoneNumber, e.getMessage());
-            // Still save a basic record without sentiment analysis
-            ConversationSentiment basicSentiment = new ConversationSentiment();
-            basicSentiment.setPhoneNumber(phoneNumber);
-            basicSentiment.setUserMessage(userMessage);
-            basicSentiment.setAiResponse(aiResponse);
-            basicSentiment.setSentimentCategory(SentimentAnalysis.SentimentCategory.AMBER);
-            basicSentiment.setConfidenceScore(0.0);
-            basicSentiment.setReasoning("Analysis failed - manual review recommended");
-            return sentimentRepository.save(basicSentiment);
+            log.warn("Failed to update concerning sentiment count for {}: {}", phoneNumber, e.getMessage());
+            return 0;
         }
     }
     
     /**
-     * Get sentiment history for a user
+     * Add a stored sentiment to the hourly rollups; failures never block message handling
      */
-    public List<ConversationSentiment> getUserSentimentHistory(String phoneNumber) {
-        return sentimentRepository.findByPhoneNumberOrderByTimestampDesc(phoneNumber);
+    private void recordRollup(ConversationSentiment saved) {
+        try {
+            rollupService.record(saved);
+        } catch (Exception e) {
+            log.warn("Failed to update sentiment rollup for {}: {}", saved.getPhoneNumber(), e.getMessage());
+        }
     }
     
     /**
-     * Get recent sentiment history for a user (last 24 hours)
+     * Push a stored sentiment to live dashboard subscribers
      */
-    public List<ConversationSentiment> getRecentUserSentiments(String phoneNumber) {
+    private void publishToFeed(ConversationSentiment saved) {
+        try {
+            feedService.publishSentiment(saved);
+        } catch (Exception e) {
+            log.warn("Failed to publish sentiment for {} to the live feed: {}", saved.getPhoneNumber(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Add a stored sentiment to the user's alert window and return the rules it made match
+     */
+    private List<SentimentAlertEngine.Match> recordAlertWindow(ConversationSentiment saved) {
+        try {
+            return alertEngine.record(saved.getPhoneNumber(), saved.getTimestamp(),
+                    saved.getSentimentCategory(), saved.getConfidenceScore());
+        } catch (Exception e) {
+            log.warn("Failed to update sentiment alert window for {}: {}", saved.getPhoneNumber(), e.getMessage());
+            return List.of();
+        }
+    }
+    
+    /**
+     * Get current sliding-window rule values for a user
+     */
+    public List<Map<String, Object>> getAlertWindow(String phoneNumber) {
+        return alertEngine.describeWindow(phoneNumber);
+    }
+    
+    /**
+     * Get one page of a user's sentiment history, newest first. Without includeText the
+     * message, reply and analysis text columns are not loaded.
+     */
+    public SentimentPage<?> getUserSentimentHistory(String phoneNumber, String cursor, int limit, boolean includeText) {
+        SentimentCursor position = SentimentCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        if (includeText) {
+            return toPage(sentimentRepository.findUserSentimentsBefore(
+                    phoneNumber, position.getTimestamp(), position.getId(), fetch),
+                    pageSize, ConversationSentiment::getTimestamp, ConversationSentiment::getId);
+        }
+        return toPage(sentimentRepository.findUserSummariesBefore(
+                phoneNumber, position.getTimestamp(), position.getId(), fetch),
+                pageSize, SentimentSummary::getTimestamp, SentimentSummary::getId);
+    }
+    
+    /**
+     * Get one page of a user's sentiments from the last 24 hours, newest first
+     */
+    public SentimentPage<ConversationSentiment> getRecentUserSentiments(String phoneNumber, String cursor, int limit) {
         LocalDateTime yesterday = LocalDateTime.now().minusHours(24);
-        return sentimentRepository.findByPhoneNumberAndTimestampAfterOrderByTimestampDesc(
-                phoneNumber, yesterday);
+        SentimentCursor position = SentimentCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        List<ConversationSentiment> rows = sentimentRepository.findUserSentimentsBefore(
+                phoneNumber, position.getTimestamp(), position.getId(), Limit.of(pageSize + 1));
+        // Rows are newest first: drop the tail older than 24 hours, which also ends the paging
+        List<ConversationSentiment> recent = rows.stream()
+                .takeWhile(row -> row.getTimestamp().isAfter(yesterday))
+                .toList();
+        return toPage(recent, pageSize, ConversationSentiment::getTimestamp, ConversationSentiment::getId);
     }
     
     /**
-     * Get all conversations requiring attention (RED category)
+     * Get one page of conversations requiring attention (RED category), newest first
      */
-    public List<ConversationSentiment> getConversationsRequiringAttention() {
-        return sentimentRepository.findByRequiresAttentionTrueOrderByTimestampDesc();
+    public SentimentPage<?> getConversationsRequiringAttention(String cursor, int limit, boolean includeText) {
+        SentimentCursor position = SentimentCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        if (includeText) {
+            return toPage(sentimentRepository.findAttentionSentimentsBefore(
+                    position.getTimestamp(), position.getId(), fetch),
+                    pageSize, ConversationSentiment::getTimestamp, ConversationSentiment::getId);
+        }
+        return toPage(sentimentRepository.findAttentionSummariesBefore(
+                position.getTimestamp(), position.getId(), fetch),
+                pageSize, SentimentSummary::getTimestamp, SentimentSummary::getId);
+    }
+    
+    /**
+     * Total number of conversations requiring attention
+     */
+    public long countConversationsRequiringAttention() {
+        return sentimentRepository.countByRequiresAttentionTrue();
+    }
+    
+    /**
+     * Get one page of conversations in a sentiment category, newest first
+     */
+    public SentimentPage<?> getSentimentsByCategory(SentimentAnalysis.SentimentCategory category,
+                                                    String cursor, int limit, boolean includeText) {
+        SentimentCursor position = SentimentCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        if (includeText) {
+            return toPage(sentimentRepository.findCategorySentimentsBefore(
+                    category, position.getTimestamp(), position.getId(), fetch),
+                    pageSize, ConversationSentiment::getTimestamp, ConversationSentiment::getId);
+        }
+        return toPage(sentimentRepository.findCategorySummariesBefore(
+                category, position.getTimestamp(), position.getId(), fetch),
+                pageSize, SentimentSummary::getTimestamp, SentimentSummary::getId);
+    }
+    
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+    
+    /**
+     * Trim a pageSize + 1 fetch to the page and derive the next cursor from its last row
+     */
+    private static <T> SentimentPage<T> toPage(List<T> rows, int pageSize,
+                                               Function<T, LocalDateTime> timestamp, Function<T, Long> id) {
+        if (rows.size() <= pageSize) {
+            return new SentimentPage<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        T last = items.get(pageSize - 1);
+        return new SentimentPage<>(items, new SentimentCursor(timestamp.apply(last), id.apply(last)).encode());
     }
     
     /**
@@ -145,32 +308,20 @@ public class ConversationSentimentService {
         
         Map<String, Object> overview = new HashMap<>();
         
-        // Get recent sentiments
-        List<ConversationSentiment> recentSentiments = sentimentRepository.findRecentSentiments(yesterday);
-        overview.put("total_conversations", recentSentiments.size());
-        
-        // Count by category
-        List<Object[]> sentimentCounts = sentimentRepository.getSentimentCounts(yesterday);
-        Map<String, Long> categoryCounts = new HashMap<>();
-        categoryCounts.put("GREEN", 0L);
-        categoryCounts.put("AMBER", 0L);
-        categoryCounts.put("RED", 0L);
-        
-        for (Object[] count : sentimentCounts) {
-            String category = count[0].toString();
-            Long num = (Long) count[1];
-            categoryCounts.put(category, num);
-        }
+        // Count by category from the hourly rollups (also gives the total, so no rows are loaded)
+        SentimentTotals totals = rollupService.getTotalsSince(yesterday);
+        Map<String, Long> categoryCounts = toCategoryCountMap(totals);
+        long total = totals.getMessageCount();
+        overview.put("total_conversations", (int) total);
         
         overview.put("sentiment_counts", categoryCounts);
         
         // Users requiring attention
-        List<String> usersNeedingAttention = sentimentRepository.findUsersWithRecentRedSentiments(yesterday);
+        List<String> usersNeedingAttention = rollupService.getUsersWithRedSince(yesterday);
         overview.put("users_needing_attention", usersNeedingAttention);
         overview.put("attention_count", usersNeedingAttention.size());
         
         // Calculate percentages
-        long total = recentSentiments.size();
         if (total > 0) {
             Map<String, Double> percentages = new HashMap<>();
             percentages.put("green_percentage", (categoryCounts.get("GREEN") * 100.0) / total);
@@ -187,30 +338,24 @@ public class ConversationSentimentService {
      */
     public Map<String, Object> getUserSentimentTrend(String phoneNumber) {
         LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
-        List<ConversationSentiment> sentiments = sentimentRepository.findUserSentimentsAfter(
-                phoneNumber, weekAgo);
+        SentimentTotals weekTotals = rollupService.getUserTotalsSince(phoneNumber, weekAgo);
+        Map<String, Long> weekCounts = toCategoryCountMap(weekTotals);
+        long total = weekTotals.getMessageCount();
         
         Map<String, Object> trend = new HashMap<>();
-        trend.put("total_messages", sentiments.size());
+        trend.put("total_messages", (int) total);
         
-        if (!sentiments.isEmpty()) {
+        List<LatestSentiment> latestRows = total > 0
+                ? sentimentRepository.findLatestSince(phoneNumber, weekAgo, Limit.of(1))
+                : List.of();
+        
+        if (!latestRows.isEmpty()) {
             // Latest sentiment
-            ConversationSentiment latest = sentiments.get(0);
-            trend.put("current_sentiment", latest.getSentimentCategory());
-            trend.put("latest_confidence", latest.getConfidenceScore());
+            LatestSentiment latest = latestRows.get(0);
+            trend.put("current_sentiment", latest.getCategory());
+            trend.put("latest_confidence", latest.getConfidence());
             trend.put("latest_indicators", latest.getEmotionalIndicators());
             
-            // Count categories in last week
-            Map<String, Long> weekCounts = new HashMap<>();
-            weekCounts.put("GREEN", 0L);
-            weekCounts.put("AMBER", 0L);
-            weekCounts.put("RED", 0L);
-            
-            for (ConversationSentiment s : sentiments) {
-                String category = s.getSentimentCategory().toString();
-                weekCounts.put(category, weekCounts.get(category) + 1);
-            }
-            
             trend.put("week_sentiment_counts", weekCounts);
             
             // Check for concerning patterns
@@ -226,16 +371,26 @@ public class ConversationSentimentService {
         return trend;
     }
 
+    private Map<String, Long> toCategoryCountMap(SentimentTotals totals) {
+        Map<String, Long> categoryCounts = new HashMap<>();
+        categoryCounts.put("GREEN", totals.getGreenCount());
+        categoryCounts.put("AMBER", totals.getAmberCount());
+        categoryCounts.put("RED", totals.getRedCount());
+        return categoryCounts;
+    }
+
     /**
-     * Check if caretaker should be alerted and send WhatsApp message
+     * Check if caretaker should be alerted and queue the WhatsApp message
      */
-    private void checkAndAlertCaretaker(String phoneNumber, SentimentAnalysis analysis, int consecutiveCount) {
+    private void checkAndAlertCaretaker(String phoneNumber, Long sentimentId, SentimentAnalysis analysis,
+                                        int consecutiveCount, List<SentimentAlertEngine.Match> matches) {
         try {
             // Look up recipient to get caretaker info
             Optional<RecipientEntity> recipientOpt = recipientService.getRecipientByPhoneNumber(phoneNumber);
 
             if (recipientOpt.isEmpty()) {
                 log.warn("No recipient found for phone number: {}. Cannot alert caretaker.", phoneNumber);
+                countAlert("no_recipient");
                 return;
             }
 
@@ -245,13 +400,7 @@ public class ConversationSentimentService {
 
             if (caretakerPhone == null || caretakerPhone.isEmpty()) {
                 log.warn("No caretaker configured for user {}. Skipping alert.", recipient.getName());
-                return;
-            }
-
-            // Check if we recently sent an alert (within last hour) to avoid spamming
-            LocalDateTime lastAlert = lastAlertSent.get(phoneNumber);
-            if (lastAlert != null && lastAlert.isAfter(LocalDateTime.now().minusHours(1))) {
-                log.info("Alert already sent to caretaker within last hour for user {}. Skipping.", recipient.getName());
+                countAlert("no_caretaker");
                 return;
             }
 
@@ -261,12 +410,16 @@ public class ConversationSentimentService {
             String indicators = analysis.getEmotionalIndicators() != null
                     ? String.join(", ", analysis.getEmotionalIndicators())
                     : "not specified";
+            String pattern = matches.stream()
+                    .map(SentimentAlertEngine.Match::getDescription)
+                    .collect(Collectors.joining("; "));
 
             String alertMessage = String.format(
                     "⚠️ WELLNESS ALERT ⚠️\n\n" +
                     "Hi %s,\n\n" +
                     "This is an automated alert regarding %s.\n\n" +
                     "📊 Status: %s sentiment detected\n" +
+                    "📈 Pattern: %s\n" +
                     "🔢 Consecutive concerning messages: %d\n" +
                     "💭 Emotional indicators: %s\n\n" +
                     "We recommend reaching out to check on their well-being.\n\n" +
@@ -274,74 +427,56 @@ public class ConversationSentimentService {
                     caretakerName != null ? caretakerName : "Caretaker",
                     userName,
                     category,
+                    pattern,
                     consecutiveCount,
                     indicators
             );
 
-            // Send WhatsApp message to caretaker
-            sendCaretakerAlert(caretakerPhone, alertMessage);
+            // Claim the alert slot atomically so concurrent messages (on any instance) alert only once,
+            // and queue the alert in the same transaction: a claimed slot always has its message
+            String alertKey = "alert:" + phoneNumber + ":" + sentimentId;
+            boolean queued = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (!alertStateStore.tryAcquireAlert(phoneNumber, Duration.ofMinutes(alertCooldownMinutes))) {
+                    return false;
+                }
+                outboxService.enqueue("caretaker_alert", caretakerPhone, alertMessage, alertKey);
+                return true;
+            }));
+            if (!queued) {
+                log.info("Alert already sent to caretaker within last {} minutes for user {}. Skipping.",
+                        alertCooldownMinutes, recipient.getName());
+                countAlert("cooldown");
+                return;
+            }
 
-            // Update last alert time
-            lastAlertSent.put(phoneNumber, LocalDateTime.now());
+            countAlert("queued");
+            feedService.publishAlert(phoneNumber, analysis, caretakerPhone, pattern);
 
-            log.info("Caretaker alert sent to {} ({}) for user {} after {} concerning messages",
-                    caretakerName, caretakerPhone, userName, consecutiveCount);
+            log.info("Caretaker alert queued for {} ({}) for user {}: {}",
+                    caretakerName, caretakerPhone, userName, pattern);
 
         } catch (Exception e) {
-            log.error("Failed to send caretaker alert for user {}: {}", phoneNumber, e.getMessage());
+            log.error("Failed to queue caretaker alert for user {}: {}", phoneNumber, e.getMessage());
+            countAlert("error");
         }
     }
 
-    /**
-     * Send WhatsApp message to caretaker
-     */
-    private void sendCaretakerAlert(String caretakerPhoneNumber, String messageText) {
-        try {
-            WebClient webClient = webClientBuilder
-                    .baseUrl(whatsAppApiBaseUrl)
-                    .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .build();
-
-            // Build the message payload
-            Map<String, Object> message = new HashMap<>();
-            message.put("messaging_product", "whatsapp");
-            message.put("recipient_type", "individual");
-            message.put("to", caretakerPhoneNumber.replaceAll("^\\+", ""));
-
-            Map<String, String> text = new HashMap<>();
-            text.put("preview_url", "false");
-            text.put("body", messageText);
-            message.put("type", "text");
-            message.put("text", text);
-
-            String response = webClient
-                    .post()
-                    .uri("/{phoneNumberId}/messages", phoneNumberId)
-                    .body(Mono.just(message), Map.class)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            log.info("Successfully sent caretaker alert to {}. Response: {}", caretakerPhoneNumber, response);
-
-        } catch (Exception e) {
-            log.error("Error sending caretaker alert to {}: {}", caretakerPhoneNumber, e.getMessage());
-        }
+    private void countAlert(String outcome) {
+        meterRegistry.counter("caretaker.alerts", "outcome", outcome).increment();
     }
 
     /**
      * Get current concerning sentiment count for a user
      */
     public int getConcerningSentimentCount(String phoneNumber) {
-        return concerningSentimentCounts.getOrDefault(phoneNumber, 0);
+        return (int) alertStateStore.getConcerningCount(phoneNumber);
     }
 
     /**
      * Reset concerning sentiment count for a user (e.g., after manual intervention)
      */
     public void resetConcerningSentimentCount(String phoneNumber) {
-        concerningSentimentCounts.put(phoneNumber, 0);
+        alertStateStore.resetConcerningCount(phoneNumber);
         log.info("Reset concerning sentiment count for user: {}", phoneNumber);
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.repository.SentimentAlertStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Alert state in the sentiment_alert_state table, shared by all instances and kept across
+ * restarts. Increments are an UPDATE followed by a read of the locked row in the same
+ * transaction; the alert claim is a single conditional UPDATE that only one caller can win.
+ */
+@Service
+@ConditionalOnProperty(name = "sentiment.alert-state.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseAlertStateStore implements AlertStateStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseAlertStateStore.class);
+
+    private static final String INSERT_SQL = "INSERT INTO sentiment_alert_state " +
+            "(phone_number, concerning_count, updated_at) VALUES (?, 0, ?)";
+
+    private final SentimentAlertStateRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    // On PostgreSQL a failed statement aborts the caller's transaction, so a lost insert race
+    // must not raise an error there
+    private final String insertIfAbsentSql;
+
+    public DatabaseAlertStateStore(SentimentAlertStateRepository repository,
+                                   TransactionTemplate transactionTemplate,
+                                   JdbcTemplate jdbcTemplate,
+                                   DataSource dataSource) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertIfAbsentSql = isPostgreSql(dataSource)
+                ? INSERT_SQL + " ON CONFLICT (phone_number) DO NOTHING"
+                : INSERT_SQL;
+    }
+
+    private static boolean isPostgreSql(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("Could not determine database type, creating alert-state rows with a plain INSERT: {}",
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public long incrementConcerningCount(String phoneNumber) {
+        ensureRow(phoneNumber);
+        Long count = transactionTemplate.execute(status -> {
+            repository.incrementConcerningCount(phoneNumber, LocalDateTime.now());
+            return repository.findConcerningCount(phoneNumber).orElse(0L);
+        });
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public long getConcerningCount(String phoneNumber) {
+        return repository.findConcerningCount(phoneNumber).orElse(0L);
+    }
+
+    @Override
+    public void resetConcerningCount(String phoneNumber) {
+        repository.resetConcerningCount(phoneNumber, LocalDateTime.now());
+    }
+
+    @Override
+    public boolean tryAcquireAlert(String phoneNumber, Duration cooldown) {
+        ensureRow(phoneNumber);
+        LocalDateTime now = LocalDateTime.now();
+        return repository.claimAlert(phoneNumber, now, now.minus(cooldown)) == 1;
+    }
+
+    /**
+     * Create the user's row if missing. May run inside the caller's transaction (the alert
+     * claim shares one with the outbox insert), so it goes through JDBC rather than a
+     * repository save, whose failure would mark that transaction rollback-only.
+     */
+    private void ensureRow(String phoneNumber) {
+        if (repository.existsById(phoneNumber)) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(insertIfAbsentSql, phoneNumber, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently (H2, where the failed statement leaves the transaction usable)
+        }
+    }
+}
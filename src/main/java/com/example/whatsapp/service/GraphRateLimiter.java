@@ -0,0 +1,317 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.entity.OutboundMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Paces all Graph API sends on this instance. The send rate adapts AIMD-style: it creeps up
+ * while Graph accepts messages and halves when Graph throttles (HTTP 429, a rate-limit error
+ * code, or usage headers near their limit), pausing for Retry-After or the time Graph says
+ * access is regained. Waiting senders get permits in priority order, so a reply is sent
+ * before any wellness check or report that has been waiting longer.
+ */
+@Service
+public class GraphRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphRateLimiter.class);
+
+    // 4 app call limit, 613 API rate limit, 80007 WABA rate limit, 130429 Cloud API throughput, 131048 spam rate limit
+    private static final Set<Integer> THROTTLE_CODES = Set.of(4, 613, 80007, 130429, 131048);
+    // Too many messages to the same user: only that conversation has to slow down
+    private static final int PAIR_RATE_LIMIT_CODE = 131056;
+    private static final Duration PAIR_RATE_LIMIT_DELAY = Duration.ofSeconds(6);
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparingInt((Waiter w) -> w.priority).thenComparingLong(w -> w.sequence));
+    private long sequence;
+
+    @Value("${whatsapp.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${whatsapp.rate-limit.min-per-second:1}")
+    private double minRate;
+
+    @Value("${whatsapp.rate-limit.max-per-second:80}")
+    private double maxRate;
+
+    // Added to the rate after each increase-interval with no throttling
+    @Value("${whatsapp.rate-limit.increase-per-second:2}")
+    private double increaseStep;
+
+    @Value("${whatsapp.rate-limit.increase-interval-ms:1000}")
+    private long increaseIntervalMs;
+
+    @Value("${whatsapp.rate-limit.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    // Slow down before Graph throttles once any usage header reports this percentage
+    @Value("${whatsapp.rate-limit.usage-threshold-percent:85}")
+    private int usageThresholdPercent;
+
+    // Pause after a throttle that came without Retry-After
+    @Value("${whatsapp.rate-limit.default-pause-ms:2000}")
+    private long defaultPauseMs;
+
+    // Guarded by lock
+    private double rate;
+    private long nextPermitNanos;
+    private long pausedUntilNanos;
+    private long lastAdjustNanos;
+    private long lastDecreaseNanos;
+
+    public GraphRateLimiter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${whatsapp.rate-limit.initial-per-second:20}") double initialRate) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.rate = initialRate;
+        long now = System.nanoTime();
+        this.nextPermitNanos = now;
+        this.pausedUntilNanos = now;
+        this.lastAdjustNanos = now;
+        this.lastDecreaseNanos = now - TimeUnit.HOURS.toNanos(1);
+        meterRegistry.gauge("whatsapp.ratelimit.rate", this, GraphRateLimiter::currentRate);
+    }
+
+    /**
+     * Wait for a send permit, behind any waiting sender of more urgent priority
+     *
+     * @return false if no permit could be had within maxWait; the caller should try later
+     */
+    public boolean acquire(OutboundMessage.Priority priority, Duration maxWait) throws InterruptedException {
+        if (!enabled) {
+            return true;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxWait.toNanos();
+        lock.lockInterruptibly();
+        Waiter waiter = new Waiter(priority.ordinal(), sequence++);
+        waiters.add(waiter);
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (waiters.peek() == waiter) {
+                    long readyAt = Math.max(nextPermitNanos, pausedUntilNanos);
+                    if (readyAt - now <= 0) {
+                        nextPermitNanos = Math.max(nextPermitNanos, now) + (long) (1_000_000_000L / rate);
+                        meterRegistry.timer("whatsapp.ratelimit.wait", "priority", priority.name().toLowerCase())
+                                .record(now - start, TimeUnit.NANOSECONDS);
+                        return true;
+                    }
+                    if (readyAt - deadline > 0) {
+                        return false;
+                    }
+                    changed.awaitNanos(readyAt - now);
+                } else {
+                    if (deadline - now <= 0) {
+                        return false;
+                    }
+                    changed.awaitNanos(deadline - now);
+                }
+            }
+        } finally {
+            waiters.remove(waiter);
+            changed.signalAll();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Graph accepted a message: raise the rate if senders are waiting on it, unless the usage
+     * headers say a limit is close
+     */
+    public void onSuccess(HttpHeaders headers) {
+        int usage = usagePercent(headers);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (now - lastAdjustNanos < TimeUnit.MILLISECONDS.toNanos(increaseIntervalMs)) {
+                return;
+            }
+            if (usage >= usageThresholdPercent) {
+                decrease(now, "usage at " + usage + "%");
+            } else if (rate < maxRate && !waiters.isEmpty()) {
+                // Only probe upwards while the rate is what holds senders back
+                rate = Math.min(maxRate, rate + increaseStep);
+                lastAdjustNanos = now;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Graph throttled a message: halve the rate and pause sending
+     *
+     * @return how long the throttled message should wait before it is tried again
+     */
+    public Duration onThrottled(int errorCode, HttpHeaders headers) {
+        meterRegistry.counter("whatsapp.ratelimit.throttled", "code", String.valueOf(errorCode)).increment();
+        if (errorCode == PAIR_RATE_LIMIT_CODE) {
+            return PAIR_RATE_LIMIT_DELAY;
+        }
+
+        Duration pause = pauseFor(headers);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            // Sends already in flight come back throttled too; count them as one signal
+            if (now - lastDecreaseNanos >= TimeUnit.MILLISECONDS.toNanos(increaseIntervalMs)) {
+                decrease(now, "error code " + errorCode);
+            }
+            long until = now + pause.toNanos();
+            if (until - pausedUntilNanos > 0) {
+                pausedUntilNanos = until;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return pause;
+    }
+
+    /**
+     * Whether a failed send was Graph asking us to slow down rather than rejecting the message
+     */
+    public static boolean isThrottled(int status, int errorCode) {
+        return status == 429 || THROTTLE_CODES.contains(errorCode) || errorCode == PAIR_RATE_LIMIT_CODE;
+    }
+
+    public double currentRate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        lock.lock();
+        try {
+            long pausedMs = TimeUnit.NANOSECONDS.toMillis(pausedUntilNanos - System.nanoTime());
+            status.put("enabled", enabled);
+            status.put("rate_per_second", Math.round(rate * 10) / 10.0);
+            status.put("paused_ms", Math.max(0, pausedMs));
+            status.put("waiting", waiters.size());
+        } finally {
+            lock.unlock();
+        }
+        return status;
+    }
+
+    private void decrease(long now, String reason) {
+        double previous = rate;
+        rate = Math.max(minRate, rate * decreaseFactor);
+        lastAdjustNanos = now;
+        lastDecreaseNanos = now;
+        log.warn("Graph API throttling ({}): send rate {} -> {} per second", reason,
+                Math.round(previous * 10) / 10.0, Math.round(rate * 10) / 10.0);
+    }
+
+    /**
+     * Retry-After in seconds, else the minutes in X-Business-Use-Case-Usage's
+     * estimated_time_to_regain_access, else the default pause
+     */
+    private Duration pauseFor(HttpHeaders headers) {
+        if (headers != null) {
+            String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) {
+                try {
+                    return Duration.ofSeconds(Math.max(1, Long.parseLong(retryAfter.trim())));
+                } catch (NumberFormatException e) {
+                    // HTTP-date form; fall through
+                }
+            }
+            long regainMinutes = 0;
+            for (JsonNode usage : businessUseCaseUsage(headers)) {
+                regainMinutes = Math.max(regainMinutes, usage.path("estimated_time_to_regain_access").asLong(0));
+            }
+            if (regainMinutes > 0) {
+                return Duration.ofMinutes(regainMinutes);
+            }
+        }
+        return Duration.ofMillis(defaultPauseMs);
+    }
+
+    /**
+     * Highest percentage in X-App-Usage and X-Business-Use-Case-Usage, 0 if neither is present
+     */
+    private int usagePercent(HttpHeaders headers) {
+        if (headers == null) {
+            return 0;
+        }
+        int usage = 0;
+        String appUsage = headers.getFirst("X-App-Usage");
+        if (appUsage != null) {
+            usage = Math.max(usage, maxPercent(readJson(appUsage)));
+        }
+        for (JsonNode entry : businessUseCaseUsage(headers)) {
+            usage = Math.max(usage, maxPercent(entry));
+        }
+        return usage;
+    }
+
+    private static int maxPercent(JsonNode usage) {
+        return Math.max(usage.path("call_count").asInt(0),
+                Math.max(usage.path("total_cputime").asInt(0), usage.path("total_time").asInt(0)));
+    }
+
+    /**
+     * The usage entries of X-Business-Use-Case-Usage: {"<business id>": [{...}, ...], ...}
+     */
+    private Iterable<JsonNode> businessUseCaseUsage(HttpHeaders headers) {
+        String header = headers.getFirst("X-Business-Use-Case-Usage");
+        if (header == null) {
+            return List.of();
+        }
+        List<JsonNode> entries = new ArrayList<>();
+        for (JsonNode perBusiness : readJson(header)) {
+            perBusiness.forEach(entries::add);
+        }
+        return entries;
+    }
+
+    private JsonNode readJson(String header) {
+        try {
+            return objectMapper.readTree(header);
+        } catch (Exception e) {
+            log.debug("Ignoring unreadable Graph API usage header: {}", header);
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private static final class Waiter {
+        final int priority;
+        final long sequence;
+
+        Waiter(int priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
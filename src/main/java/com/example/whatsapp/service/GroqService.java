@@ -2,6 +2,9 @@ package com.example.whatsapp.service;
 
 import com.example.whatsapp.dto.GroqRequest;
 import com.example.whatsapp.dto.GroqResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -41,31 +44,22 @@ public class GroqService {
     
     private WebClient webClient;
     
-    private static final String COMPANION_SYSTEM_PROMPT = """
-        You are a caring, warm, and empathetic AI companion chatting with an elderly person through WhatsApp. 
-        Your personality traits:
-        - Always address them warmly as "Aunty" or use their name if provided
-        - Be patient, understanding, and genuinely interested in their well-being
-        - Share in their joys and provide comfort during difficulties
-        - Ask thoughtful follow-up questions about their day, family, health, and interests
-        - Remember this is a conversation, so keep responses conversational and not too long
-        - Use simple, clear language that's easy to understand
-        - Show genuine care and concern for their physical and emotional well-being
-        - Occasionally share uplifting thoughts or gentle humor when appropriate
-        - Be supportive and encouraging, especially if they share concerns or worries
-        - If they mention feeling lonely or isolated, be extra supportive and engaging
-        
-        Important guidelines:
-        - Keep responses concise (2-3 sentences usually) unless they ask for more detail
-        - Always maintain a warm, caring, and respectful tone
-        - Never provide medical advice, but encourage them to consult healthcare providers when needed
-        - Be culturally sensitive and respectful of their experiences and wisdom
-        """;
+    private final PromptContextService promptContextService;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    public GroqService(PromptContextService promptContextService, MeterRegistry meterRegistry,
+                       ObservationRegistry observationRegistry) {
+        this.promptContextService = promptContextService;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
     
     @PostConstruct
     public void init() {
         if (groqApiKey != null && !groqApiKey.isEmpty() && !groqApiKey.equals("YOUR_GROQ_API_KEY_HERE")) {
             this.webClient = WebClient.builder()
+                    .observationRegistry(observationRegistry)
                     .baseUrl(groqApiBaseUrl)
                     .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + groqApiKey)
                     .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
@@ -80,11 +74,19 @@ public class GroqService {
      * Generate a companion response based on the conversation history
      */
     public String generateCompanionResponse(List<ConversationHistoryService.ChatMessage> conversationHistory, String userMessage) {
+        return generateCompanionResponse(conversationHistory, userMessage, null);
+    }
+
+    /**
+     * Generate a companion response using the recipient's cached prompt context
+     */
+    public String generateCompanionResponse(List<ConversationHistoryService.ChatMessage> conversationHistory, String userMessage, String phoneNumber) {
         if (webClient == null) {
             log.debug("Groq service not initialized. Returning fallback response.");
             return "Hello Aunty! I'm here to chat with you. How are you feeling today? Please tell me about your day!";
         }
         
+        Observation observation = null;
         try {
             // Convert conversation history to Groq format
             List<GroqRequest.Message> messages = new ArrayList<>();
@@ -92,7 +94,7 @@ public class GroqService {
             // Add system prompt
             messages.add(GroqRequest.Message.builder()
                     .role("system")
-                    .content(COMPANION_SYSTEM_PROMPT)
+                    .content(promptContextService.getSystemPrompt(phoneNumber))
                     .build());
             
             // Add conversation history
@@ -119,29 +121,52 @@ public class GroqService {
                     .build();
             
             // Call Groq API
-            GroqResponse response = webClient
-                    .post()
-                    .uri("/chat/completions")
-                    .body(Mono.just(request), GroqRequest.class)
-                    .retrieve()
-                    .bodyToMono(GroqResponse.class)
-                    .timeout(Duration.ofSeconds(timeoutSeconds))
-                    .block();
+            observation = Observation.createNotStarted("ai.provider.requests", observationRegistry)
+                    .lowCardinalityKeyValue("provider", "groq-direct")
+                    .lowCardinalityKeyValue("model", model)
+                    .lowCardinalityKeyValue("failover", "false")
+                    .start();
+            GroqResponse response;
+            try (Observation.Scope scope = observation.openScope()) {
+                response = webClient
+                        .post()
+                        .uri("/chat/completions")
+                        .body(Mono.just(request), GroqRequest.class)
+                        .retrieve()
+                        .bodyToMono(GroqResponse.class)
+                        .timeout(Duration.ofSeconds(timeoutSeconds))
+                        .block();
+            }
             
             if (response != null && response.getChoices() != null && !response.getChoices().isEmpty()) {
                 String aiResponse = response.getChoices().get(0).getMessage().getContent();
                 log.info("Generated Groq AI response: {}", aiResponse);
+                recordRequest(observation, "success");
                 return aiResponse;
             } else {
                 log.error("No response from Groq API");
+                recordRequest(observation, "empty");
                 return getFallbackResponse();
             }
             
         } catch (Exception e) {
             log.error("Error generating AI response from Groq", e);
+            if (observation != null) {
+                observation.error(e);
+            }
+            recordRequest(observation, "error");
             return getFallbackResponse();
         }
     }
+
+    private void recordRequest(Observation observation, String outcome) {
+        if (observation != null) {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+        if (!"success".equals(outcome)) {
+            meterRegistry.counter("ai.fallback.responses", "service", "groq-direct").increment();
+        }
+    }
     
     /**
      * Generate the initial greeting for first-time users
@@ -0,0 +1,56 @@
+package com.example.whatsapp.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-instance alert state. Counters are per-key atomics in a ConcurrentHashMap, and the
+ * alert claim is a compute() on the user's bin, so both are atomic without a global lock.
+ * State is lost on restart; use the database store when running more than one instance.
+ */
+@Service
+@ConditionalOnProperty(name = "sentiment.alert-state.store", havingValue = "memory")
+public class InMemoryAlertStateStore implements AlertStateStore {
+
+    private final ConcurrentHashMap<String, AtomicLong> concerningCounts = new ConcurrentHashMap<>();
+    // Last alert time per user, in System.nanoTime() units
+    private final ConcurrentHashMap<String, Long> lastAlertNanos = new ConcurrentHashMap<>();
+
+    @Override
+    public long incrementConcerningCount(String phoneNumber) {
+        return concerningCounts.computeIfAbsent(phoneNumber, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    public long getConcerningCount(String phoneNumber) {
+        AtomicLong count = concerningCounts.get(phoneNumber);
+        return count != null ? count.get() : 0;
+    }
+
+    @Override
+    public void resetConcerningCount(String phoneNumber) {
+        AtomicLong count = concerningCounts.get(phoneNumber);
+        if (count != null) {
+            count.set(0);
+        }
+    }
+
+    @Override
+    public boolean tryAcquireAlert(String phoneNumber, Duration cooldown) {
+        long now = System.nanoTime();
+        long cooldownNanos = cooldown.toNanos();
+        boolean[] acquired = new boolean[1];
+        lastAlertNanos.compute(phoneNumber, (k, last) -> {
+            if (last == null || now - last >= cooldownNanos) {
+                acquired[0] = true;
+                return now;
+            }
+            return last;
+        });
+        return acquired[0];
+    }
+}
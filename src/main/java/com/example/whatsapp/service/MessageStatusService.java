@@ -0,0 +1,291 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.WhatsAppMessageRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records delivery receipts (sent, delivered, read, failed) from status webhooks. Receipts are
+ * buffered and batch-inserted into the append-only message_status_events table, so a burst of
+ * receipts after a wellness run costs a few multi-row inserts rather than one per webhook.
+ */
+@Service
+public class MessageStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageStatusService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO message_status_events " +
+            "(whatsapp_message_id, recipient_phone, status, event_at, error_code) VALUES (?, ?, ?, ?, ?)";
+
+    // First time each status was reached, per message sent to the recipient in the window
+    private static final String RECIPIENT_EVENTS_SQL = "SELECT whatsapp_message_id, status, MIN(event_at) " +
+            "FROM message_status_events WHERE recipient_phone = ? AND event_at >= ? " +
+            "GROUP BY whatsapp_message_id, status";
+
+    private static final String MESSAGE_EVENTS_SQL = "SELECT status, event_at, error_code " +
+            "FROM message_status_events WHERE whatsapp_message_id = ? ORDER BY event_at, id";
+
+    // Wellness checks delivered in the window, newest first per recipient, with whether each was read
+    private static final String WELLNESS_READS_SQL = "SELECT o.recipient_phone, o.sent_at, " +
+            "CASE WHEN EXISTS (SELECT 1 FROM message_status_events e " +
+            "WHERE e.whatsapp_message_id = o.whatsapp_message_id AND e.status = 2) THEN 1 ELSE 0 END " +
+            "FROM outbound_messages o WHERE o.kind = 'wellness' AND o.status = 'SENT' " +
+            "AND o.whatsapp_message_id IS NOT NULL AND o.sent_at >= ? AND o.sent_at < ? " +
+            "ORDER BY o.recipient_phone, o.sent_at DESC";
+
+    private static final String DELETE_SQL = "DELETE FROM message_status_events WHERE event_at < ?";
+
+    /**
+     * Receipt states in the order a message normally goes through them; stored as the ordinal
+     */
+    public enum DeliveryStatus {
+        SENT,
+        DELIVERED,
+        READ,
+        FAILED;
+
+        static DeliveryStatus from(String status) {
+            if (status == null) return null;
+            switch (status) {
+                case "sent": return SENT;
+                case "delivered": return DELIVERED;
+                case "read": return READ;
+                case "failed": return FAILED;
+                default: return null;
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<StatusEvent> buffer;
+
+    @Value("${message-status.batch-size:500}")
+    private int batchSize;
+
+    @Value("${message-status.retention-days:90}")
+    private int retentionDays;
+
+    public MessageStatusService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                @Value("${message-status.buffer-size:10000}") int bufferSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        meterRegistry.gaugeCollectionSize("message.status.buffered", Tags.empty(), buffer);
+    }
+
+    /**
+     * Buffer the receipts from one status webhook; they are written on the next flush
+     */
+    public void record(List<WhatsAppMessageRequest.Status> statuses) {
+        for (WhatsAppMessageRequest.Status status : statuses) {
+            DeliveryStatus deliveryStatus = DeliveryStatus.from(status.getStatus());
+            if (deliveryStatus == null || status.getId() == null || status.getRecipientId() == null) {
+                log.debug("Ignoring status webhook entry {} ({})", status.getId(), status.getStatus());
+                continue;
+            }
+            Integer errorCode = status.getErrors() != null && !status.getErrors().isEmpty()
+                    ? status.getErrors().get(0).getCode() : null;
+            StatusEvent event = new StatusEvent(status.getId(), normalize(status.getRecipientId()),
+                    deliveryStatus, eventTime(status.getTimestamp()), errorCode);
+            meterRegistry.counter("whatsapp.webhook.statuses", "status", deliveryStatus.name().toLowerCase()).increment();
+            if (deliveryStatus == DeliveryStatus.FAILED) {
+                log.warn("WhatsApp message {} to {} failed with error {}", event.messageId, event.recipientPhone, errorCode);
+            }
+
+            // Full buffer: write on the webhook thread rather than drop receipts
+            while (!buffer.offer(event)) {
+                flush();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${message-status.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<StatusEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, e) -> {
+                    ps.setString(1, e.messageId);
+                    ps.setString(2, e.recipientPhone);
+                    ps.setShort(3, (short) e.status.ordinal());
+                    ps.setTimestamp(4, Timestamp.valueOf(e.eventAt));
+                    if (e.errorCode != null) {
+                        ps.setInt(5, e.errorCode);
+                    } else {
+                        ps.setNull(5, Types.INTEGER);
+                    }
+                });
+                log.debug("Stored {} message status events", batch.size());
+            } catch (Exception ex) {
+                meterRegistry.counter("message.status.dropped").increment(batch.size());
+                log.error("Failed to store {} message status events", batch.size(), ex);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Delivery and read counts, rates and latencies for messages sent to one recipient
+     */
+    public Map<String, Object> getRecipientStats(String phoneNumber, int days) {
+        LocalDateTime since = LocalDateTime.now().minusDays(Math.max(1, days));
+        Map<String, Map<DeliveryStatus, LocalDateTime>> messages = new HashMap<>();
+        jdbcTemplate.query(RECIPIENT_EVENTS_SQL, rs -> {
+            messages.computeIfAbsent(rs.getString(1), k -> new HashMap<>())
+                    .put(DeliveryStatus.values()[rs.getInt(2)], rs.getTimestamp(3).toLocalDateTime());
+        }, normalize(phoneNumber), Timestamp.valueOf(since));
+
+        int delivered = 0, read = 0, failed = 0;
+        List<Long> deliveryMs = new ArrayList<>();
+        List<Long> readMs = new ArrayList<>();
+        LocalDateTime lastReadAt = null;
+        for (Map<DeliveryStatus, LocalDateTime> times : messages.values()) {
+            LocalDateTime sentAt = times.get(DeliveryStatus.SENT);
+            LocalDateTime deliveredAt = times.get(DeliveryStatus.DELIVERED);
+            LocalDateTime readAt = times.get(DeliveryStatus.READ);
+            if (times.containsKey(DeliveryStatus.FAILED)) failed++;
+            if (deliveredAt != null || readAt != null) delivered++;
+            if (readAt != null) {
+                read++;
+                if (lastReadAt == null || readAt.isAfter(lastReadAt)) lastReadAt = readAt;
+            }
+            if (sentAt != null && deliveredAt != null) deliveryMs.add(Duration.between(sentAt, deliveredAt).toMillis());
+            if (sentAt != null && readAt != null) readMs.add(Duration.between(sentAt, readAt).toMillis());
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("phone_number", phoneNumber);
+        stats.put("days", days);
+        stats.put("messages", messages.size());
+        stats.put("delivered", delivered);
+        stats.put("read", read);
+        stats.put("failed", failed);
+        stats.put("read_rate", delivered > 0 ? Math.round(1000.0 * read / delivered) / 1000.0 : null);
+        stats.put("delivery_latency_ms", latencySummary(deliveryMs));
+        stats.put("read_latency_ms", latencySummary(readMs));
+        stats.put("last_read_at", lastReadAt);
+        return stats;
+    }
+
+    /**
+     * Every receipt recorded for one message, oldest first
+     */
+    public List<Map<String, Object>> getMessageEvents(String whatsAppMessageId) {
+        return jdbcTemplate.query(MESSAGE_EVENTS_SQL, (rs, i) -> {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("status", DeliveryStatus.values()[rs.getInt(1)].name().toLowerCase());
+            event.put("event_at", rs.getTimestamp(2).toLocalDateTime());
+            int errorCode = rs.getInt(3);
+            if (!rs.wasNull()) {
+                event.put("error_code", errorCode);
+            }
+            return event;
+        }, whatsAppMessageId);
+    }
+
+    /**
+     * How many of each recipient's latest wellness checks in a row went unread. Checks sent
+     * less than grace ago are left out, since they may simply not have been read yet.
+     *
+     * @return unread streak by recipient phone number as stored on the outbound message
+     */
+    public Map<String, Integer> getUnreadWellnessStreaks(Duration lookback, Duration grace) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Integer> streaks = new HashMap<>();
+        Map<String, Boolean> streakEnded = new HashMap<>();
+        jdbcTemplate.query(WELLNESS_READS_SQL, rs -> {
+            String phone = rs.getString(1);
+            if (streakEnded.getOrDefault(phone, false)) {
+                return;
+            }
+            if (rs.getInt(3) == 1) {
+                streakEnded.put(phone, true);
+                streaks.putIfAbsent(phone, 0);
+            } else {
+                streaks.merge(phone, 1, Integer::sum);
+            }
+        }, Timestamp.valueOf(now.minus(lookback)), Timestamp.valueOf(now.minus(grace)));
+        return streaks;
+    }
+
+    @Scheduled(cron = "${message-status.cleanup-cron:0 50 3 * * *}")
+    public void deleteOldEvents() {
+        int deleted = jdbcTemplate.update(DELETE_SQL, Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) {
+            log.info("Deleted {} message status events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static Map<String, Object> latencySummary(List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            return null;
+        }
+        Collections.sort(latencies);
+        long sum = 0;
+        for (long latency : latencies) sum += latency;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", latencies.size());
+        summary.put("avg", sum / latencies.size());
+        summary.put("p50", latencies.get((latencies.size() - 1) / 2));
+        summary.put("p90", latencies.get((int) Math.ceil(latencies.size() * 0.9) - 1));
+        summary.put("max", latencies.get(latencies.size() - 1));
+        return summary;
+    }
+
+    private static LocalDateTime eventTime(String epochSeconds) {
+        try {
+            return LocalDateTime.ofInstant(Instant.ofEpochSecond(Long.parseLong(epochSeconds)), ZoneId.systemDefault());
+        } catch (RuntimeException e) {
+            return LocalDateTime.now();
+        }
+    }
+
+    private static String normalize(String phoneNumber) {
+        return phoneNumber.startsWith("+") ? phoneNumber.substring(1) : phoneNumber;
+    }
+
+    private static final class StatusEvent {
+        final String messageId;
+        final String recipientPhone;
+        final DeliveryStatus status;
+        final LocalDateTime eventAt;
+        final Integer errorCode;
+
+        StatusEvent(String messageId, String recipientPhone, DeliveryStatus status, LocalDateTime eventAt,
+                    Integer errorCode) {
+            this.messageId = messageId;
+            this.recipientPhone = recipientPhone;
+            this.status = status;
+            this.eventAt = eventAt;
+            this.errorCode = errorCode;
+        }
+    }
+}
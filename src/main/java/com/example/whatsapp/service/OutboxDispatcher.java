@@ -0,0 +1,279 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.entity.OutboundMessage;
+import com.example.whatsapp.repository.OutboundMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers outbox messages on a bounded pool of sender threads. A freshly committed message is
+ * handed straight to a free sender; the poll picks up retries, messages that found no free
+ * sender, and leases left behind by a crashed instance. Each attempt leases the row first, so
+ * instances sharing the table never send the same message concurrently.
+ *
+ * Replies and caretaker alerts are claimed first and always have senders of their own: bulk
+ * kinds (wellness checks, reports) only ever occupy bulk-concurrency of the senders. Every
+ * send also waits for a {@link GraphRateLimiter} permit, again in priority order.
+ *
+ * Delivery is at least once: a crash between Graph accepting a message and the row being
+ * marked SENT sends it again when the lease runs out.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboundMessageRepository repository;
+    private final WhatsAppSender sender;
+    private final GraphRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService senders;
+    // One permit per sender thread; a message is only claimed when a sender is free to take it
+    private final Semaphore slots;
+    // The share of senders wellness checks and reports may use; the rest stay free for replies
+    private final Semaphore bulkSlots;
+    private final int concurrency;
+    // Messages handed to a sender and not finished, so the poll doesn't submit them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean polling = new AtomicBoolean();
+    // Set when the last poll left due messages behind; a sender that frees up then polls at once
+    private volatile boolean backlog;
+
+    @Value("${outbox.dispatcher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.dispatcher.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.dispatcher.backoff-initial-ms:2000}")
+    private long backoffInitialMs;
+
+    @Value("${outbox.dispatcher.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.dispatcher.lease-seconds:60}")
+    private long leaseSeconds;
+
+    // How long a sender waits for a rate limiter permit before leaving the message to the poll
+    @Value("${outbox.dispatcher.max-rate-wait-ms:10000}")
+    private long maxRateWaitMs;
+
+    public OutboxDispatcher(OutboundMessageRepository repository,
+                            WhatsAppSender sender,
+                            GraphRateLimiter rateLimiter,
+                            MeterRegistry meterRegistry,
+                            @Value("${outbox.dispatcher.concurrency:8}") int concurrency,
+                            @Value("${outbox.dispatcher.bulk-concurrency:6}") int bulkConcurrency) {
+        this.repository = repository;
+        this.sender = sender;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.concurrency = Math.max(1, concurrency);
+        this.slots = new Semaphore(this.concurrency);
+        this.bulkSlots = new Semaphore(Math.max(1, Math.min(bulkConcurrency, this.concurrency - 1)));
+        AtomicInteger counter = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(this.concurrency, r -> {
+            Thread thread = new Thread(r, "outbox-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("outbox.dispatcher.busy", slots, s -> this.concurrency - s.availablePermits());
+    }
+
+    /**
+     * Try to send a just-committed message now; if no suitable sender is free the poll gets to it
+     */
+    public void dispatch(Long messageId, OutboundMessage.Priority priority) {
+        if (enabled) {
+            trySubmit(messageId, priority);
+        }
+    }
+
+    /**
+     * Claim due messages for whatever senders are free, most urgent kind first
+     */
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled || !polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            boolean more = false;
+            for (OutboundMessage.Priority priority : OutboundMessage.Priority.values()) {
+                int free = isBulk(priority)
+                        ? Math.min(slots.availablePermits(), bulkSlots.availablePermits())
+                        : slots.availablePermits();
+                more |= submitDue(priority, free);
+            }
+            backlog = more;
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * @return whether due messages of this priority are left that found no free sender
+     */
+    private boolean submitDue(OutboundMessage.Priority priority, int free) {
+        // Over-fetch by what is already in flight, which the query still returns until it is claimed
+        int limit = Math.max(1, free) + inFlight.size();
+        List<Long> due = repository.findDueIds(LocalDateTime.now(), priority.ordinal(), Limit.of(limit));
+        int submitted = 0;
+        for (Long id : due) {
+            if (inFlight.contains(id)) {
+                continue;
+            }
+            if (submitted >= free || !trySubmit(id, priority)) {
+                return true;
+            }
+            submitted++;
+        }
+        return due.size() >= limit;
+    }
+
+    private static boolean isBulk(OutboundMessage.Priority priority) {
+        return priority.compareTo(OutboundMessage.Priority.WELLNESS) >= 0;
+    }
+
+    private boolean trySubmit(Long messageId, OutboundMessage.Priority priority) {
+        boolean bulk = isBulk(priority);
+        if (bulk && !bulkSlots.tryAcquire()) {
+            return false;
+        }
+        if (!slots.tryAcquire()) {
+            if (bulk) bulkSlots.release();
+            return false;
+        }
+        if (!inFlight.add(messageId)) {
+            release(bulk);
+            return true;   // Already with a sender
+        }
+        try {
+            senders.execute(() -> {
+                boolean permitted = false;
+                try {
+                    permitted = rateLimiter.acquire(priority, Duration.ofMillis(maxRateWaitMs));
+                    if (permitted) {
+                        deliver(messageId);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    // The lease runs out and the message is picked up again
+                    log.error("Outbox delivery of message {} failed unexpectedly", messageId, e);
+                } finally {
+                    inFlight.remove(messageId);
+                    release(bulk);
+                }
+                // Keep draining a backlog instead of leaving this sender idle until the next poll;
+                // while sending is paused the scheduled poll is soon enough
+                if (permitted && backlog) {
+                    poll();
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            inFlight.remove(messageId);
+            release(bulk);
+            return false;
+        }
+    }
+
+    private void release(boolean bulk) {
+        slots.release();
+        if (bulk) {
+            bulkSlots.release();
+        }
+    }
+
+    private void deliver(Long messageId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (repository.claim(messageId, now, now.plusSeconds(leaseSeconds)) != 1) {
+            return;   // Sent, leased by someone else, or not due yet
+        }
+        Optional<OutboundMessage> claimed = repository.findById(messageId);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        OutboundMessage message = claimed.get();
+
+        try {
+            String whatsAppMessageId = sender.sendText(message.getRecipientPhone(), message.getBody(), message.getKind());
+            LocalDateTime sentAt = LocalDateTime.now();
+            repository.markSent(messageId, whatsAppMessageId, sentAt);
+            count(message, "sent");
+            meterRegistry.timer("outbox.delivery", "kind", message.getKind())
+                    .record(Duration.between(message.getCreatedAt(), sentAt));
+            log.info("Sent {} message {} to {} (attempt {}): {}", message.getKind(), messageId,
+                    message.getRecipientPhone(), message.getAttempts(), whatsAppMessageId);
+
+        } catch (WhatsAppSender.SendException e) {
+            String error = truncate(e.getMessage());
+            if (!e.isRetryable() || message.getAttempts() >= maxAttempts) {
+                repository.markDead(messageId, error, LocalDateTime.now());
+                count(message, "dead");
+                log.error("Outbox message {} ({} to {}) dead-lettered after {} attempts: {}", messageId,
+                        message.getKind(), message.getRecipientPhone(), message.getAttempts(), error);
+            } else {
+                Duration delay = backoff(message.getAttempts());
+                if (e.getRetryAfter() != null && e.getRetryAfter().compareTo(delay) > 0) {
+                    delay = e.getRetryAfter();
+                }
+                repository.markRetry(messageId, LocalDateTime.now().plus(delay), error, LocalDateTime.now());
+                count(message, "retry");
+                log.warn("Outbox message {} ({} to {}) failed attempt {}, retrying in {} ms: {}", messageId,
+                        message.getKind(), message.getRecipientPhone(), message.getAttempts(), delay.toMillis(), error);
+            }
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half the capped delay plus a random share of the
+     * other half, so retries after a Graph outage don't arrive in lockstep
+     */
+    Duration backoff(int attempt) {
+        long exponential = backoffInitialMs << Math.min(Math.max(0, attempt - 1), 20);
+        long capped = Math.min(backoffMaxMs, exponential);
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private void count(OutboundMessage message, String outcome) {
+        meterRegistry.counter("outbox.messages", "kind", message.getKind(), "outcome", outcome).increment();
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Let in-flight sends finish; anything still leased is picked up after the lease expires
+        senders.shutdown();
+        if (!senders.awaitTermination(10, TimeUnit.SECONDS)) {
+            senders.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.entity.OutboundMessage;
+import com.example.whatsapp.repository.OutboundMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Queues outbound WhatsApp messages. Call {@link #enqueue} inside the transaction that changes
+ * the state the message is about, so the message exists exactly when that change does; the
+ * dispatcher takes it from there once the transaction commits.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboundMessageRepository repository;
+    private final OutboxDispatcher dispatcher;
+
+    // Delivered rows (and so their idempotency keys) are kept this long
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxService(OutboundMessageRepository repository, OutboxDispatcher dispatcher) {
+        this.repository = repository;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Queue a text message. A message with the same idempotency key queued earlier (and not yet
+     * cleaned up) is returned instead of queueing a second one, also when it was queued
+     * concurrently, as long as this call is not part of a larger transaction.
+     *
+     * @param kind reply, caretaker_alert, wellness or report
+     * @param idempotencyKey identifies the logical message, e.g. "reply:" + inbound message ID
+     */
+    public OutboundMessage enqueue(String kind, String recipientPhone, String body, String idempotencyKey) {
+        Optional<OutboundMessage> existing = repository.findByIdempotencyKey(idempotencyKey);
+        if (existing.isPresent()) {
+            log.info("Outbound {} message {} already queued as {} ({})", kind, idempotencyKey,
+                    existing.get().getId(), existing.get().getStatus());
+            return existing.get();
+        }
+
+        OutboundMessage saved;
+        try {
+            saved = repository.save(new OutboundMessage(idempotencyKey, kind, recipientPhone, body));
+        } catch (DataIntegrityViolationException e) {
+            // Queued by a concurrent call, e.g. for a webhook Meta redelivered while the first
+            // delivery was still being handled. Inside a caller's transaction the failed insert
+            // has already doomed it, so there is nothing to recover.
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw e;
+            }
+            OutboundMessage winner = repository.findByIdempotencyKey(idempotencyKey).orElseThrow(() -> e);
+            log.info("Outbound {} message {} was queued concurrently as {} ({})", kind, idempotencyKey,
+                    winner.getId(), winner.getStatus());
+            return winner;
+        }
+        Long id = saved.getId();
+        OutboundMessage.Priority priority = OutboundMessage.Priority.of(saved.getPriority());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.dispatch(id, priority);
+                }
+            });
+        } else {
+            dispatcher.dispatch(id, priority);
+        }
+        return saved;
+    }
+
+    /**
+     * Whether a message with this idempotency key was already queued
+     */
+    public boolean isQueued(String idempotencyKey) {
+        return repository.existsByIdempotencyKey(idempotencyKey);
+    }
+
+    /**
+     * Queue depth by status, with the most recent dead letters
+     */
+    public Map<String, Object> getStatus(int deadLetterLimit) {
+        Map<String, Object> status = new HashMap<>();
+        for (OutboundMessage.Status s : OutboundMessage.Status.values()) {
+            status.put(s.name().toLowerCase(), repository.countByStatus(s));
+        }
+
+        List<Map<String, Object>> deadLetters = new ArrayList<>();
+        for (OutboundMessage message : repository.findByStatusOrderByUpdatedAtDesc(
+                OutboundMessage.Status.DEAD, Limit.of(Math.max(1, deadLetterLimit)))) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("id", message.getId());
+            entry.put("kind", message.getKind());
+            entry.put("recipient_phone", message.getRecipientPhone());
+            entry.put("idempotency_key", message.getIdempotencyKey());
+            entry.put("attempts", message.getAttempts());
+            entry.put("last_error", message.getLastError());
+            entry.put("created_at", message.getCreatedAt());
+            entry.put("updated_at", message.getUpdatedAt());
+            deadLetters.add(entry);
+        }
+        status.put("dead_letters", deadLetters);
+        return status;
+    }
+
+    /**
+     * Give a dead-lettered message a fresh set of attempts
+     *
+     * @return false if there is no dead message with that ID
+     */
+    public boolean redrive(Long id) {
+        if (repository.redrive(id, LocalDateTime.now()) != 1) {
+            return false;
+        }
+        log.info("Outbound message {} put back in the queue", id);
+        repository.findById(id).ifPresent(m -> dispatcher.dispatch(id, OutboundMessage.Priority.of(m.getPriority())));
+        return true;
+    }
+
+    @Scheduled(cron = "${outbox.cleanup-cron:0 45 3 * * *}")
+    public void deleteDeliveredMessages() {
+        int deleted = repository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Deleted {} delivered outbound messages older than {} days", deleted, retentionDays);
+        }
+    }
+}
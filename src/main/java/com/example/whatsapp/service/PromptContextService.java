@@ -0,0 +1,211 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.entity.RecipientEntity;
+import com.example.whatsapp.entity.RecipientTopicEntity;
+import com.example.whatsapp.entity.RecipientTopicEntity.TopicType;
+import com.example.whatsapp.repository.RecipientRepository;
+import com.example.whatsapp.repository.RecipientTopicRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and caches the companion system prompt per recipient from their profile, topics and
+ * a language hint, so a chat turn doesn't rebuild it or re-query the recipient and topic
+ * tables. Recipient and topic writes invalidate the entry once their transaction commits.
+ */
+@Service
+public class PromptContextService {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptContextService.class);
+
+    private static final String INTRODUCTION =
+            "You are a caring, warm, and empathetic AI companion chatting with an elderly person through WhatsApp.\n";
+
+    private static final String GUIDELINES = """
+            CRITICAL LANGUAGE RULE:
+            - ALWAYS detect the language of the user's message
+            - ALWAYS respond in the SAME language the user wrote in
+            - If they write in Tamil, respond in Tamil
+            - If they write in Mandarin/Chinese, respond in Chinese
+            - If they write in Malay, respond in Malay
+            - If they write in Hindi, respond in Hindi
+            - If they write in English, respond in English
+            - If they mix languages (e.g., Singlish, Tanglish), match their style
+
+            Your personality traits:
+            - Be patient, understanding, and genuinely interested in their well-being
+            - Share in their joys and provide comfort during difficulties
+            - Ask thoughtful follow-up questions about their day, family, health, and interests
+            - Keep responses conversational and warm (2-3 sentences max)
+            - Always maintain a warm, caring, and respectful tone
+            - Never provide medical advice, but encourage them to consult healthcare providers when needed
+            - Be culturally sensitive and respectful of their experiences and wisdom
+            """;
+
+    private static final String DEFAULT_PROMPT = INTRODUCTION + "\nUSER INFORMATION:\n"
+            + "Address the user warmly with appropriate respectful terms in their language.\n\n" + GUIDELINES;
+
+    // Languages most likely spoken in a recipient's timezone, used when their own message doesn't settle it
+    private static final Map<String, String> LANGUAGES_BY_TIMEZONE = Map.of(
+            "Asia/Singapore", "English, Mandarin, Malay or Tamil (Singlish is common)",
+            "Singapore", "English, Mandarin, Malay or Tamil (Singlish is common)",
+            "Asia/Kuala_Lumpur", "Malay, English, Mandarin or Tamil",
+            "Asia/Kolkata", "Hindi, Tamil or English",
+            "Asia/Calcutta", "Hindi, Tamil or English",
+            "Asia/Shanghai", "Mandarin",
+            "Asia/Hong_Kong", "Cantonese or English",
+            "Asia/Taipei", "Mandarin or Taiwanese Hokkien",
+            "Asia/Jakarta", "Indonesian");
+
+    private final RecipientRepository recipientRepository;
+    private final RecipientTopicRepository topicRepository;
+
+    // Keyed by phone number without the leading +, since webhooks deliver numbers without it
+    private final Cache<String, String> promptCache;
+
+    public PromptContextService(RecipientRepository recipientRepository,
+                                RecipientTopicRepository topicRepository,
+                                @Value("${ai.prompt-context.cache-size:10000}") long cacheSize,
+                                @Value("${ai.prompt-context.cache-minutes:360}") long cacheMinutes) {
+        this.recipientRepository = recipientRepository;
+        this.topicRepository = topicRepository;
+        this.promptCache = Caffeine.newBuilder()
+                .expireAfterWrite(cacheMinutes, TimeUnit.MINUTES)
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * System prompt for a recipient; the generic prompt for unknown or null numbers.
+     */
+    public String getSystemPrompt(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.isBlank()) {
+            return DEFAULT_PROMPT;
+        }
+        return promptCache.get(cacheKey(phoneNumber), this::buildPrompt);
+    }
+
+    /**
+     * Drop the cached prompt for a recipient, after the current transaction commits if there is one.
+     */
+    public void invalidate(String phoneNumber) {
+        if (phoneNumber != null) {
+            invalidateAll(List.of(phoneNumber));
+        }
+    }
+
+    public void invalidateAll(Collection<String> phoneNumbers) {
+        List<String> keys = new ArrayList<>(phoneNumbers.size());
+        for (String phoneNumber : phoneNumbers) {
+            keys.add(cacheKey(phoneNumber));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Invalidating before commit would let a concurrent turn cache the old profile again
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    promptCache.invalidateAll(keys);
+                }
+            });
+        } else {
+            promptCache.invalidateAll(keys);
+        }
+    }
+
+    /**
+     * Prompt cache size and hit rate
+     */
+    public Map<String, Object> getCacheStats() {
+        CacheStats cacheStats = promptCache.stats();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", promptCache.estimatedSize());
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hit_rate", cacheStats.hitRate());
+        stats.put("average_build_ms", cacheStats.averageLoadPenalty() / 1_000_000.0);
+        return stats;
+    }
+
+    private static String cacheKey(String phoneNumber) {
+        String trimmed = phoneNumber.trim();
+        return trimmed.startsWith("+") ? trimmed.substring(1) : trimmed;
+    }
+
+    private String buildPrompt(String key) {
+        // Stored numbers may or may not carry the +
+        List<String> variants = List.of("+" + key, key);
+        Optional<RecipientEntity> recipientOpt = recipientRepository.findByPhoneNumber(variants.get(0))
+                .or(() -> recipientRepository.findByPhoneNumber(key));
+        if (recipientOpt.isEmpty()) {
+            return DEFAULT_PROMPT;
+        }
+        RecipientEntity recipient = recipientOpt.get();
+
+        Map<TopicType, List<String>> topics = new EnumMap<>(TopicType.class);
+        for (RecipientTopicEntity topic : topicRepository.findByPhoneNumberIn(variants)) {
+            topics.computeIfAbsent(topic.getTopicType(), t -> new ArrayList<>()).add(topic.getTopic());
+        }
+
+        StringBuilder prompt = new StringBuilder(DEFAULT_PROMPT.length() + 512);
+        prompt.append(INTRODUCTION).append("\nUSER INFORMATION:\n");
+        String name = recipient.getName();
+        if (name != null && !name.isEmpty()) {
+            prompt.append("The user's name is ").append(name)
+                    .append(". ALWAYS address them by their name '").append(name).append("' in your responses.\n");
+        } else {
+            prompt.append("Address the user warmly with appropriate respectful terms in their language.\n");
+        }
+        LocalDate dateOfBirth = recipient.getDateOfBirth();
+        if (dateOfBirth != null) {
+            prompt.append("They are ").append(Period.between(dateOfBirth, LocalDate.now()).getYears())
+                    .append(" years old.\n");
+        }
+        String languages = recipient.getTimezone() != null ? LANGUAGES_BY_TIMEZONE.get(recipient.getTimezone()) : null;
+        if (languages != null) {
+            prompt.append("They live in the ").append(recipient.getTimezone())
+                    .append(" timezone; if their language is unclear, they most likely speak ")
+                    .append(languages).append(".\n");
+        }
+
+        appendTopics(prompt, "Topics they enjoy talking about", topics.get(TopicType.FAVOURITE));
+        appendTopics(prompt, "Topics that cheer them up when they feel low", topics.get(TopicType.CHEER_UP));
+        appendTopics(prompt, "Topics to AVOID - never bring these up", topics.get(TopicType.AVOID));
+
+        prompt.append('\n').append(GUIDELINES);
+        log.debug("Built prompt context for {} ({} chars, {} topic types)", key, prompt.length(), topics.size());
+        return prompt.toString();
+    }
+
+    private static void appendTopics(StringBuilder prompt, String heading, List<String> topics) {
+        if (topics == null || topics.isEmpty()) {
+            return;
+        }
+        prompt.append(heading).append(": ");
+        for (int i = 0; i < topics.size(); i++) {
+            if (i > 0) {
+                prompt.append(", ");
+            }
+            prompt.append(topics.get(i));
+        }
+        prompt.append('\n');
+    }
+}
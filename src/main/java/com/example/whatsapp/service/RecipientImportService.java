@@ -0,0 +1,451 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.RecipientImportRow;
+import com.example.whatsapp.entity.RecipientEntity;
+import com.example.whatsapp.repository.RecipientRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk upsert of recipients from a JSON array or a CSV file with a header row. Input is
+ * read token by token and written in JDBC batches, so only one batch of rows is held at
+ * a time. Rows are matched on the normalized phone number; fields missing from a row keep
+ * their stored values.
+ */
+@Service
+public class RecipientImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipientImportService.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final CsvFactory CSV_FACTORY = new CsvFactory();
+
+    private static final String UPDATE_SQL = "UPDATE recipients SET name = COALESCE(?, name), " +
+            "preferred_time_of_day = COALESCE(?, preferred_time_of_day), custom_message = COALESCE(?, custom_message), " +
+            "enabled = COALESCE(?, enabled), timezone = COALESCE(?, timezone), relationship = COALESCE(?, relationship), " +
+            "date_of_birth = COALESCE(?, date_of_birth), notes = COALESCE(?, notes), " +
+            "caretaker_phone_number = COALESCE(?, caretaker_phone_number), caretaker_name = COALESCE(?, caretaker_name), " +
+            "report_preference = COALESCE(?, report_preference), email = COALESCE(?, email), updated_at = ? " +
+            "WHERE phone_number = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO recipients (name, preferred_time_of_day, custom_message, " +
+            "enabled, timezone, relationship, date_of_birth, notes, caretaker_phone_number, caretaker_name, " +
+            "report_preference, email, updated_at, phone_number, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public enum Format {
+        JSON,
+        CSV
+    }
+
+    private final RecipientRepository recipientRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PromptContextService promptContextService;
+
+    @Value("${wellness.recipients.import-batch-size:1000}")
+    private int batchSize;
+
+    public RecipientImportService(RecipientRepository recipientRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  PromptContextService promptContextService) {
+        this.recipientRepository = recipientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.promptContextService = promptContextService;
+    }
+
+    /**
+     * Normalize a phone number to +&lt;country code&gt;&lt;number&gt;. Spaces, dashes, dots and
+     * brackets are dropped and a leading 00 is read as +. Returns null if what's left
+     * isn't 8 to 15 digits.
+     */
+    public static String normalizePhoneNumber(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        String trimmed = phoneNumber.trim();
+        StringBuilder digits = new StringBuilder(trimmed.length());
+        for (int i = trimmed.startsWith("+") ? 1 : 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c != ' ' && c != '-' && c != '.' && c != '(' && c != ')') {
+                return null;
+            }
+        }
+        if (!trimmed.startsWith("+") && digits.length() > 2 && digits.charAt(0) == '0' && digits.charAt(1) == '0') {
+            digits.delete(0, 2);
+        }
+        if (digits.length() < 8 || digits.length() > 15) {
+            return null;
+        }
+        return "+" + digits;
+    }
+
+    /**
+     * Import a recipients file, looked up on the filesystem first and then on the classpath.
+     * Files ending in .csv are read as CSV, anything else as JSON. Returns null if the file
+     * doesn't exist.
+     */
+    public Map<String, Object> importFile(String location) throws IOException {
+        Resource resource = new FileSystemResource(location);
+        if (!resource.exists()) {
+            resource = new ClassPathResource(location);
+        }
+        if (!resource.exists()) {
+            return null;
+        }
+        Format format = location.toLowerCase(Locale.ROOT).endsWith(".csv") ? Format.CSV : Format.JSON;
+        try (InputStream in = resource.getInputStream()) {
+            return importRecipients(in, format, true);
+        }
+    }
+
+    /**
+     * Upsert every recipient in the input. The report lists each row's outcome
+     * (created, updated or error), or only the failed rows when errorsOnly is set.
+     */
+    public Map<String, Object> importRecipients(InputStream in, Format format, boolean errorsOnly) throws IOException {
+        long start = System.nanoTime();
+        ImportProgress progress = new ImportProgress(errorsOnly);
+        Set<String> seenPhoneNumbers = new HashSet<>();
+        List<RecipientImportRow> batch = new ArrayList<>(batchSize);
+        String abortReason = null;
+
+        try (JsonParser parser = createParser(in, format)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            int rowNumber = 0;
+            while (token == JsonToken.START_OBJECT) {
+                RecipientImportRow row = readRow(parser, ++rowNumber);
+                if (row.getError() == null && !seenPhoneNumbers.add(row.getPhoneNumber())) {
+                    row.setError("Duplicate phone number in import");
+                }
+                if (row.getError() != null) {
+                    progress.record(row, "error", row.getError());
+                } else {
+                    batch.add(row);
+                    if (batch.size() >= batchSize) {
+                        flush(batch, progress);
+                        batch.clear();
+                    }
+                }
+                token = parser.nextToken();
+            }
+            if (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                abortReason = "Expected a JSON array of recipient objects, found " + token;
+            }
+        } catch (JsonProcessingException e) {
+            // Rows already flushed stay stored; the report says where reading stopped
+            abortReason = "Malformed input: " + e.getOriginalMessage() + " at line " +
+                    (e.getLocation() != null ? e.getLocation().getLineNr() : -1);
+        }
+        flush(batch, progress);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Imported recipients ({}): {} created, {} updated, {} failed in {} ms{}",
+                format, progress.created, progress.updated, progress.failed, elapsedMs,
+                abortReason != null ? " - stopped early: " + abortReason : "");
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("success", abortReason == null);
+        report.put("total_rows", progress.created + progress.updated + progress.failed);
+        report.put("created", progress.created);
+        report.put("updated", progress.updated);
+        report.put("failed", progress.failed);
+        report.put("elapsed_ms", elapsedMs);
+        if (abortReason != null) {
+            report.put("error", abortReason);
+        }
+        // Failed rows are recorded as read, stored rows once their batch commits
+        progress.rows.sort(Comparator.comparingInt(entry -> (Integer) entry.get("row")));
+        report.put("rows", progress.rows);
+        return report;
+    }
+
+    private static JsonParser createParser(InputStream in, Format format) throws IOException {
+        if (format == Format.CSV) {
+            CsvParser parser = CSV_FACTORY.createParser(in);
+            parser.setSchema(CsvSchema.emptySchema().withHeader());
+            parser.enable(CsvParser.Feature.TRIM_SPACES);
+            parser.enable(CsvParser.Feature.SKIP_EMPTY_LINES);
+            return parser;
+        }
+        return JSON_FACTORY.createParser(in);
+    }
+
+    // Reads one object; field names match in camelCase, snake_case or as CSV headers like "Phone Number"
+    private static RecipientImportRow readRow(JsonParser parser, int rowNumber) throws IOException {
+        RecipientImportRow row = new RecipientImportRow(rowNumber);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = canonicalFieldName(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                row.setError("Field " + parser.currentName() + " must be a single value");
+                continue;
+            }
+            String text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+            if (text != null && text.isBlank()) {
+                text = null;
+            }
+            setField(row, field, text);
+        }
+
+        if (row.getPhoneNumber() == null) {
+            row.setError("Missing or invalid phone_number");
+        }
+        return row;
+    }
+
+    private static String canonicalFieldName(String name) {
+        StringBuilder canonical = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_' && c != '-' && c != ' ') {
+                canonical.append(Character.toLowerCase(c));
+            }
+        }
+        return canonical.toString();
+    }
+
+    private static void setField(RecipientImportRow row, String field, String text) {
+        switch (field) {
+            case "phonenumber", "phone" -> {
+                String normalized = normalizePhoneNumber(text);
+                if (normalized == null) {
+                    row.setError("Invalid phone_number: " + text);
+                }
+                row.setPhoneNumber(normalized);
+            }
+            case "name" -> row.setName(text);
+            case "preferredtimeofday" -> row.setPreferredTimeOfDay(text);
+            case "custommessage" -> row.setCustomMessage(text);
+            case "enabled" -> row.setEnabled(parseBoolean(row, text));
+            case "timezone" -> row.setTimezone(text);
+            case "relationship" -> row.setRelationship(text);
+            case "dateofbirth" -> {
+                try {
+                    row.setDateOfBirth(text != null ? LocalDate.parse(text) : null);
+                } catch (DateTimeParseException e) {
+                    row.setError("Invalid date_of_birth (expected yyyy-MM-dd): " + text);
+                }
+            }
+            case "notes" -> row.setNotes(text);
+            case "caretakerphonenumber" -> {
+                String normalized = normalizePhoneNumber(text);
+                if (text != null && normalized == null) {
+                    row.setError("Invalid caretaker_phone_number: " + text);
+                }
+                row.setCaretakerPhoneNumber(normalized);
+            }
+            case "caretakername" -> row.setCaretakerName(text);
+            case "reportpreference" -> {
+                try {
+                    row.setReportPreference(text != null
+                            ? RecipientEntity.ReportPreference.valueOf(text.toUpperCase(Locale.ROOT)) : null);
+                } catch (IllegalArgumentException e) {
+                    row.setError("Invalid report_preference (EMAIL, WHATSAPP or BOTH): " + text);
+                }
+            }
+            case "email" -> row.setEmail(text);
+            default -> {
+                // Other fields (id, last_check_sent, ...) are managed by the application
+            }
+        }
+    }
+
+    private static Boolean parseBoolean(RecipientImportRow row, String text) {
+        if (text == null) {
+            return null;
+        }
+        switch (text.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "y", "1":
+                return true;
+            case "false", "no", "n", "0":
+                return false;
+            default:
+                row.setError("Invalid enabled value: " + text);
+                return null;
+        }
+    }
+
+    private void flush(List<RecipientImportRow> batch, ImportProgress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            List<RecipientImportRow>[] split = transactionTemplate.execute(status -> upsert(batch));
+            split[0].forEach(row -> progress.record(row, "created", null));
+            split[1].forEach(row -> progress.record(row, "updated", null));
+            // New rows too: a number that messaged before being imported has the generic prompt cached
+            promptContextService.invalidateAll(phoneNumbers(batch));
+        } catch (DataAccessException e) {
+            // Find the offending rows by retrying one at a time
+            log.warn("Recipient import batch of {} rows failed ({}), retrying row by row",
+                    batch.size(), e.getMostSpecificCause().getMessage());
+            for (RecipientImportRow row : batch) {
+                try {
+                    List<RecipientImportRow>[] split = transactionTemplate.execute(status -> upsert(List.of(row)));
+                    progress.record(row, split[0].isEmpty() ? "updated" : "created", null);
+                    promptContextService.invalidate(row.getPhoneNumber());
+                } catch (DataAccessException rowError) {
+                    progress.record(row, "error", rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private static List<String> phoneNumbers(List<RecipientImportRow> rows) {
+        List<String> phoneNumbers = new ArrayList<>(rows.size());
+        for (RecipientImportRow row : rows) {
+            phoneNumbers.add(row.getPhoneNumber());
+        }
+        return phoneNumbers;
+    }
+
+    // Returns {created, updated}
+    @SuppressWarnings("unchecked")
+    private List<RecipientImportRow>[] upsert(List<RecipientImportRow> rows) {
+        // Older rows may be stored without the +, so look up both spellings and update whichever exists
+        List<String> candidates = new ArrayList<>(rows.size() * 2);
+        for (RecipientImportRow row : rows) {
+            candidates.add(row.getPhoneNumber());
+            candidates.add(row.getPhoneNumber().substring(1));
+        }
+        Map<String, String> storedByNormalized = new HashMap<>();
+        for (String stored : recipientRepository.findExistingPhoneNumbers(candidates)) {
+            storedByNormalized.putIfAbsent(normalizePhoneNumber(stored), stored);
+        }
+
+        List<RecipientImportRow> inserts = new ArrayList<>();
+        List<RecipientImportRow> updates = new ArrayList<>();
+        List<String> updateKeys = new ArrayList<>();
+        for (RecipientImportRow row : rows) {
+            String stored = storedByNormalized.get(row.getPhoneNumber());
+            if (stored == null) {
+                inserts.add(row);
+            } else {
+                updates.add(row);
+                updateKeys.add(stored);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setColumns(ps, updates.get(i), now, updateKeys.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return updates.size();
+                }
+            });
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, row) -> {
+                setColumns(ps, row, now, row.getPhoneNumber());
+                // A missing value means "keep" on update; a new row gets the entity defaults instead
+                ps.setBoolean(4, row.getEnabled() != null ? row.getEnabled() : true);
+                ps.setString(11, (row.getReportPreference() != null
+                        ? row.getReportPreference() : RecipientEntity.ReportPreference.WHATSAPP).name());
+                ps.setTimestamp(15, now);
+            });
+        }
+        return new List[] {inserts, updates};
+    }
+
+    // Parameters 1-14, shared by the update and insert statements
+    private static void setColumns(PreparedStatement ps, RecipientImportRow row, Timestamp now, String phoneNumber)
+            throws SQLException {
+        ps.setString(1, row.getName());
+        ps.setString(2, row.getPreferredTimeOfDay());
+        ps.setString(3, row.getCustomMessage());
+        ps.setObject(4, row.getEnabled(), Types.BOOLEAN);
+        ps.setString(5, row.getTimezone());
+        ps.setString(6, row.getRelationship());
+        ps.setDate(7, row.getDateOfBirth() != null ? Date.valueOf(row.getDateOfBirth()) : null);
+        ps.setString(8, row.getNotes());
+        ps.setString(9, row.getCaretakerPhoneNumber());
+        ps.setString(10, row.getCaretakerName());
+        ps.setString(11, row.getReportPreference() != null ? row.getReportPreference().name() : null);
+        ps.setString(12, row.getEmail());
+        ps.setTimestamp(13, now);
+        ps.setString(14, phoneNumber);
+    }
+
+    private static class ImportProgress {
+        private final boolean errorsOnly;
+        private final List<Map<String, Object>> rows = new ArrayList<>();
+        private int created;
+        private int updated;
+        private int failed;
+
+        ImportProgress(boolean errorsOnly) {
+            this.errorsOnly = errorsOnly;
+        }
+
+        void record(RecipientImportRow row, String status, String error) {
+            switch (status) {
+                case "created" -> created++;
+                case "updated" -> updated++;
+                default -> failed++;
+            }
+            if (errorsOnly && error == null) {
+                return;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("row", row.getRowNumber());
+            entry.put("phone_number", row.getPhoneNumber());
+            entry.put("status", status);
+            if (error != null) {
+                entry.put("error", error);
+            }
+            rows.add(entry);
+        }
+    }
+}
@@ -3,13 +3,20 @@ package com.example.whatsapp.service;
 import com.example.whatsapp.entity.RecipientEntity;
 import com.example.whatsapp.repository.RecipientRepository;
 import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -17,20 +24,58 @@ public class RecipientService {
 
     private static final Logger log = LoggerFactory.getLogger(RecipientService.class);
 
+    @Value("${wellness.recipients.update-batch-size:500}")
+    private int updateBatchSize;
+
+    @Value("${wellness.recipients.config-file:recipients.json}")
+    private String configFile;
+
+    // if-empty: import the config file only into an empty table; always: upsert it on every start; never
+    @Value("${wellness.recipients.load-on-startup:if-empty}")
+    private String loadOnStartup;
+
     private final RecipientRepository recipientRepository;
+    private final RecipientImportService recipientImportService;
+    private final PromptContextService promptContextService;
+    private final MeterRegistry meterRegistry;
 
-    public RecipientService(RecipientRepository recipientRepository) {
+    public RecipientService(RecipientRepository recipientRepository,
+                            RecipientImportService recipientImportService,
+                            PromptContextService promptContextService,
+                            MeterRegistry meterRegistry) {
         this.recipientRepository = recipientRepository;
+        this.recipientImportService = recipientImportService;
+        this.promptContextService = promptContextService;
+        this.meterRegistry = meterRegistry;
     }
 
     @PostConstruct
     public void init() {
-        // Initialize with sample data if database is empty
-        if (recipientRepository.count() == 0) {
+        long count = recipientRepository.count();
+        if ("always".equalsIgnoreCase(loadOnStartup) || ("if-empty".equalsIgnoreCase(loadOnStartup) && count == 0)) {
+            loadConfigFile();
+            count = recipientRepository.count();
+        }
+
+        // Initialize with sample data if database is still empty
+        if (count == 0) {
             log.info("No recipients found in database. Creating sample recipients.");
             createSampleRecipients();
         } else {
-            log.info("Loaded {} recipients from database", recipientRepository.count());
+            log.info("Loaded {} recipients from database", count);
+        }
+    }
+
+    private void loadConfigFile() {
+        try {
+            Map<String, Object> report = recipientImportService.importFile(configFile);
+            if (report == null) {
+                log.info("Recipients file {} not found, skipping import", configFile);
+            } else if (!Boolean.TRUE.equals(report.get("success")) || !Integer.valueOf(0).equals(report.get("failed"))) {
+                log.warn("Recipients file {} imported with problems: {}", configFile, report);
+            }
+        } catch (IOException e) {
+            log.error("Failed to read recipients file {}", configFile, e);
         }
     }
 
@@ -72,6 +117,13 @@ public class RecipientService {
     }
 
     public Optional<RecipientEntity> getRecipientByPhoneNumber(String phoneNumber) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Optional<RecipientEntity> result = findRecipient(phoneNumber);
+        sample.stop(meterRegistry.timer("recipient.lookup", "found", Boolean.toString(result.isPresent())));
+        return result;
+    }
+
+    private Optional<RecipientEntity> findRecipient(String phoneNumber) {
         // Normalize phone number for comparison (remove + prefix if present)
         String normalizedInput = phoneNumber != null ? phoneNumber.replaceAll("^\\+", "") : "";
 
@@ -104,12 +156,50 @@ public class RecipientService {
         });
     }
 
+    /**
+     * How many phone numbers {@link #updateLastCheckSent} updates per statement; callers that
+     * queue messages per batch use the same size
+     */
+    public int getUpdateBatchSize() {
+        return Math.max(1, updateBatchSize);
+    }
+
+    /**
+     * Bulk update last check sent time for recipients that were just messaged.
+     * Phone numbers must be stored values (e.g. taken from recipient entities), so no
+     * +/no-+ fallback lookups are done. Issues one UPDATE ... IN (...) per chunk.
+     */
+    @Transactional
+    public int updateLastCheckSent(Collection<String> phoneNumbers) {
+        if (phoneNumbers == null || phoneNumbers.isEmpty()) {
+            return 0;
+        }
+
+        List<String> numbers = new ArrayList<>(phoneNumbers);
+        int batchSize = getUpdateBatchSize();
+        LocalDateTime sentAt = LocalDateTime.now();
+        int updated = 0;
+
+        for (int start = 0; start < numbers.size(); start += batchSize) {
+            List<String> batch = numbers.subList(start, Math.min(start + batchSize, numbers.size()));
+            long batchStart = System.nanoTime();
+            int rows = recipientRepository.updateLastCheckSent(batch, sentAt);
+            long elapsedMs = (System.nanoTime() - batchStart) / 1_000_000;
+            updated += rows;
+            log.info("Updated last check sent for batch {} ({} numbers, {} rows) in {} ms",
+                    start / batchSize + 1, batch.size(), rows, elapsedMs);
+        }
+
+        return updated;
+    }
+
     @Transactional
     public RecipientEntity addRecipient(RecipientEntity recipient) {
         if (recipientRepository.existsByPhoneNumber(recipient.getPhoneNumber())) {
             throw new IllegalArgumentException("Recipient with phone number " + recipient.getPhoneNumber() + " already exists");
         }
         RecipientEntity saved = recipientRepository.save(recipient);
+        promptContextService.invalidate(saved.getPhoneNumber());
         log.info("Added new recipient: {} ({})", saved.getName(), saved.getPhoneNumber());
         return saved;
     }
@@ -147,6 +237,7 @@ public class RecipientService {
         }
 
         RecipientEntity saved = recipientRepository.save(existing);
+        promptContextService.invalidate(saved.getPhoneNumber());
         log.info("Updated recipient: {} ({})", saved.getName(), saved.getPhoneNumber());
         return saved;
     }
@@ -156,6 +247,7 @@ public class RecipientService {
         Optional<RecipientEntity> recipient = getRecipientByPhoneNumber(phoneNumber);
         if (recipient.isPresent()) {
             recipientRepository.delete(recipient.get());
+            promptContextService.invalidate(recipient.get().getPhoneNumber());
             log.info("Removed recipient with phone number: {}", phoneNumber);
             return true;
         }
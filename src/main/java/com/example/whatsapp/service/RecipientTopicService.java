@@ -0,0 +1,224 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.RecipientTopicUpdate;
+import com.example.whatsapp.entity.RecipientTopicEntity;
+import com.example.whatsapp.entity.RecipientTopicEntity.TopicType;
+import com.example.whatsapp.repository.RecipientTopicRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set-based topic writes. The stored topics are loaded once per request and diffed in
+ * memory; only new topics are inserted, in one JDBC batch, and removed ones are deleted
+ * with a single statement.
+ */
+@Service
+public class RecipientTopicService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipientTopicService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO recipient_topics (phone_number, topic, topic_type, created_at) VALUES (?, ?, ?, ?)";
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final RecipientTopicRepository topicRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PromptContextService promptContextService;
+
+    public RecipientTopicService(RecipientTopicRepository topicRepository, JdbcTemplate jdbcTemplate,
+                                 PromptContextService promptContextService) {
+        this.topicRepository = topicRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.promptContextService = promptContextService;
+    }
+
+    /**
+     * Add topics of one type, skipping blanks and topics the recipient already has.
+     */
+    @Transactional
+    public TopicChanges addTopics(String phoneNumber, List<String> topics, TopicType type) {
+        return apply(phoneNumber, type, topics, false);
+    }
+
+    /**
+     * Make the recipient's topics of one type exactly the given list.
+     */
+    @Transactional
+    public TopicChanges replaceTopics(String phoneNumber, List<String> topics, TopicType type) {
+        return apply(phoneNumber, type, topics, true);
+    }
+
+    /**
+     * Delete one topic of one type
+     */
+    @Transactional
+    public int deleteTopic(String phoneNumber, String topic, TopicType type) {
+        int deleted = topicRepository.deleteByPhoneNumberAndTopicAndTopicType(phoneNumber, topic, type);
+        promptContextService.invalidate(phoneNumber);
+        return deleted;
+    }
+
+    /**
+     * Delete all of a recipient's topics of one type
+     */
+    @Transactional
+    public int deleteTopics(String phoneNumber, TopicType type) {
+        int deleted = topicRepository.deleteByPhoneNumberAndTopicType(phoneNumber, type);
+        promptContextService.invalidate(phoneNumber);
+        return deleted;
+    }
+
+    /**
+     * Add (or, with replace, set) topics for many recipients in one transaction.
+     * Returns the changes per recipient, in request order.
+     */
+    @Transactional
+    public Map<String, TopicChanges> bulkUpdate(List<RecipientTopicUpdate> updates, boolean replace) {
+        Map<String, Map<TopicType, List<String>>> requested = new LinkedHashMap<>();
+        for (RecipientTopicUpdate update : updates) {
+            String phoneNumber = update.getPhoneNumber();
+            if (phoneNumber == null || phoneNumber.isBlank()) {
+                throw new IllegalArgumentException("Every entry needs a phone_number");
+            }
+            Map<TopicType, List<String>> byType = new EnumMap<>(TopicType.class);
+            putIfPresent(byType, TopicType.FAVOURITE, update.getFavourite());
+            putIfPresent(byType, TopicType.CHEER_UP, update.getCheerUp());
+            putIfPresent(byType, TopicType.AVOID, update.getAvoid());
+            if (requested.put(phoneNumber.trim(), byType) != null) {
+                throw new IllegalArgumentException("Duplicate phone_number in request: " + phoneNumber);
+            }
+        }
+        if (requested.isEmpty()) {
+            return Map.of();
+        }
+
+        List<RecipientTopicEntity> stored = topicRepository.findByPhoneNumberIn(requested.keySet());
+        Map<String, Map<TopicType, List<RecipientTopicEntity>>> storedByRecipient = new HashMap<>();
+        for (RecipientTopicEntity topic : stored) {
+            storedByRecipient.computeIfAbsent(topic.getPhoneNumber(), p -> new EnumMap<>(TopicType.class))
+                    .computeIfAbsent(topic.getTopicType(), t -> new ArrayList<>())
+                    .add(topic);
+        }
+
+        Map<String, TopicChanges> changes = new LinkedHashMap<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Long> removedIds = new ArrayList<>();
+        requested.forEach((phoneNumber, byType) -> {
+            TopicChanges recipientChanges = new TopicChanges();
+            Map<TopicType, List<RecipientTopicEntity>> storedTypes =
+                    storedByRecipient.getOrDefault(phoneNumber, Map.of());
+            byType.forEach((type, topics) -> diff(phoneNumber, type, topics,
+                    storedTypes.getOrDefault(type, List.of()), replace, recipientChanges, inserts, removedIds));
+            changes.put(phoneNumber, recipientChanges);
+        });
+        write(inserts, removedIds);
+        promptContextService.invalidateAll(requested.keySet());
+
+        log.info("Bulk topic {} for {} recipients: {} added, {} removed",
+                replace ? "replace" : "add", requested.size(), inserts.size(), removedIds.size());
+        return changes;
+    }
+
+    private TopicChanges apply(String phoneNumber, TopicType type, List<String> topics, boolean replace) {
+        TopicChanges changes = new TopicChanges();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Long> removedIds = new ArrayList<>();
+        diff(phoneNumber, type, topics, topicRepository.findByPhoneNumberAndTopicType(phoneNumber, type),
+                replace, changes, inserts, removedIds);
+        write(inserts, removedIds);
+        promptContextService.invalidate(phoneNumber);
+        return changes;
+    }
+
+    private static void putIfPresent(Map<TopicType, List<String>> byType, TopicType type, List<String> topics) {
+        if (topics != null) {
+            byType.put(type, topics);
+        }
+    }
+
+    // Collects the rows to insert and the ids to delete to bring one recipient's topic type to the request
+    private static void diff(String phoneNumber, TopicType type, List<String> topics,
+                             List<RecipientTopicEntity> stored, boolean replace, TopicChanges changes,
+                             List<Object[]> inserts, List<Long> removedIds) {
+        Set<String> wanted = new LinkedHashSet<>();
+        for (String topic : topics) {
+            if (topic == null || topic.isBlank() || !wanted.add(topic.trim())) {
+                changes.skipped++;
+            }
+        }
+
+        Set<String> existing = new HashSet<>();
+        for (RecipientTopicEntity topic : stored) {
+            if (replace && !wanted.contains(topic.getTopic())) {
+                removedIds.add(topic.getId());
+                changes.removed++;
+            } else {
+                existing.add(topic.getTopic());
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int added = 0;
+        for (String topic : wanted) {
+            if (!existing.contains(topic)) {
+                inserts.add(new Object[] {phoneNumber, topic, type.name(), now});
+                added++;
+            } else if (!replace) {
+                changes.skipped++;
+            }
+        }
+        changes.added += added;
+        changes.total += existing.size() + added;
+    }
+
+    private void write(List<Object[]> inserts, List<Long> removedIds) {
+        // Chunked only to keep the IN list within driver parameter limits
+        for (int i = 0; i < removedIds.size(); i += DELETE_CHUNK_SIZE) {
+            topicRepository.deleteByIdIn(removedIds.subList(i, Math.min(i + DELETE_CHUNK_SIZE, removedIds.size())));
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+    }
+
+    /**
+     * Outcome of a topic write for one recipient.
+     */
+    public static class TopicChanges {
+        private int added;
+        private int removed;
+        private int skipped;
+        private int total;
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
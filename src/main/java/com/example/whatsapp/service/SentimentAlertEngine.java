@@ -0,0 +1,419 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.SentimentEvent;
+import com.example.whatsapp.entity.SentimentWindowSnapshot;
+import com.example.whatsapp.repository.ConversationSentimentRepository;
+import com.example.whatsapp.repository.SentimentWindowSnapshotRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates the sliding-window alert rules per user as sentiments arrive.
+ * Each user has a ring buffer of recent (timestamp, category, confidence) events, and every
+ * rule keeps its own tail pointer and running sums, so an event costs O(rules) amortized.
+ * Windows are snapshotted periodically and restored on startup, replaying any stored
+ * sentiments newer than the last snapshot.
+ */
+@Service
+public class SentimentAlertEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SentimentAlertEngine.class);
+
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int EVENT_BYTES = Long.BYTES + 1 + Short.BYTES;
+    // Confidence weights in thousandths; very low confidence still counts a little
+    private static final int MIN_WEIGHT = 100;
+    private static final int MAX_WEIGHT = 1000;
+    // Replay overlap before the last snapshot pass, to cover events stored while it ran
+    private static final long REPLAY_MARGIN_MINUTES = 1;
+
+    private final SentimentWindowSnapshotRepository snapshotRepository;
+    private final ConversationSentimentRepository sentimentRepository;
+    private final SentimentAlertRule[] rules;
+    private final long[] ruleWindowMillis;
+    private final long maxWindowMillis;
+    private final int capacity;
+
+    private final ConcurrentHashMap<String, UserWindow> windows = new ConcurrentHashMap<>();
+
+    public SentimentAlertEngine(
+            SentimentWindowSnapshotRepository snapshotRepository,
+            ConversationSentimentRepository sentimentRepository,
+            @Value("${sentiment.alert.rules:red-burst:count:RED:3:6h,concerning:count:RED+AMBER:5:12h,low-score:score:30:24h:4}") String ruleSpecs,
+            @Value("${sentiment.alert.window-capacity:256}") int capacity) {
+        this.snapshotRepository = snapshotRepository;
+        this.sentimentRepository = sentimentRepository;
+        this.rules = SentimentAlertRule.parseAll(ruleSpecs).toArray(new SentimentAlertRule[0]);
+        this.ruleWindowMillis = new long[rules.length];
+        long max = 0;
+        for (int r = 0; r < rules.length; r++) {
+            ruleWindowMillis[r] = rules[r].getWindow().toMillis();
+            max = Math.max(max, ruleWindowMillis[r]);
+        }
+        this.maxWindowMillis = max;
+        this.capacity = Math.max(8, capacity);
+        log.info("Sentiment alert rules: {}", ruleSpecs);
+    }
+
+    /**
+     * Add a stored sentiment to the user's window and return the rules this sentiment made
+     * match. A rule that already matched is not returned again until it has stopped matching,
+     * so one burst alerts once however many messages follow it inside the window.
+     */
+    public List<Match> record(String phoneNumber, LocalDateTime timestamp,
+                              SentimentAnalysis.SentimentCategory category, Double confidence) {
+        long millis = toMillis(timestamp);
+        int weight = weight(confidence);
+        while (true) {
+            UserWindow window = windows.computeIfAbsent(phoneNumber, k -> new UserWindow());
+            synchronized (window) {
+                // Retired by a concurrent snapshot pass after it emptied; use a fresh one
+                if (window.retired) continue;
+                return window.add(millis, (byte) category.ordinal(), weight);
+            }
+        }
+    }
+
+    /**
+     * Current value of every rule for a user, for monitoring
+     */
+    public List<Map<String, Object>> describeWindow(String phoneNumber) {
+        UserWindow window = windows.get(phoneNumber);
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int r = 0; r < rules.length; r++) {
+            SentimentAlertRule rule = rules[r];
+            Map<String, Object> state = new HashMap<>();
+            state.put("rule", rule.getName());
+            state.put("type", rule.getType().name());
+            state.put("window", rule.getWindow().toString());
+            if (window == null) {
+                state.put("count", 0L);
+                state.put("triggered", false);
+            } else {
+                synchronized (window) {
+                    state.put("count", window.count[r]);
+                    if (rule.getType() == SentimentAlertRule.Type.SCORE) {
+                        state.put("score", Math.round(window.score(r) * 10) / 10.0);
+                    }
+                    state.put("triggered", window.matches(r));
+                }
+            }
+            result.add(state);
+        }
+        return result;
+    }
+
+    public int getTrackedUserCount() {
+        return windows.size();
+    }
+
+    /**
+     * Persist changed windows; windows that have emptied are dropped along with their snapshot
+     */
+    @Scheduled(fixedDelayString = "${sentiment.alert.snapshot-interval-ms:60000}",
+               initialDelayString = "${sentiment.alert.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        long start = System.currentTimeMillis();
+        List<SentimentWindowSnapshot> changed = new ArrayList<>();
+        List<String> emptied = new ArrayList<>();
+
+        for (Map.Entry<String, UserWindow> entry : windows.entrySet()) {
+            UserWindow window = entry.getValue();
+            synchronized (window) {
+                window.expire(start);
+                if (window.size() == 0) {
+                    window.retired = true;
+                    windows.remove(entry.getKey(), window);
+                    emptied.add(entry.getKey());
+                } else if (window.dirty) {
+                    changed.add(window.toSnapshot(entry.getKey()));
+                    window.dirty = false;
+                }
+            }
+        }
+
+        if (changed.isEmpty() && emptied.isEmpty()) {
+            return;
+        }
+
+        try {
+            snapshotRepository.saveAll(changed);
+            for (String phoneNumber : emptied) {
+                if (snapshotRepository.existsById(phoneNumber)) {
+                    snapshotRepository.deleteById(phoneNumber);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to snapshot sentiment alert windows: {}", e.getMessage());
+            return;
+        }
+
+        log.debug("Snapshotted {} sentiment alert windows, dropped {} empty ({} ms)",
+                changed.size(), emptied.size(), System.currentTimeMillis() - start);
+    }
+
+    // Runs before beans are destroyed, while the repositories can still be used
+    @EventListener(ContextClosedEvent.class)
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    /**
+     * Rebuild windows from the snapshots, then replay sentiments stored after the last snapshot pass
+     */
+    @PostConstruct
+    public void restore() {
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, LocalDateTime> lastEventAt = new HashMap<>();
+            LocalDateTime lastSnapshotPass = null;
+
+            for (SentimentWindowSnapshot snapshot : snapshotRepository.findAll()) {
+                UserWindow window = new UserWindow();
+                window.load(snapshot.getEvents());
+                window.dirty = false;
+                windows.put(snapshot.getPhoneNumber(), window);
+                lastEventAt.put(snapshot.getPhoneNumber(), snapshot.getLastEventAt());
+                if (lastSnapshotPass == null || snapshot.getUpdatedAt().isAfter(lastSnapshotPass)) {
+                    lastSnapshotPass = snapshot.getUpdatedAt();
+                }
+            }
+
+            LocalDateTime windowStart = LocalDateTime.now().minusNanos(maxWindowMillis * 1_000_000);
+            LocalDateTime replayFrom = lastSnapshotPass != null
+                    ? lastSnapshotPass.minusMinutes(REPLAY_MARGIN_MINUTES) : windowStart;
+            if (replayFrom.isBefore(windowStart)) {
+                replayFrom = windowStart;
+            }
+
+            int replayed = 0;
+            for (SentimentEvent event : sentimentRepository.findEventsAfter(replayFrom)) {
+                LocalDateTime last = lastEventAt.get(event.getPhoneNumber());
+                if (last != null && !event.getTimestamp().isAfter(last)) {
+                    continue;   // Already in the snapshot
+                }
+                record(event.getPhoneNumber(), event.getTimestamp(), event.getCategory(), event.getConfidence());
+                replayed++;
+            }
+
+            log.info("Restored {} sentiment alert windows ({} from snapshots, {} events replayed) in {} ms",
+                    windows.size(), lastEventAt.size(), replayed, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to restore sentiment alert windows, starting empty: {}", e.getMessage());
+        }
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static int weight(Double confidence) {
+        int weight = confidence == null ? MIN_WEIGHT : (int) Math.round(confidence * 1000);
+        return Math.max(MIN_WEIGHT, Math.min(MAX_WEIGHT, weight));
+    }
+
+    private static int categoryScore(int categoryOrdinal) {
+        if (categoryOrdinal == SentimentAnalysis.SentimentCategory.GREEN.ordinal()) return 100;
+        if (categoryOrdinal == SentimentAnalysis.SentimentCategory.RED.ordinal()) return 0;
+        return 50;
+    }
+
+    /**
+     * A rule that matched, with the values that made it match
+     */
+    public static final class Match {
+        private final SentimentAlertRule rule;
+        private final long count;
+        private final double score;
+
+        Match(SentimentAlertRule rule, long count, double score) {
+            this.rule = rule;
+            this.count = count;
+            this.score = score;
+        }
+
+        public SentimentAlertRule getRule() { return rule; }
+
+        public long getCount() { return count; }
+
+        public double getScore() { return score; }
+
+        public String getDescription() {
+            return rule.describe(count, score);
+        }
+    }
+
+    /**
+     * One user's events and per-rule running sums. Events are addressed by an ever-increasing
+     * sequence number; the slot is the sequence modulo the capacity. Guarded by its own monitor.
+     */
+    private final class UserWindow {
+        private final long[] timestamps = new long[capacity];
+        private final byte[] categories = new byte[capacity];
+        private final short[] weights = new short[capacity];
+        private long oldestSeq;
+        private long nextSeq;
+
+        // Per rule: oldest sequence still in the rule's window, and sums over its window
+        private final long[] tail = new long[rules.length];
+        private final long[] count = new long[rules.length];
+        private final long[] scoreSum = new long[rules.length];
+        private final long[] weightSum = new long[rules.length];
+
+        boolean dirty;
+        boolean retired;
+
+        int size() {
+            return (int) (nextSeq - oldestSeq);
+        }
+
+        /**
+         * @return the rules that did not match just before this event and match with it
+         */
+        List<Match> add(long millis, byte category, int weight) {
+            if (size() == capacity) {
+                dropOldest();
+            }
+            long seq = nextSeq++;
+            int slot = (int) (seq % capacity);
+            timestamps[slot] = millis;
+            categories[slot] = category;
+            weights[slot] = (short) weight;
+
+            List<Match> started = null;
+            for (int r = 0; r < rules.length; r++) {
+                evict(r, millis - ruleWindowMillis[r]);
+                boolean matchedBefore = matches(r);
+                include(r, slot);
+                if (!matchedBefore && matches(r)) {
+                    if (started == null) started = new ArrayList<>(2);
+                    started.add(new Match(rules[r], count[r], score(r)));
+                }
+            }
+            trim();
+            dirty = true;
+            return started != null ? started : List.of();
+        }
+
+        /**
+         * Evict everything that has aged out of its rule's window as of the given time
+         */
+        void expire(long nowMillis) {
+            long before = oldestSeq;
+            for (int r = 0; r < rules.length; r++) {
+                evict(r, nowMillis - ruleWindowMillis[r]);
+            }
+            trim();
+            if (oldestSeq != before) {
+                dirty = true;
+            }
+        }
+
+        boolean matches(int r) {
+            SentimentAlertRule rule = rules[r];
+            if (rule.getType() == SentimentAlertRule.Type.COUNT) {
+                return count[r] >= rule.getMinCount();
+            }
+            return count[r] >= rule.getMinEvents() && score(r) < rule.getMaxScore();
+        }
+
+        double score(int r) {
+            return weightSum[r] > 0 ? (double) scoreSum[r] / weightSum[r] : 0;
+        }
+
+        private void include(int r, int slot) {
+            if (rules[r].getType() == SentimentAlertRule.Type.COUNT) {
+                if (rules[r].countsCategory(categories[slot])) count[r]++;
+            } else {
+                count[r]++;
+                scoreSum[r] += (long) categoryScore(categories[slot]) * weights[slot];
+                weightSum[r] += weights[slot];
+            }
+        }
+
+        private void exclude(int r, int slot) {
+            if (rules[r].getType() == SentimentAlertRule.Type.COUNT) {
+                if (rules[r].countsCategory(categories[slot])) count[r]--;
+            } else {
+                count[r]--;
+                scoreSum[r] -= (long) categoryScore(categories[slot]) * weights[slot];
+                weightSum[r] -= weights[slot];
+            }
+        }
+
+        private void evict(int r, long cutoffMillis) {
+            while (tail[r] < nextSeq && timestamps[(int) (tail[r] % capacity)] <= cutoffMillis) {
+                exclude(r, (int) (tail[r] % capacity));
+                tail[r]++;
+            }
+        }
+
+        // Buffer full: the oldest event leaves every rule still holding it
+        private void dropOldest() {
+            int slot = (int) (oldestSeq % capacity);
+            for (int r = 0; r < rules.length; r++) {
+                if (tail[r] == oldestSeq) {
+                    exclude(r, slot);
+                    tail[r]++;
+                }
+            }
+            oldestSeq++;
+        }
+
+        // Keep only events some rule still needs
+        private void trim() {
+            long oldestNeeded = nextSeq;
+            for (long t : tail) {
+                oldestNeeded = Math.min(oldestNeeded, t);
+            }
+            oldestSeq = Math.max(oldestSeq, oldestNeeded);
+        }
+
+        SentimentWindowSnapshot toSnapshot(String phoneNumber) {
+            int size = size();
+            ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + size * EVENT_BYTES);
+            buffer.putInt(SNAPSHOT_VERSION).putInt(size);
+            for (long seq = oldestSeq; seq < nextSeq; seq++) {
+                int slot = (int) (seq % capacity);
+                buffer.putLong(timestamps[slot]).put(categories[slot]).putShort(weights[slot]);
+            }
+            long last = timestamps[(int) ((nextSeq - 1) % capacity)];
+            return new SentimentWindowSnapshot(phoneNumber,
+                    Base64.getEncoder().encodeToString(buffer.array()), size, fromMillis(last));
+        }
+
+        void load(String encoded) {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+            int version = buffer.getInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IllegalStateException("Unsupported alert window snapshot version " + version);
+            }
+            int size = buffer.getInt();
+            for (int i = 0; i < size; i++) {
+                add(buffer.getLong(), buffer.get(), buffer.getShort());
+            }
+        }
+    }
+}
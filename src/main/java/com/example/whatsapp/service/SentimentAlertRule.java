@@ -0,0 +1,148 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A sliding-window alert rule, parsed from sentiment.alert.rules.
+ * <ul>
+ *   <li>{@code name:count:RED:3:6h} - at least 3 RED messages within 6 hours
+ *       (categories may be combined, e.g. {@code RED+AMBER})</li>
+ *   <li>{@code name:score:35:24h:4} - confidence-weighted score (GREEN=100, AMBER=50, RED=0)
+ *       below 35 over 24 hours, once there are at least 4 messages</li>
+ * </ul>
+ */
+public final class SentimentAlertRule {
+
+    public enum Type {
+        COUNT,
+        SCORE
+    }
+
+    private final String name;
+    private final Type type;
+    private final Duration window;
+    // COUNT: bit per SentimentCategory ordinal
+    private final int categoryMask;
+    private final int minCount;
+    // SCORE: alert when the weighted average is below this
+    private final double maxScore;
+    private final int minEvents;
+
+    private SentimentAlertRule(String name, Type type, Duration window, int categoryMask,
+                               int minCount, double maxScore, int minEvents) {
+        this.name = name;
+        this.type = type;
+        this.window = window;
+        this.categoryMask = categoryMask;
+        this.minCount = minCount;
+        this.maxScore = maxScore;
+        this.minEvents = minEvents;
+    }
+
+    public static SentimentAlertRule count(String name, int minCount, Duration window,
+                                           SentimentAnalysis.SentimentCategory... categories) {
+        int mask = 0;
+        for (SentimentAnalysis.SentimentCategory category : categories) {
+            mask |= 1 << category.ordinal();
+        }
+        return new SentimentAlertRule(name, Type.COUNT, window, mask, minCount, 0, 0);
+    }
+
+    public static SentimentAlertRule score(String name, double maxScore, Duration window, int minEvents) {
+        return new SentimentAlertRule(name, Type.SCORE, window, 0, 0, maxScore, minEvents);
+    }
+
+    /**
+     * Parse a comma-separated list of rule specs, failing on anything malformed
+     */
+    public static List<SentimentAlertRule> parseAll(String specs) {
+        List<SentimentAlertRule> rules = new ArrayList<>();
+        for (String spec : specs.split(",")) {
+            if (!spec.isBlank()) {
+                rules.add(parse(spec.trim()));
+            }
+        }
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("No sentiment alert rules configured");
+        }
+        return rules;
+    }
+
+    public static SentimentAlertRule parse(String spec) {
+        String[] parts = spec.split(":");
+        try {
+            if (parts.length == 5 && parts[1].equalsIgnoreCase("count")) {
+                String[] names = parts[2].split("\\+");
+                SentimentAnalysis.SentimentCategory[] categories = new SentimentAnalysis.SentimentCategory[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    categories[i] = SentimentAnalysis.SentimentCategory.valueOf(names[i].trim().toUpperCase(Locale.ROOT));
+                }
+                return count(parts[0], Integer.parseInt(parts[3]), parseDuration(parts[4]), categories);
+            }
+            if (parts.length == 5 && parts[1].equalsIgnoreCase("score")) {
+                return score(parts[0], Double.parseDouble(parts[2]), parseDuration(parts[3]), Integer.parseInt(parts[4]));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid sentiment alert rule '" + spec + "': " + e.getMessage(), e);
+        }
+        throw new IllegalArgumentException("Invalid sentiment alert rule '" + spec +
+                "', expected name:count:CATEGORY[+CATEGORY]:N:window or name:score:MAX:window:MIN_EVENTS");
+    }
+
+    private static Duration parseDuration(String text) {
+        String value = text.trim().toLowerCase(Locale.ROOT);
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        switch (value.charAt(value.length() - 1)) {
+            case 'm': return Duration.ofMinutes(amount);
+            case 'h': return Duration.ofHours(amount);
+            case 'd': return Duration.ofDays(amount);
+            default: throw new IllegalArgumentException("Unknown duration unit in '" + text + "'");
+        }
+    }
+
+    boolean countsCategory(int categoryOrdinal) {
+        return (categoryMask & (1 << categoryOrdinal)) != 0;
+    }
+
+    /**
+     * Human-readable reason, e.g. "3 RED messages within 6h"
+     */
+    public String describe(long count, double score) {
+        if (type == Type.COUNT) {
+            StringBuilder categories = new StringBuilder();
+            for (SentimentAnalysis.SentimentCategory category : SentimentAnalysis.SentimentCategory.values()) {
+                if (countsCategory(category.ordinal())) {
+                    if (categories.length() > 0) categories.append('/');
+                    categories.append(category.name());
+                }
+            }
+            return count + " " + categories + " messages within " + formatWindow();
+        }
+        return String.format(Locale.ROOT, "average sentiment score %.0f over %d messages in %s",
+                score, count, formatWindow());
+    }
+
+    private String formatWindow() {
+        long minutes = window.toMinutes();
+        if (minutes % (24 * 60) == 0) return (minutes / (24 * 60)) + "d";
+        if (minutes % 60 == 0) return (minutes / 60) + "h";
+        return minutes + "m";
+    }
+
+    public String getName() { return name; }
+
+    public Type getType() { return type; }
+
+    public Duration getWindow() { return window; }
+
+    public int getMinCount() { return minCount; }
+
+    public double getMaxScore() { return maxScore; }
+
+    public int getMinEvents() { return minEvents; }
+}
@@ -5,6 +5,9 @@ import com.example.whatsapp.dto.GroqRequest;
 import com.example.whatsapp.dto.GroqResponse;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -33,6 +36,14 @@ public class SentimentAnalysisService {
     @Value("${groq.model:llama-3.3-70b-versatile}")
     private String model;
     
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    public SentimentAnalysisService(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
     private static final String SENTIMENT_ANALYSIS_PROMPT = """
         You are an expert in analyzing the emotional well-being of elderly individuals through their text messages. 
         
@@ -60,21 +71,37 @@ public class SentimentAnalysisService {
             return SentimentAnalysis.amber(0.5, "Empty message", "No content to analyze");
         }
         
-        try {
-            if (isValidGroqConfig()) {
+        String method = isValidGroqConfig() ? "ai" : "rules";
+        Observation observation = Observation.createNotStarted("sentiment.analysis", observationRegistry)
+                .lowCardinalityKeyValue("method", method)
+                .start();
+        String outcome = "success";
+        try (Observation.Scope scope = observation.openScope()) {
+            if ("ai".equals(method)) {
                 return analyzeWithAI(userMessage);
             } else {
                 return analyzeWithRules(userMessage);
             }
         } catch (Exception e) {
             log.warn("Sentiment analysis failed, using rule-based fallback: {}", e.getMessage());
+            outcome = "error";
+            observation.error(e);
+            recordFallback("error");
             return analyzeWithRules(userMessage);
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
         }
     }
+
+    // AI analysis that ended up using the keyword rules instead
+    private void recordFallback(String reason) {
+        meterRegistry.counter("sentiment.analysis.fallbacks", "reason", reason).increment();
+    }
     
     private SentimentAnalysis analyzeWithAI(String userMessage) {
         try {
             WebClient webClient = WebClient.builder()
+                    .observationRegistry(observationRegistry)
                     .baseUrl(groqApiBaseUrl)
                     .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + groqApiKey)
                     .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
@@ -115,10 +142,11 @@ public class SentimentAnalysisService {
             throw e;
         }
         
+        recordFallback("empty_response");
         return analyzeWithRules(userMessage);
     }
     
-    private SentimentAnalysis parseSentimentResponse(String aiResponse) {
+    SentimentAnalysis parseSentimentResponse(String aiResponse) {
         try {
             // Clean the response to extract JSON
             String jsonStr = aiResponse.trim();
@@ -146,11 +174,12 @@ public class SentimentAnalysisService {
             
         } catch (Exception e) {
             log.warn("Failed to parse AI sentiment response, using fallback: {}", e.getMessage());
+            recordFallback("unparseable");
             return analyzeWithRules(aiResponse);
         }
     }
     
-    private SentimentAnalysis analyzeWithRules(String userMessage) {
+    SentimentAnalysis analyzeWithRules(String userMessage) {
         String lowerMessage = userMessage.toLowerCase();
         
         // Red flags - negative emotions requiring attention
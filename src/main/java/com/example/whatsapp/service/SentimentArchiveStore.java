@@ -0,0 +1,141 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.entity.ConversationSentiment;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip NDJSON files of archived conversation_sentiments rows, one JSON object per line,
+ * laid out as {@code <archive-dir>/yyyy/MM/sentiments-yyyy-MM-dd-<millis>.ndjson.gz}.
+ * Uses its own mapper so the file format doesn't change with the API's Jackson settings.
+ */
+@Component
+public class SentimentArchiveStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+
+    private static final ObjectReader READER = MAPPER.readerFor(ConversationSentiment.class);
+
+    private final Path archiveDir;
+
+    public SentimentArchiveStore(@Value("${sentiment.retention.archive-dir:archive/sentiments}") String archiveDir) {
+        this.archiveDir = Paths.get(archiveDir).toAbsolutePath();
+    }
+
+    public Path getArchiveDir() {
+        return archiveDir;
+    }
+
+    /**
+     * Start a new archive file for a day. Rows go to a temporary file that only
+     * appears under its final name once {@link ArchiveWriter#commit()} succeeds.
+     */
+    public ArchiveWriter create(LocalDate day) throws IOException {
+        String fileName = String.format("%04d/%02d/sentiments-%s-%d.ndjson.gz",
+                day.getYear(), day.getMonthValue(), day, System.currentTimeMillis());
+        return new ArchiveWriter(fileName, archiveDir.resolve(fileName));
+    }
+
+    /**
+     * Stream every row of an archive file to the consumer, in file order
+     */
+    public void read(String fileName, Consumer<ConversationSentiment> consumer) throws IOException {
+        Path file = archiveDir.resolve(fileName).normalize();
+        if (!file.startsWith(archiveDir)) {
+            throw new IOException("Archive file outside archive directory: " + fileName);
+        }
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+             MappingIterator<ConversationSentiment> rows = READER.readValues(in)) {
+            while (rows.hasNextValue()) {
+                consumer.accept(rows.nextValue());
+            }
+        }
+    }
+
+    public static class ArchiveWriter implements Closeable {
+
+        private final String fileName;
+        private final Path target;
+        private final Path temp;
+        private final SequenceWriter writer;
+        private boolean committed;
+
+        private ArchiveWriter(String fileName, Path target) throws IOException {
+            this.fileName = fileName;
+            this.target = target;
+            Files.createDirectories(target.getParent());
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.writer = MAPPER.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(new GZIPOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE), BUFFER_SIZE));
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public void write(ConversationSentiment sentiment) throws IOException {
+            writer.write(sentiment);
+        }
+
+        /**
+         * Finish the gzip stream, sync it to disk and move it into place.
+         * Returns the compressed size in bytes.
+         */
+        public long commit() throws IOException {
+            writer.close();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return Files.size(target);
+        }
+
+        /**
+         * Drops the temporary file unless the archive was committed
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                writer.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.entity.ConversationSentiment;
+import com.example.whatsapp.repository.ConversationSentimentRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes conversation_sentiments rows straight from a database cursor to an output stream
+ * as NDJSON or CSV. Rows are detached once written, so memory stays flat however many
+ * rows match.
+ */
+@Service
+public class SentimentExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SentimentExportService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String[] SUMMARY_COLUMNS = {
+            "id", "phone_number", "timestamp", "sentiment_category", "confidence_score",
+            "concern_level", "requires_attention"
+    };
+    private static final String[] TEXT_COLUMNS = {
+            "emotional_indicators", "reasoning", "user_message", "ai_response"
+    };
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final ConversationSentimentRepository sentimentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SentimentExportService(ConversationSentimentRepository sentimentRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.sentimentRepository = sentimentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Write every row with a timestamp in [from, to), optionally for one user and/or category,
+     * oldest first. Returns the number of rows written.
+     */
+    public long export(Format format, LocalDateTime from, LocalDateTime to, String phoneNumber,
+                       SentimentAnalysis.SentimentCategory category, boolean includeText, boolean gzip,
+                       OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer, includeText) : new NdjsonRowWriter(writer, includeText);
+
+        Long written;
+        try {
+            // PostgreSQL only streams from a cursor inside a transaction; otherwise it buffers the whole result
+            written = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<ConversationSentiment> stream =
+                             sentimentRepository.streamForExport(from, to, phoneNumber, category)) {
+                    for (ConversationSentiment sentiment : (Iterable<ConversationSentiment>) stream::iterator) {
+                        rows.write(sentiment);
+                        entityManager.detach(sentiment);
+                        count++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            rows.finish();
+            writer.flush();
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+        } catch (UncheckedIOException e) {
+            // Usually the client went away
+            log.warn("Sentiment export aborted after {} ms: {}", (System.nanoTime() - start) / 1_000_000,
+                    e.getCause().getMessage());
+            throw e.getCause();
+        }
+
+        long count = written != null ? written : 0;
+        log.info("Exported {} sentiment rows as {}{} ({} to {}, phone={}, category={}) in {} ms",
+                count, format, gzip ? "+gzip" : "", from, to, phoneNumber, category,
+                (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
+    private interface RowWriter {
+        void write(ConversationSentiment sentiment) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private final boolean includeText;
+
+        NdjsonRowWriter(Writer writer, boolean includeText) throws IOException {
+            this.generator = JSON_FACTORY.createGenerator(writer);
+            // Lines are ended explicitly below instead of the default space between root values
+            this.generator.setRootValueSeparator(null);
+            this.includeText = includeText;
+        }
+
+        @Override
+        public void write(ConversationSentiment s) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", s.getId());
+            generator.writeStringField("phone_number", s.getPhoneNumber());
+            generator.writeStringField("timestamp", s.getTimestamp().toString());
+            generator.writeStringField("sentiment_category", s.getSentimentCategory().name());
+            if (s.getConfidenceScore() != null) {
+                generator.writeNumberField("confidence_score", s.getConfidenceScore());
+            }
+            if (s.getConcernLevel() != null) {
+                generator.writeStringField("concern_level", s.getConcernLevel());
+            }
+            generator.writeBooleanField("requires_attention", Boolean.TRUE.equals(s.getRequiresAttention()));
+            if (includeText) {
+                writeOptional("emotional_indicators", s.getEmotionalIndicators());
+                writeOptional("reasoning", s.getReasoning());
+                writeOptional("user_message", s.getUserMessage());
+                writeOptional("ai_response", s.getAiResponse());
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeOptional(String field, String value) throws IOException {
+            if (value != null) {
+                generator.writeStringField(field, value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+        private final boolean includeText;
+
+        CsvRowWriter(Writer writer, boolean includeText) throws IOException {
+            this.writer = writer;
+            this.includeText = includeText;
+            writer.write(String.join(",", SUMMARY_COLUMNS));
+            if (includeText) {
+                writer.write(',');
+                writer.write(String.join(",", TEXT_COLUMNS));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ConversationSentiment s) throws IOException {
+            writer.write(Long.toString(s.getId()));
+            writer.write(',');
+            writeField(s.getPhoneNumber());
+            writer.write(',');
+            writer.write(s.getTimestamp().toString());
+            writer.write(',');
+            writer.write(s.getSentimentCategory().name());
+            writer.write(',');
+            if (s.getConfidenceScore() != null) {
+                writer.write(Double.toString(s.getConfidenceScore()));
+            }
+            writer.write(',');
+            writeField(s.getConcernLevel());
+            writer.write(',');
+            writer.write(Boolean.TRUE.equals(s.getRequiresAttention()) ? "true" : "false");
+            if (includeText) {
+                writer.write(',');
+                writeField(s.getEmotionalIndicators());
+                writer.write(',');
+                writeField(s.getReasoning());
+                writer.write(',');
+                writeField(s.getUserMessage());
+                writer.write(',');
+                writeField(s.getAiResponse());
+            }
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: quote fields containing a delimiter, quote or line break, doubling embedded quotes
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() {
+            // Rows are complete as written
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.SentimentFeedEvent;
+import com.example.whatsapp.entity.ConversationSentiment;
+import com.example.whatsapp.repository.RecipientRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * In-process push feed of stored sentiments and caretaker alerts for live dashboards.
+ * Events are handed to subscribers as they are saved, so connected dashboards cost no
+ * database reads beyond one recipient lookup when a caretaker subscribes. Each subscriber
+ * has its own bounded buffer; when a client falls behind its oldest events are dropped
+ * (visible as gaps in the sequence and in the heartbeat's dropped count).
+ */
+@Service
+public class SentimentFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(SentimentFeedService.class);
+
+    // Small hand-off from the drop-oldest buffer to the writer, so the buffer stays the real bound
+    private static final int WRITER_PREFETCH = 16;
+
+    private final RecipientRepository recipientRepository;
+
+    // Never blocks publishers: a subscriber without demand would just miss events, and the
+    // per-subscriber buffer below always has demand
+    private final Sinks.Many<SentimentFeedEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // Writes to slow clients happen here, never on the thread that stored the sentiment
+    private final Scheduler writerScheduler;
+
+    private final int bufferSize;
+    private final Duration heartbeatInterval;
+    private final Duration maxConnectionTime;
+    private final int maxSubscribers;
+
+    public SentimentFeedService(RecipientRepository recipientRepository,
+                                @Value("${sentiment.feed.buffer-size:256}") int bufferSize,
+                                @Value("${sentiment.feed.heartbeat-seconds:15}") long heartbeatSeconds,
+                                @Value("${sentiment.feed.max-connection-minutes:30}") long maxConnectionMinutes,
+                                @Value("${sentiment.feed.max-subscribers:2000}") int maxSubscribers,
+                                @Value("${sentiment.feed.writer-threads:8}") int writerThreads) {
+        this.recipientRepository = recipientRepository;
+        this.bufferSize = bufferSize;
+        this.heartbeatInterval = Duration.ofSeconds(heartbeatSeconds);
+        this.maxConnectionTime = Duration.ofMinutes(maxConnectionMinutes);
+        this.maxSubscribers = maxSubscribers;
+        this.writerScheduler = Schedulers.newBoundedElastic(writerThreads, Integer.MAX_VALUE, "sentiment-feed");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sink.tryEmitComplete();
+        writerScheduler.dispose();
+    }
+
+    /**
+     * Push a newly stored sentiment to subscribers
+     */
+    public void publishSentiment(ConversationSentiment saved) {
+        if (sink.currentSubscriberCount() == 0) {
+            return;
+        }
+        emit(SentimentFeedEvent.sentiment(sequence.incrementAndGet(), saved));
+    }
+
+    /**
+     * Push a caretaker alert that was just sent
+     */
+    public void publishAlert(String phoneNumber, SentimentAnalysis analysis, String caretakerPhoneNumber, String pattern) {
+        if (sink.currentSubscriberCount() == 0) {
+            return;
+        }
+        emit(SentimentFeedEvent.alert(sequence.incrementAndGet(), phoneNumber, analysis, caretakerPhoneNumber, pattern));
+    }
+
+    // The sink needs serialized emission; publishers are webhook threads, so this lock is uncontended in practice
+    private synchronized void emit(SentimentFeedEvent event) {
+        Sinks.EmitResult result = sink.tryEmitNext(event);
+        if (result.isSuccess()) {
+            published.increment();
+        } else if (result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            log.debug("Sentiment feed event {} not emitted: {}", event.getSequence(), result);
+        }
+    }
+
+    public boolean hasCapacity() {
+        return subscribers.get() < maxSubscribers;
+    }
+
+    /**
+     * Open a feed, optionally limited to one user or to the users a caretaker looks after.
+     * The stream ends after the maximum connection time; SSE clients reconnect on their own.
+     */
+    public Flux<ServerSentEvent<Object>> subscribe(String phoneNumber, String caretakerPhoneNumber) {
+        Predicate<SentimentFeedEvent> filter = buildFilter(phoneNumber, caretakerPhoneNumber);
+        LongAdder subscriberDropped = new LongAdder();
+
+        Flux<ServerSentEvent<Object>> events = sink.asFlux()
+                .filter(filter)
+                .onBackpressureBuffer(bufferSize, event -> {
+                    subscriberDropped.increment();
+                    dropped.increment();
+                }, BufferOverflowStrategy.DROP_OLDEST)
+                .publishOn(writerScheduler, WRITER_PREFETCH)
+                .map(event -> ServerSentEvent.<Object>builder(event)
+                        .id(Long.toString(event.getSequence()))
+                        .event(event.getType() == SentimentFeedEvent.Type.ALERT ? "alert" : "sentiment")
+                        .build());
+
+        // The first heartbeat goes out immediately so the client sees the stream open
+        Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(Duration.ZERO, heartbeatInterval, writerScheduler)
+                .onBackpressureDrop()
+                .map(tick -> {
+                    Map<String, Object> data = new HashMap<>();
+                    data.put("sequence", sequence.get());
+                    data.put("dropped", subscriberDropped.sum());
+                    return ServerSentEvent.<Object>builder(data).event("heartbeat").build();
+                });
+
+        return Flux.merge(events, heartbeats)
+                .take(maxConnectionTime)
+                .doOnSubscribe(subscription -> {
+                    int count = subscribers.incrementAndGet();
+                    log.debug("Sentiment feed subscriber connected (phone={}, caretaker={}); {} connected",
+                            phoneNumber, caretakerPhoneNumber, count);
+                })
+                .doFinally(signal -> {
+                    int count = subscribers.decrementAndGet();
+                    log.debug("Sentiment feed subscriber disconnected ({}); {} connected, {} events dropped",
+                            signal, count, subscriberDropped.sum());
+                });
+    }
+
+    private Predicate<SentimentFeedEvent> buildFilter(String phoneNumber, String caretakerPhoneNumber) {
+        Set<String> phones = null;
+        if (phoneNumber != null && !phoneNumber.isBlank()) {
+            phones = Set.of(normalize(phoneNumber));
+        }
+
+        if (caretakerPhoneNumber != null && !caretakerPhoneNumber.isBlank()) {
+            String caretaker = normalize(caretakerPhoneNumber);
+            // Resolved once per connection; connections are recycled after max-connection-minutes
+            Set<String> caredFor = new HashSet<>();
+            for (String phone : recipientRepository.findPhoneNumbersByCaretakerPhoneNumber(
+                    List.of(caretaker, "+" + caretaker))) {
+                caredFor.add(normalize(phone));
+            }
+            if (phones != null) {
+                caredFor.retainAll(phones);
+            }
+            phones = caredFor;
+        }
+
+        if (phones == null) {
+            return event -> true;
+        }
+        Set<String> allowedPhones = phones;
+        return event -> allowedPhones.contains(normalize(event.getPhoneNumber()));
+    }
+
+    private static String normalize(String phoneNumber) {
+        return phoneNumber != null && phoneNumber.startsWith("+") ? phoneNumber.substring(1) : phoneNumber;
+    }
+
+    /**
+     * Connected subscribers and event counters since startup
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("subscribers", subscribers.get());
+        stats.put("max_subscribers", maxSubscribers);
+        stats.put("events_published", published.sum());
+        stats.put("events_dropped", dropped.sum());
+        stats.put("last_sequence", sequence.get());
+        stats.put("buffer_size", bufferSize);
+        stats.put("heartbeat_seconds", heartbeatInterval.getSeconds());
+        return stats;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.repository.ConversationSentimentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Keeps the monthly conversation_sentiments partitions created ahead of time on PostgreSQL,
+ * so new rows never pile up in the default partition. Does nothing on other databases.
+ */
+@Service
+public class SentimentPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SentimentPartitionService.class);
+
+    private final ConversationSentimentRepository sentimentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean partitioned;
+
+    @Value("${sentiment.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    public SentimentPartitionService(ConversationSentimentRepository sentimentRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     DataSource dataSource) {
+        this.sentimentRepository = sentimentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.partitioned = isPostgreSql(dataSource);
+    }
+
+    private static boolean isPostgreSql(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("Could not determine database type, skipping partition maintenance: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        ensurePartitions();
+    }
+
+    /**
+     * Create any missing monthly partitions from this month through sentiment.partitions.months-ahead
+     */
+    @Scheduled(cron = "${sentiment.partitions.maintenance-cron:0 15 3 * * *}")
+    public void ensurePartitions() {
+        if (!partitioned) {
+            return;
+        }
+        try {
+            // Read-write transaction: the repository's default one is read-only and this runs DDL
+            Integer created = transactionTemplate.execute(status -> sentimentRepository.ensureMonthlyPartitions(monthsAhead));
+            if (created != null && created > 0) {
+                log.info("Created {} monthly conversation_sentiments partitions", created);
+            }
+        } catch (Exception e) {
+            log.error("Failed to create conversation_sentiments partitions: {}", e.getMessage());
+        }
+    }
+}
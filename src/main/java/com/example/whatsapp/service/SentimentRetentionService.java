@@ -0,0 +1,378 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.entity.ConversationSentiment;
+import com.example.whatsapp.entity.SentimentArchive;
+import com.example.whatsapp.entity.SentimentArchiveUser;
+import com.example.whatsapp.repository.ConversationSentimentRepository;
+import com.example.whatsapp.repository.SentimentArchiveRepository;
+import com.example.whatsapp.repository.SentimentArchiveUserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves raw sentiment rows past the retention age out of the database. Each day is first
+ * reconciled into the hourly rollups (which are kept), then written to a gzip NDJSON archive
+ * and deleted in small id chunks so no single statement holds locks for long. Archived
+ * history can be put back for one user on demand.
+ */
+@Service
+public class SentimentRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SentimentRetentionService.class);
+
+    private static final String RESTORE_SQL = "INSERT INTO conversation_sentiments (id, phone_number, user_message, " +
+            "ai_response, sentiment_category, confidence_score, emotional_indicators, concern_level, reasoning, " +
+            "timestamp, requires_attention) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ConversationSentimentRepository sentimentRepository;
+    private final SentimentArchiveRepository archiveRepository;
+    private final SentimentArchiveUserRepository archiveUserRepository;
+    private final SentimentRollupService rollupService;
+    private final SentimentArchiveStore archiveStore;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Retention runs and restores never overlap, so a purge can't delete rows a restore just put back
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Manual runs happen here rather than on the request thread, whose open persistence
+    // context would otherwise hold every archived row until the request ends
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "sentiment-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Map<String, Object> lastRun;
+
+    @Value("${sentiment.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sentiment.retention.retention-days:365}")
+    private int retentionDays;
+
+    @Value("${sentiment.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${sentiment.retention.delete-pause-ms:50}")
+    private long deletePauseMs;
+
+    @Value("${sentiment.retention.max-days-per-run:31}")
+    private int maxDaysPerRun;
+
+    public SentimentRetentionService(ConversationSentimentRepository sentimentRepository,
+                                     SentimentArchiveRepository archiveRepository,
+                                     SentimentArchiveUserRepository archiveUserRepository,
+                                     SentimentRollupService rollupService,
+                                     SentimentArchiveStore archiveStore,
+                                     TransactionTemplate transactionTemplate,
+                                     JdbcTemplate jdbcTemplate) {
+        this.sentimentRepository = sentimentRepository;
+        this.archiveRepository = archiveRepository;
+        this.archiveUserRepository = archiveUserRepository;
+        this.rollupService = rollupService;
+        this.archiveStore = archiveStore;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // An interrupted purge leaves its archive ARCHIVED and is finished by the next run
+        runner.shutdownNow();
+    }
+
+    @Scheduled(cron = "${sentiment.retention.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            runRetention();
+        }
+    }
+
+    /**
+     * Start a retention run in the background; the outcome shows up in {@link #getStatus()}
+     */
+    public Map<String, Object> startRun() {
+        Map<String, Object> result = new HashMap<>();
+        if (lock.isLocked()) {
+            result.put("status", "already_running");
+        } else {
+            runner.submit(this::runRetention);
+            result.put("status", "started");
+        }
+        return result;
+    }
+
+    /**
+     * Archive and delete raw rows older than the retention age, oldest day first,
+     * up to sentiment.retention.max-days-per-run days
+     */
+    public Map<String, Object> runRetention() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (!lock.tryLock()) {
+            result.put("status", "already_running");
+            return result;
+        }
+        long start = System.nanoTime();
+        int days = 0;
+        long archivedRows = 0;
+        long deletedRows = 0;
+        try {
+            // Finish deletes interrupted by a crash or an earlier failure
+            for (SentimentArchive pending : archiveRepository.findByStatusOrderByArchiveDayAsc(SentimentArchive.Status.ARCHIVED)) {
+                deletedRows += purge(pending);
+            }
+
+            LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+            while (days < maxDaysPerRun) {
+                LocalDateTime oldest = sentimentRepository.findOldestTimestampBefore(cutoff);
+                if (oldest == null) {
+                    break;
+                }
+                SentimentArchive archive = archiveDay(oldest.toLocalDate());
+                archivedRows += archive.getRowCount();
+                deletedRows += purge(archive);
+                days++;
+            }
+
+            result.put("status", "completed");
+            log.info("Sentiment retention archived {} rows from {} days and deleted {} rows in {} ms (cutoff {})",
+                    archivedRows, days, deletedRows, (System.nanoTime() - start) / 1_000_000, cutoff.toLocalDate());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Sentiment retention run failed after {} days: {}", days, e.getMessage(), e);
+            result.put("status", "failed");
+            result.put("error", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+        result.put("days_archived", days);
+        result.put("rows_archived", archivedRows);
+        result.put("rows_deleted", deletedRows);
+        result.put("finished_at", LocalDateTime.now());
+        lastRun = result;
+        return result;
+    }
+
+    private SentimentArchive archiveDay(LocalDate day) throws IOException {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+
+        // The rollups are all that remains of the day afterwards, so make sure they match the raw rows
+        rollupService.reconcile(from, to);
+
+        Map<String, Integer> rowsPerUser = new HashMap<>();
+        long rowCount = 0;
+        long maxId = 0;
+        long byteSize;
+        String fileName;
+        try (SentimentArchiveStore.ArchiveWriter writer = archiveStore.create(day)) {
+            LocalDateTime afterTimestamp = from;
+            long afterId = -1;
+            List<ConversationSentiment> batch;
+            do {
+                batch = sentimentRepository.findArchiveBatch(afterTimestamp, afterId, to, Limit.of(batchSize));
+                for (ConversationSentiment sentiment : batch) {
+                    writer.write(sentiment);
+                    rowsPerUser.merge(sentiment.getPhoneNumber(), 1, Integer::sum);
+                    maxId = Math.max(maxId, sentiment.getId());
+                }
+                rowCount += batch.size();
+                if (!batch.isEmpty()) {
+                    ConversationSentiment last = batch.get(batch.size() - 1);
+                    afterTimestamp = last.getTimestamp();
+                    afterId = last.getId();
+                }
+            } while (batch.size() == batchSize);
+            byteSize = writer.commit();
+            fileName = writer.getFileName();
+        }
+
+        SentimentArchive archive = new SentimentArchive(day, fileName, rowCount, byteSize, maxId);
+        long archivedRows = rowCount;
+        transactionTemplate.executeWithoutResult(status -> {
+            archiveRepository.save(archive);
+            List<SentimentArchiveUser> users = new ArrayList<>(rowsPerUser.size());
+            rowsPerUser.forEach((phone, count) -> users.add(new SentimentArchiveUser(archive.getId(), phone, count)));
+            archiveUserRepository.saveAll(users);
+        });
+        log.debug("Archived {} sentiment rows of {} users for {} to {} ({} bytes)",
+                archivedRows, rowsPerUser.size(), day, fileName, byteSize);
+        return archive;
+    }
+
+    // Deletes the archived rows one chunk per transaction, pausing in between to let other writers through
+    private long purge(SentimentArchive archive) throws InterruptedException {
+        LocalDateTime from = archive.getArchiveDay().atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        long deleted = 0;
+        List<Long> ids;
+        while (!(ids = sentimentRepository.findIdsToPurge(from, to, archive.getMaxSentimentId(), Limit.of(batchSize))).isEmpty()) {
+            deleted += sentimentRepository.deleteArchived(from, to, ids);
+            if (deletePauseMs > 0) {
+                Thread.sleep(deletePauseMs);
+            }
+        }
+        archiveRepository.markPurged(archive.getId(), LocalDateTime.now());
+        return deleted;
+    }
+
+    /**
+     * Put a user's archived rows back into conversation_sentiments under their original ids.
+     * Rows that are already present are skipped. Restored rows are older than the retention
+     * age, so the next retention run archives them again.
+     */
+    public Map<String, Object> restoreUser(String phoneNumber, LocalDate from, LocalDate to) {
+        LocalDate fromDay = from != null ? from : LocalDate.of(1970, 1, 1);
+        LocalDate toDay = to != null ? to : LocalDate.now();
+        long start = System.nanoTime();
+
+        lock.lock();
+        try {
+            List<SentimentArchive> archives = archiveRepository.findForUser(phoneNumber, fromDay, toDay);
+            // A day can have several archives and a restored row is archived again, so keep one copy per id
+            Set<Long> seen = new HashSet<>();
+            List<ConversationSentiment> chunk = new ArrayList<>(batchSize);
+            long restored = 0;
+            for (SentimentArchive archive : archives) {
+                archiveStore.read(archive.getFileName(), sentiment -> {
+                    if (phoneNumber.equals(sentiment.getPhoneNumber()) && seen.add(sentiment.getId())) {
+                        chunk.add(sentiment);
+                    }
+                });
+                // Files hold one day each, so a chunk never grows much past the batch size
+                if (chunk.size() >= batchSize) {
+                    restored += insertMissing(chunk);
+                    chunk.clear();
+                }
+            }
+            restored += insertMissing(chunk);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("phone_number", phoneNumber);
+            result.put("archives_read", archives.size());
+            result.put("rows_found", seen.size());
+            result.put("rows_restored", restored);
+            result.put("rows_already_present", seen.size() - restored);
+            log.info("Restored {} archived sentiment rows for {} from {} archives in {} ms",
+                    restored, phoneNumber, archives.size(), (System.nanoTime() - start) / 1_000_000);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read sentiment archive: " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int insertMissing(List<ConversationSentiment> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(chunk.size());
+        for (ConversationSentiment sentiment : chunk) {
+            ids.add(sentiment.getId());
+        }
+        Set<Long> existing = new HashSet<>(sentimentRepository.findExistingIds(ids));
+        List<ConversationSentiment> missing = new ArrayList<>(chunk.size());
+        for (ConversationSentiment sentiment : chunk) {
+            if (!existing.contains(sentiment.getId())) {
+                missing.add(sentiment);
+            }
+        }
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(RESTORE_SQL, missing, missing.size(), (ps, s) -> {
+                    ps.setLong(1, s.getId());
+                    ps.setString(2, s.getPhoneNumber());
+                    ps.setString(3, s.getUserMessage());
+                    ps.setString(4, s.getAiResponse());
+                    ps.setString(5, s.getSentimentCategory().name());
+                    ps.setObject(6, s.getConfidenceScore(), Types.DOUBLE);
+                    ps.setString(7, s.getEmotionalIndicators());
+                    ps.setString(8, s.getConcernLevel());
+                    ps.setString(9, s.getReasoning());
+                    ps.setTimestamp(10, Timestamp.valueOf(s.getTimestamp()));
+                    ps.setObject(11, s.getRequiresAttention(), Types.BOOLEAN);
+                }));
+        return missing.size();
+    }
+
+    /**
+     * Most recent archives, newest day first
+     */
+    public List<Map<String, Object>> getRecentArchives(int limit) {
+        List<Map<String, Object>> archives = new ArrayList<>();
+        for (SentimentArchive archive : archiveRepository.findRecent(Limit.of(Math.max(1, Math.min(limit, 1000))))) {
+            archives.add(toMap(archive));
+        }
+        return archives;
+    }
+
+    /**
+     * Archives holding rows of one user, oldest day first
+     */
+    public List<Map<String, Object>> getUserArchives(String phoneNumber) {
+        List<Map<String, Object>> archives = new ArrayList<>();
+        for (SentimentArchive archive : archiveRepository.findForUser(phoneNumber, LocalDate.of(1970, 1, 1), LocalDate.now())) {
+            archives.add(toMap(archive));
+        }
+        return archives;
+    }
+
+    private static Map<String, Object> toMap(SentimentArchive archive) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", archive.getId());
+        map.put("archive_day", archive.getArchiveDay().toString());
+        map.put("file_name", archive.getFileName());
+        map.put("row_count", archive.getRowCount());
+        map.put("byte_size", archive.getByteSize());
+        map.put("status", archive.getStatus().name());
+        map.put("created_at", archive.getCreatedAt());
+        map.put("purged_at", archive.getPurgedAt());
+        return map;
+    }
+
+    /**
+     * Settings, whether a run is in progress and the outcome of the last run since startup
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("retention_days", retentionDays);
+        status.put("cutoff", LocalDate.now().minusDays(retentionDays).toString());
+        status.put("archive_dir", archiveStore.getArchiveDir().toString());
+        status.put("last_archived_day", archiveRepository.findLastArchivedDay());
+        status.put("running", lock.isLocked());
+        status.put("last_run", lastRun);
+        return status;
+    }
+}
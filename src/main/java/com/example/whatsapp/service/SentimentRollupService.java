@@ -0,0 +1,247 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.SentimentBucket;
+import com.example.whatsapp.dto.SentimentHourAggregate;
+import com.example.whatsapp.dto.SentimentTotals;
+import com.example.whatsapp.entity.ConversationSentiment;
+import com.example.whatsapp.entity.SentimentRollup;
+import com.example.whatsapp.repository.ConversationSentimentRepository;
+import com.example.whatsapp.repository.SentimentArchiveRepository;
+import com.example.whatsapp.repository.SentimentRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the per-user, per-hour sentiment rollups so reports and dashboards
+ * scale with the number of days rather than the number of messages.
+ */
+@Service
+public class SentimentRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SentimentRollupService.class);
+
+    // Start of the window used when rebuilding every rollup
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // An hour bucket is closed once it ended this long ago: a message stored just before the hour
+    // turned may still be on its way to record()
+    private static final long CLOSE_GRACE_MINUTES = 5;
+
+    @Value("${sentiment.rollup.reconcile-days:2}")
+    private int reconcileDays;
+
+    private final SentimentRollupRepository rollupRepository;
+    private final ConversationSentimentRepository sentimentRepository;
+    private final SentimentArchiveRepository archiveRepository;
+
+    public SentimentRollupService(SentimentRollupRepository rollupRepository,
+                                  ConversationSentimentRepository sentimentRepository,
+                                  SentimentArchiveRepository archiveRepository) {
+        this.rollupRepository = rollupRepository;
+        this.sentimentRepository = sentimentRepository;
+        this.archiveRepository = archiveRepository;
+    }
+
+    /**
+     * Add a stored sentiment to its hour bucket
+     */
+    public void record(ConversationSentiment sentiment) {
+        LocalDateTime bucketStart = sentiment.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+        SentimentAnalysis.SentimentCategory category = sentiment.getSentimentCategory();
+        double confidence = sentiment.getConfidenceScore() != null ? sentiment.getConfidenceScore() : 0.0;
+
+        if (increment(sentiment, bucketStart, category, confidence)) {
+            return;
+        }
+
+        SentimentRollup rollup = new SentimentRollup(sentiment.getPhoneNumber(), bucketStart);
+        rollup.add(category, 1, confidence, sentiment.getTimestamp(), sentiment.getTimestamp());
+        try {
+            rollupRepository.saveAndFlush(rollup);
+        } catch (DataIntegrityViolationException e) {
+            // Another message created the bucket first
+            if (!increment(sentiment, bucketStart, category, confidence)) {
+                log.warn("Could not update sentiment rollup for {} at {}", sentiment.getPhoneNumber(), bucketStart);
+            }
+        }
+    }
+
+    private boolean increment(ConversationSentiment sentiment, LocalDateTime bucketStart,
+                              SentimentAnalysis.SentimentCategory category, double confidence) {
+        return rollupRepository.increment(sentiment.getPhoneNumber(), bucketStart,
+                category == SentimentAnalysis.SentimentCategory.GREEN ? 1 : 0,
+                category == SentimentAnalysis.SentimentCategory.AMBER ? 1 : 0,
+                category == SentimentAnalysis.SentimentCategory.RED ? 1 : 0,
+                confidence, sentiment.getTimestamp()) > 0;
+    }
+
+    /**
+     * Hour buckets for a user, newest first. The window starts at the hour containing {@code since}.
+     */
+    public List<SentimentRollup> getUserRollups(String phoneNumber, LocalDateTime since) {
+        return rollupRepository.findByPhoneNumberAndBucketStartGreaterThanEqualOrderByBucketStartDesc(
+                phoneNumber, since.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    public SentimentTotals getTotalsSince(LocalDateTime since) {
+        return rollupRepository.sumSince(since.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    public SentimentTotals getUserTotalsSince(String phoneNumber, LocalDateTime since) {
+        return rollupRepository.sumUserSince(phoneNumber, since.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    public List<String> getUsersWithRedSince(LocalDateTime since) {
+        return rollupRepository.findUsersWithRedSince(since.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    /**
+     * Per-day summaries for a user over the last N days, oldest first
+     */
+    public List<Map<String, Object>> getUserDailySummaries(String phoneNumber, int days) {
+        LocalDateTime since = LocalDate.now().minusDays(Math.max(1, days) - 1L).atStartOfDay();
+
+        Map<LocalDate, SentimentRollup> byDay = new TreeMap<>();
+        for (SentimentRollup hour : getUserRollups(phoneNumber, since)) {
+            byDay.computeIfAbsent(hour.getBucketStart().toLocalDate(),
+                    d -> new SentimentRollup(phoneNumber, d.atStartOfDay()));
+            SentimentRollup day = byDay.get(hour.getBucketStart().toLocalDate());
+            for (SentimentAnalysis.SentimentCategory category : SentimentAnalysis.SentimentCategory.values()) {
+                day.add(category, hour.getCount(category), 0.0, hour.getFirstTimestamp(), hour.getLastTimestamp());
+            }
+            day.setConfidenceSum(day.getConfidenceSum() + hour.getConfidenceSum());
+        }
+
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        for (Map.Entry<LocalDate, SentimentRollup> entry : byDay.entrySet()) {
+            SentimentRollup day = entry.getValue();
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("date", entry.getKey().toString());
+            summary.put("green_count", day.getGreenCount());
+            summary.put("amber_count", day.getAmberCount());
+            summary.put("red_count", day.getRedCount());
+            summary.put("message_count", day.getMessageCount());
+            summary.put("average_confidence", day.getMessageCount() > 0
+                    ? day.getConfidenceSum() / day.getMessageCount() : 0.0);
+            summary.put("first_message_at", day.getFirstTimestamp());
+            summary.put("last_message_at", day.getLastTimestamp());
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * Expand rollup rows into one bucket per non-empty category, keeping their order
+     */
+    public static List<SentimentBucket> toBuckets(List<SentimentRollup> rollups) {
+        List<SentimentBucket> buckets = new ArrayList<>(rollups.size() * 2);
+        for (SentimentRollup rollup : rollups) {
+            LocalDate date = rollup.getBucketStart().toLocalDate();
+            int hour = rollup.getBucketStart().getHour();
+            for (SentimentAnalysis.SentimentCategory category : SentimentAnalysis.SentimentCategory.values()) {
+                long count = rollup.getCount(category);
+                if (count > 0) {
+                    buckets.add(new SentimentBucket(date, hour, category, count));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Nightly reconciliation - rebuild the last few complete days from the raw rows
+     */
+    @Scheduled(cron = "${sentiment.rollup.reconcile-cron:0 30 2 * * *}")
+    @Transactional
+    public void reconcileRecentDays() {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        int rebuilt = rebuild(today.minusDays(Math.max(1, reconcileDays)), today);
+        log.info("Reconciled sentiment rollups for the last {} days ({} buckets)", reconcileDays, rebuilt);
+    }
+
+    /**
+     * Build rollups from existing sentiment rows the first time the table is empty. Only closed
+     * hours are built; rows from earlier in the current hour are added by the next nightly
+     * reconciliation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() == 0 && sentimentRepository.count() > 0) {
+            int rebuilt = rebuild(ALL_TIME, LocalDateTime.now().plusHours(1));
+            log.info("Backfilled {} sentiment rollup buckets from existing conversations", rebuilt);
+        }
+    }
+
+    /**
+     * Replace every closed rollup bucket in [from, to) with values recomputed from the raw rows
+     */
+    @Transactional
+    public int reconcile(LocalDateTime from, LocalDateTime to) {
+        return rebuild(from, to);
+    }
+
+    /**
+     * Start of the oldest hour bucket that may still be written by {@link #record}
+     */
+    public static LocalDateTime openBucketsStart() {
+        return LocalDateTime.now().minusMinutes(CLOSE_GRACE_MINUTES).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private int rebuild(LocalDateTime from, LocalDateTime to) {
+        // Open buckets are left to record(): a message stored while the bucket is deleted and
+        // re-inserted would be lost or counted twice
+        LocalDateTime open = openBucketsStart();
+        if (to.isAfter(open)) {
+            to = open;
+        }
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+
+        // Raw rows of archived days are gone (or only partly restored), so their rollups are kept as they are
+        LocalDate lastArchivedDay = archiveRepository.findLastArchivedDay();
+        if (lastArchivedDay != null && from.isBefore(lastArchivedDay.plusDays(1).atStartOfDay())) {
+            from = lastArchivedDay.plusDays(1).atStartOfDay();
+            if (!from.isBefore(to)) {
+                return 0;
+            }
+        }
+
+        long start = System.nanoTime();
+        rollupRepository.deleteBucketsBetween(from, to);
+
+        Map<String, SentimentRollup> rollups = new LinkedHashMap<>();
+        for (SentimentHourAggregate agg : sentimentRepository.aggregateByUserHour(from, to)) {
+            LocalDateTime bucketStart = agg.getDate().atTime(agg.getHour(), 0);
+            SentimentRollup rollup = rollups.computeIfAbsent(agg.getPhoneNumber() + "|" + bucketStart,
+                    k -> new SentimentRollup(agg.getPhoneNumber(), bucketStart));
+            rollup.add(agg.getCategory(), agg.getCount(),
+                    agg.getConfidenceSum() != null ? agg.getConfidenceSum() : 0.0,
+                    agg.getFirstTimestamp(), agg.getLastTimestamp());
+        }
+
+        rollupRepository.saveAll(rollups.values());
+        log.debug("Rebuilt {} rollup buckets between {} and {} in {} ms",
+                rollups.size(), from, to, (System.nanoTime() - start) / 1_000_000);
+        return rollups.size();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.TraceSpan;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory span collector. Keeps the most recent finished spans so a slow or missing reply
+ * can be looked up by trace ID or WhatsApp message ID without an external tracing backend.
+ */
+@Service
+public class TraceStoreService implements SpanExporter {
+
+    private final int maxSpans;
+
+    // Oldest first; guarded by this
+    private final Deque<TraceSpan> spans = new ArrayDeque<>();
+
+    public TraceStoreService(@Value("${tracing.memory.max-spans:10000}") int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> batch) {
+        if (maxSpans <= 0) {
+            return CompletableResultCode.ofSuccess();
+        }
+        List<TraceSpan> converted = new ArrayList<>(batch.size());
+        for (SpanData span : batch) {
+            converted.add(TraceSpan.from(span));
+        }
+        synchronized (this) {
+            for (TraceSpan span : converted) {
+                if (spans.size() >= maxSpans) {
+                    spans.removeFirst();
+                }
+                spans.addLast(span);
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * All stored spans of one trace, in start order
+     */
+    public List<TraceSpan> getTrace(String traceId) {
+        List<TraceSpan> trace = new ArrayList<>();
+        synchronized (this) {
+            for (TraceSpan span : spans) {
+                if (span.getTraceId().equals(traceId)) {
+                    trace.add(span);
+                }
+            }
+        }
+        trace.sort(Comparator.comparing(TraceSpan::getStartTime));
+        return trace;
+    }
+
+    /**
+     * IDs of the traces that handled the given inbound message, newest first
+     */
+    public List<String> findTraceIds(String messageId) {
+        List<String> traceIds = new ArrayList<>();
+        synchronized (this) {
+            var it = spans.descendingIterator();
+            while (it.hasNext()) {
+                TraceSpan span = it.next();
+                if (messageId.equals(span.getAttributes().get(WhatsAppService.MESSAGE_ID_KEY))
+                        && !traceIds.contains(span.getTraceId())) {
+                    traceIds.add(span.getTraceId());
+                }
+            }
+        }
+        return traceIds;
+    }
+
+    /**
+     * One summary per recent trace (root span name, message ID, duration, span count), newest first
+     */
+    public List<Map<String, Object>> getRecentTraces(int limit) {
+        Map<String, Integer> spanCounts = new HashMap<>();
+        Map<String, TraceSpan> roots = new LinkedHashMap<>();
+        Map<String, String> messageIds = new HashMap<>();
+        synchronized (this) {
+            var it = spans.descendingIterator();
+            while (it.hasNext()) {
+                TraceSpan span = it.next();
+                spanCounts.merge(span.getTraceId(), 1, Integer::sum);
+                String messageId = span.getAttributes().get(WhatsAppService.MESSAGE_ID_KEY);
+                if (messageId != null) {
+                    messageIds.putIfAbsent(span.getTraceId(), messageId);
+                }
+                if (span.getParentSpanId() == null) {
+                    roots.putIfAbsent(span.getTraceId(), span);
+                }
+            }
+        }
+
+        List<Map<String, Object>> traces = new ArrayList<>();
+        for (TraceSpan root : roots.values()) {
+            if (traces.size() >= limit) {
+                break;
+            }
+            Map<String, Object> trace = new HashMap<>();
+            trace.put("trace_id", root.getTraceId());
+            trace.put("name", root.getName());
+            trace.put("message_id", messageIds.get(root.getTraceId()));
+            trace.put("start_time", root.getStartTime());
+            trace.put("duration_ms", root.getDurationMs());
+            trace.put("status", root.getStatus());
+            trace.put("span_count", spanCounts.get(root.getTraceId()));
+            traces.add(trace);
+        }
+        return traces;
+    }
+
+    public synchronized int size() {
+        return spans.size();
+    }
+}
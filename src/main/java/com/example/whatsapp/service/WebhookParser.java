@@ -0,0 +1,209 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.InboundMessage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Fast path for the common webhook: a single inbound text message. Streams the payload with
+ * a JsonParser, skipping everything but the message's sender, ID, type, text and timestamp,
+ * instead of binding the whole {@link com.example.whatsapp.dto.WhatsAppMessageRequest} graph.
+ * Like the bound path it only looks at the first entry's first change; a webhook with more
+ * entries or changes, statuses, media, several messages or an unexpected shape is left to full
+ * binding, so both paths pick the same message.
+ */
+@Component
+public class WebhookParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Thrown to abandon the fast path; shared and without a stack trace since it is not an error
+    private static final NeedsBinding NEEDS_BINDING = new NeedsBinding();
+
+    /**
+     * @return the webhook's text message, or null if the webhook needs full binding
+     */
+    public InboundMessage parseTextMessage(byte[] body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            Scan scan = new Scan();
+            while (nextField(parser)) {
+                if ("entry".equals(parser.currentName())) {
+                    startArray(parser);
+                    if (nextObject(parser)) {
+                        readEntry(parser, scan);
+                        onlyElement(parser);
+                    }
+                } else {
+                    skipValue(parser);
+                }
+            }
+            return scan.message;
+        } catch (IOException e) {
+            // Malformed JSON too: full binding reports it
+            return null;
+        }
+    }
+
+    private static void readEntry(JsonParser parser, Scan scan) throws IOException {
+        while (nextField(parser)) {
+            if ("changes".equals(parser.currentName())) {
+                startArray(parser);
+                if (nextObject(parser)) {
+                    readChange(parser, scan);
+                    onlyElement(parser);
+                }
+            } else {
+                skipValue(parser);
+            }
+        }
+    }
+
+    private static void readChange(JsonParser parser, Scan scan) throws IOException {
+        while (nextField(parser)) {
+            if ("value".equals(parser.currentName())) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw NEEDS_BINDING;
+                }
+                readValue(parser, scan);
+            } else {
+                skipValue(parser);
+            }
+        }
+    }
+
+    private static void readValue(JsonParser parser, Scan scan) throws IOException {
+        while (nextField(parser)) {
+            String field = parser.currentName();
+            if ("messages".equals(field)) {
+                startArray(parser);
+                while (nextObject(parser)) {
+                    readMessage(parser, scan);
+                }
+            } else if ("statuses".equals(field)) {
+                throw NEEDS_BINDING;
+            } else {
+                skipValue(parser);
+            }
+        }
+    }
+
+    private static void readMessage(JsonParser parser, Scan scan) throws IOException {
+        if (scan.message != null) {
+            throw NEEDS_BINDING;
+        }
+        String from = null;
+        String id = null;
+        String type = null;
+        String textBody = null;
+        String timestamp = null;
+        while (nextField(parser)) {
+            switch (parser.currentName()) {
+                case "from" -> from = stringValue(parser);
+                case "id" -> id = stringValue(parser);
+                case "type" -> type = stringValue(parser);
+                case "timestamp" -> timestamp = stringValue(parser);
+                case "text" -> textBody = readText(parser);
+                default -> skipValue(parser);
+            }
+        }
+        if (!"text".equals(type) || textBody == null || from == null) {
+            throw NEEDS_BINDING;
+        }
+        scan.message = new InboundMessage(from, id, type, textBody, timestamp);
+    }
+
+    private static String readText(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw NEEDS_BINDING;
+        }
+        String body = null;
+        while (nextField(parser)) {
+            if ("body".equals(parser.currentName())) {
+                body = stringValue(parser);
+            } else {
+                skipValue(parser);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Move to the next field of the current object: true at its name, false at the object's end
+     */
+    private static boolean nextField(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.FIELD_NAME) {
+            return true;
+        }
+        if (token == JsonToken.END_OBJECT) {
+            return false;
+        }
+        throw NEEDS_BINDING;
+    }
+
+    /**
+     * Move to the next element of the current array: true at an object's start, false at the
+     * array's end
+     */
+    private static boolean nextObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            return true;
+        }
+        if (token == JsonToken.END_ARRAY) {
+            return false;
+        }
+        throw NEEDS_BINDING;
+    }
+
+    /**
+     * After an array's first element: the array must end there
+     */
+    private static void onlyElement(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.END_ARRAY) {
+            throw NEEDS_BINDING;
+        }
+    }
+
+    private static void startArray(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw NEEDS_BINDING;
+        }
+    }
+
+    private static String stringValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        throw NEEDS_BINDING;
+    }
+
+    private static void skipValue(JsonParser parser) throws IOException {
+        parser.nextToken();
+        parser.skipChildren();
+    }
+
+    private static final class Scan {
+        InboundMessage message;
+    }
+
+    private static final class NeedsBinding extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.SentimentBucket;
+import com.example.whatsapp.dto.SentimentCategoryCount;
+import com.example.whatsapp.entity.ConversationSentiment;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Computes every weekly report metric in a single traversal of a sentiment list.
+ * Expects the list ordered newest first (as returned by the repository queries), so the
+ * first half is the "recent" half for trend and score change calculations.
+ * Can also be built from database-side (day, hour, category) buckets, in which case the
+ * recent half and notable moments are supplied separately.
+ */
+public final class WeeklyReportAccumulator {
+
+    public static final int MORNING = 0;
+    public static final int AFTERNOON = 1;
+    public static final int EVENING = 2;
+    public static final int NIGHT = 3;
+
+    private static final int NOTABLE_MOMENT_LIMIT = 3;
+
+    private final int total;
+
+    // Category counts, indexed by SentimentCategory ordinal
+    private final long[] categoryCounts = new long[SentimentAnalysis.SentimentCategory.values().length];
+
+    // Score sums and counts for the recent (first) and older (second) halves of the list
+    private long recentScoreSum;
+    private int recentCount;
+    private long olderScoreSum;
+    private int olderCount;
+
+    // Message counts and score sums per time-of-day bucket
+    private final long[] timeOfDayCounts = new long[4];
+    private final long[] timeOfDayScoreSums = new long[4];
+
+    // Per day: {scoreSum, count}, sorted by date
+    private final TreeMap<LocalDate, long[]> days = new TreeMap<>();
+
+    // First GREEN messages in list order, null messages included to match limit-then-filter semantics
+    private final List<String> greenMessages = new ArrayList<>(NOTABLE_MOMENT_LIMIT);
+
+    private WeeklyReportAccumulator(int total) {
+        this.total = total;
+    }
+
+    public static WeeklyReportAccumulator of(List<ConversationSentiment> sentiments) {
+        int size = sentiments.size();
+        WeeklyReportAccumulator acc = new WeeklyReportAccumulator(size);
+        int half = size / 2;
+
+        int i = 0;
+        for (ConversationSentiment s : sentiments) {
+            acc.add(s, i < half);
+            i++;
+        }
+        return acc;
+    }
+
+    /**
+     * Build from aggregated buckets.
+     *
+     * @param recentHalfCounts category counts for the newest total/2 rows
+     * @param greenMessages    user messages of the newest GREEN rows, newest first
+     */
+    public static WeeklyReportAccumulator fromBuckets(List<SentimentBucket> buckets,
+                                                      List<SentimentCategoryCount> recentHalfCounts,
+                                                      List<String> greenMessages) {
+        long total = 0;
+        for (SentimentBucket bucket : buckets) {
+            total += bucket.getCount();
+        }
+
+        WeeklyReportAccumulator acc = new WeeklyReportAccumulator((int) total);
+        for (SentimentBucket bucket : buckets) {
+            acc.addCount(bucket.getDate(), bucket.getHour(), bucket.getCategory(), bucket.getCount());
+        }
+
+        long totalScoreSum = 0;
+        for (SentimentAnalysis.SentimentCategory category : SentimentAnalysis.SentimentCategory.values()) {
+            totalScoreSum += score(category) * acc.categoryCounts[category.ordinal()];
+        }
+        for (SentimentCategoryCount recent : recentHalfCounts) {
+            acc.recentScoreSum += score(recent.getCategory()) * recent.getCount();
+            acc.recentCount += recent.getCount().intValue();
+        }
+        acc.olderScoreSum = totalScoreSum - acc.recentScoreSum;
+        acc.olderCount = acc.total - acc.recentCount;
+
+        for (String msg : greenMessages) {
+            if (acc.greenMessages.size() == NOTABLE_MOMENT_LIMIT) break;
+            acc.greenMessages.add(msg);
+        }
+        return acc;
+    }
+
+    private void add(ConversationSentiment s, boolean recentHalf) {
+        SentimentAnalysis.SentimentCategory category = s.getSentimentCategory();
+        int score = score(category);
+
+        if (recentHalf) {
+            recentScoreSum += score;
+            recentCount++;
+        } else {
+            olderScoreSum += score;
+            olderCount++;
+        }
+
+        addCount(s.getTimestamp().toLocalDate(), s.getTimestamp().getHour(), category, 1);
+
+        if (category == SentimentAnalysis.SentimentCategory.GREEN && greenMessages.size() < NOTABLE_MOMENT_LIMIT) {
+            greenMessages.add(s.getUserMessage());
+        }
+    }
+
+    private void addCount(LocalDate date, int hour, SentimentAnalysis.SentimentCategory category, long count) {
+        long scoreSum = score(category) * count;
+        categoryCounts[category.ordinal()] += count;
+
+        int bucket = timeOfDayBucket(hour);
+        timeOfDayCounts[bucket] += count;
+        timeOfDayScoreSums[bucket] += scoreSum;
+
+        long[] day = days.computeIfAbsent(date, d -> new long[2]);
+        day[0] += scoreSum;
+        day[1] += count;
+    }
+
+    private static int score(SentimentAnalysis.SentimentCategory category) {
+        switch (category) {
+            case GREEN: return 100;
+            case RED: return 0;
+            default: return 50;
+        }
+    }
+
+    private static int timeOfDayBucket(int hour) {
+        if (hour >= 6 && hour < 12) return MORNING;
+        if (hour >= 12 && hour < 17) return AFTERNOON;
+        if (hour >= 17 && hour < 21) return EVENING;
+        return NIGHT;
+    }
+
+    /**
+     * Average score on a 0-100 scale, 50 when there is no data
+     */
+    private static double average(long scoreSum, long count) {
+        return count == 0 ? 50 : (double) scoreSum / count;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public long getCount(SentimentAnalysis.SentimentCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+
+    public double getAverageScore() {
+        return average(recentScoreSum + olderScoreSum, total);
+    }
+
+    public double getRecentAverageScore() {
+        return average(recentScoreSum, recentCount);
+    }
+
+    public double getOlderAverageScore() {
+        return average(olderScoreSum, olderCount);
+    }
+
+    public String getTrend() {
+        if (total < 2) return "Stable";
+
+        double change = getRecentAverageScore() - getOlderAverageScore();
+
+        if (change > 10) return "Improving";
+        if (change < -10) return "Declining";
+        return "Stable";
+    }
+
+    public long getTimeOfDayCount(int bucket) {
+        return timeOfDayCounts[bucket];
+    }
+
+    public int getTimeOfDayScore(int bucket) {
+        return (int) Math.round(average(timeOfDayScoreSums[bucket], timeOfDayCounts[bucket]));
+    }
+
+    public int getActiveDays() {
+        return days.size();
+    }
+
+    /**
+     * Rounded average score per day, ordered by date
+     */
+    public Map<LocalDate, Long> getDailyScores() {
+        Map<LocalDate, Long> scores = new TreeMap<>();
+        for (Map.Entry<LocalDate, long[]> entry : days.entrySet()) {
+            long[] day = entry.getValue();
+            scores.put(entry.getKey(), Math.round(average(day[0], day[1])));
+        }
+        return scores;
+    }
+
+    public List<String> getNotableMoments() {
+        List<String> moments = new ArrayList<>(greenMessages.size());
+        for (String msg : greenMessages) {
+            if (msg != null) {
+                moments.add(msg.length() > 100 ? msg.substring(0, 100) + "..." : msg);
+            }
+        }
+        return moments;
+    }
+}
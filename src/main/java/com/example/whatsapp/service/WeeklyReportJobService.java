@@ -0,0 +1,519 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.WeeklyReport;
+import com.example.whatsapp.entity.RecipientEntity;
+import com.example.whatsapp.entity.WeeklyReportJob;
+import com.example.whatsapp.entity.WeeklyReportJobItem;
+import com.example.whatsapp.repository.RecipientRepository;
+import com.example.whatsapp.repository.WeeklyReportJobItemRepository;
+import com.example.whatsapp.repository.WeeklyReportJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates and delivers weekly reports for every enabled recipient.
+ * Report data is generated on a bounded pool; email and WhatsApp deliveries each go
+ * through their own single-threaded, rate-limited queue. Every recipient is a
+ * checkpointed job item, so a job interrupted by a restart resumes where it stopped.
+ */
+@Service
+public class WeeklyReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(WeeklyReportJobService.class);
+
+    private static final int FAILURE_LIST_LIMIT = 50;
+
+    private final WeeklyReportService reportService;
+    private final WeeklyReportRenderer renderer;
+    private final RecipientRepository recipientRepository;
+    private final WeeklyReportJobRepository jobRepository;
+    private final WeeklyReportJobItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Jobs run one at a time on this thread
+    private final ExecutorService jobRunner = Executors.newSingleThreadExecutor(namedThreads("weekly-report-job"));
+
+    // Jobs submitted to the runner and not yet finished
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+
+    private volatile JobProgress currentProgress;
+
+    @Value("${weekly.report.job.enabled:false}")
+    private boolean scheduledJobEnabled;
+
+    @Value("${weekly.report.job.concurrency:4}")
+    private int concurrency;
+
+    @Value("${weekly.report.job.email-per-second:2}")
+    private double emailPerSecond;
+
+    @Value("${weekly.report.job.whatsapp-per-second:10}")
+    private double whatsAppPerSecond;
+
+    public WeeklyReportJobService(WeeklyReportService reportService,
+                                  WeeklyReportRenderer renderer,
+                                  RecipientRepository recipientRepository,
+                                  WeeklyReportJobRepository jobRepository,
+                                  WeeklyReportJobItemRepository itemRepository,
+                                  TransactionTemplate transactionTemplate) {
+        this.reportService = reportService;
+        this.renderer = renderer;
+        this.recipientRepository = recipientRepository;
+        this.jobRepository = jobRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Weekly scheduled run, skipped if this week's reports were already sent
+     */
+    @Scheduled(cron = "${weekly.report.job.cron:0 0 18 * * SUN}")
+    public void scheduledWeeklyReports() {
+        if (!scheduledJobEnabled) {
+            log.debug("Scheduled weekly report job is disabled");
+            return;
+        }
+        Map<String, Object> summary = startJob("SCHEDULED", false);
+        log.info("Scheduled weekly report job: {}", summary.get("message"));
+    }
+
+    /**
+     * Resume any job that was still running when the application stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resumeUnfinishedJobs() {
+        for (WeeklyReportJob job : jobRepository.findByStatusOrderByStartedAtAsc(WeeklyReportJob.Status.RUNNING)) {
+            if (activeJobs.contains(job.getId())) continue;
+            long pending = itemRepository.countByJobIdAndStatus(job.getId(), WeeklyReportJobItem.Status.PENDING);
+            log.info("Resuming weekly report job {} ({} of {} recipients pending)",
+                    job.getId(), pending, job.getTotalRecipients());
+            submit(job);
+        }
+    }
+
+    /**
+     * Start (or resume) the bulk report job for the current week. Returns immediately
+     * with the job summary; delivery continues in the background.
+     *
+     * @param force start a new job even if this week's job already completed
+     */
+    public synchronized Map<String, Object> startJob(String triggerType, boolean force) {
+        if (!activeJobs.isEmpty()) {
+            Map<String, Object> summary = getJobSummary(activeJobs.iterator().next());
+            summary.put("message", "A weekly report job is already running");
+            return summary;
+        }
+
+        LocalDate reportWeek = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        Optional<WeeklyReportJob> existing = jobRepository.findFirstByReportWeekOrderByStartedAtDesc(reportWeek);
+
+        WeeklyReportJob job;
+        String message;
+        if (existing.isPresent() && existing.get().getStatus() == WeeklyReportJob.Status.RUNNING) {
+            job = existing.get();
+            message = "Resumed weekly report job " + job.getId();
+        } else if (existing.isPresent() && !force) {
+            Map<String, Object> summary = getJobSummary(existing.get().getId());
+            summary.put("message", "Weekly reports for " + reportWeek + " were already sent");
+            return summary;
+        } else {
+            job = createJob(reportWeek, triggerType);
+            message = "Started weekly report job " + job.getId();
+        }
+
+        submit(job);
+
+        Map<String, Object> summary = getJobSummary(job.getId());
+        summary.put("message", message);
+        return summary;
+    }
+
+    /**
+     * Summary of a job: item counts by status, channel deliveries, throughput and failures
+     */
+    public Map<String, Object> getJobSummary(Long jobId) {
+        Map<String, Object> summary = new HashMap<>();
+        Optional<WeeklyReportJob> jobOpt = jobRepository.findById(jobId);
+        if (jobOpt.isEmpty()) {
+            summary.put("success", false);
+            summary.put("error", "Report job not found: " + jobId);
+            return summary;
+        }
+        WeeklyReportJob job = jobOpt.get();
+
+        long sent = itemRepository.countByJobIdAndStatus(jobId, WeeklyReportJobItem.Status.SENT);
+        long partial = itemRepository.countByJobIdAndStatus(jobId, WeeklyReportJobItem.Status.PARTIAL);
+        long failed = itemRepository.countByJobIdAndStatus(jobId, WeeklyReportJobItem.Status.FAILED);
+        long pending = itemRepository.countByJobIdAndStatus(jobId, WeeklyReportJobItem.Status.PENDING);
+        long finished = sent + partial + failed;
+
+        summary.put("success", true);
+        summary.put("job_id", jobId);
+        summary.put("report_week", job.getReportWeek().toString());
+        summary.put("status", job.getStatus().name());
+        summary.put("trigger", job.getTriggerType());
+        summary.put("started_at", job.getStartedAt());
+        summary.put("completed_at", job.getCompletedAt());
+        summary.put("total_recipients", job.getTotalRecipients());
+        summary.put("sent", sent);
+        summary.put("partial", partial);
+        summary.put("failed", failed);
+        summary.put("pending", pending);
+
+        JobProgress progress = currentProgress;
+        if (progress != null && progress.jobId.equals(jobId)) {
+            // Figures for the run in this process (a resumed job only counts what it processed)
+            double seconds = progress.elapsedSeconds();
+            int processed = progress.processed.get();
+            summary.put("elapsed_seconds", Math.round(seconds * 10) / 10.0);
+            summary.put("reports_per_second", seconds > 0 ? Math.round(processed / seconds * 100) / 100.0 : 0.0);
+            summary.put("emails_sent", progress.emailSent.get());
+            summary.put("emails_failed", progress.emailFailed.get());
+            summary.put("whatsapp_sent", progress.whatsAppSent.get());
+            summary.put("whatsapp_failed", progress.whatsAppFailed.get());
+            summary.put("avg_generation_ms", processed > 0
+                    ? Math.round(progress.generationNanos.get() / (double) processed / 1_000_000 * 10) / 10.0 : 0.0);
+        } else {
+            LocalDateTime end = job.getCompletedAt() != null ? job.getCompletedAt() : LocalDateTime.now();
+            double seconds = Duration.between(job.getStartedAt(), end).toMillis() / 1000.0;
+            summary.put("elapsed_seconds", Math.round(seconds * 10) / 10.0);
+            summary.put("reports_per_second", seconds > 0 ? Math.round(finished / seconds * 100) / 100.0 : 0.0);
+        }
+
+        List<Map<String, Object>> failures = new ArrayList<>();
+        for (WeeklyReportJobItem item : itemRepository.findByJobIdAndStatusIn(jobId,
+                List.of(WeeklyReportJobItem.Status.FAILED, WeeklyReportJobItem.Status.PARTIAL))) {
+            if (failures.size() == FAILURE_LIST_LIMIT) break;
+            Map<String, Object> failure = new HashMap<>();
+            failure.put("phone_number", item.getPhoneNumber());
+            failure.put("status", item.getStatus().name());
+            failure.put("email_sent", item.isEmailSent());
+            failure.put("whatsapp_sent", item.isWhatsAppSent());
+            failure.put("error", item.getError());
+            failures.add(failure);
+        }
+        summary.put("failures", failures);
+
+        return summary;
+    }
+
+    public Optional<Long> getLatestJobId() {
+        return jobRepository.findFirstByOrderByStartedAtDesc().map(WeeklyReportJob::getId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Unfinished items stay PENDING and are picked up again on the next startup
+        jobRunner.shutdownNow();
+    }
+
+    private WeeklyReportJob createJob(LocalDate reportWeek, String triggerType) {
+        return transactionTemplate.execute(status -> {
+            List<RecipientEntity> recipients = recipientRepository.findByEnabledTrue();
+
+            WeeklyReportJob job = new WeeklyReportJob(reportWeek, triggerType);
+            job.setTotalRecipients(recipients.size());
+            job = jobRepository.save(job);
+
+            List<WeeklyReportJobItem> items = new ArrayList<>(recipients.size());
+            for (RecipientEntity recipient : recipients) {
+                items.add(new WeeklyReportJobItem(job.getId(), recipient.getPhoneNumber()));
+            }
+            itemRepository.saveAll(items);
+
+            log.info("Created weekly report job {} for week {} with {} recipients",
+                    job.getId(), reportWeek, recipients.size());
+            return job;
+        });
+    }
+
+    private void submit(WeeklyReportJob job) {
+        activeJobs.add(job.getId());
+        jobRunner.submit(() -> {
+            try {
+                runJob(job);
+            } finally {
+                activeJobs.remove(job.getId());
+            }
+        });
+    }
+
+    private void runJob(WeeklyReportJob job) {
+        JobProgress progress = new JobProgress(job.getId());
+        currentProgress = progress;
+
+        List<WeeklyReportJobItem> pending = itemRepository.findByJobIdAndStatus(
+                job.getId(), WeeklyReportJobItem.Status.PENDING);
+
+        ExecutorService generators = Executors.newFixedThreadPool(Math.max(1, concurrency),
+                namedThreads("weekly-report-generate"));
+        ExecutorService emailQueue = Executors.newSingleThreadExecutor(namedThreads("weekly-report-email"));
+        ExecutorService whatsAppQueue = Executors.newSingleThreadExecutor(namedThreads("weekly-report-whatsapp"));
+        IntervalLimiter emailLimiter = new IntervalLimiter(emailPerSecond);
+        IntervalLimiter whatsAppLimiter = new IntervalLimiter(whatsAppPerSecond);
+
+        // Bounds how many generated reports can wait in the delivery queues at once
+        Semaphore inFlight = new Semaphore(Math.max(1, concurrency) * 4);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(pending.size());
+        boolean interrupted = false;
+
+        try {
+            for (WeeklyReportJobItem item : pending) {
+                inFlight.acquire();
+                JobProgress jobProgress = progress;
+                CompletableFuture<Void> future = CompletableFuture
+                        .supplyAsync(() -> generate(item, jobProgress), generators)
+                        .thenCompose(report -> deliver(report, emailQueue, emailLimiter,
+                                whatsAppQueue, whatsAppLimiter, jobProgress))
+                        .handle((report, ex) -> {
+                            finish(item, report, ex, jobProgress);
+                            inFlight.release();
+                            return null;
+                        });
+                futures.add(future);
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+        } catch (Exception e) {
+            log.error("Weekly report job {} failed: {}", job.getId(), e.getMessage());
+        } finally {
+            generators.shutdownNow();
+            emailQueue.shutdownNow();
+            whatsAppQueue.shutdownNow();
+            progress.endNanos = System.nanoTime();
+        }
+
+        if (interrupted) {
+            log.warn("Weekly report job {} interrupted after {} reports; it will resume on restart",
+                    job.getId(), progress.processed.get());
+            return;
+        }
+
+        long remaining = itemRepository.countByJobIdAndStatus(job.getId(), WeeklyReportJobItem.Status.PENDING);
+        if (remaining == 0) {
+            job.setStatus(WeeklyReportJob.Status.COMPLETED);
+            job.setCompletedAt(LocalDateTime.now());
+            jobRepository.save(job);
+        }
+
+        double seconds = progress.elapsedSeconds();
+        log.info("Weekly report job {} finished {} reports in {} s ({} reports/s): email {} sent/{} failed, " +
+                 "WhatsApp {} sent/{} failed, {} still pending",
+                job.getId(), progress.processed.get(), String.format("%.1f", seconds),
+                String.format("%.2f", seconds > 0 ? progress.processed.get() / seconds : 0.0),
+                progress.emailSent.get(), progress.emailFailed.get(),
+                progress.whatsAppSent.get(), progress.whatsAppFailed.get(), remaining);
+    }
+
+    private PreparedReport generate(WeeklyReportJobItem item, JobProgress progress) {
+        long start = System.nanoTime();
+        try {
+            Optional<RecipientEntity> recipient = recipientRepository.findByPhoneNumber(item.getPhoneNumber());
+            if (recipient.isEmpty()) {
+                throw new IllegalStateException("Recipient not found: " + item.getPhoneNumber());
+            }
+            WeeklyReport report = reportService.getReport(item.getPhoneNumber(), recipient.get());
+            return new PreparedReport(item, recipient.get(), report);
+        } finally {
+            progress.generationNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private CompletableFuture<PreparedReport> deliver(PreparedReport report,
+                                                      ExecutorService emailQueue, IntervalLimiter emailLimiter,
+                                                      ExecutorService whatsAppQueue, IntervalLimiter whatsAppLimiter,
+                                                      JobProgress progress) {
+        RecipientEntity.ReportPreference preference = report.recipient.getReportPreference();
+        if (preference == null) {
+            preference = RecipientEntity.ReportPreference.WHATSAPP;
+        }
+
+        CompletableFuture<Void> email = CompletableFuture.completedFuture(null);
+        if (preference != RecipientEntity.ReportPreference.WHATSAPP && !report.item.isEmailSent()) {
+            report.emailRequested = true;
+            email = CompletableFuture.runAsync(() -> {
+                emailLimiter.acquire();
+                report.emailSent = reportService.sendEmailReport(report.recipient, renderer.renderEmail(report.report));
+                if (report.emailSent) {
+                    itemRepository.markEmailSent(report.item.getId());
+                    progress.emailSent.incrementAndGet();
+                } else {
+                    progress.emailFailed.incrementAndGet();
+                }
+            }, emailQueue);
+        }
+
+        CompletableFuture<Void> whatsApp = CompletableFuture.completedFuture(null);
+        if (preference != RecipientEntity.ReportPreference.EMAIL && !report.item.isWhatsAppSent()) {
+            report.whatsAppRequested = true;
+            whatsApp = CompletableFuture.runAsync(() -> {
+                whatsAppLimiter.acquire();
+                WeeklyReportRenderer.RenderedReport message = renderer.renderWhatsApp(report.report);
+                // Queue the message and record it on the item together, so a resumed run neither
+                // skips nor repeats it
+                report.whatsAppSent = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    if (!reportService.sendWhatsAppReport(report.recipient, message, "job-item:" + report.item.getId())) {
+                        return false;
+                    }
+                    itemRepository.markWhatsAppSent(report.item.getId());
+                    return true;
+                }));
+                if (report.whatsAppSent) {
+                    progress.whatsAppSent.incrementAndGet();
+                } else {
+                    progress.whatsAppFailed.incrementAndGet();
+                }
+            }, whatsAppQueue);
+        }
+
+        return CompletableFuture.allOf(email, whatsApp).thenApply(v -> report);
+    }
+
+    private void finish(WeeklyReportJobItem item, PreparedReport report, Throwable ex, JobProgress progress) {
+        if (ex != null) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause.getCause() instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                return;   // Left PENDING for the resumed run
+            }
+            log.error("Weekly report failed for {}: {}", item.getPhoneNumber(), cause.getMessage());
+            itemRepository.markFinished(item.getId(), WeeklyReportJobItem.Status.FAILED, truncate(cause.getMessage()));
+            progress.processed.incrementAndGet();
+            return;
+        }
+
+        // Channels delivered in an earlier run count as delivered
+        boolean emailOk = !report.emailRequested || report.emailSent;
+        boolean whatsAppOk = !report.whatsAppRequested || report.whatsAppSent;
+        boolean anyDelivered = (report.emailRequested && report.emailSent)
+                || (report.whatsAppRequested && report.whatsAppSent)
+                || item.isEmailSent() || item.isWhatsAppSent();
+
+        WeeklyReportJobItem.Status status;
+        String error = null;
+        if (emailOk && whatsAppOk) {
+            status = WeeklyReportJobItem.Status.SENT;
+        } else {
+            status = anyDelivered ? WeeklyReportJobItem.Status.PARTIAL : WeeklyReportJobItem.Status.FAILED;
+            error = !emailOk && !whatsAppOk ? "Email and WhatsApp delivery failed"
+                    : !emailOk ? "Email delivery failed" : "WhatsApp delivery failed";
+        }
+        itemRepository.markFinished(item.getId(), status, error);
+        progress.processed.incrementAndGet();
+        if (anyDelivered) {
+            reportService.evictCachedReport(item.getPhoneNumber());
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A generated report on its way through the delivery queues
+     */
+    private static class PreparedReport {
+        final WeeklyReportJobItem item;
+        final RecipientEntity recipient;
+        final WeeklyReport report;
+        volatile boolean emailRequested;
+        volatile boolean emailSent;
+        volatile boolean whatsAppRequested;
+        volatile boolean whatsAppSent;
+
+        PreparedReport(WeeklyReportJobItem item, RecipientEntity recipient, WeeklyReport report) {
+            this.item = item;
+            this.recipient = recipient;
+            this.report = report;
+        }
+    }
+
+    /**
+     * In-process counters for the job currently (or most recently) run
+     */
+    private static class JobProgress {
+        final Long jobId;
+        final long startNanos = System.nanoTime();
+        volatile long endNanos;
+        final AtomicInteger processed = new AtomicInteger();
+        final AtomicInteger emailSent = new AtomicInteger();
+        final AtomicInteger emailFailed = new AtomicInteger();
+        final AtomicInteger whatsAppSent = new AtomicInteger();
+        final AtomicInteger whatsAppFailed = new AtomicInteger();
+        final AtomicLong generationNanos = new AtomicLong();
+
+        JobProgress(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        double elapsedSeconds() {
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            return (end - startNanos) / 1_000_000_000.0;
+        }
+    }
+
+    /**
+     * Spaces out calls to at most the given rate; used by a single queue thread
+     */
+    private static class IntervalLimiter {
+        private final long intervalNanos;
+        private long nextAllowed = System.nanoTime();
+
+        IntervalLimiter(double perSecond) {
+            this.intervalNanos = perSecond > 0 ? (long) (1_000_000_000L / perSecond) : 0;
+        }
+
+        void acquire() {
+            if (intervalNanos == 0) return;
+            long wait = nextAllowed - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a send slot", e);
+                }
+            }
+            nextAllowed = Math.max(nextAllowed, System.nanoTime()) + intervalNanos;
+        }
+    }
+}
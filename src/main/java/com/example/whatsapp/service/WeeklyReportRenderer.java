@@ -0,0 +1,293 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.WeeklyReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Renders weekly reports through templates compiled once at startup.
+ * Templates use {{name}} placeholders and {{#list}}...{{.}}...{{/list}} sections; every name
+ * is resolved to a typed accessor at compile time, so rendering is a walk over prebuilt
+ * segments appending into a per-thread reusable buffer.
+ */
+@Service
+public class WeeklyReportRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(WeeklyReportRenderer.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+    // Buffers that grew past this are dropped instead of being kept for the thread
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_SIZE));
+
+    private static final Map<String, ValueWriter> VALUES = new HashMap<>();
+    private static final Map<String, Function<WeeklyReport, List<String>>> SECTIONS = new HashMap<>();
+
+    static {
+        VALUES.put("recipient_name", (r, out) -> out.append(r.getRecipientName()));
+        VALUES.put("report_period", (r, out) -> out.append(r.getReportPeriod()));
+        VALUES.put("generated_at", (r, out) -> out.append(r.getGeneratedAt()));
+        VALUES.put("alert_message", (r, out) -> out.append(r.getAlertMessage()));
+        VALUES.put("alert_class", (r, out) -> out.append(r.getAlertStatus().toLowerCase()));
+        VALUES.put("alert_emoji", (r, out) -> out.append(
+                "GREEN".equals(r.getAlertStatus()) ? "✅" : "AMBER".equals(r.getAlertStatus()) ? "⚠️" : "🚨"));
+        VALUES.put("trend", (r, out) -> out.append(r.getSentimentAnalysis().getTrend()));
+        VALUES.put("green_percentage", (r, out) -> out.append(r.getSentimentAnalysis().getGreenPercentage()));
+        VALUES.put("amber_percentage", (r, out) -> out.append(r.getSentimentAnalysis().getAmberPercentage()));
+        VALUES.put("red_percentage", (r, out) -> out.append(r.getSentimentAnalysis().getRedPercentage()));
+        VALUES.put("active_days", (r, out) -> out.append(r.getEngagement().getActiveDays()));
+        VALUES.put("engagement_level", (r, out) -> out.append(r.getEngagement().getEngagementLevel()));
+
+        SECTIONS.put("action_items", WeeklyReport::getActionItems);
+        SECTIONS.put("notable_moments", WeeklyReport::getNotableMoments);
+        SECTIONS.put("favourite_topics", WeeklyReport::getFavouriteTopics);
+        SECTIONS.put("cheer_up_topics", WeeklyReport::getCheerUpTopics);
+    }
+
+    private final Template emailTemplate;
+    private final Template whatsAppTemplate;
+
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    public WeeklyReportRenderer(
+            @Value("${weekly.report.template.email:report-templates/weekly-report-email.html}") String emailPath,
+            @Value("${weekly.report.template.whatsapp:report-templates/weekly-report-whatsapp.txt}") String whatsAppPath) {
+        this.emailTemplate = compile("email", load(emailPath));
+        this.whatsAppTemplate = compile("whatsapp", load(whatsAppPath));
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            this.threadBean = sunBean;
+        } else {
+            this.threadBean = null;
+        }
+    }
+
+    public RenderedReport renderEmail(WeeklyReport report) {
+        return render(emailTemplate, report);
+    }
+
+    public RenderedReport renderWhatsApp(WeeklyReport report) {
+        return render(whatsAppTemplate, report);
+    }
+
+    /**
+     * Per-template render counts, average/max time and average/max allocated bytes
+     */
+    public Map<String, Object> getRenderStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("email", emailTemplate.stats());
+        stats.put("whatsapp", whatsAppTemplate.stats());
+        stats.put("allocation_tracking", threadBean != null);
+        return stats;
+    }
+
+    private RenderedReport render(Template template, WeeklyReport report) {
+        long allocatedBefore = threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : 0;
+        long start = System.nanoTime();
+
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        template.writeTo(report, out);
+        String content = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            BUFFER.remove();
+        }
+
+        long renderNanos = System.nanoTime() - start;
+        long allocatedBytes = threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore : -1;
+        template.record(renderNanos, allocatedBytes);
+
+        log.debug("Rendered {} report for {} in {} µs ({} bytes allocated, {} chars)",
+                template.name, report.getPhoneNumber(), renderNanos / 1000, allocatedBytes, content.length());
+        return new RenderedReport(content, renderNanos, allocatedBytes);
+    }
+
+    private static String load(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            // The file's final newline is not part of the message
+            return text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load report template " + path, e);
+        }
+    }
+
+    /**
+     * Compile template text into segments, failing fast on unknown names or unclosed sections
+     */
+    static Template compile(String name, String text) {
+        List<Segment> segments = new ArrayList<>();
+        int end = compileInto(name, text, 0, null, segments);
+        if (end != text.length()) {
+            throw new IllegalStateException("Unexpected section end in " + name + " template at " + end);
+        }
+        return new Template(name, segments.toArray(new Segment[0]));
+    }
+
+    private static int compileInto(String name, String text, int pos, String section, List<Segment> segments) {
+        while (pos < text.length()) {
+            int open = text.indexOf("{{", pos);
+            if (open < 0) {
+                segments.add(literal(text.substring(pos)));
+                pos = text.length();
+                break;
+            }
+            if (open > pos) {
+                segments.add(literal(text.substring(pos, open)));
+            }
+            int close = text.indexOf("}}", open);
+            if (close < 0) {
+                throw new IllegalStateException("Unclosed tag in " + name + " template at " + open);
+            }
+            String tag = text.substring(open + 2, close).trim();
+            pos = close + 2;
+
+            if (tag.startsWith("#")) {
+                String listName = tag.substring(1);
+                Function<WeeklyReport, List<String>> list = SECTIONS.get(listName);
+                if (list == null) {
+                    throw new IllegalStateException("Unknown section '" + listName + "' in " + name + " template");
+                }
+                List<Segment> body = new ArrayList<>();
+                pos = compileInto(name, text, pos, listName, body);
+                segments.add(section(list, body.toArray(new Segment[0])));
+            } else if (tag.startsWith("/")) {
+                if (!tag.substring(1).equals(section)) {
+                    throw new IllegalStateException("Mismatched section end '" + tag + "' in " + name + " template");
+                }
+                return pos;
+            } else if (tag.equals(".")) {
+                if (section == null) {
+                    throw new IllegalStateException("'{{.}}' outside a section in " + name + " template");
+                }
+                segments.add((r, item, out) -> out.append(item));
+            } else {
+                ValueWriter value = VALUES.get(tag);
+                if (value == null) {
+                    throw new IllegalStateException("Unknown value '" + tag + "' in " + name + " template");
+                }
+                segments.add((r, item, out) -> value.write(r, out));
+            }
+        }
+        if (section != null) {
+            throw new IllegalStateException("Unclosed section '" + section + "' in " + name + " template");
+        }
+        return pos;
+    }
+
+    private static Segment literal(String text) {
+        return (r, item, out) -> out.append(text);
+    }
+
+    private static Segment section(Function<WeeklyReport, List<String>> list, Segment[] body) {
+        return (r, item, out) -> {
+            List<String> items = list.apply(r);
+            if (items == null) return;
+            for (String element : items) {
+                for (Segment segment : body) {
+                    segment.write(r, element, out);
+                }
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(WeeklyReport report, StringBuilder out);
+    }
+
+    @FunctionalInterface
+    private interface Segment {
+        void write(WeeklyReport report, String item, StringBuilder out);
+    }
+
+    static final class Template {
+        private final String name;
+        private final Segment[] segments;
+
+        private final LongAdder renders = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder totalBytes = new LongAdder();
+        private final LongAccumulator maxBytes = new LongAccumulator(Math::max, 0);
+
+        private Template(String name, Segment[] segments) {
+            this.name = name;
+            this.segments = segments;
+        }
+
+        void writeTo(WeeklyReport report, StringBuilder out) {
+            for (Segment segment : segments) {
+                segment.write(report, null, out);
+            }
+        }
+
+        private void record(long nanos, long bytes) {
+            renders.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (bytes >= 0) {
+                totalBytes.add(bytes);
+                maxBytes.accumulate(bytes);
+            }
+        }
+
+        private Map<String, Object> stats() {
+            long count = renders.sum();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("renders", count);
+            stats.put("avg_render_us", count > 0 ? totalNanos.sum() / count / 1000 : 0);
+            stats.put("max_render_us", maxNanos.get() / 1000);
+            stats.put("avg_allocated_bytes", count > 0 ? totalBytes.sum() / count : 0);
+            stats.put("max_allocated_bytes", maxBytes.get());
+            return stats;
+        }
+    }
+
+    /**
+     * Rendered report text with the time and bytes its rendering took (bytes are -1 when
+     * the JVM cannot track per-thread allocation)
+     */
+    public static final class RenderedReport {
+        private final String content;
+        private final long renderNanos;
+        private final long allocatedBytes;
+
+        RenderedReport(String content, long renderNanos, long allocatedBytes) {
+            this.content = content;
+            this.renderNanos = renderNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getContent() { return content; }
+        public long getRenderNanos() { return renderNanos; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+
+        public Map<String, Object> toMetrics() {
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("render_us", renderNanos / 1000);
+            metrics.put("allocated_bytes", allocatedBytes);
+            metrics.put("length", content.length());
+            return metrics;
+        }
+    }
+}
@@ -1,25 +1,38 @@
 package com.example.whatsapp.service;
 
 import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.SentimentCategoryCount;
+import com.example.whatsapp.dto.WeeklyReport;
 import com.example.whatsapp.entity.ConversationSentiment;
 import com.example.whatsapp.entity.RecipientEntity;
 import com.example.whatsapp.entity.RecipientTopicEntity;
+import com.example.whatsapp.entity.SentimentRollup;
 import com.example.whatsapp.repository.ConversationSentimentRepository;
 import com.example.whatsapp.repository.RecipientRepository;
 import com.example.whatsapp.repository.RecipientTopicRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,10 +40,21 @@ public class WeeklyReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(WeeklyReportService.class);
 
+    // Start of the window used when a recipient has no sentiment in the last week
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final DateTimeFormatter GENERATED_AT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
     private final ConversationSentimentRepository sentimentRepository;
     private final RecipientRepository recipientRepository;
     private final RecipientTopicRepository topicRepository;
-    private final WhatsAppService whatsAppService;
+    private final OutboxService outboxService;
+    private final SentimentRollupService rollupService;
+    private final WeeklyReportRenderer renderer;
+    private final Timer generationTimer;
+
+    // Reports built for a preview, reused when the same week's report is sent
+    private final Cache<String, WeeklyReport> reportCache;
 
     @Autowired(required = false)
     private JavaMailSender mailSender;
@@ -41,11 +65,23 @@ public class WeeklyReportService {
     public WeeklyReportService(ConversationSentimentRepository sentimentRepository,
                                RecipientRepository recipientRepository,
                                RecipientTopicRepository topicRepository,
-                               WhatsAppService whatsAppService) {
+                               OutboxService outboxService,
+                               SentimentRollupService rollupService,
+                               WeeklyReportRenderer renderer,
+                               MeterRegistry meterRegistry,
+                               @Value("${weekly.report.preview-cache-minutes:30}") long previewCacheMinutes) {
         this.sentimentRepository = sentimentRepository;
         this.recipientRepository = recipientRepository;
         this.topicRepository = topicRepository;
-        this.whatsAppService = whatsAppService;
+        this.outboxService = outboxService;
+        this.rollupService = rollupService;
+        this.renderer = renderer;
+        this.generationTimer = meterRegistry.timer("weekly.report.generation");
+        this.reportCache = Caffeine.newBuilder()
+                .expireAfterWrite(previewCacheMinutes, TimeUnit.MINUTES)
+                .maximumSize(1000)
+                .recordStats()
+                .build();
     }
 
     public Map<String, Object> generateAndSendReport(String phoneNumber) {
@@ -59,7 +95,8 @@ public class WeeklyReportService {
         }
 
         RecipientEntity recipient = recipientOpt.get();
-        Map<String, Object> reportData = generateReportData(phoneNumber, recipient);
+        // Reuses the report built for a preview of the same week, if there is one
+        WeeklyReport report = getReport(phoneNumber, recipient);
 
         RecipientEntity.ReportPreference preference = recipient.getReportPreference();
         if (preference == null) {
@@ -68,73 +105,91 @@ public class WeeklyReportService {
 
         boolean emailSent = false;
         boolean whatsAppSent = false;
+        Map<String, Object> renderMetrics = new HashMap<>();
 
         if (preference == RecipientEntity.ReportPreference.EMAIL ||
             preference == RecipientEntity.ReportPreference.BOTH) {
-            emailSent = sendEmailReport(recipient, reportData);
+            WeeklyReportRenderer.RenderedReport email = renderer.renderEmail(report);
+            renderMetrics.put("email", email.toMetrics());
+            emailSent = sendEmailReport(recipient, email);
         }
 
         if (preference == RecipientEntity.ReportPreference.WHATSAPP ||
             preference == RecipientEntity.ReportPreference.BOTH) {
-            whatsAppSent = sendWhatsAppReport(recipient, reportData);
+            WeeklyReportRenderer.RenderedReport message = renderer.renderWhatsApp(report);
+            renderMetrics.put("whatsapp", message.toMetrics());
+            whatsAppSent = sendWhatsAppReport(recipient, message);
+        }
+
+        if (emailSent || whatsAppSent) {
+            evictCachedReport(phoneNumber);
         }
 
         result.put("success", emailSent || whatsAppSent);
         result.put("email_sent", emailSent);
         result.put("whatsapp_sent", whatsAppSent);
-        result.put("report_data", reportData);
+        result.put("report_data", report);
+        result.put("render_metrics", renderMetrics);
 
         return result;
     }
 
-    public Map<String, Object> generateReportData(String phoneNumber, RecipientEntity recipient) {
-        LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
+    /**
+     * Report for the current week, served from the preview cache when one was already built
+     */
+    public WeeklyReport getReport(String phoneNumber, RecipientEntity recipient) {
+        return reportCache.get(cacheKey(phoneNumber), key -> generateReportData(phoneNumber, recipient));
+    }
 
-        // Try with original phone number first
-        List<ConversationSentiment> sentiments = sentimentRepository.findUserSentimentsAfter(phoneNumber, weekAgo);
+    public void evictCachedReport(String phoneNumber) {
+        reportCache.invalidate(cacheKey(phoneNumber));
+    }
 
-        // If no results, try with + prefix (WhatsApp stores with +)
-        if (sentiments.isEmpty() && !phoneNumber.startsWith("+")) {
-            sentiments = sentimentRepository.findUserSentimentsAfter("+" + phoneNumber, weekAgo);
-        }
+    /**
+     * Preview cache size and hit rate
+     */
+    public Map<String, Object> getReportCacheStats() {
+        CacheStats cacheStats = reportCache.stats();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", reportCache.estimatedSize());
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hit_rate", cacheStats.hitRate());
+        return stats;
+    }
 
-        // If still no results, try without + prefix
-        if (sentiments.isEmpty() && phoneNumber.startsWith("+")) {
-            sentiments = sentimentRepository.findUserSentimentsAfter(phoneNumber.substring(1), weekAgo);
-        }
+    private static String cacheKey(String phoneNumber) {
+        LocalDate week = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return phoneNumber + "|" + week;
+    }
 
-        // If still empty, get all-time data (for testing/demo purposes)
-        if (sentiments.isEmpty()) {
-            sentiments = sentimentRepository.findByPhoneNumberOrderByTimestampDesc(phoneNumber);
-            if (sentiments.isEmpty() && !phoneNumber.startsWith("+")) {
-                sentiments = sentimentRepository.findByPhoneNumberOrderByTimestampDesc("+" + phoneNumber);
-            }
-            if (sentiments.isEmpty() && phoneNumber.startsWith("+")) {
-                sentiments = sentimentRepository.findByPhoneNumberOrderByTimestampDesc(phoneNumber.substring(1));
-            }
-        }
+    public WeeklyReport generateReportData(String phoneNumber, RecipientEntity recipient) {
+        return generationTimer.record(() -> buildReportData(phoneNumber, recipient));
+    }
+
+    private WeeklyReport buildReportData(String phoneNumber, RecipientEntity recipient) {
+        // Compute every metric from the hourly rollups
+        WeeklyReportAccumulator metrics = loadReportMetrics(phoneNumber);
 
-        logger.info("Found {} sentiments for phone {}", sentiments.size(), phoneNumber);
+        logger.info("Found {} sentiments for phone {}", metrics.getTotal(), phoneNumber);
 
-        Map<String, Object> report = new HashMap<>();
+        WeeklyReport report = new WeeklyReport();
 
         // Basic info
-        report.put("recipient_name", recipient.getDisplayName());
-        report.put("phone_number", phoneNumber);
-        report.put("report_period", "Last 7 Days");
-        report.put("generated_at", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+        report.setRecipientName(recipient.getDisplayName());
+        report.setPhoneNumber(phoneNumber);
+        report.setReportPeriod("Last 7 Days");
+        report.setGeneratedAt(LocalDateTime.now().format(GENERATED_AT_FORMAT));
 
         // Sentiment analysis
-        Map<String, Object> sentimentAnalysis = analyzeSentiments(sentiments);
-        report.put("sentiment_analysis", sentimentAnalysis);
+        WeeklyReport.Sentiment sentimentAnalysis = analyzeSentiments(metrics);
+        report.setSentimentAnalysis(sentimentAnalysis);
 
         // Engagement metrics
-        Map<String, Object> engagement = calculateEngagement(sentiments);
-        report.put("engagement", engagement);
+        report.setEngagement(calculateEngagement(metrics));
 
         // Notable moments (positive messages)
-        List<String> notableMoments = extractNotableMoments(sentiments);
-        report.put("notable_moments", notableMoments);
+        report.setNotableMoments(metrics.getNotableMoments());
 
         // Topics from database
         List<RecipientTopicEntity> favouriteTopics = topicRepository.findByPhoneNumberAndTopicType(
@@ -142,111 +197,179 @@ public class WeeklyReportService {
         List<RecipientTopicEntity> cheerUpTopics = topicRepository.findByPhoneNumberAndTopicType(
             phoneNumber, RecipientTopicEntity.TopicType.CHEER_UP);
 
-        report.put("favourite_topics", favouriteTopics.stream()
+        report.setFavouriteTopics(favouriteTopics.stream()
             .map(RecipientTopicEntity::getTopic).collect(Collectors.toList()));
-        report.put("cheer_up_topics", cheerUpTopics.stream()
+        report.setCheerUpTopics(cheerUpTopics.stream()
             .map(RecipientTopicEntity::getTopic).collect(Collectors.toList()));
 
         // Action items
-        List<String> actionItems = generateActionItems(sentimentAnalysis, cheerUpTopics);
-        report.put("action_items", actionItems);
+        report.setActionItems(generateActionItems(sentimentAnalysis, cheerUpTopics));
 
         // Alert status
         String alertStatus = determineAlertStatus(sentimentAnalysis);
-        report.put("alert_status", alertStatus);
-        report.put("alert_message", getAlertMessage(alertStatus));
+        report.setAlertStatus(alertStatus);
+        report.setAlertMessage(getAlertMessage(alertStatus));
 
         return report;
     }
 
-    private Map<String, Object> analyzeSentiments(List<ConversationSentiment> sentiments) {
-        Map<String, Object> analysis = new HashMap<>();
-
-        if (sentiments.isEmpty()) {
-            analysis.put("total_conversations", 0);
-            analysis.put("green_count", 0);
-            analysis.put("amber_count", 0);
-            analysis.put("red_count", 0);
-            analysis.put("green_percentage", 0);
-            analysis.put("amber_percentage", 0);
-            analysis.put("red_percentage", 0);
-            analysis.put("trend", "No data");
+    /**
+     * Aggregate the last 7 days of sentiment for a phone number from the hourly rollups.
+     * Tries the number as given and with/without the + prefix, then falls back to all-time data.
+     */
+    private WeeklyReportAccumulator loadReportMetrics(String phoneNumber) {
+        String alternateNumber = phoneNumber.startsWith("+") ? phoneNumber.substring(1) : "+" + phoneNumber;
+        LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
+
+        for (LocalDateTime startDate : List.of(weekAgo, ALL_TIME)) {
+            for (String number : List.of(phoneNumber, alternateNumber)) {
+                List<SentimentRollup> rollups = rollupService.getUserRollups(number, startDate);
+                if (!rollups.isEmpty()) {
+                    return aggregateMetrics(number, startDate, rollups);
+                }
+            }
+        }
+
+        return WeeklyReportAccumulator.of(List.of());
+    }
+
+    private WeeklyReportAccumulator aggregateMetrics(String phoneNumber, LocalDateTime startDate,
+                                                     List<SentimentRollup> rollups) {
+        long total = rollups.stream().mapToLong(SentimentRollup::getMessageCount).sum();
+        long half = total / 2;
+
+        // Newest half for trend and score change: whole hour buckets, newest first, then the
+        // newest rows of the bucket that straddles the middle
+        SentimentAnalysis.SentimentCategory[] categories = SentimentAnalysis.SentimentCategory.values();
+        long[] recentCounts = new long[categories.length];
+        long taken = 0;
+        for (SentimentRollup rollup : rollups) {
+            if (taken == half) break;
+            long needed = half - taken;
+            if (rollup.getMessageCount() <= needed) {
+                for (SentimentAnalysis.SentimentCategory category : categories) {
+                    recentCounts[category.ordinal()] += rollup.getCount(category);
+                }
+                taken += rollup.getMessageCount();
+            } else {
+                splitBucket(phoneNumber, rollup, needed, recentCounts);
+                taken = half;
+            }
+        }
+        List<SentimentCategoryCount> recentHalfCounts = new ArrayList<>();
+        for (SentimentAnalysis.SentimentCategory category : categories) {
+            recentHalfCounts.add(new SentimentCategoryCount(category, recentCounts[category.ordinal()]));
+        }
+
+        // Only the few notable rows are loaded in full
+        List<String> greenMessages = sentimentRepository
+                .findTop3ByPhoneNumberAndSentimentCategoryAndTimestampGreaterThanEqualOrderByTimestampDesc(
+                        phoneNumber, SentimentAnalysis.SentimentCategory.GREEN, startDate)
+                .stream()
+                .map(ConversationSentiment::getUserMessage)
+                .collect(Collectors.toList());
+
+        return WeeklyReportAccumulator.fromBuckets(SentimentRollupService.toBuckets(rollups),
+                recentHalfCounts, greenMessages);
+    }
+
+    /**
+     * Add the newest {@code needed} messages of one hour bucket to the recent-half counts. They
+     * come from the raw rows of that hour; if those rows are no longer all there (archived), the
+     * bucket is split in proportion to its category counts instead.
+     */
+    private void splitBucket(String phoneNumber, SentimentRollup rollup, long needed, long[] recentCounts) {
+        LocalDateTime from = rollup.getBucketStart();
+        List<SentimentAnalysis.SentimentCategory> newest = sentimentRepository.findCategoriesBetween(
+                phoneNumber, from, from.plusHours(1), Limit.of((int) needed));
+        if (newest.size() == needed) {
+            for (SentimentAnalysis.SentimentCategory category : newest) {
+                recentCounts[category.ordinal()]++;
+            }
+            return;
+        }
+
+        // Largest-remainder apportionment of the needed messages over the bucket's categories
+        SentimentAnalysis.SentimentCategory[] categories = SentimentAnalysis.SentimentCategory.values();
+        long bucketTotal = rollup.getMessageCount();
+        long[] share = new long[categories.length];
+        long[] remainder = new long[categories.length];
+        long assigned = 0;
+        for (SentimentAnalysis.SentimentCategory category : categories) {
+            long scaled = rollup.getCount(category) * needed;
+            share[category.ordinal()] = scaled / bucketTotal;
+            remainder[category.ordinal()] = scaled % bucketTotal;
+            assigned += share[category.ordinal()];
+        }
+        for (; assigned < needed; assigned++) {
+            int largest = 0;
+            for (int i = 1; i < categories.length; i++) {
+                if (remainder[i] > remainder[largest]) largest = i;
+            }
+            share[largest]++;
+            remainder[largest] = -1;
+        }
+        for (int i = 0; i < categories.length; i++) {
+            recentCounts[i] += share[i];
+        }
+    }
+
+    private WeeklyReport.Sentiment analyzeSentiments(WeeklyReportAccumulator metrics) {
+        WeeklyReport.Sentiment analysis = new WeeklyReport.Sentiment();
+
+        int total = metrics.getTotal();
+        if (total == 0) {
+            analysis.setTrend("No data");
             return analysis;
         }
 
-        long greenCount = sentiments.stream()
-            .filter(s -> s.getSentimentCategory() == SentimentAnalysis.SentimentCategory.GREEN)
-            .count();
-        long amberCount = sentiments.stream()
-            .filter(s -> s.getSentimentCategory() == SentimentAnalysis.SentimentCategory.AMBER)
-            .count();
-        long redCount = sentiments.stream()
-            .filter(s -> s.getSentimentCategory() == SentimentAnalysis.SentimentCategory.RED)
-            .count();
-
-        int total = sentiments.size();
-
-        analysis.put("total_conversations", total);
-        analysis.put("green_count", greenCount);
-        analysis.put("amber_count", amberCount);
-        analysis.put("red_count", redCount);
-        analysis.put("green_percentage", Math.round((greenCount * 100.0) / total));
-        analysis.put("amber_percentage", Math.round((amberCount * 100.0) / total));
-        analysis.put("red_percentage", Math.round((redCount * 100.0) / total));
-
-        // Calculate trend (compare first half to second half)
-        String trend = calculateTrend(sentiments);
-        analysis.put("trend", trend);
+        long greenCount = metrics.getCount(SentimentAnalysis.SentimentCategory.GREEN);
+        long amberCount = metrics.getCount(SentimentAnalysis.SentimentCategory.AMBER);
+        long redCount = metrics.getCount(SentimentAnalysis.SentimentCategory.RED);
+
+        analysis.setTotalConversations(total);
+        analysis.setGreenCount(greenCount);
+        analysis.setAmberCount(amberCount);
+        analysis.setRedCount(redCount);
+        analysis.setGreenPercentage(Math.round((greenCount * 100.0) / total));
+        analysis.setAmberPercentage(Math.round((amberCount * 100.0) / total));
+        analysis.setRedPercentage(Math.round((redCount * 100.0) / total));
+
+        // Trend (compare first half to second half)
+        analysis.setTrend(metrics.getTrend());
 
         // Daily breakdown for chart
-        List<Map<String, Object>> dailyBreakdown = calculateDailyBreakdown(sentiments);
-        analysis.put("daily_breakdown", dailyBreakdown);
+        analysis.setDailyBreakdown(calculateDailyBreakdown(metrics));
 
         // Hourly pattern for time-of-day analysis
-        Map<String, Object> hourlyPattern = calculateHourlyPattern(sentiments);
-        analysis.put("hourly_pattern", hourlyPattern);
+        analysis.setHourlyPattern(calculateHourlyPattern(metrics));
 
         // Sentiment distribution for pie chart
-        List<Map<String, Object>> sentimentDistribution = new ArrayList<>();
-        sentimentDistribution.add(Map.of("category", "Positive", "count", greenCount, "percentage", Math.round((greenCount * 100.0) / total), "color", "#a3b8a3"));
-        sentimentDistribution.add(Map.of("category", "Concern", "count", amberCount, "percentage", Math.round((amberCount * 100.0) / total), "color", "#f5b78a"));
-        sentimentDistribution.add(Map.of("category", "Critical", "count", redCount, "percentage", Math.round((redCount * 100.0) / total), "color", "#e57373"));
-        analysis.put("sentiment_distribution", sentimentDistribution);
+        List<WeeklyReport.DistributionSlice> sentimentDistribution = new ArrayList<>(3);
+        sentimentDistribution.add(new WeeklyReport.DistributionSlice("Positive", greenCount, analysis.getGreenPercentage(), "#a3b8a3"));
+        sentimentDistribution.add(new WeeklyReport.DistributionSlice("Concern", amberCount, analysis.getAmberPercentage(), "#f5b78a"));
+        sentimentDistribution.add(new WeeklyReport.DistributionSlice("Critical", redCount, analysis.getRedPercentage(), "#e57373"));
+        analysis.setSentimentDistribution(sentimentDistribution);
 
         // Week over week comparison
-        double weekScore = calculateAverageScore(sentiments);
-        analysis.put("average_score", Math.round(weekScore));
-        analysis.put("score_change", Math.round(calculateAverageScore(sentiments.subList(0, Math.min(sentiments.size()/2, sentiments.size()))) -
-                                                calculateAverageScore(sentiments.subList(Math.min(sentiments.size()/2, sentiments.size()), sentiments.size()))));
+        analysis.setAverageScore(Math.round(metrics.getAverageScore()));
+        analysis.setScoreChange(Math.round(metrics.getRecentAverageScore() - metrics.getOlderAverageScore()));
 
         return analysis;
     }
 
-    private Map<String, Object> calculateHourlyPattern(List<ConversationSentiment> sentiments) {
-        Map<String, Object> pattern = new HashMap<>();
-
-        // Group by time of day
-        long morning = sentiments.stream().filter(s -> {
-            int hour = s.getTimestamp().getHour();
-            return hour >= 6 && hour < 12;
-        }).count();
-
-        long afternoon = sentiments.stream().filter(s -> {
-            int hour = s.getTimestamp().getHour();
-            return hour >= 12 && hour < 17;
-        }).count();
-
-        long evening = sentiments.stream().filter(s -> {
-            int hour = s.getTimestamp().getHour();
-            return hour >= 17 && hour < 21;
-        }).count();
+    private WeeklyReport.HourlyPattern calculateHourlyPattern(WeeklyReportAccumulator metrics) {
+        WeeklyReport.HourlyPattern pattern = new WeeklyReport.HourlyPattern();
 
-        long night = sentiments.size() - morning - afternoon - evening;
+        long morning = metrics.getTimeOfDayCount(WeeklyReportAccumulator.MORNING);
+        long afternoon = metrics.getTimeOfDayCount(WeeklyReportAccumulator.AFTERNOON);
+        long evening = metrics.getTimeOfDayCount(WeeklyReportAccumulator.EVENING);
+        long night = metrics.getTimeOfDayCount(WeeklyReportAccumulator.NIGHT);
 
-        pattern.put("morning", morning);
-        pattern.put("afternoon", afternoon);
-        pattern.put("evening", evening);
-        pattern.put("night", night);
+        pattern.setMorning(morning);
+        pattern.setAfternoon(afternoon);
+        pattern.setEvening(evening);
+        pattern.setNight(night);
 
         // Find most active time
         String mostActive = "morning";
@@ -254,118 +377,43 @@ public class WeeklyReportService {
         if (afternoon > maxCount) { mostActive = "afternoon"; maxCount = afternoon; }
         if (evening > maxCount) { mostActive = "evening"; maxCount = evening; }
         if (night > maxCount) { mostActive = "night"; }
-        pattern.put("most_active_time", mostActive);
+        pattern.setMostActiveTime(mostActive);
 
-        // Calculate sentiment by time of day for chart
-        List<Map<String, Object>> timeOfDayChart = new ArrayList<>();
-        timeOfDayChart.add(Map.of("time", "Morning", "count", morning, "score", calculateTimeScore(sentiments, 6, 12)));
-        timeOfDayChart.add(Map.of("time", "Afternoon", "count", afternoon, "score", calculateTimeScore(sentiments, 12, 17)));
-        timeOfDayChart.add(Map.of("time", "Evening", "count", evening, "score", calculateTimeScore(sentiments, 17, 21)));
-        timeOfDayChart.add(Map.of("time", "Night", "count", night, "score", calculateTimeScore(sentiments, 21, 6)));
-        pattern.put("time_of_day_chart", timeOfDayChart);
+        // Sentiment by time of day for chart
+        List<WeeklyReport.TimeOfDay> timeOfDayChart = new ArrayList<>(4);
+        timeOfDayChart.add(new WeeklyReport.TimeOfDay("Morning", morning, metrics.getTimeOfDayScore(WeeklyReportAccumulator.MORNING)));
+        timeOfDayChart.add(new WeeklyReport.TimeOfDay("Afternoon", afternoon, metrics.getTimeOfDayScore(WeeklyReportAccumulator.AFTERNOON)));
+        timeOfDayChart.add(new WeeklyReport.TimeOfDay("Evening", evening, metrics.getTimeOfDayScore(WeeklyReportAccumulator.EVENING)));
+        timeOfDayChart.add(new WeeklyReport.TimeOfDay("Night", night, metrics.getTimeOfDayScore(WeeklyReportAccumulator.NIGHT)));
+        pattern.setTimeOfDayChart(timeOfDayChart);
 
         return pattern;
     }
 
-    private int calculateTimeScore(List<ConversationSentiment> sentiments, int startHour, int endHour) {
-        List<ConversationSentiment> filtered = sentiments.stream()
-            .filter(s -> {
-                int hour = s.getTimestamp().getHour();
-                if (startHour < endHour) {
-                    return hour >= startHour && hour < endHour;
-                } else {
-                    return hour >= startHour || hour < endHour;
-                }
-            })
-            .collect(Collectors.toList());
-        return (int) Math.round(calculateAverageScore(filtered));
-    }
-
-    private String calculateTrend(List<ConversationSentiment> sentiments) {
-        if (sentiments.size() < 2) return "Stable";
-
-        int mid = sentiments.size() / 2;
-        List<ConversationSentiment> recent = sentiments.subList(0, mid);
-        List<ConversationSentiment> older = sentiments.subList(mid, sentiments.size());
-
-        double recentScore = calculateAverageScore(recent);
-        double olderScore = calculateAverageScore(older);
-
-        double change = recentScore - olderScore;
-
-        if (change > 10) return "Improving";
-        if (change < -10) return "Declining";
-        return "Stable";
-    }
-
-    private double calculateAverageScore(List<ConversationSentiment> sentiments) {
-        if (sentiments.isEmpty()) return 50;
-
-        return sentiments.stream()
-            .mapToDouble(s -> {
-                switch (s.getSentimentCategory()) {
-                    case GREEN: return 100;
-                    case AMBER: return 50;
-                    case RED: return 0;
-                    default: return 50;
-                }
-            })
-            .average()
-            .orElse(50);
-    }
-
-    private List<Map<String, Object>> calculateDailyBreakdown(List<ConversationSentiment> sentiments) {
-        Map<String, List<ConversationSentiment>> byDate = sentiments.stream()
-            .collect(Collectors.groupingBy(s ->
-                s.getTimestamp().toLocalDate().toString()));
-
-        return byDate.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey())
-            .map(entry -> {
-                Map<String, Object> day = new HashMap<>();
-                day.put("date", entry.getKey());
-                day.put("score", Math.round(calculateAverageScore(entry.getValue())));
-                return day;
-            })
-            .collect(Collectors.toList());
+    private List<WeeklyReport.DailyScore> calculateDailyBreakdown(WeeklyReportAccumulator metrics) {
+        List<WeeklyReport.DailyScore> breakdown = new ArrayList<>();
+        for (Map.Entry<LocalDate, Long> entry : metrics.getDailyScores().entrySet()) {
+            breakdown.add(new WeeklyReport.DailyScore(entry.getKey().toString(), entry.getValue()));
+        }
+        return breakdown;
     }
 
-    private Map<String, Object> calculateEngagement(List<ConversationSentiment> sentiments) {
-        Map<String, Object> engagement = new HashMap<>();
-
-        Set<String> activeDays = sentiments.stream()
-            .map(s -> s.getTimestamp().toLocalDate().toString())
-            .collect(Collectors.toSet());
-
-        engagement.put("active_days", activeDays.size());
-        engagement.put("total_messages", sentiments.size());
-        engagement.put("engagement_level", activeDays.size() >= 5 ? "High" :
-                                          activeDays.size() >= 3 ? "Medium" : "Low");
-
-        return engagement;
-    }
+    private WeeklyReport.Engagement calculateEngagement(WeeklyReportAccumulator metrics) {
+        int activeDays = metrics.getActiveDays();
 
-    private List<String> extractNotableMoments(List<ConversationSentiment> sentiments) {
-        return sentiments.stream()
-            .filter(s -> s.getSentimentCategory() == SentimentAnalysis.SentimentCategory.GREEN)
-            .limit(3)
-            .map(ConversationSentiment::getUserMessage)
-            .filter(Objects::nonNull)
-            .map(msg -> msg.length() > 100 ? msg.substring(0, 100) + "..." : msg)
-            .collect(Collectors.toList());
+        return new WeeklyReport.Engagement(activeDays, metrics.getTotal(),
+                activeDays >= 5 ? "High" : activeDays >= 3 ? "Medium" : "Low");
     }
 
-    private List<String> generateActionItems(Map<String, Object> sentimentAnalysis,
+    private List<String> generateActionItems(WeeklyReport.Sentiment sentimentAnalysis,
                                              List<RecipientTopicEntity> cheerUpTopics) {
         List<String> items = new ArrayList<>();
 
-        String trend = (String) sentimentAnalysis.get("trend");
-        if ("Declining".equals(trend)) {
+        if ("Declining".equals(sentimentAnalysis.getTrend())) {
             items.add("Consider reaching out with a phone call - mood appears to be declining");
         }
 
-        long redCount = ((Number) sentimentAnalysis.get("red_count")).longValue();
-        if (redCount > 0) {
+        if (sentimentAnalysis.getRedCount() > 0) {
             items.add("Review recent conversations for signs of distress");
         }
 
@@ -384,10 +432,10 @@ public class WeeklyReportService {
         return items;
     }
 
-    private String determineAlertStatus(Map<String, Object> sentimentAnalysis) {
-        String trend = (String) sentimentAnalysis.get("trend");
-        long redCount = ((Number) sentimentAnalysis.get("red_count")).longValue();
-        int redPercentage = ((Number) sentimentAnalysis.get("red_percentage")).intValue();
+    private String determineAlertStatus(WeeklyReport.Sentiment sentimentAnalysis) {
+        String trend = sentimentAnalysis.getTrend();
+        long redCount = sentimentAnalysis.getRedCount();
+        long redPercentage = sentimentAnalysis.getRedPercentage();
 
         if (redPercentage > 30 || redCount >= 3) {
             return "RED";
@@ -408,7 +456,10 @@ public class WeeklyReportService {
         }
     }
 
-    private boolean sendEmailReport(RecipientEntity recipient, Map<String, Object> reportData) {
+    /**
+     * Email a rendered report to the recipient's configured address
+     */
+    public boolean sendEmailReport(RecipientEntity recipient, WeeklyReportRenderer.RenderedReport html) {
         if (mailSender == null) {
             logger.warn("Mail sender not configured - cannot send email report");
             return false;
@@ -427,7 +478,7 @@ public class WeeklyReportService {
             helper.setFrom(fromEmail);
             helper.setTo(email);
             helper.setSubject("Weekly Wellness Report - " + recipient.getDisplayName());
-            helper.setText(buildEmailHtml(reportData), true);
+            helper.setText(html.getContent(), true);
 
             mailSender.send(message);
             logger.info("Email report sent to: {}", email);
@@ -438,124 +489,31 @@ public class WeeklyReportService {
         }
     }
 
-    private String buildEmailHtml(Map<String, Object> data) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html><html><head><style>");
-        html.append("body { font-family: Arial, sans-serif; margin: 20px; }");
-        html.append(".header { background: #4e9a91; color: white; padding: 20px; border-radius: 10px; }");
-        html.append(".section { margin: 20px 0; padding: 15px; background: #f8f7f5; border-radius: 8px; }");
-        html.append(".alert-green { border-left: 4px solid #a3b8a3; }");
-        html.append(".alert-amber { border-left: 4px solid #f5b78a; }");
-        html.append(".alert-red { border-left: 4px solid #e57373; }");
-        html.append("</style></head><body>");
-
-        // Header
-        html.append("<div class='header'>");
-        html.append("<h1>Weekly Wellness Report</h1>");
-        html.append("<p>").append(data.get("recipient_name")).append(" - ").append(data.get("report_period")).append("</p>");
-        html.append("</div>");
-
-        // Alert
-        String alertStatus = (String) data.get("alert_status");
-        html.append("<div class='section alert-").append(alertStatus.toLowerCase()).append("'>");
-        html.append("<strong>").append(data.get("alert_message")).append("</strong>");
-        html.append("</div>");
-
-        // Sentiment Analysis
-        @SuppressWarnings("unchecked")
-        Map<String, Object> sentiment = (Map<String, Object>) data.get("sentiment_analysis");
-        html.append("<div class='section'>");
-        html.append("<h2>Sentiment Analysis</h2>");
-        html.append("<p>Trend: <strong>").append(sentiment.get("trend")).append("</strong></p>");
-        html.append("<p>Positive: ").append(sentiment.get("green_percentage")).append("%</p>");
-        html.append("<p>Concern: ").append(sentiment.get("amber_percentage")).append("%</p>");
-        html.append("<p>Critical: ").append(sentiment.get("red_percentage")).append("%</p>");
-        html.append("</div>");
-
-        // Engagement
-        @SuppressWarnings("unchecked")
-        Map<String, Object> engagement = (Map<String, Object>) data.get("engagement");
-        html.append("<div class='section'>");
-        html.append("<h2>Engagement</h2>");
-        html.append("<p>Active Days: ").append(engagement.get("active_days")).append(" of 7</p>");
-        html.append("<p>Level: ").append(engagement.get("engagement_level")).append("</p>");
-        html.append("</div>");
-
-        // Action Items
-        @SuppressWarnings("unchecked")
-        List<String> actions = (List<String>) data.get("action_items");
-        html.append("<div class='section'>");
-        html.append("<h2>Recommended Actions</h2>");
-        html.append("<ul>");
-        for (String action : actions) {
-            html.append("<li>").append(action).append("</li>");
-        }
-        html.append("</ul>");
-        html.append("</div>");
-
-        html.append("<p style='color: #666; font-size: 12px;'>Generated by AI Companion - ").append(data.get("generated_at")).append("</p>");
-        html.append("</body></html>");
-
-        return html.toString();
+    /**
+     * Queue a rendered report over WhatsApp to the caretaker, or the recipient if none is set
+     */
+    public boolean sendWhatsAppReport(RecipientEntity recipient, WeeklyReportRenderer.RenderedReport message) {
+        return sendWhatsAppReport(recipient, message, UUID.randomUUID().toString());
     }
 
-    private boolean sendWhatsAppReport(RecipientEntity recipient, Map<String, Object> reportData) {
+    /**
+     * Queue a rendered report over WhatsApp; a report already queued under the same key
+     * (e.g. by an earlier run of the same job item) is not queued again
+     */
+    public boolean sendWhatsAppReport(RecipientEntity recipient, WeeklyReportRenderer.RenderedReport message,
+                                      String reportKey) {
         String targetPhone = recipient.getCaretakerPhoneNumber();
         if (targetPhone == null || targetPhone.isEmpty()) {
             targetPhone = recipient.getPhoneNumber();
         }
 
-        String message = buildWhatsAppMessage(reportData);
-
         try {
-            whatsAppService.sendWhatsAppMessage(targetPhone, message);
-            logger.info("WhatsApp report sent to: {}", targetPhone);
+            outboxService.enqueue("report", targetPhone, message.getContent(), "report:" + reportKey);
+            logger.info("WhatsApp report queued for: {}", targetPhone);
             return true;
         } catch (Exception e) {
-            logger.error("Failed to send WhatsApp report: {}", e.getMessage());
+            logger.error("Failed to queue WhatsApp report: {}", e.getMessage());
             return false;
         }
     }
-
-    private String buildWhatsAppMessage(Map<String, Object> data) {
-        StringBuilder msg = new StringBuilder();
-
-        msg.append("📊 *Weekly Wellness Report*\n");
-        msg.append("👤 ").append(data.get("recipient_name")).append("\n");
-        msg.append("📅 ").append(data.get("report_period")).append("\n\n");
-
-        // Alert
-        String alertStatus = (String) data.get("alert_status");
-        String alertEmoji = "GREEN".equals(alertStatus) ? "✅" :
-                          "AMBER".equals(alertStatus) ? "⚠️" : "🚨";
-        msg.append(alertEmoji).append(" ").append(data.get("alert_message")).append("\n\n");
-
-        // Sentiment
-        @SuppressWarnings("unchecked")
-        Map<String, Object> sentiment = (Map<String, Object>) data.get("sentiment_analysis");
-        msg.append("*Sentiment Analysis*\n");
-        msg.append("📈 Trend: ").append(sentiment.get("trend")).append("\n");
-        msg.append("🟢 Positive: ").append(sentiment.get("green_percentage")).append("%\n");
-        msg.append("🟡 Concern: ").append(sentiment.get("amber_percentage")).append("%\n");
-        msg.append("🔴 Critical: ").append(sentiment.get("red_percentage")).append("%\n\n");
-
-        // Engagement
-        @SuppressWarnings("unchecked")
-        Map<String, Object> engagement = (Map<String, Object>) data.get("engagement");
-        msg.append("*Engagement*\n");
-        msg.append("📱 Active Days: ").append(engagement.get("active_days")).append("/7\n");
-        msg.append("💪 Level: ").append(engagement.get("engagement_level")).append("\n\n");
-
-        // Actions
-        @SuppressWarnings("unchecked")
-        List<String> actions = (List<String>) data.get("action_items");
-        msg.append("*Recommended Actions*\n");
-        for (String action : actions) {
-            msg.append("• ").append(action).append("\n");
-        }
-
-        msg.append("\n🤖 _Generated by AI Companion_");
-
-        return msg.toString();
-    }
 }
@@ -2,36 +2,32 @@ package com.example.whatsapp.service;
 
 import com.example.whatsapp.dto.WellnessCheckRequest;
 import com.example.whatsapp.dto.WellnessCheckResponse;
-import com.example.whatsapp.dto.WhatsAppOutgoingMessage;
+import com.example.whatsapp.entity.OutboundMessage;
 import com.example.whatsapp.entity.RecipientEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.UUID;
 
 @Service
 public class WellnessCheckService {
     
     private static final Logger log = LoggerFactory.getLogger(WellnessCheckService.class);
     
-    @Value("${whatsapp.api.access-token}")
-    private String accessToken;
-    
-    @Value("${whatsapp.api.phone-number-id}")
-    private String phoneNumberId;
-    
-    @Value("${whatsapp.api.base-url:https://graph.facebook.com/v18.0}")
-    private String whatsAppApiBaseUrl;
-    
     @Value("${wellness.scheduler.enabled:true}")
     private boolean schedulerEnabled;
     
@@ -44,14 +40,37 @@ public class WellnessCheckService {
     @Value("${wellness.scheduler.evening-hour:19}")
     private int eveningHour;
     
-    private final WebClient.Builder webClientBuilder;
+    // After this many unread checks in a row a recipient gets at most one check per backoff-hours (0 disables)
+    @Value("${wellness.unread.skip-after:3}")
+    private int unreadSkipAfter;
+    
+    @Value("${wellness.unread.backoff-hours:24}")
+    private long unreadBackoffHours;
+    
+    // Checks younger than this don't count as unread yet
+    @Value("${wellness.unread.grace-hours:4}")
+    private long unreadGraceHours;
+    
+    // Read receipts are only joined to outbox rows, which are kept outbox.retention-days
+    @Value("${wellness.unread.lookback-days:7}")
+    private long unreadLookbackDays;
+    
     private final RecipientService recipientService;
     private final GroqService groqService;
+    private final OutboxService outboxService;
+    private final MessageStatusService messageStatusService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
     
-    public WellnessCheckService(WebClient.Builder webClientBuilder, RecipientService recipientService, GroqService groqService) {
-        this.webClientBuilder = webClientBuilder;
+    public WellnessCheckService(RecipientService recipientService, GroqService groqService,
+                                OutboxService outboxService, MessageStatusService messageStatusService,
+                                TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
         this.recipientService = recipientService;
         this.groqService = groqService;
+        this.outboxService = outboxService;
+        this.messageStatusService = messageStatusService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
     }
     
     private static final String[] MORNING_GREETINGS = {
@@ -83,10 +102,15 @@ public class WellnessCheckService {
             String message = generateWellnessMessage(request.getName(), 
                     request.getCustomMessage(), request.getTimeOfDay());
             
-            String messageId = sendWhatsAppMessage(request.getPhoneNumber(), message);
-            
-            // Update last check sent time if this is a known recipient
-            recipientService.updateLastCheckSent(request.getPhoneNumber());
+            // Queue the message and mark the check sent together
+            String key = "wellness:" + request.getPhoneNumber() + ":" + UUID.randomUUID();
+            OutboundMessage queued = transactionTemplate.execute(status -> {
+                OutboundMessage outbound = outboxService.enqueue("wellness", request.getPhoneNumber(), message, key);
+                // Update last check sent time if this is a known recipient
+                recipientService.updateLastCheckSent(request.getPhoneNumber());
+                return outbound;
+            });
+            String messageId = "outbox_" + queued.getId();
             
             return WellnessCheckResponse.success(
                     request.getName(), 
@@ -96,9 +120,9 @@ public class WellnessCheckService {
             );
             
         } catch (Exception e) {
-            log.error("Error sending wellness check to {} ({})", request.getName(), request.getPhoneNumber(), e);
+            log.error("Error queueing wellness check to {} ({})", request.getName(), request.getPhoneNumber(), e);
             return WellnessCheckResponse.error(
-                    "Failed to send wellness check: " + e.getMessage(),
+                    "Failed to queue wellness check: " + e.getMessage(),
                     request.getName(),
                     request.getPhoneNumber()
             );
@@ -133,29 +157,93 @@ public class WellnessCheckService {
 
         log.info("Starting {} wellness checks at {} ({})", recipientsDue.size(), currentHour, timeOfDay);
 
-        for (RecipientEntity recipient : recipientsDue) {
-            try {
+        Map<String, Integer> unreadStreaks = unreadSkipAfter > 0
+                ? messageStatusService.getUnreadWellnessStreaks(Duration.ofDays(unreadLookbackDays),
+                        Duration.ofHours(unreadGraceHours))
+                : Map.of();
+        LocalDateTime backoffSince = LocalDateTime.now().minusHours(unreadBackoffHours);
+
+        // Queue the messages in batches, each in one transaction with its last-check-sent update;
+        // the outbox dispatcher paces the actual sends
+        String runKey = LocalDate.now() + ":" + timeOfDay;
+        Map<String, String> batch = new LinkedHashMap<>();
+        int batchSize = recipientService.getUpdateBatchSize();
+        int totalQueued = 0;
+        int failed = 0;
+        int backedOff = 0;
+        Timer.Sample fanOut = Timer.start(meterRegistry);
+
+        try {
+            for (RecipientEntity recipient : recipientsDue) {
                 // Check if this is the right time for this recipient
                 if (shouldSendAtThisTime(recipient, timeOfDay)) {
-                    String message = generateWellnessMessage(
+                    if (isBackedOff(recipient, unreadStreaks, backoffSince)) {
+                        backedOff++;
+                        continue;
+                    }
+                    batch.put(recipient.getPhoneNumber(), generateWellnessMessage(
                             recipient.getName(), 
                             recipient.getCustomMessage(), 
                             timeOfDay
-                    );
-                    
-                    String messageId = sendWhatsAppMessage(recipient.getPhoneNumber(), message);
-                    recipientService.updateLastCheckSent(recipient.getPhoneNumber());
+                    ));
                     
-                    log.info("Sent wellness check to {} ({}): {}", 
-                            recipient.getName(), recipient.getPhoneNumber(), messageId);
-                    
-                    // Add delay between messages to avoid rate limiting
-                    Thread.sleep(2000);
+                    if (batch.size() >= batchSize) {
+                        int queued = queueBatch(batch, runKey);
+                        totalQueued += queued;
+                        failed += batch.size() - queued;
+                        batch.clear();
+                    }
                 }
-            } catch (Exception e) {
-                log.error("Failed to send wellness check to {} ({})", 
-                        recipient.getName(), recipient.getPhoneNumber(), e);
             }
+        } finally {
+            // Always queue what was collected, even if the run stopped early
+            if (!batch.isEmpty()) {
+                int queued = queueBatch(batch, runKey);
+                totalQueued += queued;
+                failed += batch.size() - queued;
+            }
+            fanOut.stop(meterRegistry.timer("wellness.fanout", "time_of_day", timeOfDay));
+            meterRegistry.counter("wellness.checks", "outcome", "queued").increment(totalQueued);
+            meterRegistry.counter("wellness.checks", "outcome", "failed").increment(failed);
+            meterRegistry.counter("wellness.checks", "outcome", "backed_off").increment(backedOff);
+        }
+
+        log.info("Completed wellness checks at {} ({}): {} queued, {} backed off after unread checks",
+                currentHour, timeOfDay, totalQueued, backedOff);
+    }
+    
+    /**
+     * Whether a recipient who left their last checks unread already had one within the backoff
+     * window. Recipients with read receipts turned off look like non-readers too, so they are
+     * slowed down rather than skipped outright.
+     */
+    private boolean isBackedOff(RecipientEntity recipient, Map<String, Integer> unreadStreaks,
+                                LocalDateTime backoffSince) {
+        int unread = unreadStreaks.getOrDefault(recipient.getPhoneNumber(), 0);
+        return unread >= unreadSkipAfter
+                && recipient.getLastCheckSent() != null
+                && recipient.getLastCheckSent().isAfter(backoffSince);
+    }
+    
+    /**
+     * Queue one batch of wellness messages and mark them sent in a single transaction. The
+     * idempotency key covers the run, so a rerun of the same slot does not message anyone twice.
+     *
+     * @return how many were queued: the whole batch, or none if the transaction failed
+     */
+    private int queueBatch(Map<String, String> messagesByPhone, String runKey) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                messagesByPhone.forEach((phoneNumber, message) ->
+                        outboxService.enqueue("wellness", phoneNumber, message,
+                                "wellness:" + phoneNumber + ":" + runKey));
+                recipientService.updateLastCheckSent(messagesByPhone.keySet());
+            });
+            log.info("Queued {} wellness checks", messagesByPhone.size());
+            return messagesByPhone.size();
+        } catch (Exception e) {
+            log.error("Failed to queue wellness checks for {} recipients", messagesByPhone.size(), e);
+            return 0;
         }
     }
     
@@ -199,36 +287,6 @@ public class WellnessCheckService {
         return template.replace("{name}", name != null ? name : "friend");
     }
     
-    private String sendWhatsAppMessage(String recipientPhoneNumber, String messageText) {
-        try {
-            WebClient webClient = webClientBuilder
-                    .baseUrl(whatsAppApiBaseUrl)
-                    .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .build();
-            
-            WhatsAppOutgoingMessage outgoingMessage = WhatsAppOutgoingMessage.createTextMessage(
-                    recipientPhoneNumber, 
-                    messageText
-            );
-            
-            String response = webClient
-                    .post()
-                    .uri("/{phoneNumberId}/messages", phoneNumberId)
-                    .body(Mono.just(outgoingMessage), WhatsAppOutgoingMessage.class)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            log.debug("WhatsApp API response: {}", response);
-            return "wellness_" + System.currentTimeMillis();
-            
-        } catch (Exception e) {
-            log.error("Error sending WhatsApp wellness check message to {}", recipientPhoneNumber, e);
-            throw new RuntimeException("Failed to send WhatsApp message", e);
-        }
-    }
-    
     /**
      * Get wellness check statistics
      */
@@ -0,0 +1,189 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.WhatsAppOutgoingMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+
+/**
+ * The one place that calls the Graph API's messages endpoint. Used by the outbox dispatcher;
+ * everything else queues its messages through {@link OutboxService}. Every response is fed
+ * back to the {@link GraphRateLimiter}.
+ */
+@Service
+public class WhatsAppSender {
+
+    private static final Logger log = LoggerFactory.getLogger(WhatsAppSender.class);
+
+    @Value("${whatsapp.api.access-token}")
+    private String accessToken;
+
+    @Value("${whatsapp.api.phone-number-id}")
+    private String phoneNumberId;
+
+    @Value("${whatsapp.api.base-url:https://graph.facebook.com/v18.0}")
+    private String whatsAppApiBaseUrl;
+
+    private final WebClient.Builder webClientBuilder;
+    private final ObjectMapper objectMapper;
+    private final ObservationRegistry observationRegistry;
+    private final GraphRateLimiter rateLimiter;
+
+    private volatile WebClient webClient;
+
+    public WhatsAppSender(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+                          ObservationRegistry observationRegistry, GraphRateLimiter rateLimiter) {
+        this.webClientBuilder = webClientBuilder;
+        this.objectMapper = objectMapper;
+        this.observationRegistry = observationRegistry;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Send a text message, observed as whatsapp.send with the given kind (reply, report, ...)
+     *
+     * @return the WhatsApp message ID (wamid) Graph assigned
+     * @throws SendException if Graph rejected the message or could not be reached
+     */
+    public String sendText(String recipientPhoneNumber, String messageText, String kind) {
+        return send(WhatsAppOutgoingMessage.text(recipientPhoneNumber, messageText), kind);
+    }
+
+    /**
+     * Send a text, template or interactive message, observed as whatsapp.send with the given kind
+     *
+     * @return the WhatsApp message ID (wamid) Graph assigned
+     * @throws SendException if Graph rejected the message or could not be reached
+     */
+    public String send(WhatsAppOutgoingMessage outgoingMessage, String kind) {
+        Observation observation = Observation.createNotStarted("whatsapp.send", observationRegistry)
+                .lowCardinalityKeyValue("kind", kind)
+                .start();
+        String outcome = "success";
+        try (Observation.Scope scope = observation.openScope()) {
+            ResponseEntity<String> response = client()
+                    .post()
+                    .uri("/{phoneNumberId}/messages", phoneNumberId)
+                    .bodyValue(outgoingMessage.toJsonBytes())
+                    .retrieve()
+                    .toEntity(String.class)
+                    .block();
+
+            String body = response != null ? response.getBody() : null;
+            rateLimiter.onSuccess(response != null ? response.getHeaders() : null);
+            log.debug("Sent {} {} message to {}. Response: {}", kind, outgoingMessage.getType().getValue(),
+                    outgoingMessage.getTo(), body);
+            return messageId(body);
+
+        } catch (WebClientResponseException e) {
+            int status = e.getStatusCode().value();
+            int errorCode = errorCode(e.getResponseBodyAsString());
+            String message = "Graph API returned " + status + ": " + e.getResponseBodyAsString();
+            if (GraphRateLimiter.isThrottled(status, errorCode)) {
+                outcome = "throttled";
+                observation.error(e);
+                Duration retryAfter = rateLimiter.onThrottled(errorCode, e.getHeaders());
+                throw new SendException(message, status, true, retryAfter, e);
+            }
+            outcome = "error";
+            observation.error(e);
+            // A Graph-side failure is worth another try. Other 4xx won't change on retry.
+            boolean retryable = status == 408 || status >= 500;
+            throw new SendException(message, status, retryable, null, e);
+        } catch (WebClientRequestException e) {
+            outcome = "error";
+            observation.error(e);
+            throw new SendException("Graph API unreachable: " + e.getMessage(), 0, true, null, e);
+        } catch (RuntimeException e) {
+            outcome = "error";
+            observation.error(e);
+            throw new SendException("Send failed: " + e.getMessage(), 0, true, null, e);
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+    }
+
+    private WebClient client() {
+        WebClient client = webClient;
+        if (client == null) {
+            client = webClientBuilder.clone()
+                    .baseUrl(whatsAppApiBaseUrl)
+                    .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .build();
+            webClient = client;
+        }
+        return client;
+    }
+
+    private String messageId(String response) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            JsonNode id = objectMapper.readTree(response).path("messages").path(0).path("id");
+            return id.isMissingNode() ? null : id.asText();
+        } catch (Exception e) {
+            log.warn("Could not read the message ID from the Graph API response: {}", response);
+            return null;
+        }
+    }
+
+    /**
+     * The Graph error code from an error response, e.g. 130429 for throughput reached; 0 if none
+     */
+    private int errorCode(String responseBody) {
+        if (responseBody == null || responseBody.isEmpty()) {
+            return 0;
+        }
+        try {
+            return objectMapper.readTree(responseBody).path("error").path("code").asInt(0);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A send that did not go through, with the HTTP status (0 if there was no response),
+     * whether trying again later could succeed, and how long to wait first if Graph said so
+     */
+    public static class SendException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+        private final boolean retryable;
+        private final Duration retryAfter;
+
+        public SendException(String message, int status, boolean retryable, Duration retryAfter, Throwable cause) {
+            super(message, cause);
+            this.status = status;
+            this.retryable = retryable;
+            this.retryAfter = retryAfter;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+}
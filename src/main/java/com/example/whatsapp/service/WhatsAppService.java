@@ -1,60 +1,62 @@
 package com.example.whatsapp.service;
 
+import com.example.whatsapp.dto.InboundMessage;
 import com.example.whatsapp.dto.WhatsAppMessageRequest;
 import com.example.whatsapp.dto.WhatsAppMessageResponse;
-import com.example.whatsapp.dto.WhatsAppOutgoingMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
 
 import com.example.whatsapp.entity.RecipientEntity;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class WhatsAppService {
 
     private static final Logger log = LoggerFactory.getLogger(WhatsAppService.class);
 
+    /** Span attribute carrying the inbound WhatsApp message ID */
+    public static final String MESSAGE_ID_KEY = "whatsapp.message_id";
+
     @Value("${whatsapp.webhook.verify-token}")
     private String webhookVerifyToken;
 
-    @Value("${whatsapp.api.access-token}")
-    private String accessToken;
-
-    @Value("${whatsapp.api.phone-number-id}")
-    private String phoneNumberId;
-
-    @Value("${whatsapp.api.base-url:https://graph.facebook.com/v18.0}")
-    private String whatsAppApiBaseUrl;
-
     @Value("${whatsapp.ai.enabled:true}")
     private boolean aiEnabled;
 
-    private final WebClient.Builder webClientBuilder;
     private final GroqService groqService;
     private final AIProviderService aiProviderService;
     private final ConversationHistoryService conversationHistoryService;
     private final ConversationSentimentService conversationSentimentService;
     private final RecipientService recipientService;
+    private final OutboxService outboxService;
+    private final MessageStatusService messageStatusService;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
 
     // Constructor
-    public WhatsAppService(WebClient.Builder webClientBuilder, GroqService groqService,
+    public WhatsAppService(GroqService groqService,
                           AIProviderService aiProviderService, ConversationHistoryService conversationHistoryService,
-                          ConversationSentimentService conversationSentimentService, RecipientService recipientService) {
-        this.webClientBuilder = webClientBuilder;
+                          ConversationSentimentService conversationSentimentService, RecipientService recipientService,
+                          OutboxService outboxService, MessageStatusService messageStatusService,
+                          MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
         this.groqService = groqService;
         this.aiProviderService = aiProviderService;
         this.conversationHistoryService = conversationHistoryService;
         this.conversationSentimentService = conversationSentimentService;
         this.recipientService = recipientService;
+        this.outboxService = outboxService;
+        this.messageStatusService = messageStatusService;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
     }
     
     /**
@@ -69,6 +71,11 @@ public class WhatsAppService {
      */
     public WhatsAppMessageResponse processMessage(WhatsAppMessageRequest request) {
         try {
+            // Delivery receipts for messages we sent; Meta may batch several changes into one webhook
+            if (recordStatuses(request)) {
+                return WhatsAppMessageResponse.success("Statuses recorded", null);
+            }
+
             // Extract message details from the request
             if (request.getEntry() != null && !request.getEntry().isEmpty()) {
                 var entry = request.getEntry().get(0);
@@ -78,47 +85,13 @@ public class WhatsAppService {
                     var value = change.getValue();
                     
                     if (value != null && value.getMessages() != null && !value.getMessages().isEmpty()) {
-                        var message = value.getMessages().get(0);
-                        String senderPhoneNumber = message.getFrom();
-                        String messageType = message.getType();
-                        String messageContent = "";
-                        
-                        // Extract message content based on type
-                        if ("text".equals(messageType) && message.getText() != null) {
-                            messageContent = message.getText().getBody();
-                            log.info("Received text message from {}: {}", senderPhoneNumber, messageContent);
-                            
-                            // Generate and send AI companion response
-                            String responseMessage = generateCompanionResponse(senderPhoneNumber, messageContent);
-                            sendWhatsAppMessage(senderPhoneNumber, responseMessage);
-                            
-                        } else {
-                            log.info("Received {} message from {}", messageType, senderPhoneNumber);
-                            messageContent = String.format("Received %s message", messageType);
-
-                            // For non-text messages, send a personalized acknowledgment
-                            Optional<RecipientEntity> recipient = recipientService.getRecipientByPhoneNumber(senderPhoneNumber);
-                            String name = recipient.map(RecipientEntity::getDisplayName).orElse("there");
-                            String responseMessage = String.format("Thank you for sharing that with me, %s! While I can't see images or other media yet, I'm here to chat with you. How are you feeling today?", name);
-                            sendWhatsAppMessage(senderPhoneNumber, responseMessage);
-                        }
-                        
-                        // Return success response
-                        return WhatsAppMessageResponse.success(
-                            "Message processed successfully",
-                            WhatsAppMessageResponse.MessageData.builder()
-                                .messageId(message.getId())
-                                .recipientPhoneNumber(senderPhoneNumber)
-                                .messageContent(messageContent)
-                                .timestamp(String.valueOf(Instant.now().toEpochMilli()))
-                                .build()
-                        );
+                        return process(InboundMessage.of(value.getMessages().get(0)));
                     }
                 }
             }
             
             // If we reach here, the message structure was not as expected
-            log.warn("Received message with unexpected structure: {}", request);
+            log.warn("Received webhook with unexpected structure (object={})", request.getObject());
             return WhatsAppMessageResponse.success("Message received but not processed", null);
             
         } catch (Exception e) {
@@ -126,6 +99,107 @@ public class WhatsAppService {
             throw new RuntimeException("Failed to process WhatsApp message", e);
         }
     }
+
+    /**
+     * Process one inbound message taken from the webhook by {@link WebhookParser}
+     */
+    public WhatsAppMessageResponse processMessage(InboundMessage message) {
+        try {
+            return process(message);
+        } catch (Exception e) {
+            log.error("Error processing WhatsApp message", e);
+            throw new RuntimeException("Failed to process WhatsApp message", e);
+        }
+    }
+
+    private WhatsAppMessageResponse process(InboundMessage message) {
+        String messageType = message.getType() != null ? message.getType() : "unknown";
+        meterRegistry.counter("whatsapp.webhook.messages", "type", messageType).increment();
+
+        Observation observation = Observation.createNotStarted("whatsapp.process", observationRegistry)
+                .lowCardinalityKeyValue("type", messageType);
+        if (message.getId() != null) {
+            observation.highCardinalityKeyValue(MESSAGE_ID_KEY, message.getId());
+            // Also on the webhook's server span, so the whole trace can be found by message ID
+            Observation webhook = observationRegistry.getCurrentObservation();
+            if (webhook != null) {
+                webhook.highCardinalityKeyValue(MESSAGE_ID_KEY, message.getId());
+            }
+        }
+        return observation.observe(() -> handleMessage(message));
+    }
+
+    /**
+     * Hand any statuses in the webhook to the status store
+     *
+     * @return true if the webhook carried statuses and no messages
+     */
+    private boolean recordStatuses(WhatsAppMessageRequest request) {
+        if (request.getEntry() == null) {
+            return false;
+        }
+        boolean statuses = false;
+        boolean messages = false;
+        for (WhatsAppMessageRequest.Entry entry : request.getEntry()) {
+            if (entry.getChanges() == null) continue;
+            for (WhatsAppMessageRequest.Change change : entry.getChanges()) {
+                WhatsAppMessageRequest.Value value = change.getValue();
+                if (value == null) continue;
+                if (value.getStatuses() != null && !value.getStatuses().isEmpty()) {
+                    messageStatusService.record(value.getStatuses());
+                    statuses = true;
+                }
+                messages |= value.getMessages() != null && !value.getMessages().isEmpty();
+            }
+        }
+        return statuses && !messages;
+    }
+
+    /**
+     * Reply to one inbound message and build the webhook response for it
+     */
+    private WhatsAppMessageResponse handleMessage(InboundMessage message) {
+        String senderPhoneNumber = message.getFrom();
+        String messageType = message.getType();
+        String messageContent = "";
+
+        // Meta redelivers webhooks it got no timely 200 for; the first delivery already queued a reply
+        if (message.getId() != null && outboxService.isQueued(replyKey(message.getId()))) {
+            log.info("Ignoring redelivered message {} from {}", message.getId(), senderPhoneNumber);
+            return WhatsAppMessageResponse.success("Message already processed", null);
+        }
+        
+        // Extract message content based on type
+        if ("text".equals(messageType) && message.getTextBody() != null) {
+            messageContent = message.getTextBody();
+            log.info("Received text message from {}: {}", senderPhoneNumber, messageContent);
+            
+            // Generate and send AI companion response
+            String responseMessage = generateCompanionResponse(senderPhoneNumber, messageContent);
+            queueReply(senderPhoneNumber, responseMessage, message.getId());
+            
+        } else {
+            log.info("Received {} message from {}", messageType, senderPhoneNumber);
+            messageContent = String.format("Received %s message", messageType);
+
+            // For non-text messages, send a personalized acknowledgment
+            Optional<RecipientEntity> recipient = recipientService.getRecipientByPhoneNumber(senderPhoneNumber);
+            String name = recipient.map(RecipientEntity::getDisplayName).orElse("there");
+            String responseMessage = String.format("Thank you for sharing that with me, %s! While I can't see images or other media yet, I'm here to chat with you. How are you feeling today?", name);
+            queueReply(senderPhoneNumber, responseMessage, message.getId());
+        }
+        
+        // Return success response
+        return WhatsAppMessageResponse.success(
+            "Message processed successfully",
+            WhatsAppMessageResponse.MessageData.builder()
+                .messageId(message.getId())
+                .recipientPhoneNumber(senderPhoneNumber)
+                .messageContent(messageContent)
+                .timestamp(String.valueOf(Instant.now().toEpochMilli()))
+                .build()
+        );
+    }
     
     /**
      * Generate a companion response using AI
@@ -173,17 +247,14 @@ public class WhatsAppService {
             // Add user message to conversation history
             conversationHistoryService.addUserMessage(phoneNumber, userMessage);
             
-            // Look up user name for personalized responses
-            Optional<RecipientEntity> recipientOpt = recipientService.getRecipientByPhoneNumber(phoneNumber);
-            String userName = recipientOpt.map(RecipientEntity::getDisplayName).orElse(null);
-
+            // The recipient's name, topics and language hint come from the cached prompt context
             // Generate AI response with multi-provider support
             String response;
             if (aiEnabled && aiProviderService.hasAvailableProviders()) {
                 try {
                     // Get conversation history
                     List<ConversationHistoryService.ChatMessage> conversationHistory = conversationHistoryService.getConversationHistory(phoneNumber);
-                    response = aiProviderService.generateResponse(conversationHistory, userMessage, userName);
+                    response = aiProviderService.generateResponse(conversationHistory, userMessage, phoneNumber);
                     log.debug("Using AI provider service for response generation");
                 } catch (Exception aiException) {
                     log.warn("All AI providers failed, using fallback: {}", aiException.getMessage());
@@ -193,7 +264,7 @@ public class WhatsAppService {
                 // Fallback to Groq service if multi-provider is not available
                 try {
                     List<ConversationHistoryService.ChatMessage> conversationHistory = conversationHistoryService.getConversationHistory(phoneNumber);
-                    response = groqService.generateCompanionResponse(conversationHistory, userMessage);
+                    response = groqService.generateCompanionResponse(conversationHistory, userMessage, phoneNumber);
                     log.debug("Using Groq fallback service for response generation");
                 } catch (Exception groqException) {
                     log.warn("Groq service failed, using static fallback: {}", groqException.getMessage());
@@ -242,34 +313,15 @@ public class WhatsAppService {
     }
     
     /**
-     * Send a message to WhatsApp user
+     * Queue the reply to an inbound message. Keyed by the inbound message ID, so a webhook
+     * Meta delivers twice is only answered once.
      */
-    public void sendWhatsAppMessage(String recipientPhoneNumber, String messageText) {
-        try {
-            WebClient webClient = webClientBuilder
-                    .baseUrl(whatsAppApiBaseUrl)
-                    .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .build();
-            
-            WhatsAppOutgoingMessage outgoingMessage = WhatsAppOutgoingMessage.createTextMessage(
-                    recipientPhoneNumber, 
-                    messageText
-            );
-            
-            String response = webClient
-                    .post()
-                    .uri("/{phoneNumberId}/messages", phoneNumberId)
-                    .body(Mono.just(outgoingMessage), WhatsAppOutgoingMessage.class)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            log.info("Successfully sent WhatsApp message to {}. Response: {}", recipientPhoneNumber, response);
-            
-        } catch (Exception e) {
-            log.error("Error sending WhatsApp message to {}", recipientPhoneNumber, e);
-            // Don't throw exception to avoid breaking the webhook response
-        }
+    private void queueReply(String recipientPhoneNumber, String messageText, String inboundMessageId) {
+        String key = replyKey(inboundMessageId != null ? inboundMessageId : UUID.randomUUID().toString());
+        outboxService.enqueue("reply", recipientPhoneNumber, messageText, key);
+    }
+
+    private static String replyKey(String inboundMessageId) {
+        return "reply:" + inboundMessageId;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). IF NOT EXISTS lets this
+-- run unchanged against databases that Hibernate already created.
+
+CREATE TABLE IF NOT EXISTS recipients (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    phone_number varchar(255) NOT NULL UNIQUE,
+    name varchar(255),
+    email varchar(255),
+    date_of_birth date,
+    preferred_time_of_day varchar(255),
+    timezone varchar(255),
+    relationship varchar(255),
+    notes TEXT,
+    custom_message TEXT,
+    caretaker_name varchar(255),
+    caretaker_phone_number varchar(255),
+    report_preference varchar(255) CHECK (report_preference IN ('EMAIL', 'WHATSAPP', 'BOTH')),
+    enabled boolean,
+    last_check_sent timestamp(6),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS recipient_topics (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    phone_number varchar(255) NOT NULL,
+    topic varchar(255) NOT NULL,
+    topic_type varchar(255) NOT NULL CHECK (topic_type IN ('FAVOURITE', 'CHEER_UP', 'AVOID')),
+    created_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS conversation_sentiments (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    phone_number varchar(255) NOT NULL,
+    user_message TEXT,
+    ai_response TEXT,
+    sentiment_category varchar(255) NOT NULL CHECK (sentiment_category IN ('GREEN', 'AMBER', 'RED')),
+    confidence_score float(53),
+    emotional_indicators TEXT,
+    concern_level varchar(255),
+    reasoning TEXT,
+    timestamp timestamp(6) NOT NULL,
+    requires_attention boolean,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS sentiment_rollups (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    phone_number varchar(255) NOT NULL,
+    bucket_start timestamp(6) NOT NULL,
+    message_count bigint NOT NULL,
+    green_count bigint NOT NULL,
+    amber_count bigint NOT NULL,
+    red_count bigint NOT NULL,
+    confidence_sum float(53) NOT NULL,
+    first_timestamp timestamp(6),
+    last_timestamp timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_sentiment_rollup_bucket UNIQUE (phone_number, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS sentiment_alert_state (
+    phone_number varchar(255) NOT NULL,
+    concerning_count bigint NOT NULL,
+    last_alert_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (phone_number)
+);
+
+CREATE TABLE IF NOT EXISTS sentiment_window_snapshots (
+    phone_number varchar(255) NOT NULL,
+    events TEXT,
+    event_count integer NOT NULL,
+    last_event_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (phone_number)
+);
+
+CREATE TABLE IF NOT EXISTS weekly_report_jobs (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    report_week date NOT NULL,
+    status varchar(255) NOT NULL CHECK (status IN ('RUNNING', 'COMPLETED')),
+    trigger_type varchar(255),
+    total_recipients integer NOT NULL,
+    started_at timestamp(6),
+    completed_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS weekly_report_job_items (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    job_id bigint NOT NULL,
+    phone_number varchar(255) NOT NULL,
+    status varchar(255) NOT NULL CHECK (status IN ('PENDING', 'SENT', 'PARTIAL', 'FAILED')),
+    email_sent boolean NOT NULL,
+    whatsapp_sent boolean NOT NULL,
+    error varchar(500),
+    updated_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_report_job_item UNIQUE (job_id, phone_number)
+);
+
+CREATE INDEX IF NOT EXISTS idx_report_job_item_status ON weekly_report_job_items (job_id, status);
@@ -0,0 +1,11 @@
+-- Composite indexes for the (timestamp, id) keyset queries and time-range scans.
+-- H2 has no partial indexes or partitioning; see the PostgreSQL migration for those.
+
+DROP INDEX IF EXISTS idx_sentiment_phone_ts;
+DROP INDEX IF EXISTS idx_sentiment_category_ts;
+DROP INDEX IF EXISTS idx_sentiment_attention_ts;
+
+CREATE INDEX idx_sentiment_phone_ts ON conversation_sentiments (phone_number, timestamp, id);
+CREATE INDEX idx_sentiment_category_ts ON conversation_sentiments (sentiment_category, timestamp, id);
+CREATE INDEX idx_sentiment_attention_ts ON conversation_sentiments (requires_attention, timestamp, id);
+CREATE INDEX idx_sentiment_ts ON conversation_sentiments (timestamp, id);
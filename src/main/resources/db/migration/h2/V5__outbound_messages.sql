@@ -0,0 +1,25 @@
+-- Transactional outbox for WhatsApp sends. Rows are written in the same transaction as the
+-- state they belong to and delivered by OutboxDispatcher with retries; the idempotency key
+-- makes enqueueing the same logical message twice (e.g. a redelivered webhook) a no-op.
+
+CREATE TABLE IF NOT EXISTS outbound_messages (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    idempotency_key varchar(255) NOT NULL,
+    kind varchar(50) NOT NULL,
+    recipient_phone varchar(255) NOT NULL,
+    body TEXT NOT NULL,
+    status varchar(255) NOT NULL CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'DEAD')),
+    attempts integer NOT NULL,
+    next_attempt_at timestamp(6) NOT NULL,
+    locked_until timestamp(6),
+    last_error varchar(500),
+    whatsapp_message_id varchar(255),
+    created_at timestamp(6) NOT NULL,
+    sent_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_outbound_message_key UNIQUE (idempotency_key)
+);
+
+-- The dispatcher's poll: due PENDING rows and SENDING rows whose lease ran out
+CREATE INDEX IF NOT EXISTS idx_outbound_message_due ON outbound_messages (status, next_attempt_at);
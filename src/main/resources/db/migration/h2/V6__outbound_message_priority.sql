@@ -0,0 +1,14 @@
+-- Outbox messages are claimed in priority order (0 reply, 1 caretaker alert, 2 wellness,
+-- 3 report) so conversational replies never wait behind a bulk wellness or report run.
+
+ALTER TABLE outbound_messages ADD COLUMN priority integer NOT NULL DEFAULT 3;
+
+UPDATE outbound_messages SET priority = CASE kind
+    WHEN 'reply' THEN 0
+    WHEN 'caretaker_alert' THEN 1
+    WHEN 'wellness' THEN 2
+    ELSE 3
+END;
+
+DROP INDEX IF EXISTS idx_outbound_message_due;
+CREATE INDEX IF NOT EXISTS idx_outbound_message_due ON outbound_messages (status, priority, next_attempt_at);
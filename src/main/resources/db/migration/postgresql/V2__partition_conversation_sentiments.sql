@@ -0,0 +1,114 @@
+-- Range-partition conversation_sentiments by month on timestamp.
+--
+-- Every query filters on timestamp, so the planner prunes to the months it needs and each
+-- partition's indexes stay small. Old months can later be detached or dropped as a unit.
+-- The primary key must include the partition key, so it becomes (id, timestamp); ids
+-- still come from the one shared sequence and stay unique.
+--
+-- Existing rows are copied into the new table inside this migration's transaction. On a
+-- large table, run it in a maintenance window.
+
+-- Hibernate-created indexes and constraints have schema-wide names, so move them out of the way
+DROP INDEX IF EXISTS idx_sentiment_phone_ts;
+DROP INDEX IF EXISTS idx_sentiment_category_ts;
+DROP INDEX IF EXISTS idx_sentiment_attention_ts;
+ALTER TABLE conversation_sentiments RENAME TO conversation_sentiments_legacy;
+ALTER TABLE conversation_sentiments_legacy RENAME CONSTRAINT conversation_sentiments_pkey TO conversation_sentiments_legacy_pkey;
+ALTER SEQUENCE conversation_sentiments_id_seq OWNED BY NONE;
+
+CREATE TABLE conversation_sentiments (
+    id bigint NOT NULL DEFAULT nextval('conversation_sentiments_id_seq'),
+    phone_number varchar(255) NOT NULL,
+    user_message TEXT,
+    ai_response TEXT,
+    sentiment_category varchar(255) NOT NULL CHECK (sentiment_category IN ('GREEN', 'AMBER', 'RED')),
+    confidence_score float(53),
+    emotional_indicators TEXT,
+    concern_level varchar(255),
+    reasoning TEXT,
+    timestamp timestamp(6) NOT NULL,
+    requires_attention boolean,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE conversation_sentiments_id_seq OWNED BY conversation_sentiments.id;
+
+-- Catches rows outside the monthly partitions, e.g. timestamps far in the past or future
+CREATE TABLE conversation_sentiments_default PARTITION OF conversation_sentiments DEFAULT;
+
+-- Declared on the parent, so every partition gets its own copy
+CREATE INDEX idx_sentiment_phone_ts ON conversation_sentiments (phone_number, timestamp, id);
+CREATE INDEX idx_sentiment_category_ts ON conversation_sentiments (sentiment_category, timestamp, id);
+CREATE INDEX idx_sentiment_attention_ts ON conversation_sentiments (timestamp, id) WHERE requires_attention = true;
+CREATE INDEX idx_sentiment_ts ON conversation_sentiments (timestamp, id);
+
+-- Create the partition for one month, moving any of its rows out of the default partition
+-- first (attaching fails while the default still holds rows in the new range)
+CREATE OR REPLACE FUNCTION create_conversation_sentiment_partition(month_start date) RETURNS boolean AS $$
+DECLARE
+    first_day date := date_trunc('month', month_start)::date;
+    next_month date := (date_trunc('month', month_start) + interval '1 month')::date;
+    partition_name text := 'conversation_sentiments_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE conversation_sentiments INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                   partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM conversation_sentiments_default '
+                   'WHERE timestamp >= %L AND timestamp < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', first_day, next_month, partition_name);
+    -- A matching CHECK lets ATTACH skip scanning the new partition
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (timestamp >= %L AND timestamp < %L)',
+                   partition_name, partition_name || '_range', first_day, next_month);
+    EXECUTE format('ALTER TABLE conversation_sentiments ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, next_month);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+    RETURN true;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Make sure partitions exist from this month through months_ahead months from now;
+-- returns how many were created
+CREATE OR REPLACE FUNCTION ensure_conversation_sentiment_partitions(months_ahead integer) RETURNS integer AS $$
+DECLARE
+    month_start date := date_trunc('month', now())::date;
+    created integer := 0;
+BEGIN
+    FOR i IN 0..months_ahead LOOP
+        IF create_conversation_sentiment_partition((month_start + make_interval(months => i))::date) THEN
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for the existing data (at most ten years back) and the next three months
+DO $$
+DECLARE
+    oldest timestamp;
+    month_start date;
+BEGIN
+    SELECT min(timestamp) INTO oldest FROM conversation_sentiments_legacy
+    WHERE timestamp >= now() - interval '10 years';
+    month_start := date_trunc('month', coalesce(oldest, now()))::date;
+    WHILE month_start < date_trunc('month', now())::date LOOP
+        PERFORM create_conversation_sentiment_partition(month_start);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+    PERFORM ensure_conversation_sentiment_partitions(3);
+END;
+$$;
+
+INSERT INTO conversation_sentiments (id, phone_number, user_message, ai_response, sentiment_category,
+                                     confidence_score, emotional_indicators, concern_level, reasoning,
+                                     timestamp, requires_attention)
+SELECT id, phone_number, user_message, ai_response, sentiment_category,
+       confidence_score, emotional_indicators, concern_level, reasoning,
+       timestamp, requires_attention
+FROM conversation_sentiments_legacy;
+
+DROP TABLE conversation_sentiments_legacy;
+
+ANALYZE conversation_sentiments;
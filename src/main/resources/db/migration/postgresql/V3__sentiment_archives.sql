@@ -0,0 +1,29 @@
+-- Raw conversation_sentiments rows past the retention age are written to gzip NDJSON files
+-- (one file per archived day) and then deleted; these tables record where they went.
+
+CREATE TABLE IF NOT EXISTS sentiment_archives (
+    id bigserial NOT NULL,
+    archive_day date NOT NULL,
+    file_name varchar(500) NOT NULL,
+    row_count bigint NOT NULL,
+    byte_size bigint NOT NULL,
+    max_sentiment_id bigint NOT NULL,
+    status varchar(255) NOT NULL CHECK (status IN ('ARCHIVED', 'PURGED')),
+    created_at timestamp(6),
+    purged_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sentiment_archive_day ON sentiment_archives (archive_day);
+
+-- Which users each archive file holds, so a restore only reads that user's files
+CREATE TABLE IF NOT EXISTS sentiment_archive_users (
+    id bigserial NOT NULL,
+    archive_id bigint NOT NULL,
+    phone_number varchar(255) NOT NULL,
+    row_count integer NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_sentiment_archive_user UNIQUE (archive_id, phone_number)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sentiment_archive_user_phone ON sentiment_archive_users (phone_number, archive_id);
@@ -0,0 +1,15 @@
+-- Topic writes diff against the stored set and batch-insert only new rows; the constraint
+-- keeps concurrent writers from storing the same topic twice. Existing duplicates are
+-- dropped first, keeping the oldest row.
+
+DELETE FROM recipient_topics t
+WHERE EXISTS (
+    SELECT 1 FROM recipient_topics d
+    WHERE d.phone_number = t.phone_number
+      AND d.topic = t.topic
+      AND d.topic_type = t.topic_type
+      AND d.id < t.id
+);
+
+ALTER TABLE recipient_topics
+    ADD CONSTRAINT uk_recipient_topic UNIQUE (phone_number, topic, topic_type);
@@ -0,0 +1,16 @@
+-- Sent, delivered, read and failed receipts from status webhooks. Append only: one narrow row
+-- per receipt, batch-inserted by MessageStatusService. Status is 0 sent, 1 delivered, 2 read,
+-- 3 failed; phone numbers are stored without a leading +.
+
+CREATE TABLE IF NOT EXISTS message_status_events (
+    id bigserial NOT NULL,
+    whatsapp_message_id varchar(128) NOT NULL,
+    recipient_phone varchar(32) NOT NULL,
+    status smallint NOT NULL,
+    event_at timestamp(6) NOT NULL,
+    error_code integer,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_message_status_message ON message_status_events (whatsapp_message_id);
+CREATE INDEX IF NOT EXISTS idx_message_status_recipient ON message_status_events (recipient_phone, event_at);
@@ -0,0 +1,46 @@
+package com.example.whatsapp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Starts the same task on many threads at once, for the alert-state store tests
+ */
+final class ConcurrentCalls {
+
+    private ConcurrentCalls() {
+    }
+
+    /**
+     * Run the task on every thread at once and sum what they return
+     */
+    static int run(int threads, Callable<Integer> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    return task.call();
+                }));
+            }
+            ready.await();
+            start.countDown();
+            int sum = 0;
+            for (Future<Integer> result : results) {
+                sum += result.get();
+            }
+            return sum;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
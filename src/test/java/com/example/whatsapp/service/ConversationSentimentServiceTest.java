@@ -0,0 +1,87 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.entity.RecipientEntity;
+import com.example.whatsapp.repository.ConversationSentimentRepository;
+import com.example.whatsapp.repository.SentimentWindowSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A caretaker alert fires when a message makes a sliding-window rule match, not on every later
+ * message while the rule still matches. The alert cooldown is left at zero so only the rule
+ * edge can keep repeats out.
+ */
+class ConversationSentimentServiceTest {
+
+    private static final String PHONE = "+6591234567";
+    private static final String CARETAKER_PHONE = "+6598765432";
+
+    private SentimentAnalysisService sentimentAnalysisService;
+    private OutboxService outboxService;
+    private ConversationSentimentService service;
+
+    @BeforeEach
+    void setUp() {
+        ConversationSentimentRepository sentimentRepository = mock(ConversationSentimentRepository.class);
+        when(sentimentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RecipientEntity recipient = new RecipientEntity();
+        recipient.setPhoneNumber(PHONE);
+        recipient.setName("Mdm Tan");
+        recipient.setCaretakerName("Wei Ling");
+        recipient.setCaretakerPhoneNumber(CARETAKER_PHONE);
+        RecipientService recipientService = mock(RecipientService.class);
+        when(recipientService.getRecipientByPhoneNumber(PHONE)).thenReturn(Optional.of(recipient));
+
+        sentimentAnalysisService = mock(SentimentAnalysisService.class);
+        outboxService = mock(OutboxService.class);
+        SentimentAlertEngine alertEngine = new SentimentAlertEngine(mock(SentimentWindowSnapshotRepository.class),
+                sentimentRepository, "red-burst:count:RED:3:6h", 256);
+
+        service = new ConversationSentimentService(sentimentRepository, sentimentAnalysisService, recipientService,
+                mock(SentimentRollupService.class), outboxService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new InMemoryAlertStateStore(),
+                alertEngine, mock(SentimentFeedService.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void redBurstFollowedByGreenMessagesAlertsOnce() {
+        when(sentimentAnalysisService.analyzeSentiment(anyString())).thenReturn(
+                SentimentAnalysis.red(0.9, "lonely", "Three RED in a row"),
+                SentimentAnalysis.red(0.9, "lonely", "Three RED in a row"),
+                SentimentAnalysis.red(0.9, "lonely", "Three RED in a row"),
+                SentimentAnalysis.green(0.9, "cheerful", "Feeling better"));
+
+        for (int i = 0; i < 10; i++) {
+            service.analyzeAndStoreSentiment(PHONE, "Message " + i, "Reply");
+        }
+
+        verify(outboxService, times(1)).enqueue(eq("caretaker_alert"), eq(CARETAKER_PHONE), anyString(), anyString());
+    }
+
+    @Test
+    void ongoingRedMessagesDoNotAlertAgainWhileTheRuleStillMatches() {
+        when(sentimentAnalysisService.analyzeSentiment(anyString())).thenReturn(
+                SentimentAnalysis.red(0.9, "lonely", "Still RED"));
+
+        for (int i = 0; i < 10; i++) {
+            service.analyzeAndStoreSentiment(PHONE, "Message " + i, "Reply");
+        }
+
+        verify(outboxService, times(1)).enqueue(eq("caretaker_alert"), eq(CARETAKER_PHONE), anyString(), anyString());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.whatsapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The shared store against the Flyway schema on H2: concurrent increments from many callers
+ * are all counted, and exactly one caller wins the alert per cooldown window, also when the
+ * claim runs inside the caller's transaction.
+ */
+@DataJpaTest
+@Import(DatabaseAlertStateStore.class)
+// No test-managed transaction: each case sets up the transactions it needs
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatabaseAlertStateStoreTest {
+
+    private static final int THREADS = 32;
+    private static final int CALLS_PER_THREAD = 200;
+
+    @Autowired
+    private DatabaseAlertStateStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Increments and resets commit on their own, as in the application
+    @Test
+    void concurrentIncrementsAreAllCounted() throws Exception {
+        String phone = "+6590000001";
+        ConcurrentCalls.run(THREADS, () -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                store.incrementConcerningCount(phone);
+            }
+            return 0;
+        });
+
+        assertEquals(THREADS * CALLS_PER_THREAD, store.getConcerningCount(phone));
+    }
+
+    @Test
+    void exactlyOneAlertWinsPerCooldownWindow() throws Exception {
+        String phone = "+6590000002";
+        Duration cooldown = Duration.ofHours(1);
+        for (int window = 0; window < 3; window++) {
+            int wins = ConcurrentCalls.run(THREADS, () -> {
+                int won = 0;
+                for (int i = 0; i < CALLS_PER_THREAD / 4; i++) {
+                    if (store.tryAcquireAlert(phone, cooldown)) {
+                        won++;
+                    }
+                }
+                return won;
+            });
+            assertEquals(1, wins, "alerts won in window " + window);
+
+            // Move the last alert back past the cooldown to open the next window
+            jdbcTemplate.update("UPDATE sentiment_alert_state SET last_alert_at = ? WHERE phone_number = ?",
+                    LocalDateTime.now().minus(cooldown).minusMinutes(1), phone);
+        }
+    }
+
+    // The application claims the alert and queues its message in one transaction. Every user
+    // here is new, so the callers also race to create the row.
+    @Test
+    void claimInsideTheCallersTransactionSurvivesTheRowInsertRace() throws Exception {
+        Duration cooldown = Duration.ofHours(1);
+        for (int user = 0; user < 10; user++) {
+            String phone = "+659100001" + user;
+            int wins = ConcurrentCalls.run(THREADS, () -> {
+                Boolean queued = transactionTemplate.execute(status -> {
+                    if (!store.tryAcquireAlert(phone, cooldown)) {
+                        return false;
+                    }
+                    // Stands in for the outbox insert that shares the transaction
+                    jdbcTemplate.update("UPDATE sentiment_alert_state SET updated_at = ? WHERE phone_number = ?",
+                            LocalDateTime.now(), phone);
+                    return true;
+                });
+                return Boolean.TRUE.equals(queued) ? 1 : 0;
+            });
+            assertEquals(1, wins, "alerts won for user " + user);
+        }
+    }
+}
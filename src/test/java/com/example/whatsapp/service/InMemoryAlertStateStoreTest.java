@@ -0,0 +1,52 @@
+package com.example.whatsapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent messages for one user must not lose increments, and only one caller may win the
+ * caretaker alert per cooldown window.
+ */
+class InMemoryAlertStateStoreTest {
+
+    private static final String PHONE = "+6591234567";
+    private static final int THREADS = 32;
+    private static final int CALLS_PER_THREAD = 200;
+
+    private final InMemoryAlertStateStore store = new InMemoryAlertStateStore();
+
+    @Test
+    void concurrentIncrementsAreAllCounted() throws Exception {
+        ConcurrentCalls.run(THREADS, () -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                store.incrementConcerningCount(PHONE);
+            }
+            return 0;
+        });
+
+        assertEquals(THREADS * CALLS_PER_THREAD, store.getConcerningCount(PHONE));
+    }
+
+    @Test
+    void exactlyOneAlertWinsPerCooldownWindow() throws Exception {
+        Duration cooldown = Duration.ofMillis(500);
+        for (int window = 0; window < 3; window++) {
+            int wins = ConcurrentCalls.run(THREADS, () -> {
+                int won = 0;
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    if (store.tryAcquireAlert(PHONE, cooldown)) {
+                        won++;
+                    }
+                }
+                return won;
+            });
+            assertEquals(1, wins, "alerts won in window " + window);
+
+            // Let the window expire before the next round
+            Thread.sleep(cooldown.toMillis() + 100);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.entity.OutboundMessage;
+import com.example.whatsapp.repository.OutboundMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent enqueues with the same idempotency key, as when Meta redelivers a webhook while
+ * the first delivery is still being handled, queue one message and all get that message back.
+ */
+@DataJpaTest
+@Import(OutboxService.class)
+// Each enqueue commits on its own, as the reply path does
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxServiceTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboundMessageRepository repository;
+
+    @MockBean
+    private OutboxDispatcher dispatcher;
+
+    @Test
+    void concurrentEnqueuesWithOneKeyQueueOneMessage() throws Exception {
+        for (int delivery = 0; delivery < 10; delivery++) {
+            String key = "reply:wamid.redelivered-" + delivery;
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            ConcurrentCalls.run(THREADS, () -> {
+                OutboundMessage message = outboxService.enqueue("reply", "+6591234567", "Hello", key);
+                ids.add(message.getId());
+                return 0;
+            });
+
+            assertEquals(1, ids.size(), "messages returned for " + key);
+            assertEquals(ids.iterator().next(), repository.findByIdempotencyKey(key).orElseThrow().getId());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.InboundMessage;
+import com.example.whatsapp.dto.WhatsAppMessageRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The streaming fast path must pick the same message full binding does, or hand the webhook
+ * to full binding: it never reads a message the bound path would not process.
+ */
+class WebhookParserTest {
+
+    private static final String TEXT = message("wamid.1", "text", "\"text\": {\"body\": \"Good morning\"}");
+    private static final String IMAGE = message("wamid.2", "image",
+            "\"image\": {\"id\": \"media-1\", \"mime_type\": \"image/jpeg\"}");
+    private static final String STATUS = """
+            {"id": "wamid.out-1", "status": "delivered", "timestamp": "1760000100", "recipient_id": "6591234567"}""";
+
+    private final WebhookParser parser = new WebhookParser();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void textMessageMatchesBinding() throws Exception {
+        InboundMessage fast = assertSameAsBinding(webhook(entry(change("\"messages\": [" + TEXT + "]"))));
+
+        assertNotNull(fast);
+        assertEquals("Good morning", fast.getTextBody());
+    }
+
+    @Test
+    void textMessageWithContactsAndUnknownFieldsMatchesBinding() throws Exception {
+        String value = """
+                "messaging_product": "whatsapp",
+                "metadata": {"display_phone_number": "6580000000", "phone_number_id": "123"},
+                "contacts": [{"profile": {"name": "Mdm Tan"}, "wa_id": "6591234567"}],
+                "future_field": {"nested": [1, 2, {"deep": null}]},
+                "messages": [""" + message("wamid.3", "text",
+                "\"text\": {\"body\": \"Caf\\u00e9 \\\"ok\\\" \\ud83d\\ude0a\", \"preview_url\": false}") + "]";
+
+        InboundMessage fast = assertSameAsBinding(webhook(entry(change(value))));
+
+        assertNotNull(fast);
+        assertEquals("Café \"ok\" 😊", fast.getTextBody());
+    }
+
+    @Test
+    void nonTextMessageGoesToBinding() throws Exception {
+        assertNull(assertSameAsBinding(webhook(entry(change("\"messages\": [" + IMAGE + "]")))));
+    }
+
+    @Test
+    void statusWebhookGoesToBinding() throws Exception {
+        assertNull(assertSameAsBinding(webhook(entry(change("\"statuses\": [" + STATUS + "]")))));
+    }
+
+    @Test
+    void textWithStatusesGoesToBinding() throws Exception {
+        assertNull(assertSameAsBinding(webhook(entry(change(
+                "\"messages\": [" + TEXT + "], \"statuses\": [" + STATUS + "]")))));
+    }
+
+    @Test
+    void severalMessagesGoToBinding() throws Exception {
+        assertNull(assertSameAsBinding(webhook(entry(change("\"messages\": [" + TEXT + ", " + TEXT + "]")))));
+    }
+
+    @Test
+    void multiEntryWebhooksGoToBinding() throws Exception {
+        String text = entry(change("\"messages\": [" + TEXT + "]"));
+        String status = entry(change("\"statuses\": [" + STATUS + "]"));
+        String empty = entry(change("\"messages\": []"));
+
+        assertNull(assertSameAsBinding(webhook(text + ", " + text)));
+        assertNull(assertSameAsBinding(webhook(text + ", " + status)));
+        // Binding only reads the first entry, so these text messages are not processed at all
+        assertNull(assertSameAsBinding(webhook(status + ", " + text)));
+        assertNull(assertSameAsBinding(webhook(empty + ", " + text)));
+    }
+
+    @Test
+    void multiChangeWebhooksGoToBinding() throws Exception {
+        String text = change("\"messages\": [" + TEXT + "]");
+        String status = change("\"statuses\": [" + STATUS + "]");
+        String empty = change("\"messaging_product\": \"whatsapp\"");
+
+        assertNull(assertSameAsBinding(webhook(entry(text + ", " + text))));
+        assertNull(assertSameAsBinding(webhook(entry(status + ", " + text))));
+        assertNull(assertSameAsBinding(webhook(entry(empty + ", " + text))));
+    }
+
+    @Test
+    void malformedPayloadGoesToBinding() {
+        assertNull(parser.parseTextMessage("{\"entry\": [{\"changes\": [".getBytes(StandardCharsets.UTF_8)));
+        assertNull(parser.parseTextMessage("[]".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parse the webhook both ways. When the fast path returns a message it must be the one the
+     * bound path processes, with the same fields.
+     *
+     * @return the fast path's message, null if it left the webhook to binding
+     */
+    private InboundMessage assertSameAsBinding(String json) throws Exception {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        InboundMessage fast = parser.parseTextMessage(body);
+        if (fast == null) {
+            return null;
+        }
+        InboundMessage bound = boundMessage(objectMapper.readValue(body, WhatsAppMessageRequest.class));
+        assertNotNull(bound, "fast path read a message binding would not process");
+        assertEquals(bound.getFrom(), fast.getFrom());
+        assertEquals(bound.getId(), fast.getId());
+        assertEquals(bound.getType(), fast.getType());
+        assertEquals(bound.getTextBody(), fast.getTextBody());
+        assertEquals(bound.getTimestamp(), fast.getTimestamp());
+        return fast;
+    }
+
+    /**
+     * The message WhatsAppService processes from a bound webhook: the first entry's first
+     * change's first message, unless the webhook only carries statuses
+     */
+    private static InboundMessage boundMessage(WhatsAppMessageRequest request) {
+        if (request.getEntry() == null || request.getEntry().isEmpty()) {
+            return null;
+        }
+        WhatsAppMessageRequest.Entry entry = request.getEntry().get(0);
+        if (entry.getChanges() == null || entry.getChanges().isEmpty()) {
+            return null;
+        }
+        WhatsAppMessageRequest.Value value = entry.getChanges().get(0).getValue();
+        if (value == null || value.getMessages() == null || value.getMessages().isEmpty()) {
+            return null;
+        }
+        return InboundMessage.of(value.getMessages().get(0));
+    }
+
+    private static String webhook(String entries) {
+        return "{\"object\": \"whatsapp_business_account\", \"entry\": [" + entries + "]}";
+    }
+
+    private static String entry(String changes) {
+        return "{\"id\": \"waba-1\", \"changes\": [" + changes + "]}";
+    }
+
+    private static String change(String value) {
+        return "{\"field\": \"messages\", \"value\": {" + value + "}}";
+    }
+
+    private static String message(String id, String type, String content) {
+        return "{\"from\": \"6591234567\", \"id\": \"" + id + "\", \"timestamp\": \"1760000000\", " +
+                "\"type\": \"" + type + "\", " + content + "}";
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.whatsapp.service;
+
+import com.example.whatsapp.dto.SentimentAnalysis;
+import com.example.whatsapp.dto.WeeklyReport;
+import com.example.whatsapp.entity.ConversationSentiment;
+import com.example.whatsapp.entity.RecipientEntity;
+import com.example.whatsapp.entity.SentimentRollup;
+import com.example.whatsapp.repository.ConversationSentimentRepository;
+import com.example.whatsapp.repository.RecipientRepository;
+import com.example.whatsapp.repository.RecipientTopicRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The report is built from hourly rollups; its trend and score change must match what the raw
+ * rows give, including when the middle of the week falls inside one hour bucket.
+ */
+class WeeklyReportServiceTest {
+
+    private static final String PHONE = "+6591234567";
+    private static final SentimentAnalysis.SentimentCategory[] CATEGORIES = SentimentAnalysis.SentimentCategory.values();
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusMinutes(1);
+
+    private ConversationSentimentRepository sentimentRepository;
+    private SentimentRollupService rollupService;
+    private WeeklyReportService service;
+    private RecipientEntity recipient;
+
+    // Rows the current case stores, newest first
+    private List<ConversationSentiment> rows = List.of();
+    private boolean rowsArchived;
+
+    @BeforeEach
+    void setUp() {
+        sentimentRepository = mock(ConversationSentimentRepository.class);
+        rollupService = mock(SentimentRollupService.class);
+        when(rollupService.getUserRollups(eq(PHONE), any())).thenAnswer(invocation -> rollupsOf(rows));
+        when(sentimentRepository.findCategoriesBetween(eq(PHONE), any(), any(), any())).thenAnswer(invocation -> {
+            if (rowsArchived) {
+                return List.of();
+            }
+            LocalDateTime from = invocation.getArgument(1);
+            LocalDateTime to = invocation.getArgument(2);
+            Limit limit = invocation.getArgument(3);
+            return rows.stream()
+                    .filter(r -> !r.getTimestamp().isBefore(from) && r.getTimestamp().isBefore(to))
+                    .map(ConversationSentiment::getSentimentCategory)
+                    .limit(limit.max())
+                    .toList();
+        });
+
+        service = new WeeklyReportService(sentimentRepository, mock(RecipientRepository.class),
+                mock(RecipientTopicRepository.class), null, rollupService, null, new SimpleMeterRegistry(), 30);
+        recipient = new RecipientEntity();
+        recipient.setPhoneNumber(PHONE);
+        recipient.setName("Mdm Tan");
+    }
+
+    @Test
+    void allMessagesInOneHourAreStable() {
+        rows = rows(new int[]{1, 2, 3, 4, 5}, SentimentAnalysis.SentimentCategory.GREEN);
+
+        WeeklyReport.Sentiment sentiment = service.generateReportData(PHONE, recipient).getSentimentAnalysis();
+
+        assertEquals("Stable", sentiment.getTrend());
+        assertEquals(0L, sentiment.getScoreChange());
+    }
+
+    @Test
+    void allMessagesInOneHourAreStableWhenRowsAreArchived() {
+        rows = rows(new int[]{1, 2, 3, 4, 5}, SentimentAnalysis.SentimentCategory.GREEN);
+        rowsArchived = true;
+
+        WeeklyReport.Sentiment sentiment = service.generateReportData(PHONE, recipient).getSentimentAnalysis();
+
+        assertEquals("Stable", sentiment.getTrend());
+        assertEquals(0L, sentiment.getScoreChange());
+    }
+
+    @Test
+    void rollupsGiveTheSameTrendAsRowsOnSmallWeeks() {
+        Random random = new Random(7);
+        for (int week = 0; week < 500; week++) {
+            // Few distinct hours, so most buckets hold several messages of mixed categories
+            int size = 1 + random.nextInt(30);
+            int hours = 1 + random.nextInt(8);
+            TreeSet<Integer> minutes = new TreeSet<>();
+            while (minutes.size() < size) {
+                minutes.add(random.nextInt(hours) * 60 + random.nextInt(60));
+            }
+            List<ConversationSentiment> weekRows = new ArrayList<>();
+            for (int minute : minutes) {
+                weekRows.add(row(minute, CATEGORIES[random.nextInt(CATEGORIES.length)]));
+            }
+            rows = weekRows;
+
+            WeeklyReportAccumulator expected = WeeklyReportAccumulator.of(rows);
+            WeeklyReport.Sentiment sentiment = service.generateReportData(PHONE, recipient).getSentimentAnalysis();
+
+            String context = "week " + week + " (" + size + " messages over " + hours + " hours)";
+            assertEquals(expected.getTrend(), sentiment.getTrend(), context);
+            assertEquals(Math.round(expected.getRecentAverageScore() - expected.getOlderAverageScore()),
+                    sentiment.getScoreChange(), context);
+        }
+    }
+
+    /**
+     * Rows the given number of minutes before now, newest first
+     */
+    private List<ConversationSentiment> rows(int[] minutesAgo, SentimentAnalysis.SentimentCategory category) {
+        List<ConversationSentiment> result = new ArrayList<>();
+        for (int minute : minutesAgo) {
+            result.add(row(minute, category));
+        }
+        return result;
+    }
+
+    private ConversationSentiment row(int minutesAgo, SentimentAnalysis.SentimentCategory category) {
+        ConversationSentiment sentiment = new ConversationSentiment(PHONE, "Message " + minutesAgo, "Reply",
+                new SentimentAnalysis(category, 0.9, "", "", ""));
+        sentiment.setTimestamp(now.minusMinutes(minutesAgo));
+        return sentiment;
+    }
+
+    private static List<SentimentRollup> rollupsOf(List<ConversationSentiment> rows) {
+        Map<LocalDateTime, SentimentRollup> rollups = new TreeMap<>(Comparator.reverseOrder());
+        for (ConversationSentiment row : rows) {
+            LocalDateTime hour = row.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+            rollups.computeIfAbsent(hour, h -> new SentimentRollup(PHONE, h))
+                    .add(row.getSentimentCategory(), 1, row.getConfidenceScore(), row.getTimestamp(), row.getTimestamp());
+        }
+        return new ArrayList<>(rollups.values());
+    }
+}